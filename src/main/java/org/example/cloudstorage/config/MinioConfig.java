@@ -2,41 +2,112 @@ package org.example.cloudstorage.config;
 
 import io.minio.BucketExistsArgs;
 import io.minio.MakeBucketArgs;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
 import org.example.cloudstorage.config.properties.MinioProperties;
+import org.example.cloudstorage.minio.BlobIndex;
+import org.example.cloudstorage.minio.ChecksumIndex;
 import org.example.cloudstorage.minio.MinioManagementFacade;
+import org.example.cloudstorage.minio.Namespace;
 import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.minio.impl.namespace.NamespacedMinioRepository;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 
 import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Profile("!test")
 @Configuration
 public class MinioConfig {
 
     @Bean
     public MinioClient minioClient(MinioProperties minioProperties) throws Exception {
-        OkHttpClient httpClient = new OkHttpClient.Builder()
+        var client = MinioClient.builder()
+                .endpoint(minioProperties.getUrl())
+                .credentials(minioProperties.getAccessKey(), minioProperties.getSecretKey())
+                .httpClient(httpClient(minioProperties))
+                .build();
+        createBucketIfNotExists(client, minioProperties.getBucketName());
+        return client;
+    }
+
+    @Bean
+    public MinioManagementFacade minioRepository(MinioClient minioClient,
+                                                 MinioProperties minioProperties,
+                                                 MeterRegistry meterRegistry,
+                                                 BlobIndex blobIndex,
+                                                 Namespace namespace,
+                                                 ChecksumIndex checksumIndex) {
+        return new MinioManagementFacade(
+                minioRepository(minioClient, minioProperties, blobIndex, namespace, checksumIndex),
+                minioProperties,
+                meterRegistry);
+    }
+
+    private static MinioRepository minioRepository(MinioClient minioClient,
+                                                   MinioProperties minioProperties,
+                                                   BlobIndex blobIndex,
+                                                   Namespace namespace,
+                                                   ChecksumIndex checksumIndex) {
+        if (!minioProperties.getNamespace().isEnabled()) {
+            return new MinioRepository(
+                    minioClient,
+                    presignClient(minioClient, minioProperties),
+                    multipartClient(minioProperties),
+                    minioProperties.getBucketName(),
+                    minioProperties.getUpload().isDeduplication() ? blobIndex : null,
+                    checksumIndex);
+        }
+
+        if (minioProperties.getUpload().isDeduplication() || minioProperties.getUpload().isPresignedEnabled())
+            throw new IllegalStateException("The namespace does not support deduplication and presigned uploads");
+        var repository = new NamespacedMinioRepository(
+                minioClient,
+                presignClient(minioClient, minioProperties),
+                multipartClient(minioProperties),
+                minioProperties.getBucketName(),
+                namespace,
+                checksumIndex);
+        if (minioProperties.getNamespace().isMigrateOnStartup()) {
+            log.info("Imported {} stored objects into the namespace", repository.importStoredObjects());
+        }
+        return repository;
+    }
+
+    private static OkHttpClient httpClient(MinioProperties minioProperties) {
+        return new OkHttpClient.Builder()
                 .connectTimeout(30, TimeUnit.SECONDS)
                 .writeTimeout(30, TimeUnit.MINUTES)
                 .readTimeout(30, TimeUnit.MINUTES)
+                .connectionPool(new ConnectionPool(minioProperties.getMaxIdleConnections(), 5, TimeUnit.MINUTES))
                 .build();
+    }
 
-        var client = MinioClient.builder()
+    /**
+     * Async client for the multipart upload calls {@link MinioClient} does not expose.
+     */
+    private static MinioAsyncClient multipartClient(MinioProperties minioProperties) {
+        return MinioAsyncClient.builder()
                 .endpoint(minioProperties.getUrl())
                 .credentials(minioProperties.getAccessKey(), minioProperties.getSecretKey())
-                .httpClient(httpClient)
+                .httpClient(httpClient(minioProperties))
                 .build();
-        createBucketIfNotExists(client, minioProperties.getBucketName());
-        return client;
     }
 
-    @Bean
-    public MinioManagementFacade minioRepository(MinioClient minioClient, MinioProperties minioProperties) {
-        return new MinioManagementFacade(new MinioRepository(minioClient, minioProperties.getBucketName()));
+    private static MinioClient presignClient(MinioClient minioClient, MinioProperties minioProperties) {
+        if (minioProperties.getPublicUrl() == null || minioProperties.getPublicUrl().isBlank()) return minioClient;
+        // the region is set, so signing does not look it up from the public endpoint
+        return MinioClient.builder()
+                .endpoint(minioProperties.getPublicUrl())
+                .credentials(minioProperties.getAccessKey(), minioProperties.getSecretKey())
+                .region(minioProperties.getRegion())
+                .build();
     }
 
     private static void createBucketIfNotExists(MinioClient minioClient, String bucketName) throws Exception {
@@ -0,0 +1,18 @@
+package org.example.cloudstorage.config.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.jobs")
+public class JobProperties {
+    private int concurrency = 4;
+    private int queueCapacity = 100;
+    private Duration progressInterval = Duration.ofSeconds(1);
+    private Duration retention = Duration.ofHours(24);
+    private Duration eventsTimeout = Duration.ofMinutes(30);
+}
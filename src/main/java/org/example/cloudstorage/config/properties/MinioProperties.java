@@ -3,6 +3,11 @@ package org.example.cloudstorage.config.properties;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
 
 @Data
 @Component
@@ -12,4 +17,108 @@ public class MinioProperties {
     private String accessKey;
     private String secretKey;
     private String bucketName;
+    private String publicUrl;
+    private String region = "us-east-1";
+    private int maxIdleConnections = 64;
+    private Download download = new Download();
+    private Upload upload = new Upload();
+    private Copy copy = new Copy();
+    private Delete delete = new Delete();
+    private Namespace namespace = new Namespace();
+
+    @Data
+    public static class Upload {
+        private int fileConcurrency = 8;
+        private DataSize streamBufferSize = DataSize.ofKilobytes(64);
+        private DataSize partSize = DataSize.ofMegabytes(16);
+        private DataSize parallelThreshold = DataSize.ofMegabytes(64);
+        private int parallelConcurrency = 4;
+        private DataSize parallelMemory = DataSize.ofMegabytes(512);
+        private int partAttempts = 3;
+        private Duration sessionTtl = Duration.ofHours(24);
+        private Duration sessionJanitorInterval = Duration.ofMinutes(15);
+        private boolean presignedEnabled = false;
+        private Duration presignedUrlTtl = Duration.ofMinutes(15);
+        private boolean deduplication = false;
+        private Duration blobGracePeriod = Duration.ofHours(1);
+        private Duration blobCollectorInterval = Duration.ofMinutes(30);
+        private DataSize deltaMinChunkSize = DataSize.ofMegabytes(5);
+        private DataSize deltaAvgChunkSize = DataSize.ofMegabytes(8);
+        private DataSize deltaMaxChunkSize = DataSize.ofMegabytes(32);
+        private int archiveConcurrency = 16;
+        private DataSize archiveEntryBufferSize = DataSize.ofMegabytes(4);
+        private int archiveMaxEntries = 200_000;
+        private DataSize archiveMaxSize = DataSize.ofGigabytes(50);
+        private int archiveMaxRatio = 200;
+    }
+
+    @Data
+    public static class Copy {
+        private int concurrency = 32;
+        private int attempts = 5;
+        private Duration backoff = Duration.ofMillis(200);
+        private int deleteBatchSize = 1000;
+        private DataSize multipartThreshold = DataSize.ofGigabytes(1);
+        private DataSize partSize = DataSize.ofMegabytes(256);
+        private int partConcurrency = 8;
+    }
+
+    @Data
+    public static class Delete {
+        private int batchSize = 1000;
+        private int concurrency = 4;
+    }
+
+    @Data
+    public static class Namespace {
+        private boolean enabled = false;
+        private boolean migrateOnStartup = false;
+    }
+
+    @Data
+    public static class Download {
+        private DataSize bufferSize = DataSize.ofKilobytes(64);
+        private int bufferPoolCapacity = 256;
+        private int readAhead = 8;
+        private DataSize readAheadMemory = DataSize.ofMegabytes(256);
+        private DataSize readAheadMaxObjectSize = DataSize.ofMegabytes(8);
+        private int compressionThreads = Runtime.getRuntime().availableProcessors();
+        private DataSize parallelCompressionThreshold = DataSize.ofMegabytes(16);
+        private DataSize parallelCompressionBlockSize = DataSize.ofKilobytes(128);
+        private Compression compression = new Compression();
+        private boolean resumableZip = false;
+        private int checksumCacheSize = 100_000;
+        private DataSize segmentedFetchThreshold = DataSize.ofMegabytes(256);
+        private DataSize segmentedFetchSegmentSize = DataSize.ofMegabytes(8);
+        private int segmentedFetchConcurrency = 4;
+        private DataSize segmentedFetchMemory = DataSize.ofMegabytes(512);
+        private Duration segmentedFetchStallTimeout = Duration.ofSeconds(30);
+        private int segmentedFetchAttempts = 3;
+        private boolean presignedRedirect = false;
+        private Duration presignedUrlTtl = Duration.ofMinutes(5);
+        private Path archiveCacheDirectory = Path.of(System.getProperty("java.io.tmpdir"), "cloud-storage-archives");
+        private DataSize archiveCacheSize = DataSize.ofGigabytes(2);
+        private DataSize archiveCacheMaxArchiveSize = DataSize.ofMegabytes(256);
+    }
+
+    @Data
+    public static class Compression {
+        private int level = 6;
+        private DataSize minSize = DataSize.ofBytes(128);
+        private Set<String> storedExtensions = new LinkedHashSet<>(List.of(
+                "jpg", "jpeg", "png", "gif", "webp", "heic", "heif", "avif",
+                "mp4", "mov", "mkv", "avi", "webm", "m4v",
+                "mp3", "aac", "ogg", "opus", "flac", "m4a",
+                "zip", "7z", "rar", "gz", "tgz", "bz2", "xz", "zst", "lz4",
+                "docx", "xlsx", "pptx", "odt", "ods", "jar", "apk", "epub", "dmg", "iso"));
+        private Map<String, Integer> extensionLevels = new HashMap<>();
+        private List<String> storedContentTypes = new ArrayList<>(List.of(
+                "image/jpeg", "image/png", "image/gif", "image/webp", "image/heic", "image/avif",
+                "video/*",
+                "audio/mpeg", "audio/aac", "audio/ogg", "audio/flac", "audio/mp4",
+                "application/zip", "application/gzip", "application/x-7z-compressed",
+                "application/x-rar-compressed", "application/x-xz", "application/zstd", "application/x-bzip2"));
+        private DataSize entropySampleSize = DataSize.ofKilobytes(4);
+        private double entropyThreshold = 7.5;
+    }
 }
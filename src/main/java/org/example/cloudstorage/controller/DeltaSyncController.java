@@ -0,0 +1,76 @@
+package org.example.cloudstorage.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import lombok.RequiredArgsConstructor;
+import org.example.cloudstorage.dto.DeltaParametersDto;
+import org.example.cloudstorage.dto.DeltaSyncDto;
+import org.example.cloudstorage.dto.DeltaSyncRequest;
+import org.example.cloudstorage.dto.ResourceResponseDto;
+import org.example.cloudstorage.entity.User;
+import org.example.cloudstorage.service.DeltaSyncService;
+import org.example.cloudstorage.util.validation.Path;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * Delta uploads: the client chunks the new version of a file with the {@code GET /parameters},
+ * {@code POST}s the chunk hashes, {@code PUT}s the chunks reported missing and {@code POST .../commit}s
+ * to replace the file.
+ */
+@Validated
+@RestController
+@RequestMapping("/sync")
+@RequiredArgsConstructor
+public class DeltaSyncController {
+    private final DeltaSyncService deltaSyncService;
+
+    @GetMapping("/parameters")
+    public ResponseEntity<DeltaParametersDto> parameters() {
+        return ResponseEntity.ok(deltaSyncService.parameters());
+    }
+
+    @PostMapping
+    public ResponseEntity<DeltaSyncDto> create(@Path @RequestParam("path") String path,
+                                               @NotBlank @RequestParam("name") String name,
+                                               @Valid @RequestBody DeltaSyncRequest request,
+                                               @AuthenticationPrincipal User user) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(deltaSyncService.create(path, name, request, user));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<DeltaSyncDto> get(@PathVariable("id") String id,
+                                            @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(deltaSyncService.get(id, user));
+    }
+
+    /**
+     * The request body is the chunk.
+     */
+    @PutMapping("/{id}/chunks/{hash}")
+    public ResponseEntity<DeltaSyncDto> uploadChunk(@PathVariable("id") String id,
+                                                    @PathVariable("hash") String hash,
+                                                    HttpServletRequest request,
+                                                    @AuthenticationPrincipal User user) throws IOException {
+        return ResponseEntity.ok(deltaSyncService.uploadChunk(id, hash, request.getInputStream(), user));
+    }
+
+    @PostMapping("/{id}/commit")
+    public ResponseEntity<ResourceResponseDto> commit(@PathVariable("id") String id,
+                                                      @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(deltaSyncService.commit(id, user));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> abort(@PathVariable("id") String id,
+                                      @AuthenticationPrincipal User user) {
+        deltaSyncService.abort(id, user);
+        return ResponseEntity.noContent().build();
+    }
+}
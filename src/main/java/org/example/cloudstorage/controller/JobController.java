@@ -0,0 +1,78 @@
+package org.example.cloudstorage.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.example.cloudstorage.dto.JobDto;
+import org.example.cloudstorage.entity.User;
+import org.example.cloudstorage.service.JobService;
+import org.example.cloudstorage.util.validation.Path;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Long-running operations as background jobs: {@code POST /move}, {@code POST /copy} and {@code POST /delete}
+ * answer 202 with the queued job at once, {@code GET /{id}} polls its progress, {@code GET /{id}/events}
+ * streams it as server-sent {@code progress} events until it finished and {@code DELETE /{id}} cancels it.
+ */
+@Validated
+@RestController
+@RequestMapping("/jobs")
+@RequiredArgsConstructor
+public class JobController {
+
+    private final JobService jobService;
+
+    @PostMapping("/move")
+    public ResponseEntity<JobDto> move(@Path @RequestParam("from") String from,
+                                       @Path @RequestParam("to") String to,
+                                       @AuthenticationPrincipal User user) {
+        return accepted(jobService.move(from, to, user));
+    }
+
+    @PostMapping("/copy")
+    public ResponseEntity<JobDto> copy(@Path @RequestParam("from") String from,
+                                       @Path @RequestParam("to") String to,
+                                       @AuthenticationPrincipal User user) {
+        return accepted(jobService.copy(from, to, user));
+    }
+
+    @PostMapping("/delete")
+    public ResponseEntity<JobDto> delete(@Path @RequestParam("path") String path,
+                                         @AuthenticationPrincipal User user) {
+        return accepted(jobService.delete(path, user));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<JobDto> get(@PathVariable("id") String id,
+                                      @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(jobService.get(id, user));
+    }
+
+    /**
+     * The job stops at its next step; what it did until then is kept.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<JobDto> cancel(@PathVariable("id") String id,
+                                         @AuthenticationPrincipal User user) {
+        return ResponseEntity.accepted().body(jobService.cancel(id, user));
+    }
+
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable("id") String id,
+                             @AuthenticationPrincipal User user) {
+        return jobService.events(id, user);
+    }
+
+    private static ResponseEntity<JobDto> accepted(JobDto job) {
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/jobs/{id}")
+                        .buildAndExpand(job.getId())
+                        .toUri())
+                .body(job);
+    }
+}
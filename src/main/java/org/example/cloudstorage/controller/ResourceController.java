@@ -1,18 +1,34 @@
 package org.example.cloudstorage.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.example.cloudstorage.dto.ArchiveUploadDto;
 import org.example.cloudstorage.dto.ResourceResponseDto;
 import org.example.cloudstorage.entity.User;
+import org.example.cloudstorage.exception.minio.InvalidFileMinioException;
+import org.example.cloudstorage.exception.minio.InvalidPathMinioException;
+import org.example.cloudstorage.model.ArchiveFormat;
+import org.example.cloudstorage.model.ConflictPolicy;
+import org.example.cloudstorage.model.DownloadableResource;
 import org.example.cloudstorage.service.ResourceService;
+import org.example.cloudstorage.util.DownloadResponseUtils;
+import org.example.cloudstorage.util.PathUtils;
 import org.example.cloudstorage.util.validation.Path;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.util.MultiValueMap;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
@@ -21,6 +37,9 @@ import java.util.List;
 @RequestMapping("/resource")
 @RequiredArgsConstructor
 public class ResourceController {
+    private static final int MAX_BATCH_PATHS = 1000;
+    private static final String BATCH_FILE_NAME = "download";
+
     private final ResourceService resourceService;
 
     @GetMapping
@@ -36,37 +55,161 @@ public class ResourceController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Folders are zipped uncompressed, so the download can be resumed, if {@code resumable} is set;
+     * otherwise they are compressed unless resumable zips are configured. A range is always served from
+     * the same representation as the whole download, so resuming a compressed zip never switches layouts.
+     */
     @GetMapping("/download")
-    public ResponseEntity<Resource> download(@Path @RequestParam("path") String path,
-                                             @AuthenticationPrincipal User user) {
-        InputStreamResource object = resourceService.download(path, user);
+    public ResponseEntity<StreamingResponseBody> download(@Path @RequestParam("path") String path,
+                                                          @RequestParam(value = "format", required = false) String format,
+                                                          @RequestParam(value = "resumable", defaultValue = "false")
+                                                          boolean resumable,
+                                                          @RequestHeader HttpHeaders headers,
+                                                          @AuthenticationPrincipal User user,
+                                                          WebRequest request) {
+        ArchiveFormat archiveFormat = ArchiveFormat.negotiate(format, accept(headers));
+        DownloadableResource resource = resourceService.download(
+                path, archiveFormat, resumable, user);
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename(path.endsWith("/") ? archiveFileName(path, archiveFormat) : path, StandardCharsets.UTF_8)
+                .build();
+
+        return DownloadResponseUtils.toResponse(resource, contentDisposition, headers, request);
+    }
+
+    @RequestMapping(path = "/download/batch", method = {RequestMethod.GET, RequestMethod.POST})
+    public ResponseEntity<StreamingResponseBody> downloadBatch(@NotEmpty @Size(max = MAX_BATCH_PATHS)
+                                                               @RequestParam("path") List<@Path String> paths,
+                                                               @RequestParam(value = "format", required = false) String format,
+                                                               @RequestParam(value = "resumable", defaultValue = "false")
+                                                               boolean resumable,
+                                                               @RequestHeader HttpHeaders headers,
+                                                               @AuthenticationPrincipal User user,
+                                                               WebRequest request) {
+        ArchiveFormat archiveFormat = ArchiveFormat.negotiate(format, accept(headers));
+        DownloadableResource resource = resourceService.download(
+                paths, archiveFormat, resumable, user);
         ContentDisposition contentDisposition = ContentDisposition.attachment()
-                .filename(path, StandardCharsets.UTF_8)
+                .filename(BATCH_FILE_NAME + "." + archiveFormat.getExtension())
                 .build();
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_OCTET_STREAM)
-                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
-                .body(object);
+        return DownloadResponseUtils.toResponse(resource, contentDisposition, headers, request);
     }
 
-    @GetMapping("/move")
+    /**
+     * Moves within the request; big moves should rather run as a job, see {@link JobController}.
+     */
+    @RequestMapping(path = "/move", method = {RequestMethod.GET, RequestMethod.POST})
     public ResponseEntity<ResourceResponseDto> move(@Path @RequestParam("from") String from,
                                                     @Path @RequestParam("to") String to,
                                                     @AuthenticationPrincipal User user) {
         return ResponseEntity.ok(resourceService.move(from, to, user));
     }
 
+    /**
+     * Copies within the request; big copies should rather run as a job, see {@link JobController}.
+     */
+    @PostMapping("/copy")
+    public ResponseEntity<ResourceResponseDto> copy(@Path @RequestParam("from") String from,
+                                                    @Path @RequestParam("to") String to,
+                                                    @AuthenticationPrincipal User user) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(resourceService.copy(from, to, user));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<List<ResourceResponseDto>> search(@Path @RequestParam("query") String query,
                                                             @AuthenticationPrincipal User user) {
         return ResponseEntity.ok(resourceService.search(query, user));
     }
 
+    /**
+     * Uploads the files into the directory. {@code conflict} decides what happens to files whose name is taken:
+     * {@code reject} (default) uploads nothing and reports all of them, {@code rename} uploads them under
+     * a free name, {@code overwrite} replaces the existing files and {@code skip} keeps them.
+     */
     @PostMapping
     public ResponseEntity<List<ResourceResponseDto>> upload(@Path @RequestParam("path") String path,
                                                             @RequestParam("object") List<MultipartFile> files,
+                                                            @RequestParam(value = "conflict", required = false) String conflict,
+                                                            @AuthenticationPrincipal User user) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(resourceService.upload(path, files, ConflictPolicy.parse(conflict), user));
+    }
+
+    /**
+     * Same as {@link #upload} but the files are sent to storage while the body is being received
+     * instead of being stored on disk first. {@code path} is read from the query string only,
+     * looking at request parameters would make the container parse the whole body.
+     */
+    @PostMapping(path = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<List<ResourceResponseDto>> uploadStream(HttpServletRequest request,
+                                                                  @AuthenticationPrincipal User user)
+            throws IOException, MissingServletRequestParameterException {
+        MultiValueMap<String, String> query = UriComponentsBuilder.newInstance().query(request.getQueryString()).build()
+                .getQueryParams();
+        String path = query.getFirst("path");
+        if (path == null) throw new MissingServletRequestParameterException("path", "String");
+        path = URLDecoder.decode(path, StandardCharsets.UTF_8);
+        if (!PathUtils.isPathValid(path)) throw new InvalidPathMinioException("Provided path is not valid");
+        ConflictPolicy conflictPolicy = ConflictPolicy.parse(query.getFirst("conflict"));
+
+        String boundary = MediaType.parseMediaType(request.getContentType()).getParameter("boundary");
+        if (boundary == null) throw new InvalidFileMinioException("Multipart boundary is missing");
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(resourceService.upload(path, request.getInputStream(), boundary, conflictPolicy, user));
+    }
+
+    /**
+     * Extracts the zip or tar archive sent as the request body into the directory while it is received.
+     * The format is taken from {@code format} (an extension, e.g. {@code tar.gz}) or the {@code Content-Type}.
+     * An entry which cannot be created (e.g. it exists) fails the whole upload unless {@code atomic} is false,
+     * then it is reported in the response.
+     */
+    @PostMapping("/archive")
+    public ResponseEntity<ArchiveUploadDto> uploadArchive(@Path @RequestParam("path") String path,
+                                                          @RequestParam(value = "format", required = false) String format,
+                                                          @RequestParam(value = "atomic", defaultValue = "true") boolean atomic,
+                                                          @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false)
+                                                          String contentType,
+                                                          HttpServletRequest request,
+                                                          @AuthenticationPrincipal User user) throws IOException {
+        List<MediaType> mediaTypes = contentType == null ? List.of() : List.of(MediaType.parseMediaType(contentType));
+        ArchiveFormat archiveFormat = ArchiveFormat.negotiate(format, mediaTypes);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(resourceService.uploadArchive(path, request.getInputStream(), archiveFormat, atomic, user));
+    }
+
+    /**
+     * Creates a file with content the user stored already, identified by its SHA-256,
+     * so a client which computed the hash does not send the content again.
+     * Responds 404 if the user has no such content; the file has to be uploaded then.
+     */
+    @PostMapping("/dedup")
+    public ResponseEntity<ResourceResponseDto> uploadStored(@Path @RequestParam("path") String path,
+                                                            @RequestParam("name") String name,
+                                                            @RequestParam("sha256") String sha256,
+                                                            @RequestParam(value = "contentType", required = false)
+                                                            String contentType,
                                                             @AuthenticationPrincipal User user) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(resourceService.upload(path, files, user));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(resourceService.uploadStored(path, name, sha256, contentType, user));
+    }
+
+    /**
+     * Folder name with the archive extension, e.g. {@code photos.tar.gz}.
+     */
+    private static String archiveFileName(String folderPath, ArchiveFormat format) {
+        String path = folderPath.substring(0, folderPath.length() - 1);
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        return (name.isEmpty() ? BATCH_FILE_NAME : name) + "." + format.getExtension();
+    }
+
+    private static List<MediaType> accept(HttpHeaders headers) {
+        try {
+            return headers.getAccept();
+        } catch (InvalidMediaTypeException e) {
+            return List.of();
+        }
     }
-}
\ No newline at end of file
+}
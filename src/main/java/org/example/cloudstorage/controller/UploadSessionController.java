@@ -0,0 +1,98 @@
+package org.example.cloudstorage.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import org.example.cloudstorage.dto.PresignedUploadDto;
+import org.example.cloudstorage.dto.ResourceResponseDto;
+import org.example.cloudstorage.dto.UploadSessionDto;
+import org.example.cloudstorage.entity.User;
+import org.example.cloudstorage.service.PresignedUploadService;
+import org.example.cloudstorage.service.UploadSessionService;
+import org.example.cloudstorage.util.validation.Path;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Resumable uploads: {@code POST} creates a session, every chunk is {@code PUT} with its offset,
+ * {@code GET} tells which chunks arrived and {@code POST .../commit} creates the file.
+ * Presigned uploads: {@code POST /presigned} returns URLs to upload the files to MinIO directly,
+ * {@code POST /presigned/commit} creates them.
+ */
+@Validated
+@RestController
+@RequestMapping("/upload")
+@RequiredArgsConstructor
+public class UploadSessionController {
+    private static final int MAX_PRESIGNED_FILES = 1000;
+
+    private final UploadSessionService uploadSessionService;
+    private final PresignedUploadService presignedUploadService;
+
+    @PostMapping
+    public ResponseEntity<UploadSessionDto> create(@Path @RequestParam("path") String path,
+                                                   @NotBlank @RequestParam("name") String name,
+                                                   @RequestParam("size") long size,
+                                                   @RequestParam(value = "contentType", required = false) String contentType,
+                                                   @AuthenticationPrincipal User user) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(uploadSessionService.create(path, name, size, contentType, user));
+    }
+
+    /**
+     * Presigned URLs to PUT the files to; the files exist once committed with {@link #commitPresigned}.
+     */
+    @PostMapping("/presigned")
+    public ResponseEntity<List<PresignedUploadDto>> createPresigned(@Path @RequestParam("path") String path,
+                                                                    @NotEmpty @Size(max = MAX_PRESIGNED_FILES)
+                                                                    @RequestParam("name") List<String> names,
+                                                                    @RequestParam("size") List<Long> sizes,
+                                                                    @AuthenticationPrincipal User user) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(presignedUploadService.create(path, names, sizes, user));
+    }
+
+    @PostMapping("/presigned/commit")
+    public ResponseEntity<List<ResourceResponseDto>> commitPresigned(@NotEmpty @Size(max = MAX_PRESIGNED_FILES)
+                                                                     @RequestParam("id") List<String> ids,
+                                                                     @AuthenticationPrincipal User user) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(presignedUploadService.commit(ids, user));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<UploadSessionDto> get(@PathVariable("id") String id,
+                                                @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(uploadSessionService.get(id, user));
+    }
+
+    /**
+     * The request body is the chunk.
+     */
+    @PutMapping("/{id}")
+    public ResponseEntity<UploadSessionDto> uploadChunk(@PathVariable("id") String id,
+                                                        @RequestParam("offset") long offset,
+                                                        HttpServletRequest request,
+                                                        @AuthenticationPrincipal User user) throws IOException {
+        return ResponseEntity.ok(uploadSessionService.uploadChunk(id, offset, request.getInputStream(), user));
+    }
+
+    @PostMapping("/{id}/commit")
+    public ResponseEntity<ResourceResponseDto> commit(@PathVariable("id") String id,
+                                                      @AuthenticationPrincipal User user) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(uploadSessionService.commit(id, user));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> abort(@PathVariable("id") String id,
+                                      @AuthenticationPrincipal User user) {
+        uploadSessionService.abort(id, user);
+        return ResponseEntity.noContent().build();
+    }
+}
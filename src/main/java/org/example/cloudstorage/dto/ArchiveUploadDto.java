@@ -0,0 +1,19 @@
+package org.example.cloudstorage.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Map;
+
+@Builder
+@Value
+public class ArchiveUploadDto {
+    String path;
+    int files;
+    int directories;
+    long size;
+    /**
+     * Message by entry name of entries which were not extracted.
+     */
+    Map<String, String> failedEntries;
+}
@@ -0,0 +1,13 @@
+package org.example.cloudstorage.dto;
+
+import lombok.Value;
+
+/**
+ * FastCDC parameters clients cut their files with, see {@link org.example.cloudstorage.util.FastCdc}.
+ */
+@Value
+public class DeltaParametersDto {
+    int minChunkSize;
+    int avgChunkSize;
+    int maxChunkSize;
+}
@@ -0,0 +1,20 @@
+package org.example.cloudstorage.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Builder
+@Value
+public class DeltaSyncDto {
+    String id;
+    String path;
+    String name;
+    long size;
+    int chunkCount;
+    /**
+     * Hashes of the chunks the server does not have, to be uploaded before the commit.
+     */
+    List<String> missingChunks;
+}
@@ -0,0 +1,32 @@
+package org.example.cloudstorage.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Chunks of the new version of a file, as cut by the chunking parameters of {@link DeltaParametersDto}.
+ */
+@Value
+public class DeltaSyncRequest {
+    @NotEmpty
+    @Size(max = 10_000)
+    List<@Valid Chunk> chunks;
+
+    @Value
+    public static class Chunk {
+        /**
+         * Hex SHA-256 of the chunk.
+         */
+        @NotBlank
+        String hash;
+
+        @Positive
+        int length;
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.cloudstorage.dto;
+
+import lombok.Builder;
+import lombok.Value;
+import org.example.cloudstorage.model.JobStatus;
+import org.example.cloudstorage.model.JobType;
+
+import java.time.Instant;
+
+/**
+ * Totals are known once the job listed what it works on, 0 before.
+ */
+@Builder
+@Value
+public class JobDto {
+    String id;
+    JobType type;
+    JobStatus status;
+    /**
+     * Moved or deleted resource.
+     */
+    String path;
+    /**
+     * Destination of a move.
+     */
+    String target;
+    long objectsDone;
+    long objectsTotal;
+    long bytesDone;
+    long bytesTotal;
+    boolean cancelRequested;
+    String error;
+    Instant createdAt;
+    Instant finishedAt;
+}
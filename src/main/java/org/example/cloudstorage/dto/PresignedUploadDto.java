@@ -0,0 +1,18 @@
+package org.example.cloudstorage.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Builder
+@Value
+public class PresignedUploadDto {
+    String id;
+    String path;
+    String name;
+    long size;
+    String method;
+    String url;
+    Instant expiresAt;
+}
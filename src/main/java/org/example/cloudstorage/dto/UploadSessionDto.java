@@ -0,0 +1,18 @@
+package org.example.cloudstorage.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Builder
+@Value
+public class UploadSessionDto {
+    String id;
+    String path;
+    String name;
+    long size;
+    long chunkSize;
+    int chunkCount;
+    List<Long> receivedOffsets;
+}
@@ -0,0 +1,40 @@
+package org.example.cloudstorage.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * File content stored once in MinIO, under {@code objectName}, however many files have it.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "blobs")
+public class Blob {
+    /**
+     * Hex SHA-256 of the content.
+     */
+    @Id
+    @Column(nullable = false)
+    private String hash;
+
+    @Column(nullable = false)
+    private String objectName;
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(nullable = false)
+    private long refCount;
+
+    /**
+     * When the last reference was removed; the blob is collected some time after.
+     */
+    private Instant releasedAt;
+}
@@ -0,0 +1,32 @@
+package org.example.cloudstorage.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * File whose object in MinIO is an empty pointer, its content is the blob.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "blob_references")
+public class BlobReference {
+    /**
+     * Complete object name of the file.
+     */
+    @Id
+    @Column(nullable = false)
+    private String path;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "hash", nullable = false)
+    private Blob blob;
+
+    public BlobReference(String path, Blob blob) {
+        this.path = path;
+        this.blob = blob;
+    }
+}
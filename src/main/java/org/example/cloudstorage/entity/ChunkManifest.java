@@ -0,0 +1,44 @@
+package org.example.cloudstorage.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Content-defined chunks of a file synced by delta uploads.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "chunk_manifests")
+public class ChunkManifest {
+    /**
+     * Complete object name of the file.
+     */
+    @Id
+    @Column(nullable = false)
+    private String path;
+
+    /**
+     * ETag of the content the chunks describe; the manifest is stale if the file has another one.
+     */
+    @Column(nullable = false)
+    private String etag;
+
+    /**
+     * One {@code <hash>:<length>} line per chunk, in order.
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String chunks;
+
+    public ChunkManifest(String path, String etag, String chunks) {
+        this.path = path;
+        this.etag = etag;
+        this.chunks = chunks;
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.cloudstorage.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Directory or file of the logical namespace. A path is the names of the nodes from the top level down,
+ * joined by {@code /}; the content of a file is the object {@code objectKey}, which never changes its name.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "namespace_nodes")
+public class NamespaceNode {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    /**
+     * Null at the top level.
+     */
+    private Long parentId;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private boolean directory;
+
+    /**
+     * Null for directories.
+     */
+    private String objectKey;
+
+    @Column(nullable = false)
+    private long size;
+
+    private String etag;
+
+    private String contentType;
+
+    @Column(nullable = false)
+    private Instant modifiedAt;
+}
@@ -0,0 +1,37 @@
+package org.example.cloudstorage.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Object a multipart upload is assembled in, until the upload completes and the object gets its path.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "namespace_uploads")
+public class NamespaceUpload {
+    @Id
+    @Column(nullable = false)
+    private String uploadId;
+
+    @Column(nullable = false)
+    private String objectKey;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public NamespaceUpload(String uploadId, String objectKey) {
+        this.uploadId = uploadId;
+        this.objectKey = objectKey;
+        this.createdAt = Instant.now();
+    }
+}
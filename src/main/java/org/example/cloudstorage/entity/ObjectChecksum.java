@@ -0,0 +1,41 @@
+package org.example.cloudstorage.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * CRC-32 of a MinIO object, which zip archives need and MinIO does not keep.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "object_checksums")
+public class ObjectChecksum {
+    /**
+     * Name of the object holding the content.
+     */
+    @Id
+    @Column(nullable = false)
+    private String objectName;
+
+    /**
+     * ETag of the content the checksum is of, without quotes; the checksum is stale if the object has another one.
+     */
+    @Column(nullable = false)
+    private String etag;
+
+    @Column(nullable = false)
+    private long crc32;
+
+    public ObjectChecksum(String objectName, String etag, long crc32) {
+        this.objectName = objectName;
+        this.etag = etag;
+        this.crc32 = crc32;
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.cloudstorage.exception;
+
+public class OperationCancelledException extends RuntimeException {
+    public OperationCancelledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.cloudstorage.exception;
+
+public class UnsupportedArchiveFormatException extends RuntimeException {
+    public UnsupportedArchiveFormatException(String message) {
+        super(message);
+    }
+}
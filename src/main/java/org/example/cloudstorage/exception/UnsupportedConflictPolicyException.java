@@ -0,0 +1,7 @@
+package org.example.cloudstorage.exception;
+
+public class UnsupportedConflictPolicyException extends RuntimeException {
+    public UnsupportedConflictPolicyException(String message) {
+        super(message);
+    }
+}
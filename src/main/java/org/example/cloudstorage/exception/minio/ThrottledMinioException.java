@@ -0,0 +1,18 @@
+package org.example.cloudstorage.exception.minio;
+
+/**
+ * Storage refused a request because it is overloaded (503, SlowDown); it may succeed later.
+ */
+public class ThrottledMinioException extends MinioException {
+    public ThrottledMinioException(String message) {
+        super(message);
+    }
+
+    public ThrottledMinioException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ThrottledMinioException(Throwable cause) {
+        super(cause);
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.cloudstorage.exception.minio;
+
+import java.util.List;
+
+/**
+ * Files of an upload which exist already.
+ */
+public class UploadConflictMinioException extends ResourceAlreadyExistsMinioException {
+    private final List<String> conflicts;
+
+    /**
+     * @param conflicts names of the conflicting files, as uploaded
+     */
+    public UploadConflictMinioException(List<String> conflicts) {
+        super("Files already exist: " + conflicts);
+        this.conflicts = List.copyOf(conflicts);
+    }
+
+    public List<String> getConflicts() {
+        return conflicts;
+    }
+}
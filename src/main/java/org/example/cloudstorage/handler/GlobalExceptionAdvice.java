@@ -2,9 +2,14 @@ package org.example.cloudstorage.handler;
 
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.exception.UnsupportedArchiveFormatException;
+import org.example.cloudstorage.exception.UnsupportedConflictPolicyException;
 import org.example.cloudstorage.exception.minio.*;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -20,6 +25,18 @@ public class GlobalExceptionAdvice {
         return wrapToProblemDetail(e.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(UnsupportedArchiveFormatException.class)
+    public ProblemDetail handleUnsupportedArchiveFormatException(UnsupportedArchiveFormatException e) {
+        log.debug("UnsupportedArchiveFormatException", e);
+        return wrapToProblemDetail(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(UnsupportedConflictPolicyException.class)
+    public ProblemDetail handleUnsupportedConflictPolicyException(UnsupportedConflictPolicyException e) {
+        log.debug("UnsupportedConflictPolicyException", e);
+        return wrapToProblemDetail(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(InvalidFileMinioException.class)
     public ProblemDetail handleInvalidFileMinioException(InvalidFileMinioException e) {
         log.debug("InvalidFileMinioException", e);
@@ -38,18 +55,38 @@ public class GlobalExceptionAdvice {
         return wrapToProblemDetail(e.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(UploadConflictMinioException.class)
+    public ProblemDetail handleUploadConflictMinioException(UploadConflictMinioException e) {
+        log.debug("UploadConflictMinioException", e);
+        ProblemDetail problemDetail = wrapToProblemDetail(e.getMessage(), HttpStatus.CONFLICT);
+        problemDetail.setProperty("conflicts", e.getConflicts());
+        return problemDetail;
+    }
+
     @ExceptionHandler(ResourceAlreadyExistsMinioException.class)
     public ProblemDetail handleResourceAlreadyExistsMinioException(ResourceAlreadyExistsMinioException e) {
         log.debug("ResourceAlreadyExistsMinioException", e);
         return wrapToProblemDetail(e.getMessage(), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler(ThrottledMinioException.class)
+    public ProblemDetail handleThrottledMinioException(ThrottledMinioException e) {
+        log.warn("ThrottledMinioException: {}", e.getMessage());
+        return wrapToProblemDetail("Storage is busy, try again later", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(MinioException.class)
     public ProblemDetail handleMinioException(MinioException e) {
         log.error("MinIO operation failed: {}", e.getMessage(), e);
         return wrapToProblemDetail("Internal server error with storage happened", HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(TaskRejectedException.class)
+    public ProblemDetail handleTaskRejectedException(TaskRejectedException e) {
+        log.warn("TaskRejectedException: {}", e.getMessage());
+        return wrapToProblemDetail("Server is busy, try again later", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(ConstraintViolationException.class)
     public ProblemDetail handleConstraintViolationException(ConstraintViolationException e) {
         log.debug("ConstraintViolationException", e);
@@ -63,6 +100,21 @@ public class GlobalExceptionAdvice {
                 HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ProblemDetail handleMethodArgumentNotValidException(MethodArgumentNotValidException e) {
+        log.debug("MethodArgumentNotValidException", e);
+        return wrapToProblemDetail("Request body is not valid: %s".formatted(e.getBindingResult().getFieldErrors().stream()
+                        .map(error -> error.getField() + " " + error.getDefaultMessage())
+                        .toList()),
+                HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ProblemDetail handleHttpMessageNotReadableException(HttpMessageNotReadableException e) {
+        log.debug("HttpMessageNotReadableException", e);
+        return wrapToProblemDetail("Request body is not readable", HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(NoResourceFoundException.class)
     public ProblemDetail handleNoResourceFoundException(NoResourceFoundException e) {
         log.debug("NoResourceFoundException", e);
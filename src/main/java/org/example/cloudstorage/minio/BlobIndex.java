@@ -0,0 +1,58 @@
+package org.example.cloudstorage.minio;
+
+import org.example.cloudstorage.model.StoredBlob;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Which files are stored as references to deduplicated content, and how many references each content has.
+ * Paths are complete object names.
+ */
+public interface BlobIndex {
+    /**
+     * @return blobs of those paths which are references
+     */
+    Map<String, StoredBlob> find(Collection<String> paths);
+
+    default Optional<StoredBlob> find(String path) {
+        return Optional.ofNullable(find(List.of(path)).get(path));
+    }
+
+    /**
+     * Makes {@code path} a reference to the content, registering {@code objectName} as its blob if it is new.
+     *
+     * @return the blob; if its object is not {@code objectName}, the content was stored already
+     */
+    StoredBlob reference(String path, String hash, String objectName, long size);
+
+    /**
+     * Makes {@code path} a reference to content already referenced by a path starting with {@code ownerPrefix}.
+     *
+     * @return the blob, or empty if there is no such content
+     */
+    Optional<StoredBlob> reference(String path, String hash, String ownerPrefix);
+
+    /**
+     * Makes {@code to} a reference to the content of {@code from}, if that is a reference.
+     */
+    void copyReference(String from, String to);
+
+    /**
+     * Removes the references of those paths which are references.
+     */
+    void release(Collection<String> paths);
+
+    /**
+     * @return blobs without references since before {@code releasedBefore}
+     */
+    List<StoredBlob> findReleased(Instant releasedBefore, int limit);
+
+    /**
+     * @return false if the blob got a reference meanwhile, it must not be deleted then
+     */
+    boolean deleteIfReleased(String hash);
+}
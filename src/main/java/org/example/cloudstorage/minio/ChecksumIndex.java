@@ -0,0 +1,34 @@
+package org.example.cloudstorage.minio;
+
+import org.example.cloudstorage.model.StoredChecksum;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CRC-32 of stored objects, which MinIO does not keep but zip archives need; recorded when an object is
+ * written or first read, so it survives restarts and is shared by all instances. A checksum holds only
+ * while the object has the ETag it was recorded with. Object names are those of the objects holding the content.
+ */
+public interface ChecksumIndex {
+    /**
+     * @param etags ETag of every object, by object name
+     * @return CRC-32 of those objects whose checksum was recorded with that ETag
+     */
+    Map<String, Long> find(Map<String, String> etags);
+
+    /**
+     * Records the checksums, replacing those recorded for other ETags of the objects.
+     */
+    void save(Collection<StoredChecksum> checksums);
+
+    default void save(String objectName, String etag, long crc32) {
+        save(List.of(new StoredChecksum(objectName, etag, crc32)));
+    }
+
+    /**
+     * Forgets the checksums of deleted objects.
+     */
+    void remove(Collection<String> objectNames);
+}
@@ -1,7 +1,33 @@
 package org.example.cloudstorage.minio;
 
-import org.springframework.core.io.InputStreamResource;
+import org.example.cloudstorage.model.ArchiveFormat;
+import org.example.cloudstorage.model.DownloadableResource;
+
+import java.io.InputStream;
+import java.util.List;
 
 public interface MinioDownloadService {
-    InputStreamResource downloadResource(String path);
+    /**
+     * @param format    format a folder is archived in; ignored for files
+     * @param resumable whether a zip must be stored with a layout known in advance, so ranges of it can be
+     *                  downloaded; zips are deflated and streamed otherwise, unless resumable zips are the default
+     */
+    DownloadableResource downloadResource(String path, ArchiveFormat format, boolean resumable);
+
+    /**
+     * Archives several files and folders into one archive; each of them becomes a top-level entry.
+     *
+     * @param rootPath directory all paths must be inside of
+     */
+    DownloadableResource downloadResources(String rootPath, List<String> paths, ArchiveFormat format, boolean resumable);
+
+    /**
+     * @return content of the file, to be closed by the caller
+     */
+    InputStream openObject(String path);
+
+    /**
+     * Stops the background threads once their running work is done.
+     */
+    void shutdown();
 }
@@ -1,13 +1,29 @@
 package org.example.cloudstorage.minio;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.properties.MinioProperties;
 import org.example.cloudstorage.minio.impl.*;
+import org.example.cloudstorage.model.ArchiveFormat;
+import org.example.cloudstorage.model.ConflictPolicy;
+import org.example.cloudstorage.model.DownloadableResource;
+import org.example.cloudstorage.model.ExtractedArchive;
+import org.example.cloudstorage.model.ObjectRange;
+import org.example.cloudstorage.model.OperationProgress;
 import org.example.cloudstorage.model.ResourceMetadata;
-import org.springframework.core.io.InputStreamResource;
+import org.example.cloudstorage.model.StoredObject;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 
 @Slf4j
@@ -26,13 +42,39 @@ public class MinioManagementFacade {
         this(minioRepository, DEFAULT_FOLDER_POSTFIX);
     }
 
+    public MinioManagementFacade(MinioRepository minioRepository, MinioProperties minioProperties, MeterRegistry meterRegistry) {
+        this(minioRepository, DEFAULT_FOLDER_POSTFIX, minioProperties, meterRegistry);
+    }
+
     public MinioManagementFacade(MinioRepository minioRepository, String folderPostfix) {
+        this(minioRepository, folderPostfix, new MinioProperties(), Metrics.globalRegistry);
+    }
+
+    public MinioManagementFacade(MinioRepository minioRepository,
+                                 String folderPostfix,
+                                 MinioProperties minioProperties,
+                                 MeterRegistry meterRegistry) {
         if (folderPostfix == null) throw new IllegalArgumentException("folderPostfix cannot be null");
         this.folderPostfix = folderPostfix;
         this.minioMetadataService = new MinioMetadataServiceImpl(minioRepository, folderPostfix);
         this.minioSearchService = new MinioSearchServiceImpl(minioRepository, folderPostfix);
-        this.minioDownloadService = new MinioDownloadServiceImpl(minioRepository, folderPostfix);
-        this.minioManipulationService = new MinioManipulationServiceImpl(minioRepository, folderPostfix);
+        this.minioDownloadService = new MinioDownloadServiceImpl(
+                minioRepository, folderPostfix, minioProperties.getDownload(), meterRegistry);
+        this.minioManipulationService = new MinioManipulationServiceImpl(
+                minioRepository,
+                folderPostfix,
+                minioProperties.getUpload(),
+                minioProperties.getCopy(),
+                minioProperties.getDelete());
+    }
+
+    /**
+     * Lets uploads, copies and downloads running on background threads finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        minioManipulationService.shutdown();
+        minioDownloadService.shutdown();
     }
 
 
@@ -46,8 +88,24 @@ public class MinioManagementFacade {
     }
 
 
-    public InputStreamResource downloadResource(String path) {
-        return minioDownloadService.downloadResource(path);
+    public Optional<StoredObject> findObject(String path) {
+        return minioMetadataService.findObject(path);
+    }
+
+
+    public InputStream openObject(String path) {
+        return minioDownloadService.openObject(path);
+    }
+
+
+    public DownloadableResource downloadResource(String path, ArchiveFormat format, boolean resumable) {
+        return minioDownloadService.downloadResource(path, format, resumable);
+    }
+
+
+    public DownloadableResource downloadResources(String rootPath, List<String> paths, ArchiveFormat format,
+                                                  boolean resumable) {
+        return minioDownloadService.downloadResources(rootPath, paths, format, resumable);
     }
 
 
@@ -56,8 +114,83 @@ public class MinioManagementFacade {
     }
 
 
-    public void uploadResource(String path, List<MultipartFile> files) {
-        minioManipulationService.uploadResources(path, files);
+    public void uploadResource(String path, List<MultipartFile> files, ConflictPolicy conflictPolicy) {
+        minioManipulationService.uploadResources(path, files, conflictPolicy);
+    }
+
+
+    public void uploadResource(String path, InputStream body, String boundary, ConflictPolicy conflictPolicy) {
+        minioManipulationService.uploadResources(path, body, boundary, conflictPolicy);
+    }
+
+
+    public ExtractedArchive uploadArchive(String path, InputStream body, ArchiveFormat format, boolean atomic) {
+        return minioManipulationService.uploadArchive(path, body, format, atomic);
+    }
+
+
+    public String createMultipartUpload(String path, String contentType) {
+        return minioManipulationService.createMultipartUpload(path, contentType);
+    }
+
+
+    public String uploadPart(String path, String uploadId, int partNumber, InputStream data, int length) {
+        return minioManipulationService.uploadPart(path, uploadId, partNumber, data, length);
+    }
+
+
+    public ResourceMetadata completeMultipartUpload(String path, String uploadId, List<String> etags) {
+        return minioManipulationService.completeMultipartUpload(path, uploadId, etags);
+    }
+
+
+    public void abortMultipartUpload(String path, String uploadId) {
+        minioManipulationService.abortMultipartUpload(path, uploadId);
+    }
+
+
+    public int abortMultipartUploads(ZonedDateTime initiatedBefore, Set<String> keptUploadIds) {
+        return minioManipulationService.abortMultipartUploads(initiatedBefore, keptUploadIds);
+    }
+
+
+    public String presignUpload(String path, String stagedPath, Duration expiry) {
+        return minioManipulationService.presignUpload(path, stagedPath, expiry);
+    }
+
+
+    public ResourceMetadata commitUploadedObject(String stagedPath, String path, long expectedSize) {
+        return minioManipulationService.commitUploadedObject(stagedPath, path, expectedSize);
+    }
+
+
+    public int deleteStagedObjects(String prefix, ZonedDateTime modifiedBefore) {
+        return minioManipulationService.deleteStagedObjects(prefix, modifiedBefore);
+    }
+
+
+    public ResourceMetadata linkStoredContent(String path, String hash, String contentType, String ownerPrefix) {
+        return minioManipulationService.linkStoredContent(path, hash, contentType, ownerPrefix);
+    }
+
+
+    public int collectReleasedBlobs(Instant releasedBefore) {
+        return minioManipulationService.collectReleasedBlobs(releasedBefore);
+    }
+
+
+    public void storeObject(String path, InputStream data, int length, String sha256) {
+        minioManipulationService.storeObject(path, data, length, sha256);
+    }
+
+
+    public void deleteObjects(List<String> paths) {
+        minioManipulationService.deleteObjects(paths);
+    }
+
+
+    public StoredObject composeResource(String path, List<ObjectRange> sources) {
+        return minioManipulationService.composeResource(path, sources);
     }
 
 
@@ -66,11 +199,31 @@ public class MinioManagementFacade {
     }
 
 
+    public void deleteResource(String path, OperationProgress progress) {
+        minioManipulationService.deleteResource(path, progress);
+    }
+
+
     public ResourceMetadata moveResource(String from, String to) {
         return minioManipulationService.moveResource(from, to);
     }
 
 
+    public ResourceMetadata moveResource(String from, String to, OperationProgress progress) {
+        return minioManipulationService.moveResource(from, to, progress);
+    }
+
+
+    public ResourceMetadata copyResource(String from, String to) {
+        return minioManipulationService.copyResource(from, to);
+    }
+
+
+    public ResourceMetadata copyResource(String from, String to, OperationProgress progress) {
+        return minioManipulationService.copyResource(from, to, progress);
+    }
+
+
     public ResourceMetadata createEmptyDirectory(String path) {
         return minioManipulationService.createEmptyDirectory(path, false);
     }
@@ -1,16 +1,181 @@
 package org.example.cloudstorage.minio;
 
+import org.example.cloudstorage.exception.minio.ThrottledMinioException;
+import org.example.cloudstorage.model.ArchiveFormat;
+import org.example.cloudstorage.model.ConflictPolicy;
+import org.example.cloudstorage.model.ExtractedArchive;
+import org.example.cloudstorage.model.ObjectRange;
+import org.example.cloudstorage.model.OperationProgress;
 import org.example.cloudstorage.model.ResourceMetadata;
+import org.example.cloudstorage.model.StoredObject;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Set;
 
 public interface MinioManipulationService {
-    void uploadResources(String path, List<MultipartFile> files);
+    /**
+     * Uploads the files into the directory. Names are checked against the directory before anything is uploaded.
+     *
+     * @param conflictPolicy what is done with files whose name is taken
+     * @throws org.example.cloudstorage.exception.minio.UploadConflictMinioException with all conflicting names,
+     *                                                                               if the policy rejects them
+     */
+    void uploadResources(String path, List<MultipartFile> files, ConflictPolicy conflictPolicy);
+
+    /**
+     * Uploads the files of a multipart/form-data body while it is being received.
+     * Names are checked as the files arrive; after a rejected one, nothing more is uploaded
+     * and what was uploaded is deleted once all conflicts of the body are known.
+     *
+     * @param body     request body
+     * @param boundary multipart boundary
+     */
+    void uploadResources(String path, InputStream body, String boundary, ConflictPolicy conflictPolicy);
+
+    /**
+     * Extracts an archive into the directory and creates the directories of its entries.
+     *
+     * @param atomic whether an entry which cannot be created (e.g. it exists) fails the whole archive;
+     *               otherwise it is reported in {@link ExtractedArchive#failures()}. Archives which are invalid
+     *               or over the limits always fail. What was extracted of a failed archive is deleted.
+     */
+    ExtractedArchive uploadArchive(String path, InputStream body, ArchiveFormat format, boolean atomic);
+
+    /**
+     * Starts a multipart upload of a file whose parts are sent separately.
+     *
+     * @param path complete file path
+     * @return upload id
+     */
+    String createMultipartUpload(String path, String contentType);
+
+    /**
+     * Reads the part into memory taken from the budget shared by all uploads.
+     *
+     * @param data stream of exactly {@code length} bytes
+     * @return ETag of the part
+     * @throws ThrottledMinioException if the budget is exhausted, so the part can be sent again later
+     */
+    String uploadPart(String path, String uploadId, int partNumber, InputStream data, int length);
+
+    /**
+     * Creates the file from its parts, and its missing parent directories.
+     *
+     * @param etags ETags of parts 1 to n
+     */
+    ResourceMetadata completeMultipartUpload(String path, String uploadId, List<String> etags);
+
+    void abortMultipartUpload(String path, String uploadId);
+
+    /**
+     * Aborts unfinished multipart uploads started before {@code initiatedBefore}.
+     *
+     * @param keptUploadIds uploads not to abort
+     * @return number of aborted uploads
+     */
+    int abortMultipartUploads(ZonedDateTime initiatedBefore, Set<String> keptUploadIds);
+
+    /**
+     * @param path       complete path of a file which does not exist yet
+     * @param stagedPath object outside of all user directories the file is uploaded to until it is committed
+     * @return URL the file can be uploaded to directly with a PUT
+     */
+    String presignUpload(String path, String stagedPath, Duration expiry);
+
+    /**
+     * Accepts a file uploaded directly to storage: checks its size, copies it from {@code stagedPath} to
+     * {@code path} unless a file was created there meanwhile, and creates its missing parent directories.
+     * The staged object is deleted, unless the copy failed otherwise, so the commit can be repeated.
+     *
+     * @throws org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException if a file exists at
+     *                                                                                      {@code path}, or the staged
+     *                                                                                      object changed after its check
+     */
+    ResourceMetadata commitUploadedObject(String stagedPath, String path, long expectedSize);
+
+    /**
+     * Deletes staged objects under {@code prefix} which were last written before {@code modifiedBefore}.
+     *
+     * @return number of deleted objects
+     */
+    int deleteStagedObjects(String prefix, ZonedDateTime modifiedBefore);
+
+    /**
+     * Creates a file with deduplicated content the owner stored already, without transferring it.
+     *
+     * @param hash        lowercase hex SHA-256 of the content
+     * @param ownerPrefix prefix of the files of the owner
+     * @throws org.example.cloudstorage.exception.minio.ResourceNotFoundMinioException if the owner has no such content
+     */
+    ResourceMetadata linkStoredContent(String path, String hash, String contentType, String ownerPrefix);
+
+    /**
+     * Deletes deduplicated content without references since before {@code releasedBefore}.
+     *
+     * @return number of deleted blobs
+     */
+    int collectReleasedBlobs(Instant releasedBefore);
+
+    /**
+     * Creates an object which is not a resource of a user, e.g. staged content. The content is read into
+     * memory taken from the budget shared by all uploads and checked against its hash before it is stored.
+     *
+     * @param data   stream of exactly {@code length} bytes
+     * @param sha256 lowercase hex SHA-256 of the content
+     * @throws ThrottledMinioException if the budget is exhausted, so the content can be sent again later
+     * @throws org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException if it exists
+     */
+    void storeObject(String path, InputStream data, int length, String sha256);
+
+    /**
+     * Deletes objects which are not resources of a user; missing ones are ignored.
+     */
+    void deleteObjects(List<String> paths);
+
+    /**
+     * Replaces or creates the file with the concatenation of the sources, copied inside storage,
+     * and creates its missing parent directories. Every source but the last has to be at least 5MB.
+     */
+    StoredObject composeResource(String path, List<ObjectRange> sources);
 
     void deleteResource(String path);
 
+    /**
+     * Objects of a directory are deleted in batches while they are listed; batches failing do not stop
+     * the others, see {@link org.example.cloudstorage.minio.impl.transfer.BatchedObjectDeleter}.
+     *
+     * @param progress receives the deleted objects; cancelling stops the deletion with what is deleted so far
+     */
+    void deleteResource(String path, OperationProgress progress);
+
     ResourceMetadata moveResource(String from, String to);
 
+    /**
+     * @param progress receives the moved objects; cancelling stops a directory move,
+     *                 which then completes when repeated
+     */
+    ResourceMetadata moveResource(String from, String to, OperationProgress progress);
+
+    /**
+     * Copies a file, or a directory with everything in it, inside the storage.
+     */
+    ResourceMetadata copyResource(String from, String to);
+
+    /**
+     * @param progress receives the copied objects; cancelling stops a directory copy,
+     *                 whose objects copied so far are then deleted
+     */
+    ResourceMetadata copyResource(String from, String to, OperationProgress progress);
+
     ResourceMetadata createEmptyDirectory(String path, boolean ignoreExistence);
+
+    /**
+     * Stops the background threads once their running work is done.
+     */
+    void shutdown();
 }
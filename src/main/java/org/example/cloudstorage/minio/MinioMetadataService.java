@@ -1,11 +1,18 @@
 package org.example.cloudstorage.minio;
 
 import org.example.cloudstorage.model.ResourceMetadata;
+import org.example.cloudstorage.model.StoredObject;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface MinioMetadataService {
     ResourceMetadata getResource(String path);
 
     List<ResourceMetadata> listFiles(String path, boolean recursive);
+
+    /**
+     * @return the file, or empty if there is none
+     */
+    Optional<StoredObject> findObject(String path);
 }
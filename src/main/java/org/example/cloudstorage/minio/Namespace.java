@@ -0,0 +1,62 @@
+package org.example.cloudstorage.minio;
+
+import org.example.cloudstorage.model.NamespaceEntry;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tree of directories and files whose content is stored under object keys which never change,
+ * so a file or a directory is moved by changing one entry. Paths are complete object names;
+ * directories exist while they have files, like prefixes of objects.
+ */
+public interface Namespace {
+    /**
+     * @param path file, or directory with a trailing {@code /}
+     */
+    Optional<NamespaceEntry> find(String path);
+
+    /**
+     * Same as listing objects by prefix: the files whose path starts with {@code prefix}, or with
+     * {@code recursive} false only those without a further {@code /}, and the directories the others are in.
+     */
+    List<NamespaceEntry> list(String prefix, boolean recursive);
+
+    /**
+     * Makes {@code objectKey} the content of the file at {@code path}, creating its directories.
+     *
+     * @param overwrite whether an existing file is replaced; otherwise
+     *                  {@link org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException} is thrown
+     * @return object key of the replaced file
+     */
+    Optional<String> put(String path, String objectKey, long size, String etag, String contentType, boolean overwrite);
+
+    /**
+     * Registers the files whose path and object key are both not known yet.
+     *
+     * @return number of files registered
+     */
+    int putAll(List<NamespaceEntry> files);
+
+    /**
+     * Removes the files, and the directories left without files.
+     *
+     * @return object keys of the removed files
+     */
+    List<String> delete(Collection<String> paths);
+
+    /**
+     * Moves a file, or a directory with everything in it, by changing its parent and name.
+     */
+    void rename(String from, String to);
+
+    /**
+     * Remembers the object a multipart upload is assembled in.
+     */
+    void registerUpload(String uploadId, String objectKey);
+
+    Optional<String> findUpload(String uploadId);
+
+    void removeUpload(String uploadId);
+}
@@ -1,77 +1,425 @@
 package org.example.cloudstorage.minio.impl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.minio.StatObjectResponse;
 import io.minio.messages.Item;
 import lombok.extern.slf4j.Slf4j;
-import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.config.properties.MinioProperties;
+import org.example.cloudstorage.exception.minio.InvalidPathMinioException;
+import org.example.cloudstorage.exception.minio.ResourceNotFoundMinioException;
 import org.example.cloudstorage.minio.MinioDownloadService;
+import org.example.cloudstorage.minio.impl.archive.*;
+import org.example.cloudstorage.minio.impl.transfer.SegmentedObjectReader;
+import org.example.cloudstorage.model.ArchiveFormat;
+import org.example.cloudstorage.model.DownloadableResource;
+import org.example.cloudstorage.util.BufferPool;
+import org.example.cloudstorage.util.ExecutorUtils;
+import org.example.cloudstorage.util.MemoryBudget;
 import org.example.cloudstorage.util.PathUtils;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.MediaType;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 public class MinioDownloadServiceImpl implements MinioDownloadService {
 
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
     private final MinioRepository minioRepository;
-    private final String folderPostfix;
+    private final ArchiveEntries archiveEntries;
+    private final BufferPool bufferPool;
+    private final ZipArchiveWriter zipArchiveWriter;
+    private final TarArchiveWriter tarArchiveWriter;
+    private final StoredZipArchiveWriter storedZipArchiveWriter;
+    private final SegmentedObjectReader segmentedObjectReader;
+    private final ArchiveCache archiveCache;
+    private final long segmentedFetchThreshold;
+    private final boolean resumableZip;
+    private final boolean presignedRedirect;
+    private final Duration presignedUrlTtl;
+    private final List<ExecutorService> executors = new ArrayList<>();
 
     public MinioDownloadServiceImpl(MinioRepository minioRepository, String folderPostfix) {
+        this(minioRepository, folderPostfix, new MinioProperties.Download(), Metrics.globalRegistry);
+    }
+
+    public MinioDownloadServiceImpl(MinioRepository minioRepository,
+                                    String folderPostfix,
+                                    MinioProperties.Download properties,
+                                    MeterRegistry meterRegistry) {
         this.minioRepository = minioRepository;
-        this.folderPostfix = folderPostfix;
+        this.archiveEntries = new ArchiveEntries(folderPostfix);
+        this.resumableZip = properties.isResumableZip();
+        this.presignedRedirect = properties.isPresignedRedirect();
+        this.presignedUrlTtl = properties.getPresignedUrlTtl();
+        this.segmentedFetchThreshold = properties.getSegmentedFetchThreshold().toBytes();
+        this.bufferPool = new BufferPool(
+                (int) properties.getBufferSize().toBytes(),
+                properties.getBufferPoolCapacity());
+
+        ExecutorService readAheadExecutor = register(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("minio-read-ahead-", 0).factory()));
+        ObjectPrefetcher objectPrefetcher = new ObjectPrefetcher(
+                minioRepository,
+                readAheadExecutor,
+                new MemoryBudget(properties.getReadAheadMemory().toBytes()),
+                properties.getReadAhead(),
+                properties.getReadAheadMaxObjectSize().toBytes());
+        ParallelDeflateEncoder parallelDeflateEncoder = properties.getCompressionThreads() > 1 ?
+                new ParallelDeflateEncoder(
+                        register(new ForkJoinPool(properties.getCompressionThreads())),
+                        (int) properties.getParallelCompressionBlockSize().toBytes(),
+                        properties.getParallelCompressionThreshold().toBytes()) :
+                null;
+        this.zipArchiveWriter = new ZipArchiveWriter(
+                objectPrefetcher,
+                parallelDeflateEncoder,
+                new CompressionPolicy(properties.getCompression()),
+                new CompressionMetrics(meterRegistry),
+                bufferPool);
+        this.tarArchiveWriter = new TarArchiveWriter(
+                objectPrefetcher,
+                parallelDeflateEncoder,
+                properties.getCompression().getLevel(),
+                bufferPool);
+        this.storedZipArchiveWriter = new StoredZipArchiveWriter(
+                minioRepository,
+                objectPrefetcher,
+                new ObjectChecksums(
+                        minioRepository,
+                        readAheadExecutor,
+                        bufferPool,
+                        Math.max(1, properties.getReadAhead()),
+                        properties.getChecksumCacheSize()),
+                bufferPool);
+        this.segmentedObjectReader = properties.getSegmentedFetchConcurrency() > 1 ?
+                new SegmentedObjectReader(
+                        minioRepository,
+                        register(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("minio-segment-", 0).factory())),
+                        new MemoryBudget(properties.getSegmentedFetchMemory().toBytes()),
+                        (int) properties.getSegmentedFetchSegmentSize().toBytes(),
+                        properties.getSegmentedFetchConcurrency(),
+                        properties.getSegmentedFetchStallTimeout(),
+                        properties.getSegmentedFetchAttempts()) :
+                null;
+        this.archiveCache = properties.getArchiveCacheSize().toBytes() > 0 ?
+                new ArchiveCache(
+                        properties.getArchiveCacheDirectory(),
+                        properties.getArchiveCacheSize().toBytes(),
+                        properties.getArchiveCacheMaxArchiveSize().toBytes(),
+                        bufferPool,
+                        meterRegistry) :
+                null;
     }
 
     @Override
-    public InputStreamResource downloadResource(String path) {
+    public DownloadableResource downloadResource(String path, ArchiveFormat format, boolean resumable) {
         if (path.endsWith("/")) {
-            return downloadAsZip(path);
+            return downloadAsArchive(path, format, isStoredZip(format, resumable));
         }
-        return new InputStreamResource(minioRepository.downloadObject(path));
+        // fail fast with 404 while the response is not committed yet
+        return new ObjectResource(path, minioRepository.getObject(path));
     }
 
+    @Override
+    public InputStream openObject(String path) {
+        return minioRepository.downloadObject(path);
+    }
 
-    private InputStreamResource downloadAsZip(String path) {
+    @Override
+    public void shutdown() {
+        ExecutorUtils.shutdown(executors, SHUTDOWN_TIMEOUT);
+    }
+
+    @Override
+    public DownloadableResource downloadResources(String rootPath, List<String> paths, ArchiveFormat format,
+                                                  boolean resumable) {
+        boolean storedZip = isStoredZip(format, resumable);
+        List<String> selected = paths.stream()
+                .map(PathUtils::normalizePathMinioCompatible)
+                .distinct()
+                .toList();
+        for (String path : selected) {
+            if (!path.startsWith(rootPath))
+                throw new InvalidPathMinioException("Path is outside of the user directory: " + path);
+        }
+        // everything else is inside the root anyway
+        if (selected.contains(rootPath)) return downloadAsArchive(rootPath, format, storedZip);
+
+        UniqueEntryNames names = new UniqueEntryNames();
+        Map<String, Map<String, Item>> filesByParent = new HashMap<>();
+        List<ArchiveEntry> entries = new ArrayList<>();
+        for (String path : selected) {
+            String parent = path.substring(0, path.lastIndexOf('/', path.length() - 2) + 1);
+            if (path.endsWith("/")) {
+                List<Item> items = minioRepository.getListObjects(path, true, !storedZip);
+                if (items.isEmpty()) throw new ResourceNotFoundMinioException("Resource not found: " + path);
+                entries.addAll(archiveEntries.folder(path, items, names.reserve(path.substring(parent.length()))));
+                continue;
+            }
+
+            // one listing per parent folder instead of a stat per file
+            Item item = filesByParent.computeIfAbsent(parent, folder -> listFiles(folder, storedZip)).get(path);
+            if (item == null) throw new ResourceNotFoundMinioException("Resource not found: " + path);
+            entries.add(new ArchiveEntry(names.reserve(path.substring(parent.length())), item));
+        }
+        return archiveResource(entries, format, storedZip);
+    }
+
+    private <T extends ExecutorService> T register(T executor) {
+        executors.add(executor);
+        return executor;
+    }
+
+    /**
+     * Stored zips need no user metadata, as it only guides compression.
+     */
+    private boolean isStoredZip(ArchiveFormat format, boolean resumable) {
+        return format == ArchiveFormat.ZIP && (resumable || resumableZip);
+    }
+
+    private DownloadableResource downloadAsArchive(String path, ArchiveFormat format, boolean storedZip) {
         String downloadPath = PathUtils.normalizePathMinioCompatible(path);
+        List<Item> items = minioRepository.getListObjects(downloadPath, true, !storedZip);
+        return archiveResource(archiveEntries.folder(downloadPath, items, ""), format, storedZip);
+    }
+
+    private DownloadableResource archiveResource(List<ArchiveEntry> entries, ArchiveFormat format, boolean storedZip) {
+        DownloadableResource resource;
+        if (!storedZip) {
+            resource = new StreamedArchiveResource(entries, format);
+        } else {
+            try {
+                resource = new StoredZipResource(storedZipArchiveWriter.layout(entries));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (archiveCache == null || !archiveCache.accepts(entries)) return resource;
+        // stored and deflated zips of the same listing differ
+        String variant = format != ArchiveFormat.ZIP ? format.getExtension() : storedZip ? "stored.zip" : "deflated.zip";
+        return new CachedArchiveResource(ArchiveEntries.fingerprint(entries) + "-" + variant, resource);
+    }
+
+    private Map<String, Item> listFiles(String folder, boolean storedZip) {
+        return minioRepository.getListObjects(folder, false, !storedZip).stream()
+                .filter(item -> !item.isDir())
+                .collect(Collectors.toMap(Item::objectName, Function.identity(), (a, b) -> a));
+    }
+
+    private class ObjectResource implements DownloadableResource {
+        private final String path;
+        private final StatObjectResponse stat;
+
+        ObjectResource(String path, StatObjectResponse stat) {
+            this.path = path;
+            this.stat = stat;
+        }
+
+        @Override
+        public String contentType() {
+            return stat.contentType() == null ? MediaType.APPLICATION_OCTET_STREAM_VALUE : stat.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return stat.size();
+        }
+
+        @Override
+        public String eTag() {
+            if (stat.etag() == null) return null;
+            return stat.etag().startsWith("\"") ? stat.etag() : "\"" + stat.etag() + "\"";
+        }
+
+        @Override
+        public ZonedDateTime lastModified() {
+            return stat.lastModified();
+        }
+
+        @Override
+        public String redirectUrl(String contentDisposition) {
+            if (!presignedRedirect) return null;
+            return minioRepository.getPresignedDownloadUrl(path, presignedUrlTtl, contentDisposition);
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            if (isSegmented(stat.size())) {
+                segmentedObjectReader.copy(path, 0, stat.size() - 1, out);
+                return;
+            }
+            copy(minioRepository.downloadObject(path), out);
+        }
+
+        @Override
+        public void writeTo(OutputStream out, long start, long end) throws IOException {
+            if (isSegmented(end - start + 1)) {
+                segmentedObjectReader.copy(path, start, end, out);
+                return;
+            }
+            copy(minioRepository.downloadObject(path, start, end - start + 1), out);
+        }
+
+        private boolean isSegmented(long length) {
+            return segmentedObjectReader != null && length >= segmentedFetchThreshold;
+        }
 
-        PipedOutputStream out = new PipedOutputStream();
-        Runnable downloadZip = () -> {
-            try (ZipOutputStream zipOut = new ZipOutputStream(out)) {
-                for (Item item : minioRepository.getListObjects(downloadPath, true)) {
-                    String objectName = item.objectName();
-                    InputStream fileStream = minioRepository.downloadObject(objectName);
-
-                    String entryName = item.objectName().endsWith(folderPostfix) ?
-                            item.objectName().substring(downloadPath.length(), objectName.length() - folderPostfix.length()) :
-                            item.objectName().substring(downloadPath.length());
-
-                    zipOut.putNextEntry(new ZipEntry(entryName));
-
-                    byte[] buffer = new byte[1024];
-                    int len;
-                    while ((len = fileStream.read(buffer)) > 0) {
-                        zipOut.write(buffer, 0, len);
-                    }
-                    zipOut.closeEntry();
+        private void copy(InputStream object, OutputStream out) throws IOException {
+            byte[] buffer = bufferPool.acquire();
+            try (object) {
+                int len;
+                while ((len = object.read(buffer)) > 0) {
+                    out.write(buffer, 0, len);
                 }
-                zipOut.finish();
-            } catch (Exception ex) {
-                log.error("Error occurred while downloading object as zip", ex);
+            } finally {
+                bufferPool.release(buffer);
             }
-            log.debug("Zip object downloaded successfully: {}", downloadPath);
-        };
-
-        try (ExecutorService executorService = Executors.newCachedThreadPool()) {
-            executorService.execute(downloadZip);
-            executorService.shutdown();
-            return new InputStreamResource(new PipedInputStream(out));
-        } catch (IOException e) {
-            throw new MinioException("Unable to download folder as zip", e);
+        }
+    }
+
+    private class StreamedArchiveResource implements DownloadableResource {
+        private final List<ArchiveEntry> entries;
+        private final ArchiveFormat format;
+
+        StreamedArchiveResource(List<ArchiveEntry> entries, ArchiveFormat format) {
+            this.entries = entries;
+            this.format = format;
+        }
+
+        @Override
+        public String contentType() {
+            return format.getContentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return -1;
+        }
+
+        @Override
+        public String eTag() {
+            return null;
+        }
+
+        @Override
+        public ZonedDateTime lastModified() {
+            return null;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            switch (format) {
+                case ZIP -> zipArchiveWriter.write(entries, out);
+                case TAR -> tarArchiveWriter.write(entries, out, false);
+                case TAR_GZ -> tarArchiveWriter.write(entries, out, true);
+            }
+        }
+    }
+
+    /**
+     * Archive served from the archive cache, built and cached on a miss.
+     */
+    private class CachedArchiveResource implements DownloadableResource {
+        private final String key;
+        private final DownloadableResource source;
+        private final long cachedLength;
+
+        CachedArchiveResource(String key, DownloadableResource source) {
+            this.key = key;
+            this.source = source;
+            this.cachedLength = archiveCache.length(key);
+        }
+
+        @Override
+        public String contentType() {
+            return source.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return cachedLength >= 0 ? cachedLength : source.contentLength();
+        }
+
+        @Override
+        public String eTag() {
+            if (source.eTag() != null) return source.eTag();
+            return cachedLength >= 0 ? "\"" + key + "\"" : null;
+        }
+
+        @Override
+        public ZonedDateTime lastModified() {
+            return source.lastModified();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            if (cachedLength >= 0 && archiveCache.copy(key, 0, cachedLength - 1, out)) return;
+            archiveCache.write(key, source::writeTo, out);
+        }
+
+        @Override
+        public void writeTo(OutputStream out, long start, long end) throws IOException {
+            if (cachedLength >= 0 && archiveCache.copy(key, start, end, out)) return;
+            if (source.contentLength() >= 0) {
+                source.writeTo(out, start, end);
+                return;
+            }
+            // evicted since the length was taken: the archive is built again, its bytes are the same
+            archiveCache.write(key, source::writeTo, new RangeOutputStream(out, start, end));
+        }
+    }
+
+    private class StoredZipResource implements DownloadableResource {
+        private final ZipLayout layout;
+
+        StoredZipResource(ZipLayout layout) {
+            this.layout = layout;
+        }
+
+        @Override
+        public String contentType() {
+            return ArchiveFormat.ZIP.getContentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return layout.length();
+        }
+
+        @Override
+        public String eTag() {
+            return "\"" + layout.fingerprint() + "\"";
+        }
+
+        @Override
+        public ZonedDateTime lastModified() {
+            return layout.lastModified();
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            writeTo(out, 0, layout.length() - 1);
+        }
+
+        @Override
+        public void writeTo(OutputStream out, long start, long end) throws IOException {
+            storedZipArchiveWriter.write(layout, start, end, out);
         }
     }
 }
@@ -1,60 +1,465 @@
 package org.example.cloudstorage.minio.impl;
 
+import io.minio.StatObjectResponse;
 import io.minio.messages.Item;
+import io.minio.messages.Part;
+import io.minio.messages.Upload;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.properties.MinioProperties;
+import org.example.cloudstorage.exception.OperationCancelledException;
 import org.example.cloudstorage.exception.minio.InvalidFileMinioException;
 import org.example.cloudstorage.exception.minio.InvalidPathMinioException;
+import org.example.cloudstorage.exception.minio.MinioException;
 import org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException;
 import org.example.cloudstorage.exception.minio.ResourceNotFoundMinioException;
+import org.example.cloudstorage.exception.minio.ThrottledMinioException;
 import org.example.cloudstorage.minio.MinioManipulationService;
+import org.example.cloudstorage.minio.impl.archive.ArchiveExtractor;
+import org.example.cloudstorage.minio.impl.dedup.DeduplicatingUploader;
+import org.example.cloudstorage.minio.impl.transfer.BatchedObjectDeleter;
+import org.example.cloudstorage.minio.impl.transfer.ConflictResolver;
+import org.example.cloudstorage.minio.impl.transfer.MultipartObjectCopier;
+import org.example.cloudstorage.minio.impl.transfer.ParallelObjectCopier;
+import org.example.cloudstorage.minio.impl.transfer.ParallelObjectUploader;
+import org.example.cloudstorage.model.ArchiveFormat;
+import org.example.cloudstorage.model.ConflictPolicy;
+import org.example.cloudstorage.model.ExtractedArchive;
+import org.example.cloudstorage.model.ObjectRange;
+import org.example.cloudstorage.model.OperationProgress;
 import org.example.cloudstorage.model.ResourceMetadata;
+import org.example.cloudstorage.model.StoredBlob;
+import org.example.cloudstorage.model.StoredObject;
+import org.example.cloudstorage.util.ExecutorUtils;
+import org.example.cloudstorage.util.MemoryBudget;
+import org.example.cloudstorage.util.MultipartStreamReader;
 import org.example.cloudstorage.util.PathUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
 
+@Slf4j
 public class MinioManipulationServiceImpl implements MinioManipulationService {
 
+    /**
+     * Form field of the uploaded files.
+     */
+    private static final String FILE_FIELD = "object";
+    /**
+     * Released blobs collected per index query.
+     */
+    private static final int BLOB_COLLECTION_BATCH = 1000;
+    /**
+     * Objects per DeleteObjects request, the S3 limit.
+     */
+    private static final int MAX_DELETE_BATCH = 1000;
+    /**
+     * Objects marking directory moves which have not finished.
+     */
+    private static final String MOVE_CHECKPOINT_PREFIX = "move-checkpoints/";
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
     private final MinioRepository minioRepository;
     private final String folderPostfix;
+    private final int fileConcurrency;
+    private final ExecutorService fileUploadExecutor;
+    private final int streamBufferSize;
+    private final long partSize;
+    private final long parallelThreshold;
+    private final MemoryBudget memoryBudget;
+    private final ParallelObjectUploader parallelObjectUploader;
+    private final DeduplicatingUploader deduplicatingUploader;
+    private final ArchiveExtractor archiveExtractor;
+    private final MultipartObjectCopier multipartObjectCopier;
+    private final long multipartCopyThreshold;
+    private final ParallelObjectCopier objectCopier;
+    private final BatchedObjectDeleter objectDeleter;
+    /**
+     * In shutdown order, executors running whole transfers before those running their parts.
+     */
+    private final List<ExecutorService> executors;
 
     public MinioManipulationServiceImpl(MinioRepository minioRepository, String folderPostfix) {
+        this(minioRepository, folderPostfix, new MinioProperties.Upload(), new MinioProperties.Copy(), new MinioProperties.Delete());
+    }
+
+    public MinioManipulationServiceImpl(MinioRepository minioRepository,
+                                       String folderPostfix,
+                                       MinioProperties.Upload properties,
+                                       MinioProperties.Copy copyProperties,
+                                       MinioProperties.Delete deleteProperties) {
         this.minioRepository = minioRepository;
         this.folderPostfix = folderPostfix;
+        this.fileConcurrency = properties.getFileConcurrency();
+        this.fileUploadExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("minio-upload-file-", 0).factory());
+        ExecutorService archiveExecutor =
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("minio-upload-archive-", 0).factory());
+        ExecutorService copyExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("minio-copy-", 0).factory());
+        ExecutorService deleteExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("minio-delete-", 0).factory());
+        ExecutorService partUploadExecutor =
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("minio-upload-part-", 0).factory());
+        ExecutorService partCopyExecutor =
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("minio-copy-part-", 0).factory());
+        this.executors = List.of(
+                fileUploadExecutor, archiveExecutor, copyExecutor, deleteExecutor, partUploadExecutor, partCopyExecutor);
+        this.streamBufferSize = (int) properties.getStreamBufferSize().toBytes();
+        this.partSize = properties.getPartSize().toBytes();
+        this.parallelThreshold = properties.getParallelThreshold().toBytes();
+        this.memoryBudget = new MemoryBudget(properties.getParallelMemory().toBytes());
+        this.parallelObjectUploader = minioRepository.isMultipartUploadSupported() && properties.getParallelConcurrency() > 1 ?
+                new ParallelObjectUploader(
+                        minioRepository,
+                        partUploadExecutor,
+                        memoryBudget,
+                        partSize,
+                        properties.getParallelConcurrency(),
+                        properties.getPartAttempts()) :
+                null;
+        this.deduplicatingUploader = minioRepository.isDeduplicationEnabled() ?
+                new DeduplicatingUploader(minioRepository, minioRepository.getBlobIndex(), this::storeObject) :
+                null;
+        this.archiveExtractor = new ArchiveExtractor(
+                this::uploadObject,
+                archiveExecutor,
+                properties.getArchiveConcurrency(),
+                (int) properties.getArchiveEntryBufferSize().toBytes(),
+                new ArchiveExtractor.Limits(
+                        properties.getArchiveMaxEntries(),
+                        properties.getArchiveMaxSize().toBytes(),
+                        properties.getArchiveMaxRatio()));
+        this.multipartObjectCopier = minioRepository.isMultipartUploadSupported() ?
+                new MultipartObjectCopier(
+                        minioRepository,
+                        partCopyExecutor,
+                        copyProperties.getPartSize().toBytes(),
+                        copyProperties.getPartConcurrency(),
+                        copyProperties.getAttempts()) :
+                null;
+        this.multipartCopyThreshold = copyProperties.getMultipartThreshold().toBytes();
+        this.objectCopier = new ParallelObjectCopier(
+                minioRepository,
+                copyExecutor,
+                copyProperties.getConcurrency(),
+                copyProperties.getAttempts(),
+                copyProperties.getBackoff(),
+                copyProperties.getDeleteBatchSize(),
+                multipartObjectCopier,
+                multipartCopyThreshold);
+        this.objectDeleter = new BatchedObjectDeleter(
+                minioRepository,
+                deleteExecutor,
+                deleteProperties.getBatchSize(),
+                deleteProperties.getConcurrency());
+    }
+
+    @Override
+    public void shutdown() {
+        ExecutorUtils.shutdown(executors, SHUTDOWN_TIMEOUT);
     }
 
     @Override
-    public void uploadResources(String path, List<MultipartFile> files) {
+    public void uploadResources(String path, List<MultipartFile> files, ConflictPolicy conflictPolicy) {
+        for (MultipartFile file : files) {
+            if (file.getOriginalFilename() == null || file.getOriginalFilename().isEmpty())
+                throw new InvalidFileMinioException("File name should not be empty");
+        }
+
+        ConflictResolver resolver = conflictResolver(path, conflictPolicy);
+        List<PlannedFile> plannedFiles = new ArrayList<>();
+        for (MultipartFile file : files) {
+            String fileName = resolver.resolve(file.getOriginalFilename());
+            if (fileName != null) plannedFiles.add(new PlannedFile(file, fileName));
+        }
+        resolver.checkConflicts();
+        logSkipped(path, resolver);
+
         List<String> uploadedFiles = new ArrayList<>();
         try {
-            for (MultipartFile file : files) {
-                if (file.getOriginalFilename() == null || file.getOriginalFilename().isEmpty())
+            uploadFiles(path, plannedFiles, resolver, uploadedFiles);
+            createMissingDirectories(uploadedFiles);
+        } catch (Exception e) {
+            rollbackCreatedObjects(createdObjects(uploadedFiles, resolver), e);
+            throw e;
+        }
+    }
+
+    @Override
+    public void uploadResources(String path, InputStream body, String boundary, ConflictPolicy conflictPolicy) {
+        MultipartStreamReader reader = new MultipartStreamReader(body, boundary, streamBufferSize);
+        ConflictResolver resolver = conflictResolver(path, conflictPolicy);
+        List<String> uploadedFiles = new ArrayList<>();
+        try {
+            boolean received = false;
+            MultipartStreamReader.Part part;
+            while ((part = nextPart(reader)) != null) {
+                if (!FILE_FIELD.equals(part.name())) continue;
+                if (part.fileName() == null || part.fileName().isEmpty())
                     throw new InvalidFileMinioException("File name should not be empty");
+                received = true;
 
-                uploadedFiles.add(minioRepository.uploadObject(path, file, file.getOriginalFilename()));
+                String fileName = resolver.resolve(part.fileName());
+                // after a conflict the rest of the body is only read to report all conflicts
+                if (fileName == null || resolver.hasConflicts()) continue;
+                uploadedFiles.add(uploadObject(path, part.content(), -1, fileName, part.contentType(),
+                        resolver.isOverwritten(PathUtils.normalizePathMinioCompatible(path + fileName))));
             }
+            if (!received)
+                throw new InvalidFileMinioException("No files to upload");
+            resolver.checkConflicts();
+            logSkipped(path, resolver);
             createMissingDirectories(uploadedFiles);
         } catch (Exception e) {
-            rollbackCreatedObjects(uploadedFiles, e);
+            rollbackCreatedObjects(createdObjects(uploadedFiles, resolver), e);
+            throw e;
+        }
+    }
+
+    @Override
+    public ExtractedArchive uploadArchive(String path, InputStream body, ArchiveFormat format, boolean atomic) {
+        if (!isDir(path) && !path.isEmpty())
+            throw new InvalidPathMinioException("Path should be a directory");
+
+        List<String> createdObjects = new ArrayList<>();
+        try {
+            ExtractedArchive archive = archiveExtractor.extract(path, body, format, !atomic, createdObjects);
+            // once per directory instead of once per file
+            for (String directory : archive.directories()) {
+                minioRepository.createEmptyObject(directory + folderPostfix);
+            }
+            return archive;
+        } catch (Exception e) {
+            rollbackCreatedObjects(createdObjects, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public String createMultipartUpload(String path, String contentType) {
+        if (!minioRepository.isMultipartUploadSupported())
+            throw new MinioException("Multipart uploads are not configured");
+        if (existsByPath(path))
+            throw new ResourceAlreadyExistsMinioException("File already exists: " + path);
+
+        return minioRepository.createMultipartUpload(path, contentType);
+    }
+
+    @Override
+    public String uploadPart(String path, String uploadId, int partNumber, InputStream data, int length) {
+        if (!memoryBudget.tryReserve(length))
+            throw new ThrottledMinioException("No memory left for part %d of %s".formatted(partNumber, path));
+        try {
+            byte[] buffer = new byte[length];
+            if (data.readNBytes(buffer, 0, length) != length || data.read() != -1)
+                throw new InvalidFileMinioException("Part %d should have %d bytes".formatted(partNumber, length));
+            return minioRepository.uploadPart(path, uploadId, partNumber, buffer, length).etag();
+        } catch (IOException e) {
+            throw new InvalidFileMinioException("Failed to read part %d".formatted(partNumber), e);
+        } finally {
+            memoryBudget.release(length);
+        }
+    }
+
+    @Override
+    public ResourceMetadata completeMultipartUpload(String path, String uploadId, List<String> etags) {
+        Part[] parts = new Part[etags.size()];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new Part(i + 1, etags.get(i));
+        }
+        minioRepository.completeMultipartUpload(path, uploadId, parts);
+        createMissingDirectories(List.of(path));
+        return new ResourceMetadata(path, false, minioRepository.getObject(path).size());
+    }
+
+    @Override
+    public void abortMultipartUpload(String path, String uploadId) {
+        minioRepository.abortMultipartUpload(path, uploadId);
+    }
+
+    @Override
+    public int abortMultipartUploads(ZonedDateTime initiatedBefore, Set<String> keptUploadIds) {
+        if (!minioRepository.isMultipartUploadSupported()) return 0;
+
+        int aborted = 0;
+        for (Upload upload : minioRepository.getListMultipartUploads()) {
+            if (keptUploadIds.contains(upload.uploadId()) || !upload.initiated().isBefore(initiatedBefore)) continue;
+            try {
+                minioRepository.abortMultipartUpload(upload.objectName(), upload.uploadId());
+                aborted++;
+            } catch (MinioException e) {
+                // another instance may have aborted it already
+                log.warn("Failed to abort multipart upload {} of {}", upload.uploadId(), upload.objectName(), e);
+            }
+        }
+        return aborted;
+    }
+
+    @Override
+    public String presignUpload(String path, String stagedPath, Duration expiry) {
+        if (existsByPath(path))
+            throw new ResourceAlreadyExistsMinioException("File already exists: " + path);
+
+        return minioRepository.getPresignedUploadUrl(stagedPath, expiry);
+    }
+
+    @Override
+    public ResourceMetadata commitUploadedObject(String stagedPath, String path, long expectedSize) {
+        StatObjectResponse staged;
+        try {
+            staged = minioRepository.getObject(stagedPath);
+        } catch (ResourceNotFoundMinioException e) {
+            throw new ResourceNotFoundMinioException("File was not uploaded: " + path, e);
+        }
+        long size = staged.size();
+        if (size != expectedSize) {
+            minioRepository.deleteObjects(List.of(stagedPath));
+            throw new InvalidFileMinioException("Uploaded file %s has %d bytes instead of %d".formatted(path, size, expectedSize));
+        }
+
+        try {
+            // the staged object is never a deduplicated reference, its content is copied as it is;
+            // the copy is pinned to the checked version, the presigned URL may still be used to replace it
+            if (multipartObjectCopier != null && size >= multipartCopyThreshold) {
+                multipartObjectCopier.copy(stagedPath, path, false, staged.etag());
+            } else {
+                minioRepository.copy(stagedPath, path, false, staged.etag());
+            }
+        } catch (ResourceAlreadyExistsMinioException e) {
+            minioRepository.deleteObjects(List.of(stagedPath));
             throw e;
         }
+        minioRepository.deleteObjects(List.of(stagedPath));
+        createMissingDirectories(List.of(path));
+        return new ResourceMetadata(path, false, size);
+    }
+
+    @Override
+    public int deleteStagedObjects(String prefix, ZonedDateTime modifiedBefore) {
+        List<String> abandoned = minioRepository.getListObjects(prefix, true)
+                .stream()
+                .filter(item -> !item.isDir() && item.lastModified() != null && item.lastModified().isBefore(modifiedBefore))
+                .map(Item::objectName)
+                .toList();
+        for (int from = 0; from < abandoned.size(); from += MAX_DELETE_BATCH) {
+            minioRepository.deleteObjects(abandoned.subList(from, Math.min(abandoned.size(), from + MAX_DELETE_BATCH)));
+        }
+        return abandoned.size();
+    }
+
+    @Override
+    public ResourceMetadata linkStoredContent(String path, String hash, String contentType, String ownerPrefix) {
+        if (deduplicatingUploader == null)
+            throw new ResourceNotFoundMinioException("Content is not stored: " + hash);
+
+        StoredBlob blob = deduplicatingUploader.link(path, hash, contentType, ownerPrefix)
+                .orElseThrow(() -> new ResourceNotFoundMinioException("Content is not stored: " + hash));
+        createMissingDirectories(List.of(path));
+        return new ResourceMetadata(path, false, blob.size());
+    }
+
+    @Override
+    public int collectReleasedBlobs(Instant releasedBefore) {
+        if (!minioRepository.isDeduplicationEnabled()) return 0;
+
+        int collected = 0;
+        List<StoredBlob> released;
+        do {
+            released = minioRepository.getBlobIndex().findReleased(releasedBefore, BLOB_COLLECTION_BATCH);
+            List<String> objects = new ArrayList<>();
+            for (StoredBlob blob : released) {
+                // a blob referenced again meanwhile stays
+                if (minioRepository.getBlobIndex().deleteIfReleased(blob.hash())) objects.add(blob.objectName());
+            }
+            if (!objects.isEmpty()) minioRepository.deleteObjects(objects);
+            collected += objects.size();
+        } while (released.size() == BLOB_COLLECTION_BATCH);
+        return collected;
+    }
+
+    @Override
+    public void storeObject(String path, InputStream data, int length, String sha256) {
+        if (!memoryBudget.tryReserve(length))
+            throw new ThrottledMinioException("No memory left for " + path);
+        try {
+            byte[] buffer = new byte[length];
+            if (data.readNBytes(buffer, 0, length) != length || data.read() != -1)
+                throw new InvalidFileMinioException("Content should have %d bytes".formatted(length));
+            if (!HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(buffer)).equals(sha256))
+                throw new InvalidFileMinioException("Content does not match its hash: " + sha256);
+            minioRepository.uploadObject("", new ByteArrayInputStream(buffer), length, -1, path, null);
+        } catch (IOException e) {
+            throw new InvalidFileMinioException("Failed to read content " + sha256, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new MinioException(e);
+        } finally {
+            memoryBudget.release(length);
+        }
+    }
+
+    @Override
+    public void deleteObjects(List<String> paths) {
+        minioRepository.deleteObjects(paths);
+    }
+
+    @Override
+    public StoredObject composeResource(String path, List<ObjectRange> sources) {
+        if (isDir(path)) throw new InvalidPathMinioException("Path must be a file");
+        if (sources.isEmpty()) throw new InvalidFileMinioException("File should not be empty");
+
+        minioRepository.composeObject(path, sources);
+        createMissingDirectories(List.of(path));
+        var statObject = minioRepository.getObject(path);
+        return new StoredObject(statObject.object(), statObject.size(), statObject.etag());
     }
 
     @Override
     public void deleteResource(String path) {
+        deleteResource(path, OperationProgress.NONE);
+    }
+
+    @Override
+    public void deleteResource(String path, OperationProgress progress) {
         if (!existsByPath(path))
             throw new ResourceNotFoundMinioException("Resource does not exist");
 
-        minioRepository.deleteObjects(
-                minioRepository.getListObjects(path, true)
-                        .stream()
-                        .map(Item::objectName)
-                        .toList()
-        );
+        if (!isDir(path)) {
+            // not listed by prefix, which would also match files whose name starts with this one
+            long size = minioRepository.getObject(path).size();
+            progress.started(1, size);
+            if (progress.isCancelled()) throw new OperationCancelledException("Deletion was cancelled");
+            minioRepository.deleteObjects(List.of(path));
+            progress.advanced(1, size);
+            return;
+        }
+        objectDeleter.delete(path, progress);
     }
 
     @Override
     public ResourceMetadata moveResource(String from, String to) {
+        return moveResource(from, to, OperationProgress.NONE);
+    }
+
+    @Override
+    public ResourceMetadata moveResource(String from, String to, OperationProgress progress) {
         if (from.equals(to))
             throw new InvalidPathMinioException("You cannot copy the object to the place where it currently locates");
 
@@ -65,15 +470,41 @@ public class MinioManipulationServiceImpl implements MinioManipulationService {
         to = PathUtils.normalizePathMinioCompatible(to);
 
         if (fromIsDirectory && toIsDirectory) {
-            return moveDirectory(from, to);
+            return moveDirectory(from, to, progress);
         } else if (!fromIsDirectory && !toIsDirectory) {
-            return moveFile(from, to);
+            return moveFile(from, to, progress);
         } else if (fromIsDirectory) {
             throw new InvalidPathMinioException("You cannot move a directory to a file");
         }
         throw new InvalidPathMinioException("You cannot turn a file into a directory");
     }
 
+    @Override
+    public ResourceMetadata copyResource(String from, String to) {
+        return copyResource(from, to, OperationProgress.NONE);
+    }
+
+    @Override
+    public ResourceMetadata copyResource(String from, String to, OperationProgress progress) {
+        if (from.equals(to))
+            throw new InvalidPathMinioException("You cannot copy the object to the place where it currently locates");
+
+        boolean fromIsDirectory = isDir(from);
+        boolean toIsDirectory = isDir(to);
+
+        from = PathUtils.normalizePathMinioCompatible(from);
+        to = PathUtils.normalizePathMinioCompatible(to);
+
+        if (fromIsDirectory && toIsDirectory) {
+            return copyDirectory(from, to, progress);
+        } else if (!fromIsDirectory && !toIsDirectory) {
+            return copyFile(from, to, progress);
+        } else if (fromIsDirectory) {
+            throw new InvalidPathMinioException("You cannot copy a directory to a file");
+        }
+        throw new InvalidPathMinioException("You cannot turn a file into a directory");
+    }
+
     @Override
     public ResourceMetadata createEmptyDirectory(String path, boolean ignoreExistence) {
         if (!isDir(path))
@@ -89,42 +520,145 @@ public class MinioManipulationServiceImpl implements MinioManipulationService {
         return new ResourceMetadata(path, true, 0L);
     }
 
-    private ResourceMetadata moveFile(String from, String to) {
+    private ResourceMetadata moveFile(String from, String to, OperationProgress progress) {
         if (existsByPath(to))
             throw new ResourceAlreadyExistsMinioException("Destination file already exists");
         if (!existsByPath(from))
             throw new ResourceNotFoundMinioException("Source file does not exist");
 
-        minioRepository.copy(from, to);
-        minioRepository.deleteObjects(List.of(from));
+        long size = minioRepository.getObject(from).size();
+        progress.started(1, size);
+        if (minioRepository.isNamespaceEnabled()) {
+            minioRepository.rename(from, to);
+        } else {
+            copyObject(from, to, size);
+            minioRepository.deleteObjects(List.of(from));
+        }
+        progress.advanced(1, size);
         createMissingDirectories(List.of(to));
-        return new ResourceMetadata(to, false, minioRepository.getObject(to).size());
+        return new ResourceMetadata(to, false, size);
+    }
+
+    /**
+     * A checkpoint object is kept under {@link #MOVE_CHECKPOINT_PREFIX} while the move runs. If the move
+     * fails, its objects are partly moved; the checkpoint lets the same move be repeated to move the rest.
+     * With a namespace the directory is renamed at once instead.
+     */
+    private ResourceMetadata moveDirectory(String from, String to, OperationProgress progress) {
+        // the copies would land among the sources still to be moved and deleted
+        if (to.startsWith(from))
+            throw new InvalidPathMinioException("You cannot move a directory into itself");
+        if (minioRepository.isNamespaceEnabled()) {
+            if (!existsByPath(from))
+                throw new ResourceNotFoundMinioException("Source directory does not exist");
+            if (existsByPath(to))
+                throw new ResourceAlreadyExistsMinioException("Destination directory already exists");
+            progress.started(1, 0);
+            minioRepository.rename(from, to);
+            progress.advanced(1, 0);
+            return new ResourceMetadata(to, true, 0L);
+        }
+
+        String checkpoint = moveCheckpoint(from, to);
+        boolean resumed = !minioRepository.getListObjects(checkpoint, false).isEmpty();
+        if (!resumed) {
+            if (!existsByPath(from))
+                throw new ResourceNotFoundMinioException("Source directory does not exist");
+            if (existsByPath(to))
+                throw new ResourceAlreadyExistsMinioException("Destination directory already exists");
+            minioRepository.createEmptyObject(checkpoint);
+        } else {
+            log.info("Resuming move of {} to {}", from, to);
+        }
+
+        List<StoredObject> objects = storedObjects(from);
+        progress.started(objects.size(), objects.stream().mapToLong(StoredObject::size).sum());
+        String source = from;
+        objectCopier.move(
+                objects,
+                objectName -> to + objectName.substring(source.length()),
+                object -> progress.advanced(1, object.size()),
+                progress::isCancelled);
+        minioRepository.deleteObjects(List.of(checkpoint));
+        return new ResourceMetadata(to, true, 0L);
     }
 
-    private ResourceMetadata moveDirectory(String from, String to) {
+    private ResourceMetadata copyFile(String from, String to, OperationProgress progress) {
+        if (existsByPath(to))
+            throw new ResourceAlreadyExistsMinioException("Destination file already exists");
+        if (!existsByPath(from))
+            throw new ResourceNotFoundMinioException("Source file does not exist");
+
+        long size = minioRepository.getObject(from).size();
+        progress.started(1, size);
+        if (progress.isCancelled()) throw new OperationCancelledException("Copy was cancelled");
+        copyObject(from, to, size);
+        progress.advanced(1, size);
+        createMissingDirectories(List.of(to));
+        return new ResourceMetadata(to, false, size);
+    }
+
+    /**
+     * Unlike a move, a failed or cancelled copy is not resumed: the objects copied so far are deleted.
+     */
+    private ResourceMetadata copyDirectory(String from, String to, OperationProgress progress) {
+        if (to.startsWith(from))
+            throw new InvalidPathMinioException("You cannot copy a directory into itself");
         if (!existsByPath(from))
             throw new ResourceNotFoundMinioException("Source directory does not exist");
         if (existsByPath(to))
             throw new ResourceAlreadyExistsMinioException("Destination directory already exists");
 
-        List<String> copiedFiles = new ArrayList<>();
-        List<String> objects = minioRepository.getListObjects(from, true)
-                .stream().map(Item::objectName)
-                .toList();
+        List<StoredObject> objects = storedObjects(from);
+        progress.started(objects.size(), objects.stream().mapToLong(StoredObject::size).sum());
+        String source = from;
+        UnaryOperator<String> target = objectName -> to + objectName.substring(source.length());
+        List<String> copiedObjects = Collections.synchronizedList(new ArrayList<>());
         try {
-            for (String objectName : objects) {
-                String toPath = to + objectName.substring(from.length());
-                minioRepository.copy(objectName, toPath);
-                copiedFiles.add(toPath);
-            }
-        } catch (Exception e) {
-            rollbackCreatedObjects(copiedFiles, e);
+            objectCopier.copy(
+                    objects,
+                    target,
+                    object -> {
+                        copiedObjects.add(target.apply(object.name()));
+                        progress.advanced(1, object.size());
+                    },
+                    progress::isCancelled);
+            createMissingDirectories(List.of(to));
+        } catch (RuntimeException e) {
+            rollbackCreatedObjects(List.copyOf(copiedObjects), e);
             throw e;
         }
-        minioRepository.deleteObjects(objects);
         return new ResourceMetadata(to, true, 0L);
     }
 
+    /**
+     * Copies over 5GB are not possible with a single CopyObject request.
+     */
+    private void copyObject(String from, String to, long size) {
+        if (multipartObjectCopier != null && size >= multipartCopyThreshold && minioRepository.copiesContent(from)) {
+            multipartObjectCopier.copy(from, to);
+        } else {
+            minioRepository.copy(from, to);
+        }
+    }
+
+    private List<StoredObject> storedObjects(String directory) {
+        return minioRepository.getListObjects(directory, true)
+                .stream()
+                .filter(item -> !item.isDir())
+                .map(item -> new StoredObject(item.objectName(), item.size(), item.etag()))
+                .toList();
+    }
+
+    private static String moveCheckpoint(String from, String to) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest((from + "\n" + to).getBytes(StandardCharsets.UTF_8));
+            return MOVE_CHECKPOINT_PREFIX + HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new MinioException(e);
+        }
+    }
+
     private boolean existsByPath(String path) {
         if (isDir(path)) {
             return !minioRepository.getListObjects(path + folderPostfix, false).isEmpty();
@@ -140,15 +674,168 @@ public class MinioManipulationServiceImpl implements MinioManipulationService {
         }
     }
 
+    /**
+     * Uploads up to {@code fileConcurrency} files at a time. After the first failure no more uploads
+     * are started, and the ones running are waited for, so {@code uploadedFiles} has every created
+     * object when the failure is thrown.
+     */
+    private void uploadFiles(String path,
+                             List<PlannedFile> files,
+                             ConflictResolver resolver,
+                             List<String> uploadedFiles) {
+        Semaphore permits = new Semaphore(fileConcurrency);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<String>> uploads = new ArrayList<>();
+        RuntimeException failure = null;
+        try {
+            for (PlannedFile file : files) {
+                permits.acquire();
+                if (failed.get()) break;
+                uploads.add(fileUploadExecutor.submit(() -> {
+                    try {
+                        return uploadObject(path, file, resolver);
+                    } catch (RuntimeException e) {
+                        failed.set(true);
+                        throw e;
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new MinioException("Upload was interrupted", e);
+        }
+
+        boolean interrupted = false;
+        for (Future<String> upload : uploads) {
+            while (true) {
+                try {
+                    uploadedFiles.add(upload.get());
+                    break;
+                } catch (ExecutionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException runtime ?
+                            runtime :
+                            new MinioException(e.getCause());
+                    if (failure == null) failure = cause;
+                    else failure.addSuppressed(cause);
+                    break;
+                } catch (InterruptedException e) {
+                    // keep waiting, a running upload has to finish before it can be rolled back
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (failure != null) throw failure;
+    }
+
+    private String uploadObject(String path, PlannedFile file, ConflictResolver resolver) {
+        boolean overwrite = resolver.isOverwritten(PathUtils.normalizePathMinioCompatible(path + file.fileName()));
+        try {
+            return uploadObject(path, file.file().getInputStream(), file.file().getSize(), file.fileName(),
+                    file.file().getContentType(), overwrite);
+        } catch (IOException e) {
+            throw new MinioException(e);
+        }
+    }
+
+    /**
+     * @param size object size, or -1 if unknown
+     */
+    private String uploadObject(String path, InputStream stream, long size, String fileName, String contentType) {
+        return uploadObject(path, stream, size, fileName, contentType, false);
+    }
+
+    /**
+     * @param size      object size, or -1 if unknown
+     * @param overwrite whether an existing object is replaced
+     */
+    private String uploadObject(String path,
+                                InputStream stream,
+                                long size,
+                                String fileName,
+                                String contentType,
+                                boolean overwrite) {
+        if (deduplicatingUploader != null)
+            return deduplicatingUploader.upload(path, stream, size, fileName, contentType, overwrite);
+        return storeObject(path, stream, size, fileName, contentType, overwrite);
+    }
+
+    private String storeObject(String path, InputStream stream, long size, String fileName, String contentType) {
+        return storeObject(path, stream, size, fileName, contentType, false);
+    }
+
+    /**
+     * Uploads the content as the object itself.
+     *
+     * @param size object size, or -1 if unknown
+     */
+    private String storeObject(String path,
+                               InputStream stream,
+                               long size,
+                               String fileName,
+                               String contentType,
+                               boolean overwrite) {
+        if (parallelObjectUploader != null && (size < 0 || size >= parallelThreshold))
+            return parallelObjectUploader.upload(path, stream, size, fileName, contentType, overwrite);
+        // size unknown: MinIO multipart upload with one part buffered at a time
+        return minioRepository.uploadObject(path, stream, size, size < 0 ? partSize : -1, fileName, contentType, overwrite);
+    }
+
+    /**
+     * Lists the objects under the directory once for all files of an upload.
+     */
+    private ConflictResolver conflictResolver(String path, ConflictPolicy conflictPolicy) {
+        List<String> existingObjects = minioRepository.getListObjects(path, true)
+                .stream()
+                .map(Item::objectName)
+                .toList();
+        return new ConflictResolver(path, existingObjects, conflictPolicy);
+    }
+
+    /**
+     * Objects an upload created; replaced ones existed before and are kept on failure.
+     */
+    private static List<String> createdObjects(List<String> uploadedFiles, ConflictResolver resolver) {
+        return uploadedFiles.stream()
+                .filter(object -> !resolver.isOverwritten(object))
+                .toList();
+    }
+
+    private static void logSkipped(String path, ConflictResolver resolver) {
+        if (!resolver.getSkipped().isEmpty())
+            log.debug("Skipped existing files in {}: {}", path, resolver.getSkipped());
+    }
+
+    private static MultipartStreamReader.Part nextPart(MultipartStreamReader reader) {
+        try {
+            return reader.nextPart();
+        } catch (IOException e) {
+            throw new InvalidFileMinioException("Upload body is not valid multipart", e);
+        }
+    }
+
+    /**
+     * Creates the marker of every directory the paths are in once, however many paths share it.
+     */
     private void createMissingDirectories(List<String> paths) {
+        Set<String> directories = new TreeSet<>();
         for (String path : paths) {
-            for (String nestedDirectory : PathUtils.getNestedDirectories("", path)) {
-                createEmptyDirectory(nestedDirectory, true);
-            }
+            directories.addAll(PathUtils.getNestedDirectories("", path));
+        }
+        for (String directory : directories) {
+            minioRepository.createEmptyObject(directory + folderPostfix);
         }
     }
 
     private boolean isDir(String path) {
         return path.endsWith("/");
     }
+
+    /**
+     * @param fileName name the file is uploaded as
+     */
+    private record PlannedFile(MultipartFile file, String fileName) {
+    }
 }
@@ -5,8 +5,10 @@ import org.example.cloudstorage.exception.minio.InvalidPathMinioException;
 import org.example.cloudstorage.exception.minio.ResourceNotFoundMinioException;
 import org.example.cloudstorage.minio.MinioMetadataService;
 import org.example.cloudstorage.model.ResourceMetadata;
+import org.example.cloudstorage.model.StoredObject;
 
 import java.util.List;
+import java.util.Optional;
 
 public class MinioMetadataServiceImpl implements MinioMetadataService {
     private final MinioRepository minioRepository;
@@ -41,6 +43,17 @@ public class MinioMetadataServiceImpl implements MinioMetadataService {
                 .toList();
     }
 
+    @Override
+    public Optional<StoredObject> findObject(String path) {
+        if (isDir(path)) throw new InvalidPathMinioException("Path must be a file");
+        try {
+            StatObjectResponse statObject = minioRepository.getObject(path);
+            return Optional.of(new StoredObject(statObject.object(), statObject.size(), statObject.etag()));
+        } catch (ResourceNotFoundMinioException e) {
+            return Optional.empty();
+        }
+    }
+
     private boolean existsByPath(String path) {
         if (isDir(path)) {
             return !minioRepository.getListObjects(path + folderPostfix, false).isEmpty();
@@ -1,38 +1,157 @@
 package org.example.cloudstorage.minio.impl;
 
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
 import io.minio.*;
 import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
 import io.minio.messages.DeleteError;
 import io.minio.messages.DeleteObject;
 import io.minio.messages.Item;
-import lombok.RequiredArgsConstructor;
+import io.minio.messages.ListMultipartUploadsResult;
+import io.minio.messages.Part;
+import io.minio.messages.Upload;
 import org.example.cloudstorage.exception.minio.*;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.minio.BlobIndex;
+import org.example.cloudstorage.minio.ChecksumIndex;
+import org.example.cloudstorage.minio.impl.dedup.BlobItem;
+import org.example.cloudstorage.model.ObjectRange;
+import org.example.cloudstorage.model.StoredBlob;
 import org.example.cloudstorage.util.PathUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 
-
-@RequiredArgsConstructor
+/**
+ * With a {@link BlobIndex}, files can be stored deduplicated: their object is then an empty pointer
+ * and the content is read from the blob object of the index, transparently to the callers.
+ * <p>
+ * With a {@link ChecksumIndex}, the CRC-32 of every object written through {@link #uploadObject}
+ * or a multipart upload of known checksum is recorded there.
+ */
+@Slf4j
 public class MinioRepository {
 
+    private static final String IF_NONE_MATCH = "If-None-Match";
+
     private final MinioClient minioClient;
+    private final MinioClient presignClient;
+    private final MinioAsyncClient multipartClient;
     private final String bucketName;
+    private final BlobIndex blobIndex;
+    private final ChecksumIndex checksumIndex;
+
+    public MinioRepository(MinioClient minioClient, String bucketName) {
+        this(minioClient, minioClient, null, bucketName, null);
+    }
+
+    /**
+     * @param presignClient   client which signs presigned URLs, configured with the endpoint
+     *                        the users reach MinIO at (signatures cover the host)
+     * @param multipartClient client for the low level multipart upload API, which {@link MinioClient}
+     *                        does not expose; null disables the multipart methods
+     */
+    public MinioRepository(MinioClient minioClient,
+                           MinioClient presignClient,
+                           MinioAsyncClient multipartClient,
+                           String bucketName) {
+        this(minioClient, presignClient, multipartClient, bucketName, null);
+    }
+
+    /**
+     * @param blobIndex index of deduplicated files; null disables deduplication
+     */
+    public MinioRepository(MinioClient minioClient,
+                           MinioClient presignClient,
+                           MinioAsyncClient multipartClient,
+                           String bucketName,
+                           BlobIndex blobIndex) {
+        this(minioClient, presignClient, multipartClient, bucketName, blobIndex, null);
+    }
+
+    /**
+     * @param checksumIndex where checksums of written objects are recorded; may be null
+     */
+    public MinioRepository(MinioClient minioClient,
+                           MinioClient presignClient,
+                           MinioAsyncClient multipartClient,
+                           String bucketName,
+                           BlobIndex blobIndex,
+                           ChecksumIndex checksumIndex) {
+        this.minioClient = minioClient;
+        this.presignClient = presignClient;
+        this.multipartClient = multipartClient;
+        this.bucketName = bucketName;
+        this.blobIndex = blobIndex;
+        this.checksumIndex = checksumIndex;
+    }
+
+    public boolean isDeduplicationEnabled() {
+        return blobIndex != null;
+    }
+
+    /**
+     * @return index of deduplicated files, or null if deduplication is disabled
+     */
+    public BlobIndex getBlobIndex() {
+        return blobIndex;
+    }
+
+    /**
+     * @return index of object checksums, or null if they are not recorded
+     */
+    public ChecksumIndex getChecksumIndex() {
+        return checksumIndex;
+    }
+
+    /**
+     * @return name of the object holding the content of a listed file, which {@link ChecksumIndex} knows it by
+     */
+    public String contentObjectName(Item item) {
+        return item.objectName();
+    }
+
+    /**
+     * @return whether files and directories can be moved by {@link #rename} without copying their objects
+     */
+    public boolean isNamespaceEnabled() {
+        return false;
+    }
+
+    /**
+     * Moves a file, or a directory with everything in it, without copying objects.
+     * Object names are the paths here, so this is supported only with a namespace.
+     */
+    public void rename(String from, String to) {
+        throw new MinioException("Renaming without copying requires the namespace");
+    }
 
     public StatObjectResponse getObject(String path) {
         path = PathUtils.normalizePathMinioCompatible(path);
 
         try {
-            return minioClient.statObject(
-                    StatObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(path)
-                            .build());
+            Optional<StoredBlob> blob = findBlob(path);
+            if (blob.isPresent()) {
+                StatObjectResponse stat = statObject(blob.get().objectName());
+                // stat of the content, named like the file
+                return new StatObjectResponse(stat.headers(), bucketName, stat.region(), path);
+            }
+            return statObject(path);
         } catch (ErrorResponseException e) {
             throw new ResourceNotFoundMinioException("Resource not found", e);
         } catch (Exception e) {
@@ -40,7 +159,52 @@ public class MinioRepository {
         }
     }
 
+    private StatObjectResponse statObject(String object) throws Exception {
+        return minioClient.statObject(
+                StatObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(object)
+                        .build());
+    }
+
     public List<Item> getListObjects(String path, boolean recursive) {
+        return getListObjects(path, recursive, false);
+    }
+
+    /**
+     * Lists recursively like {@link #getListObjects(String, boolean)}, handing the objects over in pages of
+     * at most {@code pageSize} while the listing is read, so it is never held in memory at once.
+     */
+    public void listObjectPages(String path, int pageSize, Consumer<List<Item>> page) {
+        path = PathUtils.normalizePathMinioCompatible(path);
+
+        var result = minioClient.listObjects(
+                ListObjectsArgs.builder()
+                        .bucket(bucketName)
+                        .prefix(path)
+                        .recursive(true)
+                        .build()
+        );
+
+        List<Item> items = new ArrayList<>(pageSize);
+        for (Result<Item> item : result) {
+            try {
+                items.add(item.get());
+            } catch (Exception e) {
+                throw new MinioException("Error occurred while fetching list of objects", e);
+            }
+            if (items.size() == pageSize) {
+                page.accept(resolveBlobs(items));
+                items = new ArrayList<>(pageSize);
+            }
+        }
+        if (!items.isEmpty()) page.accept(resolveBlobs(items));
+    }
+
+    /**
+     * @param includeUserMetadata also fetch user metadata and content type of every object (MinIO extension)
+     */
+    public List<Item> getListObjects(String path, boolean recursive, boolean includeUserMetadata) {
         path = PathUtils.normalizePathMinioCompatible(path);
 
         var result = minioClient.listObjects(
@@ -48,6 +212,7 @@ public class MinioRepository {
                         .bucket(bucketName)
                         .prefix(path)
                         .recursive(recursive)
+                        .includeUserMetadata(includeUserMetadata)
                         .build()
         );
 
@@ -59,11 +224,11 @@ public class MinioRepository {
         } catch (Exception e) {
             throw new MinioException("Error occurred while fetching list of objects", e);
         }
-        return items;
+        return resolveBlobs(items);
     }
 
     public InputStream downloadObject(String path) {
-        path = PathUtils.normalizePathMinioCompatible(path);
+        path = contentObject(path);
 
         try {
             return minioClient.getObject(GetObjectArgs
@@ -78,20 +243,112 @@ public class MinioRepository {
         }
     }
 
+    /**
+     * @param offset first byte to read
+     * @param length number of bytes to read
+     */
+    public InputStream downloadObject(String path, long offset, long length) {
+        path = contentObject(path);
+
+        try {
+            return minioClient.getObject(GetObjectArgs
+                    .builder()
+                    .bucket(bucketName)
+                    .object(path)
+                    .offset(offset)
+                    .length(length)
+                    .build());
+        } catch (ErrorResponseException e) {
+            throw new ResourceNotFoundMinioException("Resource not found", e);
+        } catch (Exception e) {
+            throw new MinioException(e);
+        }
+    }
+
+    /**
+     * @param expiry             validity of the URL
+     * @param contentDisposition {@code Content-Disposition} MinIO responds with
+     * @return presigned GET URL of the object
+     */
+    public String getPresignedDownloadUrl(String path, Duration expiry, String contentDisposition) {
+        path = contentObject(path);
+
+        try {
+            return presignClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs
+                    .builder()
+                    .method(Method.GET)
+                    .bucket(bucketName)
+                    .object(path)
+                    .expiry((int) expiry.toSeconds())
+                    .extraQueryParams(Map.of("response-content-disposition", contentDisposition))
+                    .build());
+        } catch (Exception e) {
+            throw new MinioException(e);
+        }
+    }
+
+    /**
+     * @param expiry validity of the URL
+     * @return presigned PUT URL of the object
+     */
+    public String getPresignedUploadUrl(String path, Duration expiry) {
+        path = PathUtils.normalizePathMinioCompatible(path);
+
+        try {
+            return presignClient.getPresignedObjectUrl(GetPresignedObjectUrlArgs
+                    .builder()
+                    .method(Method.PUT)
+                    .bucket(bucketName)
+                    .object(path)
+                    .expiry((int) expiry.toSeconds())
+                    .build());
+        } catch (Exception e) {
+            throw new MinioException(e);
+        }
+    }
+
     public String uploadObject(String path, MultipartFile file, String fileName) {
+        try {
+            return uploadObject(path, file.getInputStream(), file.getSize(), -1, fileName, file.getContentType());
+        } catch (IOException e) {
+            throw new MinioException(e);
+        }
+    }
+
+    /**
+     * @param size     object size, or -1 if unknown; the stream is then uploaded in parts of {@code partSize}
+     * @param partSize size of multipart upload parts, or -1 to derive it from {@code size}
+     * @return name of the created object
+     */
+    public String uploadObject(String path, InputStream stream, long size, long partSize, String fileName, String contentType) {
+        return uploadObject(path, stream, size, partSize, fileName, contentType, false);
+    }
+
+    /**
+     * @param overwrite whether an existing object is replaced; otherwise the upload fails on it
+     */
+    public String uploadObject(String path,
+                               InputStream stream,
+                               long size,
+                               long partSize,
+                               String fileName,
+                               String contentType,
+                               boolean overwrite) {
         String uploadPath = PathUtils.normalizePathMinioCompatible(path + fileName);
 
         Map<String, String> headers = new HashMap<>();
-        headers.put("If-None-Match", "*");
+        if (!overwrite) headers.put(IF_NONE_MATCH, "*");
+        CheckedInputStream checked = new CheckedInputStream(stream, new CRC32());
         try {
-            minioClient.putObject(
+            ObjectWriteResponse response = minioClient.putObject(
                     PutObjectArgs.builder()
                             .bucket(bucketName)
                             .object(uploadPath)
                             .headers(headers)
-                            .stream(file.getInputStream(), file.getSize(), -1)
-                            .contentType(file.getContentType())
+                            .stream(checked, size, partSize)
+                            .contentType(contentType)
                             .build());
+            saveChecksum(uploadPath, response.etag(), checked.getChecksum().getValue());
         } catch (ErrorResponseException e) {
             if (e.errorResponse().code().equals("PreconditionFailed")) {
                 throw new ResourceAlreadyExistsMinioException("File already exists: " + fileName, e);
@@ -104,9 +361,125 @@ public class MinioRepository {
         return uploadPath;
     }
 
+    public boolean isMultipartUploadSupported() {
+        return multipartClient != null;
+    }
+
+    /**
+     * @return upload id
+     */
+    public String createMultipartUpload(String path, String contentType) {
+        path = PathUtils.normalizePathMinioCompatible(path);
+
+        Multimap<String, String> headers = HashMultimap.create();
+        if (contentType != null) headers.put("Content-Type", contentType);
+        try {
+            return await(multipartClient.createMultipartUploadAsync(bucketName, null, path, headers, null))
+                    .result()
+                    .uploadId();
+        } catch (Exception e) {
+            throw new MinioException(e);
+        }
+    }
+
+    /**
+     * @param partNumber 1 to 10000
+     * @return the part to pass to {@link #completeMultipartUpload}
+     */
+    public Part uploadPart(String path, String uploadId, int partNumber, byte[] data, int length) {
+        path = PathUtils.normalizePathMinioCompatible(path);
+
+        try {
+            UploadPartResponse response = await(multipartClient.uploadPartAsync(
+                    bucketName, null, path, data, length, uploadId, partNumber, null, null));
+            return new Part(partNumber, response.etag());
+        } catch (Exception e) {
+            throw new MinioException(e);
+        }
+    }
+
+    /**
+     * Assembles the object from its parts, unless it exists already.
+     *
+     * @param parts in ascending part number order
+     */
+    public void completeMultipartUpload(String path, String uploadId, Part[] parts) {
+        completeMultipartUpload(path, uploadId, parts, false);
+    }
+
+    /**
+     * @param overwrite whether an existing object is replaced
+     */
+    public void completeMultipartUpload(String path, String uploadId, Part[] parts, boolean overwrite) {
+        completeMultipartUpload(path, uploadId, parts, overwrite, -1);
+    }
+
+    /**
+     * @param crc32 CRC-32 of the assembled object to record, or -1 if unknown
+     */
+    public void completeMultipartUpload(String path, String uploadId, Part[] parts, boolean overwrite, long crc32) {
+        path = PathUtils.normalizePathMinioCompatible(path);
+
+        Multimap<String, String> headers = HashMultimap.create();
+        if (!overwrite) headers.put(IF_NONE_MATCH, "*");
+        try {
+            ObjectWriteResponse response = await(multipartClient.completeMultipartUploadAsync(
+                    bucketName, null, path, uploadId, parts, headers, null));
+            if (crc32 >= 0) saveChecksum(path, response.etag(), crc32);
+        } catch (ErrorResponseException e) {
+            if (e.errorResponse().code().equals("PreconditionFailed")) {
+                throw new ResourceAlreadyExistsMinioException("File already exists: " + path, e);
+            }
+            throw new MinioException(e);
+        } catch (Exception e) {
+            throw new MinioException(e);
+        }
+    }
+
+    /**
+     * Discards an unfinished multipart upload and its uploaded parts.
+     */
+    public void abortMultipartUpload(String path, String uploadId) {
+        path = PathUtils.normalizePathMinioCompatible(path);
+
+        try {
+            await(multipartClient.abortMultipartUploadAsync(bucketName, null, path, uploadId, null, null));
+        } catch (Exception e) {
+            throw new MinioException(e);
+        }
+    }
+
+    /**
+     * @return multipart uploads of the bucket which are neither completed nor aborted
+     */
+    public List<Upload> getListMultipartUploads() {
+        List<Upload> uploads = new ArrayList<>();
+        String keyMarker = null;
+        String uploadIdMarker = null;
+        try {
+            ListMultipartUploadsResult result;
+            do {
+                result = await(multipartClient.listMultipartUploadsAsync(
+                        bucketName, null, null, null, keyMarker, null, null, uploadIdMarker, null, null))
+                        .result();
+                uploads.addAll(result.uploads());
+                keyMarker = result.nextKeyMarker();
+                uploadIdMarker = result.nextUploadIdMarker();
+            } while (result.isTruncated());
+        } catch (Exception e) {
+            throw new MinioException("Error occurred while fetching list of multipart uploads", e);
+        }
+        return uploads;
+    }
+
+    /**
+     * Also releases the blobs of deduplicated files.
+     */
     public void deleteObjects(List<String> objects) {
-        List<DeleteObject> forDelete = objects.stream()
+        List<String> normalized = objects.stream()
                 .map(PathUtils::normalizePathMinioCompatible)
+                .toList();
+        List<DeleteObject> forDelete = normalized.stream()
                 .map(DeleteObject::new)
                 .toList();
 
@@ -124,6 +497,8 @@ public class MinioRepository {
                 throw new PartialDeletionMinioException("Failed to delete all resources", e);
             }
         }
+        if (blobIndex != null && !normalized.isEmpty()) blobIndex.release(normalized);
+        if (checksumIndex != null && !normalized.isEmpty()) checksumIndex.remove(normalized);
     }
 
     public void createEmptyObject(String path) {
@@ -143,23 +518,198 @@ public class MinioRepository {
         }
     }
 
+    /**
+     * Replaces or creates the object with the concatenation of the sources, copied inside MinIO.
+     * Every source but the last has to be at least 5MB; the object may be a source itself.
+     */
+    public void composeObject(String path, List<ObjectRange> sources) {
+        String target = PathUtils.normalizePathMinioCompatible(path);
+
+        List<ComposeSource> composeSources = new ArrayList<>();
+        for (ObjectRange source : sources) {
+            composeSources.add(ComposeSource.builder()
+                    .bucket(bucketName)
+                    .object(contentObject(source.object()))
+                    .offset(source.offset())
+                    .length(source.length())
+                    .build());
+        }
+        try {
+            minioClient.composeObject(ComposeObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(target)
+                    .sources(composeSources)
+                    .build());
+        } catch (ErrorResponseException e) {
+            throw new ResourceNotFoundMinioException("Resource not found", e);
+        } catch (Exception e) {
+            throw new MinioException(e);
+        }
+        // the object has its own content now
+        if (blobIndex != null) blobIndex.release(List.of(target));
+    }
+
+    /**
+     * A copy of a deduplicated file references the same blob.
+     */
     public void copy(String from, String to) {
+        copy(from, to, true);
+    }
+
+    /**
+     * @param overwrite whether an existing object is replaced; otherwise the copy fails on it
+     */
+    public void copy(String from, String to, boolean overwrite) {
+        copy(from, to, overwrite, null);
+    }
+
+    /**
+     * @param sourceEtag ETag {@code from} must still have, or null; a copy of a changed source fails
+     *                   like one onto an existing object
+     */
+    public void copy(String from, String to, boolean overwrite, String sourceEtag) {
         from = PathUtils.normalizePathMinioCompatible(from);
         to = PathUtils.normalizePathMinioCompatible(to);
 
+        Map<String, String> headers = new HashMap<>();
+        if (!overwrite) headers.put(IF_NONE_MATCH, "*");
         try {
             minioClient.copyObject(CopyObjectArgs.builder()
                     .bucket(bucketName)
                     .object(to)
+                    .headers(headers)
                     .source(CopySource.builder()
                             .bucket(bucketName)
                             .object(from)
+                            .matchETag(sourceEtag)
                             .build())
                     .build());
         } catch (ErrorResponseException e) {
+            if (isThrottled(e)) throw new ThrottledMinioException("Storage is busy copying " + from, e);
+            if (e.errorResponse().code().equals("PreconditionFailed"))
+                throw new ResourceAlreadyExistsMinioException(sourceEtag == null
+                        ? "File already exists: " + to
+                        : "File already exists or its source changed: " + to, e);
             throw new InvalidPathMinioException("You cannot copy the object to the place where it currently locates");
         } catch (Exception e) {
             throw new MinioException(e);
         }
+        if (blobIndex != null) blobIndex.copyReference(from, to);
+    }
+
+    /**
+     * @return whether {@link #copy} copies the content of the file, not a reference to deduplicated content
+     */
+    public boolean copiesContent(String path) {
+        return findBlob(PathUtils.normalizePathMinioCompatible(path)).isEmpty();
+    }
+
+    /**
+     * Copies bytes {@code offset} to {@code offset + length} of {@code from} inside MinIO as a part
+     * of the multipart upload of {@code to}; unlike {@link #copy}, not limited to objects up to 5GB.
+     *
+     * @return the part to pass to {@link #completeMultipartUpload}
+     */
+    public Part copyPart(String from, String to, String uploadId, int partNumber, long offset, long length) {
+        return copyPart(from, to, uploadId, partNumber, offset, length, null);
+    }
+
+    /**
+     * @param sourceEtag ETag {@code from} must still have, or null
+     * @throws ResourceAlreadyExistsMinioException if {@code from} no longer has {@code sourceEtag}
+     */
+    public Part copyPart(String from, String to, String uploadId, int partNumber, long offset, long length,
+                         String sourceEtag) {
+        String source = contentObject(from);
+        to = PathUtils.normalizePathMinioCompatible(to);
+
+        Multimap<String, String> headers = HashMultimap.create();
+        headers.put("x-amz-copy-source", S3Escaper.encodePath(bucketName + "/" + source));
+        headers.put("x-amz-copy-source-range", "bytes=%d-%d".formatted(offset, offset + length - 1));
+        if (sourceEtag != null) headers.put("x-amz-copy-source-if-match", sourceEtag);
+        try {
+            UploadPartCopyResponse response = await(multipartClient.uploadPartCopyAsync(
+                    bucketName, null, to, uploadId, partNumber, headers, null));
+            return new Part(partNumber, response.result().etag());
+        } catch (ErrorResponseException e) {
+            if (isThrottled(e)) throw new ThrottledMinioException("Storage is busy copying " + from, e);
+            if (e.errorResponse().code().equals("PreconditionFailed"))
+                throw new ResourceAlreadyExistsMinioException("Source changed while it was copied: " + from, e);
+            throw new MinioException(e);
+        } catch (Exception e) {
+            throw new MinioException(e);
+        }
+    }
+
+    private Optional<StoredBlob> findBlob(String object) {
+        if (blobIndex == null || object.endsWith("/")) return Optional.empty();
+        return blobIndex.find(object);
+    }
+
+    /**
+     * @return normalized object with the content of the file at {@code path}
+     */
+    private String contentObject(String path) {
+        String object = PathUtils.normalizePathMinioCompatible(path);
+        return findBlob(object).map(StoredBlob::objectName).orElse(object);
+    }
+
+    /**
+     * Replaces the items of deduplicated files by items with the size and hash of their content.
+     */
+    private List<Item> resolveBlobs(List<Item> items) {
+        if (blobIndex == null) return items;
+        List<String> pointers = items.stream()
+                .filter(item -> !item.isDir() && item.size() == 0)
+                .map(Item::objectName)
+                .toList();
+        if (pointers.isEmpty()) return items;
+
+        Map<String, StoredBlob> blobs = blobIndex.find(pointers);
+        if (blobs.isEmpty()) return items;
+        List<Item> resolved = new ArrayList<>(items.size());
+        for (Item item : items) {
+            StoredBlob blob = blobs.get(item.objectName());
+            resolved.add(blob == null ? item : new BlobItem(item, blob));
+        }
+        return resolved;
+    }
+
+    /**
+     * @return whether MinIO asked to slow down, so the request may succeed later
+     */
+    private static boolean isThrottled(ErrorResponseException e) {
+        if (e.response() != null && e.response().code() == 503) return true;
+        String code = e.errorResponse().code();
+        return code != null && (code.startsWith("SlowDown") || code.equals("ServiceUnavailable"));
+    }
+
+    /**
+     * Waits for a call of the async client, rethrowing what the call failed with.
+     */
+    private static <T> T await(CompletableFuture<T> call) throws Exception {
+        try {
+            return call.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof Exception exception) throw exception;
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            call.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Recording a checksum only saves reading the object later, so failing to is not an error.
+     */
+    private void saveChecksum(String objectName, String etag, long crc32) {
+        if (checksumIndex == null || etag == null) return;
+        try {
+            checksumIndex.save(objectName, etag, crc32);
+        } catch (RuntimeException e) {
+            log.warn("Failed to record the checksum of {}", objectName, e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,244 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.util.BufferPool;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * <h3>Built archives kept on local disk</h3>
+ * Archives are stored under a key derived from the listing they were built from
+ * (see {@link ArchiveEntries#fingerprint(java.util.List)}), so a changed folder gets a new key
+ * and its stale archive is never served again but only ages out.
+ * Archives are evicted least recently used first once their total size exceeds {@code maxSize}.
+ * <p>
+ * An archive is built at most once at a time: the first download of a key streams the archive
+ * to its client and to the cache at the same time, concurrent downloads of the key wait for it
+ * and copy the result. If that build fails, one of the waiting downloads builds it again.
+ * <p>
+ * The index lives in memory only, archives left in the directory by a previous run are deleted.
+ * Meters: {@code archive.cache.requests} tagged with {@code result} (hit/miss/shared).
+ */
+@Slf4j
+public class ArchiveCache {
+
+    private static final String ARCHIVE_SUFFIX = ".archive";
+    private static final String BUILD_SUFFIX = ".tmp";
+    private static final int BUILD_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long maxSize;
+    private final long maxArchiveSize;
+    private final BufferPool bufferPool;
+    private final MeterRegistry meterRegistry;
+    /**
+     * Archive sizes by key in access order; guarded by {@code this}.
+     */
+    private final LinkedHashMap<String, Long> archives = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<Boolean>> builds = new ConcurrentHashMap<>();
+    private long size;
+
+    @FunctionalInterface
+    public interface Build {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * @param maxSize        total size of cached archives
+     * @param maxArchiveSize archives whose objects are bigger in total are not cached
+     */
+    public ArchiveCache(Path directory, long maxSize, long maxArchiveSize, BufferPool bufferPool, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.maxArchiveSize = Math.min(maxArchiveSize, maxSize);
+        this.bufferPool = bufferPool;
+        this.meterRegistry = meterRegistry;
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*{" + ARCHIVE_SUFFIX + "," + BUILD_SUFFIX + "}")) {
+                for (Path file : leftovers) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Archive cache directory %s is not usable".formatted(directory), e);
+        }
+    }
+
+    /**
+     * @return whether an archive of the entries may be cached
+     */
+    public boolean accepts(Iterable<ArchiveEntry> entries) {
+        long total = 0;
+        for (ArchiveEntry entry : entries) {
+            total += entry.item().size();
+            if (total > maxArchiveSize) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return size of the cached archive, or -1 if it is not cached
+     */
+    public synchronized long length(String key) {
+        Long length = archives.get(key);
+        return length == null ? -1 : length;
+    }
+
+    /**
+     * Writes bytes {@code start} to {@code end} (inclusive) of a cached archive.
+     *
+     * @return false if the archive is not cached (anymore), nothing is written then
+     */
+    public boolean copy(String key, long start, long end, OutputStream out) throws IOException {
+        if (!transfer(key, start, end, out)) return false;
+        meterRegistry.counter("archive.cache.requests", "result", "hit").increment();
+        return true;
+    }
+
+    /**
+     * Writes the archive to {@code out}, from the cache if it is there or once a concurrent build of it
+     * finishes, otherwise by building it with {@code build} and caching the result.
+     *
+     * @param build writes the whole archive; must produce the same bytes for the same key
+     */
+    public void write(String key, Build build, OutputStream out) throws IOException {
+        while (true) {
+            CompletableFuture<Boolean> ownBuild = new CompletableFuture<>();
+            CompletableFuture<Boolean> running = builds.putIfAbsent(key, ownBuild);
+            if (running == null) {
+                try {
+                    if (copy(key, 0, length(key) - 1, out)) {
+                        ownBuild.complete(true);
+                        return;
+                    }
+                    meterRegistry.counter("archive.cache.requests", "result", "miss").increment();
+                    buildAndStore(key, build, out);
+                    ownBuild.complete(true);
+                    return;
+                } catch (Throwable e) {
+                    ownBuild.complete(false);
+                    throw e;
+                } finally {
+                    builds.remove(key, ownBuild);
+                }
+            }
+
+            if (await(running) && transfer(key, 0, length(key) - 1, out)) {
+                meterRegistry.counter("archive.cache.requests", "result", "shared").increment();
+                return;
+            }
+            // the build failed or its archive was evicted already, build it (again)
+        }
+    }
+
+    private boolean transfer(String key, long start, long end, OutputStream out) throws IOException {
+        FileChannel channel;
+        synchronized (this) {
+            if (archives.get(key) == null) return false;
+            // opened under the lock, so eviction can only delete the file once it is open
+            channel = FileChannel.open(file(key), StandardOpenOption.READ);
+        }
+        byte[] buffer = bufferPool.acquire();
+        try (channel) {
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+            long position = start;
+            while (position <= end) {
+                byteBuffer.clear().limit((int) Math.min(buffer.length, end - position + 1));
+                int read = channel.read(byteBuffer, position);
+                if (read < 0) throw new IOException("Cached archive %s ended at %d".formatted(key, position));
+                out.write(buffer, 0, read);
+                position += read;
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+        return true;
+    }
+
+    private void buildAndStore(String key, Build build, OutputStream out) throws IOException {
+        Path buildFile = Files.createTempFile(directory, "build-", BUILD_SUFFIX);
+        try {
+            try (OutputStream file = new BufferedOutputStream(Files.newOutputStream(buildFile), BUILD_BUFFER_SIZE)) {
+                build.writeTo(new TeeOutputStream(out, file));
+            }
+            store(key, buildFile);
+        } finally {
+            Files.deleteIfExists(buildFile);
+        }
+    }
+
+    private synchronized void store(String key, Path buildFile) throws IOException {
+        long length = Files.size(buildFile);
+        if (length > maxSize) return;
+        Files.move(buildFile, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Long replaced = archives.put(key, length);
+        size += length - (replaced == null ? 0 : replaced);
+
+        Iterator<Map.Entry<String, Long>> eldest = archives.entrySet().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            Map.Entry<String, Long> archive = eldest.next();
+            if (archive.getKey().equals(key)) continue;
+            Files.deleteIfExists(file(archive.getKey()));
+            size -= archive.getValue();
+            eldest.remove();
+            log.debug("Evicted cached archive {}", archive.getKey());
+        }
+    }
+
+    private boolean await(CompletableFuture<Boolean> build) throws InterruptedIOException {
+        try {
+            return build.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Waiting for the archive build was interrupted");
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key + ARCHIVE_SUFFIX);
+    }
+
+    private static class TeeOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final OutputStream copy;
+
+        TeeOutputStream(OutputStream out, OutputStream copy) {
+            this.out = out;
+            this.copy = copy;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.minio.messages.Item;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Maps MinIO objects to archive entries.
+ */
+public class ArchiveEntries {
+
+    private final String folderPostfix;
+
+    public ArchiveEntries(String folderPostfix) {
+        this.folderPostfix = folderPostfix;
+    }
+
+    /**
+     * @param basePath folder whose objects are archived; stripped from entry names
+     * @param items    objects under {@code basePath}, folder markers included
+     * @param prefix   prepended to entry names; if not empty, the marker of {@code basePath} becomes its entry
+     * @return entries in listing order
+     */
+    public List<ArchiveEntry> folder(String basePath, List<Item> items, String prefix) {
+        return items.stream()
+                .map(item -> new ArchiveEntry(prefix + relativeName(basePath, item.objectName()), item))
+                .filter(entry -> !entry.name().isEmpty())
+                .toList();
+    }
+
+    /**
+     * @return SHA-256 of the entry names and the name, size, ETag and modification time of their objects,
+     * as hex; it changes whenever an archived object or the archive structure does
+     */
+    public static String fingerprint(List<ArchiveEntry> entries) {
+        MessageDigest digest = sha256();
+        for (ArchiveEntry entry : entries) {
+            Item item = entry.item();
+            digest.update((entry.name() + '\n' + item.objectName() + '\n' + item.size() + '\n' + item.etag() + '\n'
+                    + item.lastModified() + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String relativeName(String basePath, String objectName) {
+        return objectName.endsWith(folderPostfix) ?
+                objectName.substring(basePath.length(), objectName.length() - folderPostfix.length()) :
+                objectName.substring(basePath.length());
+    }
+}
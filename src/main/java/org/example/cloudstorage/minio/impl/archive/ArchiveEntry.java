@@ -0,0 +1,16 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.minio.messages.Item;
+
+/**
+ * Object written into an archive under the given name.
+ *
+ * @param name entry name; directory names end with a slash
+ * @param item object, the folder marker for directories
+ */
+public record ArchiveEntry(String name, Item item) {
+
+    public boolean isDirectory() {
+        return name.endsWith("/");
+    }
+}
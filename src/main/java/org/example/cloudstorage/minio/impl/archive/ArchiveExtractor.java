@@ -0,0 +1,316 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.exception.minio.InvalidFileMinioException;
+import org.example.cloudstorage.exception.minio.InvalidPathMinioException;
+import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException;
+import org.example.cloudstorage.minio.impl.transfer.ObjectWriter;
+import org.example.cloudstorage.model.ArchiveFormat;
+import org.example.cloudstorage.model.ExtractedArchive;
+import org.example.cloudstorage.util.PathUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <h3>Extracts an uploaded archive into a folder</h3>
+ * Entries are read one after another from the stream. An entry up to {@code bufferedEntrySize}
+ * is read into memory and uploaded in the background, at most {@code concurrency} at a time, while
+ * reading goes on; a bigger entry is streamed to storage directly before the next one is read.
+ * <p>
+ * Guards, which fail the whole archive:
+ * <ul>
+ * <li>entries whose names would leave the folder (absolute, {@code ..}) are refused</li>
+ * <li>the number of entries, the extracted bytes and the ratio of extracted to received bytes are
+ * limited, counting the bytes actually read rather than the sizes the archive declares</li>
+ * </ul>
+ * Files and directories with names the API does not accept fail like existing files do.
+ * Links and other special tar entries are skipped.
+ */
+@Slf4j
+public class ArchiveExtractor {
+
+    /**
+     * Ratio is not checked before that many bytes are extracted, tiny archives compress well.
+     */
+    private static final long RATIO_CHECK_MIN_SIZE = 1024 * 1024;
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectWriter objectWriter;
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final int bufferedEntrySize;
+    private final Limits limits;
+
+    public ArchiveExtractor(ObjectWriter objectWriter,
+                            ExecutorService executor,
+                            int concurrency,
+                            int bufferedEntrySize,
+                            Limits limits) {
+        if (concurrency <= 0) throw new IllegalArgumentException("concurrency must be positive");
+        this.objectWriter = objectWriter;
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.bufferedEntrySize = bufferedEntrySize;
+        this.limits = limits;
+    }
+
+    /**
+     * @param path              folder to extract into, a complete object name ending with {@code /}
+     * @param skipFailedEntries record entries which cannot be created (e.g. they exist) and go on,
+     *                          instead of failing
+     * @param createdObjects    receives every created object, also when extraction fails,
+     *                          so they can be rolled back
+     */
+    public ExtractedArchive extract(String path,
+                                    InputStream body,
+                                    ArchiveFormat format,
+                                    boolean skipFailedEntries,
+                                    List<String> createdObjects) {
+        Guard guard = new Guard(body);
+        Set<String> directories = new TreeSet<>();
+        Map<String, String> failures = new LinkedHashMap<>();
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<EntryUpload> uploads = new ArrayList<>();
+        RuntimeException failure = null;
+        try {
+            ArchiveReader reader = reader(format, guard.received);
+            ArchiveReader.Entry entry;
+            while (!failed.get() && (entry = reader.next()) != null) {
+                guard.countEntry();
+                String name = entryName(entry.name());
+                if (name.isEmpty()) continue;
+                if (entry.directory()) {
+                    String directory = path + name + (name.endsWith("/") ? "" : "/");
+                    if (!PathUtils.isPathValid(directory)) {
+                        InvalidPathMinioException invalid = invalidName(name);
+                        if (!skipFailedEntries) throw invalid;
+                        failures.put(name, invalid.getMessage());
+                        continue;
+                    }
+                    directory = PathUtils.normalizePathMinioCompatible(directory);
+                    directories.add(directory);
+                    directories.addAll(PathUtils.getNestedDirectories("", directory));
+                    continue;
+                }
+
+                InputStream content = guard.extracted(entry.content());
+                byte[] head = content.readNBytes(bufferedEntrySize + 1);
+                if (head.length <= bufferedEntrySize) {
+                    permits.acquire();
+                    if (failed.get()) {
+                        permits.release();
+                        break;
+                    }
+                    uploads.add(new EntryUpload(name, executor.submit(() -> {
+                        try {
+                            return upload(path, new ByteArrayInputStream(head), head.length, name);
+                        } catch (RuntimeException e) {
+                            if (!(skipFailedEntries && isEntryFailure(e))) failed.set(true);
+                            throw e;
+                        } finally {
+                            permits.release();
+                        }
+                    })));
+                    continue;
+                }
+
+                try {
+                    createdObjects.add(upload(path, new SequenceInputStream(new ByteArrayInputStream(head), content), -1, name));
+                } catch (RuntimeException e) {
+                    if (guard.violation != null) throw guard.violation;
+                    if (!(skipFailedEntries && isEntryFailure(e))) throw e;
+                    failures.put(name, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            failure = guard.violation != null ?
+                    guard.violation :
+                    new InvalidFileMinioException("Archive is not a valid " + format.getExtension() + " archive", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new MinioException("Upload was interrupted", e);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        // uploads still running have to finish before they can be rolled back
+        boolean interrupted = false;
+        for (EntryUpload upload : uploads) {
+            while (true) {
+                try {
+                    createdObjects.add(upload.future().get());
+                    break;
+                } catch (ExecutionException e) {
+                    RuntimeException cause = e.getCause() instanceof RuntimeException runtime ?
+                            runtime :
+                            new MinioException(e.getCause());
+                    if (skipFailedEntries && isEntryFailure(cause)) {
+                        failures.put(upload.name(), cause.getMessage());
+                    } else if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        if (failure != null) throw failure;
+
+        for (String object : createdObjects) {
+            directories.addAll(PathUtils.getNestedDirectories("", object));
+        }
+        return new ExtractedArchive(List.copyOf(createdObjects), directories, guard.size, failures);
+    }
+
+    private String upload(String path, InputStream content, long size, String name) {
+        if (!PathUtils.isPathValid(path + name)) throw invalidName(name);
+        String contentType = MediaTypeFactory.getMediaType(name).map(MediaType::toString).orElse(null);
+        return objectWriter.upload(path, content, size, name, contentType);
+    }
+
+    private static InvalidPathMinioException invalidName(String name) {
+        return new InvalidPathMinioException("Archive entry name is not valid: " + name);
+    }
+
+    /**
+     * @return whether only the entry failed and the others can still be extracted
+     */
+    private static boolean isEntryFailure(RuntimeException e) {
+        return e instanceof ResourceAlreadyExistsMinioException || e instanceof InvalidPathMinioException;
+    }
+
+    /**
+     * @return name relative to the folder, empty for the folder itself
+     * @throws InvalidFileMinioException if the entry would be outside of the folder
+     */
+    static String entryName(String raw) {
+        String name = raw.replace('\\', '/');
+        while (name.startsWith("./")) name = name.substring(2);
+        if (name.equals(".")) return "";
+        if (name.startsWith("/") || (name.length() > 1 && name.charAt(1) == ':'))
+            throw new InvalidFileMinioException("Archive entry has an absolute name: " + raw);
+        for (String segment : name.split("/")) {
+            if (segment.equals("..") || segment.equals("."))
+                throw new InvalidFileMinioException("Archive entry leaves the target folder: " + raw);
+        }
+        return name;
+    }
+
+    private static ArchiveReader reader(ArchiveFormat format, InputStream in) throws IOException {
+        return switch (format) {
+            case ZIP -> new ZipArchiveReader(in);
+            case TAR -> new TarArchiveReader(in);
+            case TAR_GZ -> new TarArchiveReader(new GZIPInputStream(in, GZIP_BUFFER_SIZE));
+        };
+    }
+
+    /**
+     * @param maxEntries entries of an archive, directories included
+     * @param maxSize    extracted bytes of an archive
+     * @param maxRatio   extracted bytes per received byte
+     */
+    public record Limits(int maxEntries, long maxSize, int maxRatio) {
+    }
+
+    private record EntryUpload(String name, Future<String> future) {
+    }
+
+    /**
+     * Counts received and extracted bytes. Entry content is read on the extracting thread only.
+     */
+    private class Guard {
+        private final CountingInputStream received;
+        private long entries;
+        private long size;
+        private InvalidFileMinioException violation;
+
+        Guard(InputStream body) {
+            this.received = new CountingInputStream(body);
+        }
+
+        void countEntry() {
+            if (++entries > limits.maxEntries())
+                throw violation("Archive has more than %d entries".formatted(limits.maxEntries()));
+        }
+
+        InputStream extracted(InputStream content) {
+            return new FilterInputStream(content) {
+                @Override
+                public int read() throws IOException {
+                    byte[] b = new byte[1];
+                    return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = super.read(b, off, len);
+                    if (read > 0) count(read);
+                    return read;
+                }
+
+                @Override
+                public long skip(long n) throws IOException {
+                    // skipped bytes are extracted as well
+                    return Math.max(0, read(new byte[(int) Math.min(n, 8192)]));
+                }
+            };
+        }
+
+        private void count(int read) throws IOException {
+            size += read;
+            if (size > limits.maxSize())
+                throw new IOException(violation("Archive expands to more than %d bytes".formatted(limits.maxSize())));
+            if (size > RATIO_CHECK_MIN_SIZE && size > received.count * limits.maxRatio())
+                throw new IOException(violation("Archive expands more than %d times".formatted(limits.maxRatio())));
+        }
+
+        private InvalidFileMinioException violation(String message) {
+            violation = new InvalidFileMinioException(message);
+            return violation;
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads the entries of an archive one after another from a stream.
+ * The content of an entry must be read, or left, before the next entry is requested.
+ */
+public interface ArchiveReader {
+
+    /**
+     * Skips what is left of the current entry.
+     *
+     * @return next entry, or null after the last one
+     * @throws IOException if the stream is not a valid archive
+     */
+    Entry next() throws IOException;
+
+    /**
+     * @param name    name as stored in the archive, not validated
+     * @param content content up to the end of the entry; closing it does not close the archive
+     */
+    record Entry(String name, boolean directory, InputStream content) {
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+/**
+ * How an entry is written.
+ *
+ * @param policy rule which made the decision, used as a metrics tag
+ * @param stored whether the entry is written as is
+ * @param level  deflate level if the entry is not stored
+ */
+public record CompressionDecision(String policy, boolean stored, int level) {
+
+    public static CompressionDecision stored(String policy) {
+        return new CompressionDecision(policy, true, 0);
+    }
+
+    public static CompressionDecision deflated(String policy, int level) {
+        return level == 0 ? stored(policy) : new CompressionDecision(policy, false, level);
+    }
+}
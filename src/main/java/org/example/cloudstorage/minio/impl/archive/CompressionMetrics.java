@@ -0,0 +1,37 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h3>Per-policy compression metrics</h3>
+ * All meters are tagged with the deciding {@code policy} and the {@code method} (stored/deflated):
+ * <ul>
+ * <li>{@code archive.compression.entries} - number of entries</li>
+ * <li>{@code archive.compression.bytes.in} - uncompressed bytes</li>
+ * <li>{@code archive.compression.bytes.out} - bytes written to the archive</li>
+ * <li>{@code archive.compression.bytes.saved} - bytes saved by compression</li>
+ * <li>{@code archive.compression.cpu} - CPU time spent on encoding</li>
+ * </ul>
+ */
+public class CompressionMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public CompressionMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void record(CompressionDecision decision, long bytesIn, long bytesOut, long cpuNanos) {
+        Tags tags = Tags.of(
+                "policy", decision.policy(),
+                "method", decision.stored() ? "stored" : "deflated");
+        meterRegistry.counter("archive.compression.entries", tags).increment();
+        meterRegistry.counter("archive.compression.bytes.in", tags).increment(bytesIn);
+        meterRegistry.counter("archive.compression.bytes.out", tags).increment(bytesOut);
+        meterRegistry.counter("archive.compression.bytes.saved", tags).increment(Math.max(0, bytesIn - bytesOut));
+        meterRegistry.timer("archive.compression.cpu", tags).record(cpuNanos, TimeUnit.NANOSECONDS);
+    }
+}
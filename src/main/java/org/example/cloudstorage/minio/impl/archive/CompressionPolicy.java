@@ -0,0 +1,132 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import org.example.cloudstorage.config.properties.MinioProperties;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * <h3>Chooses between STORED and a deflate level for every zip entry</h3>
+ * Rules are applied in order, the first one which matches decides:
+ * <ol>
+ * <li>{@code size} - tiny entries are stored, deflate overhead would exceed the gain</li>
+ * <li>{@code extension} - configured level for the extension, or stored for already compressed formats</li>
+ * <li>{@code content-type} - stored for already compressed media types</li>
+ * <li>{@code entropy} - the first bytes are sampled, random-looking data is stored</li>
+ * <li>{@code default} - default deflate level</li>
+ * </ol>
+ */
+public class CompressionPolicy {
+
+    public static final String POLICY_SIZE = "size";
+    public static final String POLICY_EXTENSION = "extension";
+    public static final String POLICY_CONTENT_TYPE = "content-type";
+    public static final String POLICY_ENTROPY = "entropy";
+    public static final String POLICY_DEFAULT = "default";
+
+    private final int level;
+    private final long minSize;
+    private final Set<String> storedExtensions;
+    private final Map<String, Integer> extensionLevels;
+    private final List<String> storedContentTypes;
+    private final int sampleSize;
+    private final double entropyThreshold;
+
+    public CompressionPolicy(MinioProperties.Compression properties) {
+        this.level = properties.getLevel();
+        this.minSize = properties.getMinSize().toBytes();
+        this.storedExtensions = properties.getStoredExtensions().stream()
+                .map(CompressionPolicy::lowerCase)
+                .collect(Collectors.toSet());
+        this.extensionLevels = properties.getExtensionLevels().entrySet().stream()
+                .collect(Collectors.toMap(e -> lowerCase(e.getKey()), Map.Entry::getValue));
+        this.storedContentTypes = properties.getStoredContentTypes().stream()
+                .map(CompressionPolicy::lowerCase)
+                .toList();
+        this.sampleSize = (int) properties.getEntropySampleSize().toBytes();
+        this.entropyThreshold = properties.getEntropyThreshold();
+    }
+
+    /**
+     * Decides by what is known without reading the object.
+     *
+     * @param name        entry name
+     * @param contentType stored content type, may be null
+     * @param size        object size
+     * @return decision, or empty if the first {@link #getSampleSize()} bytes are needed
+     */
+    public Optional<CompressionDecision> decide(String name, String contentType, long size) {
+        if (size < minSize)
+            return Optional.of(CompressionDecision.stored(POLICY_SIZE));
+
+        String extension = extension(name);
+        Integer extensionLevel = extensionLevels.get(extension);
+        if (extensionLevel != null)
+            return Optional.of(CompressionDecision.deflated(POLICY_EXTENSION, extensionLevel));
+        if (storedExtensions.contains(extension))
+            return Optional.of(CompressionDecision.stored(POLICY_EXTENSION));
+
+        if (contentType != null && isStoredContentType(lowerCase(contentType)))
+            return Optional.of(CompressionDecision.stored(POLICY_CONTENT_TYPE));
+
+        if (sampleSize == 0)
+            return Optional.of(CompressionDecision.deflated(POLICY_DEFAULT, level));
+        return Optional.empty();
+    }
+
+    /**
+     * Decides by the first bytes of the object.
+     */
+    public CompressionDecision decide(byte[] sample, int length) {
+        return entropy(sample, length) >= entropyThreshold ?
+                CompressionDecision.stored(POLICY_ENTROPY) :
+                CompressionDecision.deflated(POLICY_ENTROPY, level);
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * @return Shannon entropy of the bytes, in bits per byte (0-8)
+     */
+    static double entropy(byte[] data, int length) {
+        if (length == 0) return 0;
+        int[] counts = new int[256];
+        for (int i = 0; i < length; i++) {
+            counts[data[i] & 0xFF]++;
+        }
+        double entropy = 0;
+        for (int count : counts) {
+            if (count == 0) continue;
+            double p = (double) count / length;
+            entropy -= p * Math.log(p);
+        }
+        return entropy / Math.log(2);
+    }
+
+    private boolean isStoredContentType(String contentType) {
+        String mediaType = contentType.split(";", 2)[0].strip();
+        for (String stored : storedContentTypes) {
+            if (stored.endsWith("/*") ?
+                    mediaType.startsWith(stored.substring(0, stored.length() - 1)) :
+                    mediaType.equals(stored))
+                return true;
+        }
+        return false;
+    }
+
+    private static String extension(String name) {
+        int slash = name.lastIndexOf('/');
+        int dot = name.lastIndexOf('.');
+        return dot > slash ? lowerCase(name.substring(dot + 1)) : "";
+    }
+
+    private static String lowerCase(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * CPU time of the current thread, 0 if the JVM does not measure it.
+ */
+final class CpuClock {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+
+    private CpuClock() {
+    }
+
+    static long currentThreadNanos() {
+        return SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+}
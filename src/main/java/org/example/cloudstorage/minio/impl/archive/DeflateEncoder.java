@@ -0,0 +1,70 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * <h3>Single-threaded raw deflate encoder</h3>
+ * Compresses entries on the calling thread. One instance is used by one archive at a time;
+ * its {@link Deflater}s are reused between entries and released by {@link #close()}.
+ */
+public class DeflateEncoder implements AutoCloseable {
+
+    private final Deflater[] deflaters = new Deflater[11];
+    private final byte[] output;
+
+    /**
+     * @param output buffer for compressed data, owned by the caller
+     */
+    public DeflateEncoder(byte[] output) {
+        this.output = output;
+    }
+
+    /**
+     * @param in     uncompressed data, read till the end
+     * @param out    destination of the raw deflate stream
+     * @param level  compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+     * @param buffer buffer for uncompressed data
+     */
+    public EncodedEntry encode(InputStream in, OutputStream out, int level, byte[] buffer) throws IOException {
+        long cpuStart = CpuClock.currentThreadNanos();
+        Deflater deflater = deflater(level);
+        deflater.reset();
+        CRC32 crc = new CRC32();
+        long size = 0;
+
+        int len;
+        while ((len = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+            if (Thread.currentThread().isInterrupted())
+                throw new InterruptedIOException("Compression was interrupted");
+            crc.update(buffer, 0, len);
+            size += len;
+            deflater.setInput(buffer, 0, len);
+            while (!deflater.needsInput()) {
+                out.write(output, 0, deflater.deflate(output));
+            }
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            out.write(output, 0, deflater.deflate(output));
+        }
+        return new EncodedEntry(crc.getValue(), size, CpuClock.currentThreadNanos() - cpuStart);
+    }
+
+    @Override
+    public void close() {
+        for (Deflater deflater : deflaters) {
+            if (deflater != null) deflater.end();
+        }
+    }
+
+    private Deflater deflater(int level) {
+        int index = level + 1;
+        if (deflaters[index] == null) deflaters[index] = new Deflater(level, true);
+        return deflaters[index];
+    }
+}
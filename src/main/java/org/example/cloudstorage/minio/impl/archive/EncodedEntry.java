@@ -0,0 +1,11 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+/**
+ * Result of encoding one entry.
+ *
+ * @param crc      CRC-32 of the uncompressed data
+ * @param size     size of the uncompressed data
+ * @param cpuNanos CPU time spent on encoding, summed over all threads
+ */
+public record EncodedEntry(long crc, long size, long cpuNanos) {
+}
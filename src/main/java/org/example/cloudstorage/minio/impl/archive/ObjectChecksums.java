@@ -0,0 +1,144 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.minio.ChecksumIndex;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.model.StoredChecksum;
+import org.example.cloudstorage.util.BufferPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+
+/**
+ * <h3>CRC-32 checksums of MinIO objects</h3>
+ * MinIO does not keep CRC-32 of objects, so a checksum is recorded in the {@link ChecksumIndex} of the
+ * repository when the object is written, or when it is first written into an archive or read for its
+ * checksum. Checksums are also kept in memory by object name and ETag, the least recently used ones
+ * are evicted.
+ * <p>
+ * Checksums known nowhere are computed by reading the objects on the read-ahead executor, at most
+ * {@code concurrency} at a time per {@link #start(List)} call, while the archive is being written.
+ */
+@Slf4j
+public class ObjectChecksums {
+
+    private final MinioRepository minioRepository;
+    private final ExecutorService executor;
+    private final BufferPool bufferPool;
+    private final int concurrency;
+    private final Map<String, Long> checksums;
+
+    public ObjectChecksums(MinioRepository minioRepository,
+                           ExecutorService executor,
+                           BufferPool bufferPool,
+                           int concurrency,
+                           int capacity) {
+        if (concurrency <= 0) throw new IllegalArgumentException("concurrency must be positive");
+        this.minioRepository = minioRepository;
+        this.executor = executor;
+        this.bufferPool = bufferPool;
+        this.concurrency = concurrency;
+        this.checksums = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * Looks up the checksums of the items and starts computing those not known.
+     *
+     * @param items objects in the order their checksums will be needed
+     * @return checksums to wait for; must be closed, which stops computing those not needed any more
+     */
+    public PendingChecksums start(List<Item> items) {
+        Map<String, Long> known = new HashMap<>();
+        Map<String, String> etags = new HashMap<>();
+        for (Item item : items) {
+            Long checksum = item.size() == 0 ? Long.valueOf(0) : checksums.get(key(item));
+            if (checksum != null) known.put(key(item), checksum);
+            else etags.put(minioRepository.contentObjectName(item), item.etag());
+        }
+        Map<String, Long> recorded = findRecorded(etags);
+
+        Map<String, Future<Long>> computing = new HashMap<>();
+        Semaphore permits = new Semaphore(concurrency, true);
+        for (Item item : items) {
+            String key = key(item);
+            if (known.containsKey(key) || computing.containsKey(key)) continue;
+            Long checksum = recorded.get(minioRepository.contentObjectName(item));
+            if (checksum != null) {
+                checksums.put(key, checksum);
+                known.put(key, checksum);
+                continue;
+            }
+            computing.put(key, executor.submit(() -> {
+                permits.acquire();
+                try {
+                    long crc = compute(item);
+                    put(Map.of(item, crc));
+                    return crc;
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        return new PendingChecksums(known, computing);
+    }
+
+    /**
+     * Remembers checksums of objects which were read in full, also in the {@link ChecksumIndex}.
+     */
+    public void put(Map<Item, Long> computed) {
+        if (computed.isEmpty()) return;
+        List<StoredChecksum> stored = new ArrayList<>(computed.size());
+        computed.forEach((item, crc) -> {
+            checksums.put(key(item), crc);
+            stored.add(new StoredChecksum(minioRepository.contentObjectName(item), item.etag(), crc));
+        });
+
+        ChecksumIndex checksumIndex = minioRepository.getChecksumIndex();
+        if (checksumIndex == null) return;
+        try {
+            checksumIndex.save(stored);
+        } catch (RuntimeException e) {
+            log.warn("Failed to record the checksums of {} objects", stored.size(), e);
+        }
+    }
+
+    private Map<String, Long> findRecorded(Map<String, String> etags) {
+        ChecksumIndex checksumIndex = minioRepository.getChecksumIndex();
+        if (checksumIndex == null || etags.isEmpty()) return Map.of();
+        try {
+            return checksumIndex.find(etags);
+        } catch (RuntimeException e) {
+            log.warn("Failed to look up the checksums of {} objects, computing them", etags.size(), e);
+            return Map.of();
+        }
+    }
+
+    private long compute(Item item) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = bufferPool.acquire();
+        try (InputStream in = minioRepository.downloadObject(item.objectName())) {
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, len);
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+        return crc.getValue();
+    }
+
+    static String key(Item item) {
+        return item.objectName() + '\n' + item.etag();
+    }
+}
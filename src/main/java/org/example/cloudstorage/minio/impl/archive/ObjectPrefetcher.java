@@ -0,0 +1,45 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.minio.messages.Item;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.util.MemoryBudget;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * <h3>Opens objects ahead of the archive writer</h3>
+ * Shared by all downloads. Every {@link #open(List)} call gets its own window of
+ * {@code depth} concurrently fetched objects, while the memory for buffered objects
+ * is taken from one {@link MemoryBudget}. Objects bigger than {@code maxObjectSize}
+ * are never buffered and are streamed directly when the writer reaches them.
+ */
+public class ObjectPrefetcher {
+
+    private final MinioRepository minioRepository;
+    private final ExecutorService executor;
+    private final MemoryBudget memoryBudget;
+    private final int depth;
+    private final long maxObjectSize;
+
+    public ObjectPrefetcher(MinioRepository minioRepository,
+                            ExecutorService executor,
+                            MemoryBudget memoryBudget,
+                            int depth,
+                            long maxObjectSize) {
+        if (depth < 0) throw new IllegalArgumentException("depth must not be negative");
+        this.minioRepository = minioRepository;
+        this.executor = executor;
+        this.memoryBudget = memoryBudget;
+        this.depth = depth;
+        this.maxObjectSize = maxObjectSize;
+    }
+
+    /**
+     * @param items objects to read, in the order they will be consumed; folder markers excluded
+     * @return sequence of object streams in the same order; must be closed
+     */
+    public PrefetchedObjects open(List<Item> items) {
+        return new PrefetchedObjects(minioRepository, executor, memoryBudget, depth, maxObjectSize, items);
+    }
+}
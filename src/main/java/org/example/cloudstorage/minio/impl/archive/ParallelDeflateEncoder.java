@@ -0,0 +1,226 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * <h3>Multi-core raw deflate encoder (pigz-style)</h3>
+ * The entry is split into blocks which are compressed independently on a {@link ForkJoinPool}.
+ * Every block is primed with the last 32 KB of the previous block as a dictionary and ends with
+ * a sync flush, so the compressed blocks concatenated in order form one valid deflate stream,
+ * terminated by an empty final block. CRC-32 is computed on the calling thread while reading.
+ * <p>
+ * Data is either read from a stream ({@link #encode}) or written to a {@link DeflateOutputStream}.
+ * <p>
+ * The instance is shared by all downloads; per entry or stream at most {@code maxPendingBlocks} blocks
+ * are kept in memory.
+ */
+public class ParallelDeflateEncoder {
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ForkJoinPool pool;
+    private final int blockSize;
+    private final int maxPendingBlocks;
+    private final long threshold;
+    private final ThreadLocal<Deflater[]> deflaters = ThreadLocal.withInitial(() -> new Deflater[11]);
+    private final ThreadLocal<byte[]> outputBuffers = ThreadLocal.withInitial(() -> new byte[OUTPUT_BUFFER_SIZE]);
+
+    /**
+     * @param pool      pool which compresses blocks
+     * @param blockSize size of the independently compressed blocks
+     * @param threshold entries smaller than this are not worth splitting
+     */
+    public ParallelDeflateEncoder(ForkJoinPool pool, int blockSize, long threshold) {
+        if (blockSize < DICTIONARY_SIZE) throw new IllegalArgumentException("blockSize must be at least 32KB");
+        this.pool = pool;
+        this.blockSize = blockSize;
+        this.maxPendingBlocks = pool.getParallelism() * 2;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param expectedSize uncompressed size of the entry
+     * @return whether the entry should be compressed in parallel
+     */
+    public boolean accepts(long expectedSize) {
+        return expectedSize >= threshold;
+    }
+
+    /**
+     * @param in    uncompressed data, read till the end
+     * @param out   destination of the raw deflate stream
+     * @param level compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public EncodedEntry encode(InputStream in, OutputStream out, int level) throws IOException {
+        long cpuStart = CpuClock.currentThreadNanos();
+        CRC32 crc = new CRC32();
+        long size = 0;
+        try (DeflateOutputStream deflate = open(out, level)) {
+            int len;
+            while ((len = deflate.readBlock(in, crc)) > 0) {
+                size += len;
+            }
+            deflate.finish();
+            return new EncodedEntry(crc.getValue(), size, CpuClock.currentThreadNanos() - cpuStart + deflate.getWorkerCpuNanos());
+        }
+    }
+
+    /**
+     * Opens a stream which deflates everything written to it in blocks; for data produced
+     * by the caller rather than read from a stream, like a whole tar archive.
+     *
+     * @param out   destination of the raw deflate stream
+     * @param level compression level, 0-9 or {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public DeflateOutputStream open(OutputStream out, int level) {
+        return new DeflateOutputStream(out, level);
+    }
+
+    private byte[] compress(byte[] input, int length, byte[] dictionary, int level, boolean last, LongAdder cpu) {
+        long cpuStart = CpuClock.currentThreadNanos();
+        Deflater deflater = deflater(level);
+        deflater.reset();
+        if (dictionary != null) deflater.setDictionary(dictionary);
+        deflater.setInput(input, 0, length);
+
+        byte[] buffer = outputBuffers.get();
+        ByteArrayOutputStream result = new ByteArrayOutputStream(length / 2 + 64);
+        if (last) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                result.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } else {
+            int n;
+            do {
+                n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                result.write(buffer, 0, n);
+            } while (n == buffer.length);
+        }
+        cpu.add(CpuClock.currentThreadNanos() - cpuStart);
+        return result.toByteArray();
+    }
+
+    private Deflater deflater(int level) {
+        Deflater[] levels = deflaters.get();
+        int index = level + 1;
+        if (levels[index] == null) levels[index] = new Deflater(level, true);
+        return levels[index];
+    }
+
+    /**
+     * Raw deflate stream compressed on the pool. {@link #finish()} ends the deflate stream,
+     * {@link #close()} without finishing abandons it; neither closes the destination.
+     */
+    public class DeflateOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final int level;
+        private final Deque<ForkJoinTask<byte[]>> pending = new ArrayDeque<>();
+        private final LongAdder workerCpu = new LongAdder();
+        private byte[] block = new byte[blockSize];
+        private int blockLength;
+        private byte[] dictionary;
+        private boolean finished;
+
+        private DeflateOutputStream(OutputStream out, int level) {
+            this.out = out;
+            this.level = level;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, blockSize - blockLength);
+                System.arraycopy(b, off, block, blockLength, n);
+                blockLength += n;
+                off += n;
+                len -= n;
+                if (blockLength == blockSize) submitBlock();
+            }
+        }
+
+        /**
+         * Reads from {@code in} straight into the current block, saving a copy.
+         *
+         * @return number of bytes read, 0 at the end of {@code in}
+         */
+        private int readBlock(InputStream in, CRC32 crc) throws IOException {
+            int len = in.readNBytes(block, blockLength, blockSize - blockLength);
+            crc.update(block, blockLength, len);
+            blockLength += len;
+            if (blockLength == blockSize) submitBlock();
+            return len;
+        }
+
+        /**
+         * Compresses the rest, writes the final block and waits for everything to be written.
+         */
+        public void finish() throws IOException {
+            if (finished) return;
+            submitBlock();
+            pending.add(pool.submit(() -> compress(EMPTY, 0, null, level, true, workerCpu)));
+            while (!pending.isEmpty()) {
+                out.write(await(pending.poll()));
+            }
+            finished = true;
+        }
+
+        public long getWorkerCpuNanos() {
+            return workerCpu.sum();
+        }
+
+        @Override
+        public void close() {
+            pending.forEach(task -> task.cancel(false));
+            pending.clear();
+        }
+
+        private void submitBlock() throws IOException {
+            if (blockLength == 0) return;
+            if (Thread.currentThread().isInterrupted())
+                throw new InterruptedIOException("Compression was interrupted");
+            byte[] input = block;
+            int length = blockLength;
+            byte[] inputDictionary = dictionary;
+            pending.add(pool.submit(() -> compress(input, length, inputDictionary, level, false, workerCpu)));
+            dictionary = Arrays.copyOfRange(input, Math.max(0, length - DICTIONARY_SIZE), length);
+            block = new byte[blockSize];
+            blockLength = 0;
+
+            while (pending.size() >= maxPendingBlocks) {
+                out.write(await(pending.poll()));
+            }
+        }
+    }
+
+    private static byte[] await(ForkJoinTask<byte[]> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to compress zip entry", e.getCause());
+        }
+    }
+}
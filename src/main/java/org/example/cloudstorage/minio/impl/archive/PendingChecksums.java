@@ -0,0 +1,54 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.minio.messages.Item;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Checksums of one {@link ObjectChecksums#start(java.util.List)} call, some of them still being computed.
+ */
+public class PendingChecksums implements AutoCloseable {
+
+    private final Map<String, Long> known;
+    private final Map<String, Future<Long>> computing;
+
+    PendingChecksums(Map<String, Long> known, Map<String, Future<Long>> computing) {
+        this.known = known;
+        this.computing = computing;
+    }
+
+    /**
+     * Waits until the checksum is computed if it is not known yet.
+     *
+     * @param item one of the items the checksums were started for
+     * @return CRC-32 of the object
+     */
+    public long get(Item item) throws IOException {
+        if (item.size() == 0) return 0;
+        String key = ObjectChecksums.key(item);
+        Long checksum = known.get(key);
+        if (checksum != null) return checksum;
+
+        Future<Long> future = computing.get(key);
+        if (future == null) throw new IllegalArgumentException("Checksum was not started: " + item.objectName());
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while computing the checksum of " + item.objectName());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) throw cause;
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IOException("Failed to compute the checksum of " + item.objectName(), e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        computing.values().forEach(future -> future.cancel(true));
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.minio.messages.Item;
+import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.util.MemoryBudget;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <h3>Ordered sequence of object streams with read-ahead</h3>
+ * Not thread-safe: it is driven by the single thread that writes the archive.
+ * Fetches are scheduled in listing order; if the memory budget is exhausted scheduling pauses
+ * until the writer closes earlier streams, so entries are always returned in listing order.
+ */
+public class PrefetchedObjects implements Closeable {
+
+    private final MinioRepository minioRepository;
+    private final ExecutorService executor;
+    private final MemoryBudget memoryBudget;
+    private final int depth;
+    private final long maxObjectSize;
+    private final List<Item> items;
+
+    private final Deque<Slot> window = new ArrayDeque<>();
+    private int cursor;
+
+    PrefetchedObjects(MinioRepository minioRepository,
+                      ExecutorService executor,
+                      MemoryBudget memoryBudget,
+                      int depth,
+                      long maxObjectSize,
+                      List<Item> items) {
+        this.minioRepository = minioRepository;
+        this.executor = executor;
+        this.memoryBudget = memoryBudget;
+        this.depth = depth;
+        this.maxObjectSize = maxObjectSize;
+        this.items = items;
+    }
+
+    /**
+     * @return stream of the next object; the caller must close it before asking for the next one
+     * @throws NoSuchElementException if all objects were returned
+     */
+    public InputStream next() throws IOException {
+        fill();
+        Slot slot = window.poll();
+        if (slot == null) {
+            if (cursor >= items.size()) throw new NoSuchElementException();
+            return minioRepository.downloadObject(items.get(cursor++).objectName());
+        }
+        return slot.open();
+    }
+
+    @Override
+    public void close() {
+        Slot slot;
+        while ((slot = window.poll()) != null) {
+            slot.cancel();
+        }
+        cursor = items.size();
+    }
+
+    private void fill() {
+        while (window.size() < depth && cursor < items.size()) {
+            Item item = items.get(cursor);
+            long size = item.size();
+            if (size > maxObjectSize) {
+                window.add(new DirectSlot(item));
+            } else if (memoryBudget.tryReserve(size)) {
+                window.add(new BufferedSlot(size, executor.submit(() -> fetch(item))));
+            } else if (window.isEmpty()) {
+                window.add(new DirectSlot(item));
+            } else {
+                return;
+            }
+            cursor++;
+        }
+    }
+
+    private byte[] fetch(Item item) throws IOException {
+        try (InputStream in = minioRepository.downloadObject(item.objectName())) {
+            return in.readAllBytes();
+        }
+    }
+
+    private interface Slot {
+        InputStream open() throws IOException;
+
+        void cancel();
+    }
+
+    private class DirectSlot implements Slot {
+        private final Item item;
+
+        DirectSlot(Item item) {
+            this.item = item;
+        }
+
+        @Override
+        public InputStream open() {
+            return minioRepository.downloadObject(item.objectName());
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+
+    private class BufferedSlot implements Slot {
+        private final long reserved;
+        private final Future<byte[]> content;
+
+        BufferedSlot(long reserved, Future<byte[]> content) {
+            this.reserved = reserved;
+            this.content = content;
+        }
+
+        @Override
+        public InputStream open() throws IOException {
+            byte[] bytes;
+            try {
+                bytes = content.get();
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for prefetched object");
+            } catch (ExecutionException e) {
+                memoryBudget.release(reserved);
+                if (e.getCause() instanceof IOException io) throw io;
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw new MinioException(e.getCause());
+            }
+            return new ByteArrayInputStream(bytes) {
+                private boolean released;
+
+                @Override
+                public void close() {
+                    if (released) return;
+                    released = true;
+                    memoryBudget.release(reserved);
+                }
+            };
+        }
+
+        @Override
+        public void cancel() {
+            content.cancel(true);
+            memoryBudget.release(reserved);
+        }
+    }
+}
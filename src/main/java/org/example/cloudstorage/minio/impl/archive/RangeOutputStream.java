@@ -0,0 +1,84 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <h3>Passes through only the bytes of a window</h3>
+ * Tracks the position in a virtual stream and forwards to the delegate only the bytes
+ * inside {@code [start, end]}, so a partial archive can be produced by writing the whole one.
+ * Regions known not to overlap the window can be {@link #skip(long) skipped} without producing their bytes.
+ */
+public class RangeOutputStream extends OutputStream {
+
+    private final OutputStream out;
+    private final long start;
+    private final long end;
+    private long position;
+
+    /**
+     * @param start first position to pass through
+     * @param end   last position to pass through, inclusive
+     */
+    public RangeOutputStream(OutputStream out, long start, long end) {
+        this.out = out;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (position >= start && position <= end) out.write(b);
+        position++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        long from = Math.max(position, start);
+        long to = Math.min(position + len - 1, end);
+        if (from <= to) out.write(b, off + (int) (from - position), (int) (to - from + 1));
+        position += len;
+    }
+
+    /**
+     * Advances the position without producing bytes.
+     *
+     * @throws IOException if the skipped region overlaps the window
+     */
+    public void skip(long length) throws IOException {
+        if (overlaps(position, length))
+            throw new IOException("Cannot skip %d bytes at %d, they overlap the range".formatted(length, position));
+        position += length;
+    }
+
+    /**
+     * @return whether any byte of {@code [from, from + length)} is inside the window
+     */
+    public boolean overlaps(long from, long length) {
+        return length > 0 && from <= end && from + length - 1 >= start;
+    }
+
+    /**
+     * @return whether every byte of the window has been passed through
+     */
+    public boolean isComplete() {
+        return position > end;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,196 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.util.BufferPool;
+import org.example.cloudstorage.util.PooledBufferedOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * <h3>Writes a zip archive of MinIO objects whose layout is known in advance</h3>
+ * Every file is stored uncompressed with a data descriptor, so the position of every byte
+ * of the archive follows from the listing alone and any byte range of it can be written
+ * by reading only the objects which overlap the range:
+ * <pre>{@code
+ * ZipLayout layout = writer.layout(entries);
+ * // layout.length() is the Content-Length
+ * writer.write(layout, start, end, out);
+ * }</pre>
+ * Data descriptors and the central directory need the CRC-32 of the entries before them.
+ * It is computed while an object is written in full and taken from {@link ObjectChecksums} otherwise,
+ * which starts computing the unknown ones concurrently before the first byte is written.
+ * <p>
+ * Streaming readers such as {@link java.util.zip.ZipInputStream} do not accept stored entries
+ * with data descriptors; readers using the central directory (unzip, 7-Zip, OS archive tools) do.
+ */
+@Slf4j
+public class StoredZipArchiveWriter {
+
+    /**
+     * Longest data descriptor, the ZIP64 one.
+     */
+    private static final int MAX_DESCRIPTOR_LENGTH = 24;
+
+    private final MinioRepository minioRepository;
+    private final ObjectPrefetcher objectPrefetcher;
+    private final ObjectChecksums objectChecksums;
+    private final BufferPool bufferPool;
+
+    public StoredZipArchiveWriter(MinioRepository minioRepository,
+                                  ObjectPrefetcher objectPrefetcher,
+                                  ObjectChecksums objectChecksums,
+                                  BufferPool bufferPool) {
+        this.minioRepository = minioRepository;
+        this.objectPrefetcher = objectPrefetcher;
+        this.objectChecksums = objectChecksums;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Computes the layout by writing the archive headers to nowhere, no object is read.
+     *
+     * @param entries entries in archive order
+     */
+    public ZipLayout layout(List<ArchiveEntry> entries) throws IOException {
+        long[] dataOffsets = new long[entries.size()];
+        ZonedDateTime lastModified = null;
+
+        RangeOutputStream headers = new RangeOutputStream(OutputStream.nullOutputStream(), Long.MAX_VALUE, Long.MAX_VALUE);
+        ZipStreamWriter zip = new ZipStreamWriter(headers);
+        for (int i = 0; i < entries.size(); i++) {
+            ArchiveEntry entry = entries.get(i);
+            Item item = entry.item();
+            if (item.lastModified() != null && (lastModified == null || item.lastModified().isAfter(lastModified)))
+                lastModified = item.lastModified();
+
+            if (entry.isDirectory()) {
+                zip.writeDirectory(entry.name(), item.lastModified());
+                dataOffsets[i] = zip.getBytesWritten();
+                continue;
+            }
+            zip.beginEntry(entry.name(), ZipStreamWriter.METHOD_STORED, item.lastModified(), item.size());
+            dataOffsets[i] = zip.getBytesWritten();
+            zip.skipEntryData(item.size());
+            zip.endEntry(0, item.size());
+        }
+        long centralDirectoryOffset = zip.getBytesWritten();
+        zip.finish();
+
+        return new ZipLayout(entries, dataOffsets, centralDirectoryOffset, zip.getBytesWritten(),
+                lastModified, ArchiveEntries.fingerprint(entries));
+    }
+
+    /**
+     * Writes bytes {@code start} to {@code end} (inclusive) of the archive.
+     *
+     * @param out destination; flushed but not closed
+     * @throws IOException if an object no longer matches the layout
+     */
+    public void write(ZipLayout layout, long start, long end, OutputStream out) throws IOException {
+        List<ArchiveEntry> entries = layout.entries();
+        boolean centralDirectoryNeeded = end >= layout.centralDirectoryOffset();
+        List<Item> fullyCovered = new ArrayList<>();
+        List<Item> checksumsNeeded = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Item item = entries.get(i).item();
+            if (entries.get(i).isDirectory() || item.size() == 0) continue;
+            long dataOffset = layout.dataOffsets()[i];
+            long descriptorOffset = dataOffset + item.size();
+            if (dataOffset >= start && descriptorOffset - 1 <= end) fullyCovered.add(item);
+            else if (centralDirectoryNeeded || (descriptorOffset <= end && descriptorOffset + MAX_DESCRIPTOR_LENGTH > start))
+                checksumsNeeded.add(item);
+        }
+        Map<Item, Long> computed = new HashMap<>();
+
+        byte[] buffer = bufferPool.acquire();
+        try (PendingChecksums checksums = objectChecksums.start(checksumsNeeded);
+             PrefetchedObjects objects = objectPrefetcher.open(fullyCovered);
+             PooledBufferedOutputStream bufferedOut = new PooledBufferedOutputStream(out, bufferPool)) {
+            RangeOutputStream range = new RangeOutputStream(bufferedOut, start, end);
+            ZipStreamWriter zip = new ZipStreamWriter(range);
+            for (ArchiveEntry entry : entries) {
+                if (range.isComplete()) break;
+                checkInterrupted();
+                Item item = entry.item();
+                if (entry.isDirectory()) {
+                    zip.writeDirectory(entry.name(), item.lastModified());
+                    continue;
+                }
+
+                OutputStream data = zip.beginEntry(entry.name(), ZipStreamWriter.METHOD_STORED, item.lastModified(), item.size());
+                long crc = writeData(zip, range, data, item, objects, buffer);
+                if (crc >= 0) computed.put(item, crc);
+                else if (centralDirectoryNeeded || range.overlaps(range.getPosition(), MAX_DESCRIPTOR_LENGTH))
+                    crc = checksums.get(item);
+                zip.endEntry(Math.max(crc, 0), item.size());
+            }
+            if (!range.isComplete()) zip.finish();
+        } finally {
+            bufferPool.release(buffer);
+            objectChecksums.put(computed);
+        }
+        log.debug("Zip range {}-{} of {} entries downloaded successfully", start, end, entries.size());
+    }
+
+    /**
+     * Writes the part of the object data which overlaps the range and skips the rest.
+     *
+     * @return CRC-32 of the object if it was read in full, -1 otherwise
+     */
+    private long writeData(ZipStreamWriter zip, RangeOutputStream range, OutputStream data, Item item,
+                           PrefetchedObjects objects, byte[] buffer) throws IOException {
+        long dataStart = range.getPosition();
+        long size = item.size();
+        if (!range.overlaps(dataStart, size)) {
+            zip.skipEntryData(size);
+            return -1;
+        }
+
+        if (dataStart >= range.getStart() && dataStart + size - 1 <= range.getEnd()) {
+            CRC32 crc = new CRC32();
+            try (InputStream in = objects.next()) {
+                copy(in, data, size, crc, buffer, item);
+            }
+            return crc.getValue();
+        }
+
+        long from = Math.max(range.getStart(), dataStart) - dataStart;
+        long to = Math.min(range.getEnd(), dataStart + size - 1) - dataStart;
+        zip.skipEntryData(from);
+        try (InputStream in = minioRepository.downloadObject(item.objectName(), from, to - from + 1)) {
+            copy(in, data, to - from + 1, null, buffer, item);
+        }
+        zip.skipEntryData(size - to - 1);
+        return -1;
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length, CRC32 crc,
+                             byte[] buffer, Item item) throws IOException {
+        long copied = 0;
+        int len;
+        while (copied < length && (len = in.read(buffer, 0, (int) Math.min(buffer.length, length - copied))) > 0) {
+            checkInterrupted();
+            if (crc != null) crc.update(buffer, 0, len);
+            out.write(buffer, 0, len);
+            copied += len;
+        }
+        if (copied != length || (crc != null && in.read() != -1))
+            throw new IOException("Object has changed since it was listed: " + item.objectName());
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted())
+            throw new InterruptedIOException("Zip streaming was interrupted");
+    }
+}
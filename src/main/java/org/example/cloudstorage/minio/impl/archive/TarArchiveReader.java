@@ -0,0 +1,201 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <h3>Streaming tar reader</h3>
+ * Reads ustar, GNU and POSIX pax archives: long names of GNU {@code L} entries and the
+ * {@code path} of pax headers are applied to the following entry. Only regular files and
+ * directories are returned; links, devices and other special entries are skipped.
+ */
+public class TarArchiveReader implements ArchiveReader {
+
+    private static final int BLOCK_SIZE = 512;
+    /**
+     * Long names and pax headers are read into memory.
+     */
+    private static final int MAX_HEADER_ENTRY_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final byte[] header = new byte[BLOCK_SIZE];
+    private EntryInputStream current;
+
+    public TarArchiveReader(InputStream in) {
+        this.in = in;
+    }
+
+    @Override
+    public Entry next() throws IOException {
+        String longName = null;
+        while (true) {
+            if (current != null) current.skipRest();
+            current = null;
+            if (!readHeader()) return null;
+
+            long size = parseNumber(header, 124, 12);
+            char type = (char) header[156];
+            current = new EntryInputStream(size);
+            switch (type) {
+                case 'L' -> longName = trimNul(readSmall(current, size));
+                case 'x' -> {
+                    String path = paxPath(readSmall(current, size));
+                    if (path != null) longName = path;
+                }
+                case '0', '\0', '7', '5' -> {
+                    String name = longName != null ? longName : name();
+                    return new Entry(name, type == '5' || name.endsWith("/"), current);
+                }
+                default -> longName = null;
+            }
+        }
+    }
+
+    /**
+     * @return false at the end of the archive
+     */
+    private boolean readHeader() throws IOException {
+        int read = in.readNBytes(header, 0, BLOCK_SIZE);
+        if (read == 0) return false;
+        if (read < BLOCK_SIZE) throw new IOException("Unexpected end of tar archive");
+        boolean zero = true;
+        for (byte b : header) {
+            if (b != 0) {
+                zero = false;
+                break;
+            }
+        }
+        // the end is marked by zero blocks
+        if (zero) return false;
+
+        long checksum = parseNumber(header, 148, 8);
+        long sum = 0;
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            sum += (i >= 148 && i < 156) ? ' ' : header[i] & 0xFF;
+        }
+        if (sum != checksum) throw new IOException("Not a tar archive or a corrupted header");
+        return true;
+    }
+
+    private String name() {
+        String name = string(0, 100);
+        if (string(257, 5).equals("ustar")) {
+            String prefix = string(345, 155);
+            if (!prefix.isEmpty()) name = prefix + "/" + name;
+        }
+        return name;
+    }
+
+    private String string(int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) end++;
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Octal, or base-256 if the high bit of the first byte is set (GNU extension for big sizes).
+     */
+    private static long parseNumber(byte[] header, int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7F;
+            for (int i = offset + 1; i < offset + length; i++) {
+                if (value > (Long.MAX_VALUE >> 8)) throw new IOException("Tar number is too big");
+                value = (value << 8) | (header[i] & 0xFF);
+            }
+            return value;
+        }
+        int i = offset;
+        int end = offset + length;
+        while (i < end && header[i] == ' ') i++;
+        long value = 0;
+        // a NUL or space ends the number
+        for (; i < end && header[i] != 0 && header[i] != ' '; i++) {
+            if (header[i] < '0' || header[i] > '7') throw new IOException("Invalid tar header number");
+            if (value > (Long.MAX_VALUE >> 3)) throw new IOException("Tar number is too big");
+            value = (value << 3) + (header[i] - '0');
+        }
+        return value;
+    }
+
+    private static byte[] readSmall(InputStream content, long size) throws IOException {
+        if (size > MAX_HEADER_ENTRY_SIZE) throw new IOException("Tar extended header is too big");
+        return content.readNBytes((int) size);
+    }
+
+    private static String trimNul(byte[] bytes) {
+        int end = 0;
+        while (end < bytes.length && bytes[end] != 0) end++;
+        return new String(bytes, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Records are {@code <length> <key>=<value>\n}, the length counting the whole record.
+     */
+    private static String paxPath(byte[] records) throws IOException {
+        int position = 0;
+        String path = null;
+        while (position < records.length) {
+            int space = position;
+            while (space < records.length && records[space] != ' ') space++;
+            int length;
+            try {
+                length = Integer.parseInt(new String(records, position, space - position, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid pax header", e);
+            }
+            if (length <= 0 || position + length > records.length) throw new IOException("Invalid pax header");
+            String record = new String(records, space + 1, position + length - space - 2, StandardCharsets.UTF_8);
+            if (record.startsWith("path=")) path = record.substring("path=".length());
+            position += length;
+        }
+        return path;
+    }
+
+    /**
+     * Content of an entry; the padding up to the next block is skipped with the rest.
+     */
+    private class EntryInputStream extends InputStream {
+        private final long padding;
+        private long remaining;
+
+        EntryInputStream(long size) {
+            this.remaining = size;
+            this.padding = (BLOCK_SIZE - size % BLOCK_SIZE) % BLOCK_SIZE;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0) return -1;
+            if (len == 0) return 0;
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read < 0) throw new IOException("Unexpected end of tar archive");
+            remaining -= read;
+            return read;
+        }
+
+        void skipRest() throws IOException {
+            long toSkip = remaining + padding;
+            remaining = 0;
+            while (toSkip > 0) {
+                long skipped = in.skip(toSkip);
+                if (skipped <= 0) {
+                    if (in.read() < 0) throw new IOException("Unexpected end of tar archive");
+                    skipped = 1;
+                }
+                toSkip -= skipped;
+            }
+        }
+
+        @Override
+        public void close() {
+            // the rest is skipped by next()
+        }
+    }
+}
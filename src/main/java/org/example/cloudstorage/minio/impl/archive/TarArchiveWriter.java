@@ -0,0 +1,142 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.util.BufferPool;
+import org.example.cloudstorage.util.PooledBufferedOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * <h3>Streams a set of MinIO objects as a tar archive, optionally gzipped</h3>
+ * Tar has no per-entry compression and no central directory, so folders of many small files
+ * cost one 512 byte header per entry and nothing else. Like the {@link ZipArchiveWriter},
+ * the archive is written on the calling thread in listing order while the following objects
+ * are fetched by the {@link ObjectPrefetcher}.
+ * <p>
+ * A gzipped archive is compressed as one stream by the {@link ParallelDeflateEncoder} if one is given,
+ * on the calling thread otherwise.
+ */
+@Slf4j
+public class TarArchiveWriter {
+
+    private static final int DEFLATE_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final ObjectPrefetcher objectPrefetcher;
+    private final ParallelDeflateEncoder parallelDeflateEncoder;
+    private final int level;
+    private final BufferPool bufferPool;
+
+    /**
+     * @param parallelDeflateEncoder encoder for gzipped archives; null to compress on the calling thread
+     * @param level                  gzip compression level
+     */
+    public TarArchiveWriter(ObjectPrefetcher objectPrefetcher,
+                            ParallelDeflateEncoder parallelDeflateEncoder,
+                            int level,
+                            BufferPool bufferPool) {
+        this.objectPrefetcher = objectPrefetcher;
+        this.parallelDeflateEncoder = parallelDeflateEncoder;
+        this.level = level;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * @param entries entries in archive order
+     * @param out     destination; flushed but not closed
+     * @param gzip    whether to gzip the archive
+     */
+    public void write(List<ArchiveEntry> entries, OutputStream out, boolean gzip) throws IOException {
+        try (PooledBufferedOutputStream bufferedOut = new PooledBufferedOutputStream(out, bufferPool)) {
+            if (gzip) {
+                writeGzipped(entries, bufferedOut);
+            } else {
+                writeTar(entries, bufferedOut);
+            }
+        }
+        log.debug("Tar of {} entries downloaded successfully", entries.size());
+    }
+
+    private void writeGzipped(List<ArchiveEntry> entries, OutputStream out) throws IOException {
+        out.write(GZIP_HEADER);
+        CRC32 crc = new CRC32();
+        long size;
+        if (parallelDeflateEncoder != null) {
+            try (ParallelDeflateEncoder.DeflateOutputStream deflate = parallelDeflateEncoder.open(out, level)) {
+                size = writeTar(entries, new CheckedOutputStream(deflate, crc));
+                deflate.finish();
+            }
+        } else {
+            Deflater deflater = new Deflater(level, true);
+            try {
+                // finished but not closed, which would close the destination
+                DeflaterOutputStream deflate = new DeflaterOutputStream(out, deflater, DEFLATE_BUFFER_SIZE);
+                size = writeTar(entries, new CheckedOutputStream(deflate, crc));
+                deflate.finish();
+            } finally {
+                deflater.end();
+            }
+        }
+        writeIntLE(out, crc.getValue());
+        writeIntLE(out, size);
+    }
+
+    /**
+     * @return size of the tar archive
+     */
+    private long writeTar(List<ArchiveEntry> entries, OutputStream out) throws IOException {
+        List<Item> files = entries.stream()
+                .filter(entry -> !entry.isDirectory())
+                .map(ArchiveEntry::item)
+                .toList();
+        byte[] buffer = bufferPool.acquire();
+        try (PrefetchedObjects objects = objectPrefetcher.open(files)) {
+            TarStreamWriter tar = new TarStreamWriter(out);
+            for (ArchiveEntry entry : entries) {
+                checkInterrupted();
+                if (entry.isDirectory()) {
+                    tar.writeDirectory(entry.name(), entry.item().lastModified());
+                    continue;
+                }
+
+                try (InputStream in = objects.next()) {
+                    OutputStream data = tar.beginFile(entry.name(), entry.item().lastModified(), entry.item().size());
+                    int len;
+                    while ((len = in.read(buffer)) > 0) {
+                        checkInterrupted();
+                        data.write(buffer, 0, len);
+                    }
+                    tar.endEntry();
+                }
+            }
+            tar.finish();
+            return tar.getBytesWritten();
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    /**
+     * Gzip stores the size modulo 2^32.
+     */
+    private static void writeIntLE(OutputStream out, long v) throws IOException {
+        out.write((int) v);
+        out.write((int) (v >>> 8));
+        out.write((int) (v >>> 16));
+        out.write((int) (v >>> 24));
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted())
+            throw new InterruptedIOException("Tar streaming was interrupted");
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+/**
+ * <h3>Low level streaming tar format writer</h3>
+ * Writes POSIX (pax) tar archives: every entry is a ustar header followed by its data padded
+ * to 512 byte blocks. Names which do not fit into the ustar header or are not ASCII, and sizes
+ * of 8 GB and more, are written to a pax extended header preceding the entry.
+ *
+ * <h6>Usage</h6>
+ * <pre>{@code
+ * OutputStream data = writer.beginFile(name, lastModified, size);
+ * // write exactly 'size' bytes to 'data'
+ * writer.endEntry();
+ * ...
+ * writer.finish();
+ * }</pre>
+ */
+public class TarStreamWriter {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int NAME_LENGTH = 100;
+    private static final long MAX_USTAR_SIZE = 077777777777L;
+    private static final byte TYPE_FILE = '0';
+    private static final byte TYPE_DIRECTORY = '5';
+    private static final byte TYPE_PAX = 'x';
+    private static final byte[] ZERO_BLOCK = new byte[BLOCK_SIZE];
+
+    private final OutputStream out;
+    private long bytesWritten;
+    private long expectedSize = -1;
+    private long entryWritten;
+
+    public TarStreamWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * @param name entry name; directory names end with a slash
+     */
+    public void writeDirectory(String name, ZonedDateTime lastModified) throws IOException {
+        writeHeaders(name, TYPE_DIRECTORY, 0755, lastModified, 0);
+    }
+
+    /**
+     * @return stream for exactly {@code size} bytes of entry data
+     */
+    public OutputStream beginFile(String name, ZonedDateTime lastModified, long size) throws IOException {
+        if (expectedSize >= 0) throw new IllegalStateException("Previous entry is not ended");
+        writeHeaders(name, TYPE_FILE, 0644, lastModified, size);
+        expectedSize = size;
+        entryWritten = 0;
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (entryWritten + len > expectedSize)
+                    throw new IOException("Entry is bigger than its declared size %d".formatted(expectedSize));
+                TarStreamWriter.this.write(b, off, len);
+                entryWritten += len;
+            }
+
+            @Override
+            public void close() {
+                // the entry is ended by endEntry(), the archive stream stays open
+            }
+        };
+    }
+
+    /**
+     * @throws IOException if less data than declared was written
+     */
+    public void endEntry() throws IOException {
+        if (entryWritten != expectedSize)
+            throw new IOException("Entry has %d bytes instead of %d".formatted(entryWritten, expectedSize));
+        pad();
+        expectedSize = -1;
+    }
+
+    /**
+     * Writes the end-of-archive marker; the underlying stream is flushed but not closed.
+     */
+    public void finish() throws IOException {
+        write(ZERO_BLOCK, 0, BLOCK_SIZE);
+        write(ZERO_BLOCK, 0, BLOCK_SIZE);
+        out.flush();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private void writeHeaders(String name, byte type, int mode, ZonedDateTime lastModified, long size) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        boolean paxName = nameBytes.length > NAME_LENGTH || nameBytes.length != name.length();
+        boolean paxSize = size > MAX_USTAR_SIZE;
+        long mtime = lastModified == null ? 0 : lastModified.toEpochSecond();
+        if (paxName || paxSize) {
+            StringBuilder records = new StringBuilder();
+            if (paxName) records.append(paxRecord("path", name));
+            if (paxSize) records.append(paxRecord("size", Long.toString(size)));
+            byte[] pax = records.toString().getBytes(StandardCharsets.UTF_8);
+            write(header(asciiName("PaxHeaders/" + name), TYPE_PAX, 0644, mtime, pax.length), 0, BLOCK_SIZE);
+            write(pax, 0, pax.length);
+            pad();
+        }
+        write(header(paxName ? asciiName(name) : nameBytes, type, mode, mtime, paxSize ? 0 : size), 0, BLOCK_SIZE);
+    }
+
+    private static byte[] header(byte[] name, byte type, int mode, long mtime, long size) {
+        byte[] header = new byte[BLOCK_SIZE];
+        System.arraycopy(name, 0, header, 0, Math.min(name.length, NAME_LENGTH));
+        octal(header, 100, 8, mode);
+        octal(header, 108, 8, 0);
+        octal(header, 116, 8, 0);
+        octal(header, 124, 12, size);
+        octal(header, 136, 12, mtime);
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        header[156] = type;
+        System.arraycopy("ustar\0".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 6);
+        header[263] = '0';
+        header[264] = '0';
+
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        octal(header, 148, 7, checksum);
+        return header;
+    }
+
+    /**
+     * Zero-terminated octal number filling the field.
+     */
+    private static void octal(byte[] header, int offset, int length, long value) {
+        String digits = Long.toOctalString(value);
+        int pad = length - 1 - digits.length();
+        for (int i = 0; i < length - 1; i++) {
+            header[offset + i] = (byte) (i < pad ? '0' : digits.charAt(i - pad));
+        }
+        header[offset + length - 1] = 0;
+    }
+
+    /**
+     * Name for the ustar header of an entry whose real name is in a pax header,
+     * for readers which do not understand pax.
+     */
+    private static byte[] asciiName(String name) {
+        byte[] ascii = name.replaceAll("[^\\x20-\\x7E]", "_").getBytes(StandardCharsets.US_ASCII);
+        return Arrays.copyOf(ascii, Math.min(ascii.length, NAME_LENGTH));
+    }
+
+    /**
+     * Pax record {@code "<length> <key>=<value>\n"}, where the length includes its own digits.
+     */
+    private static String paxRecord(String key, String value) {
+        int length = key.getBytes(StandardCharsets.UTF_8).length + value.getBytes(StandardCharsets.UTF_8).length + 3;
+        int total = length + Integer.toString(length).length();
+        if (Integer.toString(total).length() != Integer.toString(length).length()) total++;
+        return total + " " + key + "=" + value + "\n";
+    }
+
+    private void pad() throws IOException {
+        int remainder = (int) (bytesWritten % BLOCK_SIZE);
+        if (remainder != 0) write(ZERO_BLOCK, 0, BLOCK_SIZE - remainder);
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        bytesWritten += len;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * <h3>Makes entry names unique within an archive</h3>
+ * A name which is already taken gets a counter before its extension, e.g. {@code report (1).pdf}
+ * or {@code photos (2)/}. Names are compared case-insensitively, as they would clash when
+ * extracted on a case-insensitive file system.
+ */
+public class UniqueEntryNames {
+
+    private final Set<String> taken = new HashSet<>();
+
+    /**
+     * @param name file name, or directory name ending with a slash
+     * @return {@code name}, or a variant of it if it is taken; the returned name becomes taken
+     */
+    public String reserve(String name) {
+        boolean directory = name.endsWith("/");
+        String base = directory ? name.substring(0, name.length() - 1) : name;
+        int dot = directory ? -1 : base.lastIndexOf('.');
+        String stem = dot > 0 ? base.substring(0, dot) : base;
+        String extension = (dot > 0 ? base.substring(dot) : "") + (directory ? "/" : "");
+
+        String candidate = name;
+        for (int i = 1; !taken.add(candidate.toLowerCase(Locale.ROOT)); i++) {
+            candidate = stem + " (" + i + ")" + extension;
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads a zip archive by its local headers, so the central directory at its end is not needed.
+ */
+public class ZipArchiveReader implements ArchiveReader {
+
+    private final ZipInputStream zip;
+    private final InputStream content;
+
+    public ZipArchiveReader(InputStream in) {
+        this.zip = new ZipInputStream(in, StandardCharsets.UTF_8);
+        this.content = new FilterInputStream(zip) {
+            @Override
+            public void close() {
+                // the archive continues
+            }
+        };
+    }
+
+    @Override
+    public Entry next() throws IOException {
+        ZipEntry entry;
+        try {
+            entry = zip.getNextEntry();
+        } catch (IllegalArgumentException e) {
+            // a name which is not UTF-8
+            throw new IOException("Invalid zip entry name", e);
+        }
+        if (entry == null) return null;
+        return new Entry(entry.getName(), entry.isDirectory(), content);
+    }
+}
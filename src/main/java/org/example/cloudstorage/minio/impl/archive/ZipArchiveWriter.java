@@ -0,0 +1,160 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.util.BufferPool;
+import org.example.cloudstorage.util.PooledBufferedOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * <h3>Streams a set of MinIO objects as a zip archive</h3>
+ * The archive is written directly to the given output stream on the calling thread in listing order,
+ * while the following objects are fetched by the {@link ObjectPrefetcher}, so memory usage does not
+ * depend on the folder size. Every object stream is closed as soon as its entry is written.
+ * If writing fails (e.g. the client has disconnected) or the thread is interrupted,
+ * pending fetches are cancelled and no further objects are requested.
+ * <p>
+ * Every entry is either stored or deflated as decided by the {@link CompressionPolicy}.
+ * Large deflated entries are compressed by the {@link ParallelDeflateEncoder} if one is given,
+ * the rest on the calling thread.
+ */
+@Slf4j
+public class ZipArchiveWriter {
+
+    /**
+     * Stored entries up to this size are read into memory first, so their checksum is written
+     * to the local header and the archive stays readable by streaming unzippers.
+     */
+    private static final long STORED_IN_MEMORY_LIMIT = 1024 * 1024;
+
+    private final ObjectPrefetcher objectPrefetcher;
+    private final ParallelDeflateEncoder parallelDeflateEncoder;
+    private final CompressionPolicy compressionPolicy;
+    private final CompressionMetrics compressionMetrics;
+    private final BufferPool bufferPool;
+
+    /**
+     * @param parallelDeflateEncoder encoder for large entries; null to compress everything on the calling thread
+     */
+    public ZipArchiveWriter(ObjectPrefetcher objectPrefetcher,
+                            ParallelDeflateEncoder parallelDeflateEncoder,
+                            CompressionPolicy compressionPolicy,
+                            CompressionMetrics compressionMetrics,
+                            BufferPool bufferPool) {
+        this.objectPrefetcher = objectPrefetcher;
+        this.parallelDeflateEncoder = parallelDeflateEncoder;
+        this.compressionPolicy = compressionPolicy;
+        this.compressionMetrics = compressionMetrics;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * @param entries entries in archive order
+     * @param out     destination; flushed but not closed
+     */
+    public void write(List<ArchiveEntry> entries, OutputStream out) throws IOException {
+        List<Item> files = entries.stream()
+                .filter(entry -> !entry.isDirectory())
+                .map(ArchiveEntry::item)
+                .toList();
+        byte[] buffer = bufferPool.acquire();
+        byte[] deflateBuffer = bufferPool.acquire();
+        try (PrefetchedObjects objects = objectPrefetcher.open(files);
+             DeflateEncoder deflateEncoder = new DeflateEncoder(deflateBuffer);
+             PooledBufferedOutputStream bufferedOut = new PooledBufferedOutputStream(out, bufferPool)) {
+            ZipStreamWriter zip = new ZipStreamWriter(bufferedOut);
+            for (ArchiveEntry entry : entries) {
+                checkInterrupted();
+                if (entry.isDirectory()) {
+                    zip.writeDirectory(entry.name(), entry.item().lastModified());
+                    continue;
+                }
+
+                try (InputStream fileStream = objects.next()) {
+                    writeFile(zip, entry.name(), entry.item(), fileStream, deflateEncoder, buffer);
+                }
+            }
+            zip.finish();
+        } finally {
+            bufferPool.release(buffer);
+            bufferPool.release(deflateBuffer);
+        }
+        log.debug("Zip of {} entries downloaded successfully", entries.size());
+    }
+
+    private void writeFile(ZipStreamWriter zip, String entryName, Item item, InputStream in,
+                           DeflateEncoder deflateEncoder, byte[] buffer) throws IOException {
+        CompressionDecision decision = compressionPolicy.decide(entryName, contentType(item), item.size()).orElse(null);
+        if (decision == null) {
+            PushbackInputStream sampled = new PushbackInputStream(in, compressionPolicy.getSampleSize());
+            byte[] sample = new byte[compressionPolicy.getSampleSize()];
+            int length = sampled.readNBytes(sample, 0, sample.length);
+            sampled.unread(sample, 0, length);
+            decision = compressionPolicy.decide(sample, length);
+            in = sampled;
+        }
+
+        if (decision.stored()) {
+            EncodedEntry encoded = writeStored(zip, entryName, item, in, buffer);
+            compressionMetrics.record(decision, encoded.size(), encoded.size(), encoded.cpuNanos());
+            return;
+        }
+
+        OutputStream data = zip.beginEntry(entryName, ZipStreamWriter.METHOD_DEFLATED, item.lastModified(), item.size());
+        long dataStart = zip.getBytesWritten();
+        EncodedEntry encoded = parallelDeflateEncoder != null && parallelDeflateEncoder.accepts(item.size()) ?
+                parallelDeflateEncoder.encode(in, data, decision.level()) :
+                deflateEncoder.encode(in, data, decision.level(), buffer);
+        long compressedSize = zip.getBytesWritten() - dataStart;
+        zip.endEntry(encoded.crc(), encoded.size());
+        compressionMetrics.record(decision, encoded.size(), compressedSize, encoded.cpuNanos());
+    }
+
+    private EncodedEntry writeStored(ZipStreamWriter zip, String entryName, Item item, InputStream in,
+                                     byte[] buffer) throws IOException {
+        long cpuStart = CpuClock.currentThreadNanos();
+        CRC32 crc = new CRC32();
+        if (item.size() <= STORED_IN_MEMORY_LIMIT) {
+            byte[] content = in.readAllBytes();
+            crc.update(content);
+            zip.beginStoredEntry(entryName, item.lastModified(), crc.getValue(), content.length).write(content);
+            zip.endEntry(crc.getValue(), content.length);
+            return new EncodedEntry(crc.getValue(), content.length, CpuClock.currentThreadNanos() - cpuStart);
+        }
+
+        OutputStream data = zip.beginEntry(entryName, ZipStreamWriter.METHOD_STORED, item.lastModified(), item.size());
+        long size = 0;
+        int len;
+        while ((len = in.read(buffer)) > 0) {
+            checkInterrupted();
+            crc.update(buffer, 0, len);
+            data.write(buffer, 0, len);
+            size += len;
+        }
+        zip.endEntry(crc.getValue(), size);
+        return new EncodedEntry(crc.getValue(), size, CpuClock.currentThreadNanos() - cpuStart);
+    }
+
+    private static String contentType(Item item) {
+        Map<String, String> metadata = item.userMetadata();
+        if (metadata == null) return null;
+        return metadata.entrySet().stream()
+                .filter(e -> e.getKey().equalsIgnoreCase("content-type"))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted())
+            throw new InterruptedIOException("Zip streaming was interrupted");
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Positions of a zip archive written by {@link StoredZipArchiveWriter}, computed from the listing.
+ *
+ * @param entries                entries in archive order
+ * @param dataOffsets            offset of the data of every entry
+ * @param centralDirectoryOffset offset of the central directory
+ * @param length                 size of the whole archive
+ * @param lastModified           latest modification time of the entries, null if there are none
+ * @param fingerprint            hex digest of the names, object names, sizes, ETags and modification times of the entries
+ */
+public record ZipLayout(List<ArchiveEntry> entries,
+                        long[] dataOffsets,
+                        long centralDirectoryOffset,
+                        long length,
+                        ZonedDateTime lastModified,
+                        String fingerprint) {
+}
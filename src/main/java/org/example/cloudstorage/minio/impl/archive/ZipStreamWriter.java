@@ -0,0 +1,367 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <h3>Low level streaming zip format writer</h3>
+ * Unlike {@link java.util.zip.ZipOutputStream} it accepts entry data which is already compressed,
+ * so the compression itself may happen elsewhere (e.g. on several threads).
+ * Entries may be written with a data descriptor (general purpose flag bit 3), thus neither the
+ * checksum nor the sizes have to be known before the data. ZIP64 records are used whenever
+ * sizes, offsets or the entry count do not fit into the classic format.
+ *
+ * <h6>Usage</h6>
+ * <pre>{@code
+ * OutputStream data = writer.beginEntry(name, METHOD_DEFLATED, lastModified, expectedSize);
+ * // write raw (already encoded) entry data to 'data'
+ * writer.endEntry(crc, uncompressedSize);
+ * ...
+ * writer.finish();
+ * }</pre>
+ */
+public class ZipStreamWriter {
+
+    public static final int METHOD_STORED = 0;
+    public static final int METHOD_DEFLATED = 8;
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+    private static final int FLAG_UTF8 = 1 << 11;
+    private static final int VERSION_DEFAULT = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+    /**
+     * Entries expected to be bigger than this are written as ZIP64 up front;
+     * the margin covers deflate growing incompressible data.
+     */
+    private static final long ZIP64_SIZE_THRESHOLD = ZIP64_MAGIC - (1 << 20);
+    /**
+     * 1980-01-01 00:00, the earliest DOS time.
+     */
+    private static final int DOS_TIME_MIN = (1 << 21) | (1 << 16);
+
+    private final CountingOutputStream out;
+    private final List<CentralEntry> entries = new ArrayList<>();
+    private CentralEntry current;
+    private long dataStart;
+    private boolean finished;
+
+    public ZipStreamWriter(OutputStream out) {
+        this.out = new CountingOutputStream(out);
+    }
+
+    /**
+     * Begins an entry whose checksum and sizes are written after the data in a data descriptor.
+     *
+     * @param name         entry name
+     * @param method       {@link #METHOD_STORED} or {@link #METHOD_DEFLATED}
+     * @param lastModified modification time, 1980-01-01 if null
+     * @param expectedSize expected uncompressed size, used to decide on ZIP64 up front
+     * @return stream for the raw entry data; must not be closed
+     */
+    public OutputStream beginEntry(String name, int method, ZonedDateTime lastModified, long expectedSize) throws IOException {
+        return begin(name, method, lastModified, expectedSize >= ZIP64_SIZE_THRESHOLD, true, 0, 0);
+    }
+
+    /**
+     * Begins a {@link #METHOD_STORED} entry whose checksum and size are known in advance,
+     * so they are written to the local header and no data descriptor is needed.
+     * Such entries can be read by streaming readers like {@link java.util.zip.ZipInputStream}.
+     *
+     * @param name         entry name
+     * @param lastModified modification time, 1980-01-01 if null
+     * @param crc          CRC-32 of the data
+     * @param size         size of the data
+     * @return stream for the entry data; must not be closed
+     */
+    public OutputStream beginStoredEntry(String name, ZonedDateTime lastModified, long crc, long size) throws IOException {
+        return begin(name, METHOD_STORED, lastModified, size >= ZIP64_MAGIC, false, crc, size);
+    }
+
+    private OutputStream begin(String name, int method, ZonedDateTime lastModified,
+                               boolean zip64, boolean descriptor, long crc, long size) throws IOException {
+        if (finished) throw new IOException("Zip archive is already finished");
+        if (current != null) throw new IOException("Previous entry is not ended: " + current.name);
+
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        current = new CentralEntry(name, nameBytes, method, dosTime(lastModified), out.getCount(), zip64, descriptor);
+        current.crc = crc;
+        current.size = size;
+
+        long headerSize = descriptor ? 0 : size;
+        writeInt(LOCAL_HEADER_SIGNATURE);
+        writeShort(zip64 ? VERSION_ZIP64 : VERSION_DEFAULT);
+        writeShort(current.flags());
+        writeShort(method);
+        writeInt(current.dosTime);
+        writeInt(crc);
+        writeInt(zip64 ? ZIP64_MAGIC : headerSize);
+        writeInt(zip64 ? ZIP64_MAGIC : headerSize);
+        writeShort(nameBytes.length);
+        writeShort(zip64 ? 20 : 0);
+        out.write(nameBytes);
+        if (zip64) {
+            writeShort(ZIP64_EXTRA_ID);
+            writeShort(16);
+            writeLong(headerSize);
+            writeLong(headerSize);
+        }
+        dataStart = out.getCount();
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Ends the current entry, writing its data descriptor if the entry has one.
+     *
+     * @param crc              CRC-32 of the uncompressed data
+     * @param uncompressedSize size of the uncompressed data
+     * @throws IOException if the entry was begun with other checksum or size
+     */
+    public void endEntry(long crc, long uncompressedSize) throws IOException {
+        if (current == null) throw new IOException("No entry to end");
+        long compressedSize = out.getCount() - dataStart;
+        if (!current.descriptor) {
+            if (current.crc != crc || current.size != uncompressedSize || compressedSize != uncompressedSize)
+                throw new IOException("Entry data does not match its header: " + current.name);
+            current.compressedSize = compressedSize;
+            entries.add(current);
+            current = null;
+            return;
+        }
+
+        current.crc = crc;
+        current.size = uncompressedSize;
+        current.compressedSize = compressedSize;
+        if (current.size >= ZIP64_MAGIC || current.compressedSize >= ZIP64_MAGIC) current.zip64 = true;
+
+        writeInt(DATA_DESCRIPTOR_SIGNATURE);
+        writeInt(crc);
+        if (current.zip64) {
+            writeLong(current.compressedSize);
+            writeLong(current.size);
+        } else {
+            writeInt(current.compressedSize);
+            writeInt(current.size);
+        }
+        entries.add(current);
+        current = null;
+    }
+
+    /**
+     * Advances over entry data without writing it. Only possible if the archive is written
+     * to a {@link RangeOutputStream} and the skipped bytes are outside its range.
+     */
+    public void skipEntryData(long length) throws IOException {
+        if (current == null) throw new IOException("No entry to skip data of");
+        out.skip(length);
+    }
+
+    /**
+     * Writes an empty directory entry.
+     */
+    public void writeDirectory(String name, ZonedDateTime lastModified) throws IOException {
+        beginStoredEntry(name, lastModified, 0, 0);
+        endEntry(0, 0);
+    }
+
+    /**
+     * Writes the central directory. The underlying stream is flushed but not closed.
+     */
+    public void finish() throws IOException {
+        if (finished) return;
+        if (current != null) throw new IOException("Last entry is not ended: " + current.name);
+
+        long centralStart = out.getCount();
+        for (CentralEntry entry : entries) {
+            writeCentralHeader(entry);
+        }
+        long centralSize = out.getCount() - centralStart;
+
+        boolean zip64End = entries.size() >= ZIP64_MAGIC_COUNT
+                || centralStart >= ZIP64_MAGIC
+                || centralSize >= ZIP64_MAGIC;
+        if (zip64End) {
+            long zip64EndStart = out.getCount();
+            writeInt(ZIP64_END_SIGNATURE);
+            writeLong(44);
+            writeShort(VERSION_ZIP64);
+            writeShort(VERSION_ZIP64);
+            writeInt(0);
+            writeInt(0);
+            writeLong(entries.size());
+            writeLong(entries.size());
+            writeLong(centralSize);
+            writeLong(centralStart);
+
+            writeInt(ZIP64_LOCATOR_SIGNATURE);
+            writeInt(0);
+            writeLong(zip64EndStart);
+            writeInt(1);
+        }
+
+        writeInt(END_SIGNATURE);
+        writeShort(0);
+        writeShort(0);
+        writeShort(Math.min(entries.size(), ZIP64_MAGIC_COUNT));
+        writeShort(Math.min(entries.size(), ZIP64_MAGIC_COUNT));
+        writeInt(Math.min(centralSize, ZIP64_MAGIC));
+        writeInt(Math.min(centralStart, ZIP64_MAGIC));
+        writeShort(0);
+        out.flush();
+        finished = true;
+    }
+
+    /**
+     * @return number of bytes written so far
+     */
+    public long getBytesWritten() {
+        return out.getCount();
+    }
+
+    private void writeCentralHeader(CentralEntry entry) throws IOException {
+        boolean sizeOverflow = entry.size >= ZIP64_MAGIC;
+        boolean compressedSizeOverflow = entry.compressedSize >= ZIP64_MAGIC;
+        boolean offsetOverflow = entry.offset >= ZIP64_MAGIC;
+        int extraLength = (sizeOverflow ? 8 : 0) + (compressedSizeOverflow ? 8 : 0) + (offsetOverflow ? 8 : 0);
+        boolean zip64 = extraLength > 0;
+
+        writeInt(CENTRAL_HEADER_SIGNATURE);
+        writeShort(zip64 || entry.zip64 ? VERSION_ZIP64 : VERSION_DEFAULT);
+        writeShort(zip64 || entry.zip64 ? VERSION_ZIP64 : VERSION_DEFAULT);
+        writeShort(entry.flags());
+        writeShort(entry.method);
+        writeInt(entry.dosTime);
+        writeInt(entry.crc);
+        writeInt(compressedSizeOverflow ? ZIP64_MAGIC : entry.compressedSize);
+        writeInt(sizeOverflow ? ZIP64_MAGIC : entry.size);
+        writeShort(entry.nameBytes.length);
+        writeShort(zip64 ? extraLength + 4 : 0);
+        writeShort(0);
+        writeShort(0);
+        writeShort(0);
+        writeInt(entry.name.endsWith("/") ? 0x10 : 0);
+        writeInt(offsetOverflow ? ZIP64_MAGIC : entry.offset);
+        out.write(entry.nameBytes);
+        if (zip64) {
+            writeShort(ZIP64_EXTRA_ID);
+            writeShort(extraLength);
+            if (sizeOverflow) writeLong(entry.size);
+            if (compressedSizeOverflow) writeLong(entry.compressedSize);
+            if (offsetOverflow) writeLong(entry.offset);
+        }
+    }
+
+    /**
+     * In UTC, so the same entries give the same bytes on every server; they are served under strong ETags.
+     */
+    private static int dosTime(ZonedDateTime time) {
+        if (time == null) return DOS_TIME_MIN;
+        LocalDateTime local = time.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        if (local.getYear() < 1980) return DOS_TIME_MIN;
+        return (local.getYear() - 1980) << 25
+                | local.getMonthValue() << 21
+                | local.getDayOfMonth() << 16
+                | local.getHour() << 11
+                | local.getMinute() << 5
+                | local.getSecond() >> 1;
+    }
+
+    private void writeShort(int v) throws IOException {
+        out.write(v & 0xFF);
+        out.write((v >>> 8) & 0xFF);
+    }
+
+    private void writeInt(long v) throws IOException {
+        writeShort((int) (v & 0xFFFF));
+        writeShort((int) ((v >>> 16) & 0xFFFF));
+    }
+
+    private void writeLong(long v) throws IOException {
+        writeInt(v & 0xFFFFFFFFL);
+        writeInt(v >>> 32);
+    }
+
+    private static class CentralEntry {
+        private final String name;
+        private final byte[] nameBytes;
+        private final int method;
+        private final int dosTime;
+        private final long offset;
+        private final boolean descriptor;
+        private boolean zip64;
+        private long crc;
+        private long size;
+        private long compressedSize;
+
+        CentralEntry(String name, byte[] nameBytes, int method, int dosTime, long offset,
+                     boolean zip64, boolean descriptor) {
+            this.name = name;
+            this.nameBytes = nameBytes;
+            this.method = method;
+            this.dosTime = dosTime;
+            this.offset = offset;
+            this.zip64 = zip64;
+            this.descriptor = descriptor;
+        }
+
+        int flags() {
+            return descriptor ? FLAG_DATA_DESCRIPTOR | FLAG_UTF8 : FLAG_UTF8;
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        void skip(long length) throws IOException {
+            if (!(out instanceof RangeOutputStream range))
+                throw new IOException("Data can be skipped only when writing a range");
+            range.skip(length);
+            count += length;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.cloudstorage.minio.impl.dedup;
+
+import io.minio.messages.Item;
+import io.minio.messages.Owner;
+import org.example.cloudstorage.model.StoredBlob;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+/**
+ * Listed pointer object of a deduplicated file, with the size of its content
+ * and the content hash as ETag.
+ */
+public class BlobItem extends Item {
+    private final Item pointer;
+    private final StoredBlob blob;
+
+    public BlobItem(Item pointer, StoredBlob blob) {
+        this.pointer = pointer;
+        this.blob = blob;
+    }
+
+    @Override
+    public String objectName() {
+        return pointer.objectName();
+    }
+
+    @Override
+    public ZonedDateTime lastModified() {
+        return pointer.lastModified();
+    }
+
+    @Override
+    public String etag() {
+        return blob.hash();
+    }
+
+    @Override
+    public long size() {
+        return blob.size();
+    }
+
+    @Override
+    public String storageClass() {
+        return pointer.storageClass();
+    }
+
+    @Override
+    public Owner owner() {
+        return pointer.owner();
+    }
+
+    @Override
+    public Map<String, String> userMetadata() {
+        return pointer.userMetadata();
+    }
+
+    @Override
+    public String userTags() {
+        return pointer.userTags();
+    }
+
+    @Override
+    public boolean isLatest() {
+        return pointer.isLatest();
+    }
+
+    @Override
+    public String versionId() {
+        return pointer.versionId();
+    }
+
+    @Override
+    public boolean isDir() {
+        return false;
+    }
+
+    @Override
+    public boolean isDeleteMarker() {
+        return pointer.isDeleteMarker();
+    }
+}
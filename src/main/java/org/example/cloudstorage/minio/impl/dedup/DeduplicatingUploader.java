@@ -0,0 +1,170 @@
+package org.example.cloudstorage.minio.impl.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.exception.minio.InvalidFileMinioException;
+import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.minio.BlobIndex;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.minio.impl.transfer.ObjectWriter;
+import org.example.cloudstorage.model.StoredBlob;
+import org.example.cloudstorage.util.PathUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * <h3>Stores every distinct content once</h3>
+ * The file is streamed to a new blob object under {@link #BLOB_PREFIX} while its SHA-256 is computed,
+ * then an empty pointer object is created at the file path and the path is registered in the
+ * {@link BlobIndex} as a reference to the content. If the content was stored already, the new blob
+ * object is deleted again, so a duplicate costs the transfer but no storage.
+ * <p>
+ * A client which knows the hash of its file can skip the transfer with {@link #link}, for content
+ * it stored already itself; linking content of other users would reveal that they have it.
+ */
+@Slf4j
+public class DeduplicatingUploader {
+
+    public static final String BLOB_PREFIX = "blobs/";
+    private static final Pattern SHA_256 = Pattern.compile("[0-9a-f]{64}");
+
+    private final MinioRepository minioRepository;
+    private final BlobIndex blobIndex;
+    private final ObjectWriter objectWriter;
+
+    /**
+     * @param objectWriter uploads the blob objects
+     */
+    public DeduplicatingUploader(MinioRepository minioRepository, BlobIndex blobIndex, ObjectWriter objectWriter) {
+        this.minioRepository = minioRepository;
+        this.blobIndex = blobIndex;
+        this.objectWriter = objectWriter;
+    }
+
+    /**
+     * Same contract as {@link MinioRepository#uploadObject(String, InputStream, long, long, String, String)}.
+     *
+     * @param size object size, or -1 if unknown
+     * @return name of the created object
+     */
+    public String upload(String path, InputStream stream, long size, String fileName, String contentType) {
+        return upload(path, stream, size, fileName, contentType, false);
+    }
+
+    /**
+     * @param overwrite whether an existing file is replaced; its content is released then
+     */
+    public String upload(String path, InputStream stream, long size, String fileName, String contentType, boolean overwrite) {
+        String uploadPath = PathUtils.normalizePathMinioCompatible(path + fileName);
+        MessageDigest digest = sha256();
+        CountingInputStream content = new CountingInputStream(new DigestInputStream(stream, digest));
+        String blobObject = objectWriter.upload(BLOB_PREFIX, content, size, UUID.randomUUID().toString(), contentType);
+        String hash = HexFormat.of().formatHex(digest.digest());
+        if (size >= 0 && content.count != size) {
+            deleteQuietly(blobObject);
+            throw new InvalidFileMinioException("File %s has %d bytes instead of %d".formatted(fileName, content.count, size));
+        }
+
+        StoredBlob blob;
+        try {
+            createPointer(uploadPath, contentType, overwrite);
+            if (overwrite) blobIndex.release(List.of(uploadPath));
+        } catch (RuntimeException e) {
+            deleteQuietly(blobObject);
+            throw e;
+        }
+        try {
+            blob = blobIndex.reference(uploadPath, hash, blobObject, content.count);
+        } catch (RuntimeException e) {
+            deleteQuietly(blobObject);
+            deleteQuietly(uploadPath);
+            throw e;
+        }
+        if (!blob.objectName().equals(blobObject)) {
+            log.debug("Content of {} is stored already as {}", uploadPath, blob.objectName());
+            deleteQuietly(blobObject);
+        }
+        return uploadPath;
+    }
+
+    /**
+     * Creates the file as a reference to stored content, without transferring it.
+     *
+     * @param hash        lowercase hex SHA-256 of the content
+     * @param ownerPrefix the content has to be referenced by a file under this prefix already
+     * @return the content, or empty if it is not stored under the prefix; no file is created then
+     */
+    public Optional<StoredBlob> link(String path, String hash, String contentType, String ownerPrefix) {
+        if (hash == null || !SHA_256.matcher(hash).matches())
+            throw new InvalidFileMinioException("Hash should be a hex encoded SHA-256");
+        path = PathUtils.normalizePathMinioCompatible(path);
+        createPointer(path, contentType, false);
+        Optional<StoredBlob> blob;
+        try {
+            blob = blobIndex.reference(path, hash, ownerPrefix);
+        } catch (RuntimeException e) {
+            deleteQuietly(path);
+            throw e;
+        }
+        if (blob.isEmpty()) deleteQuietly(path);
+        return blob;
+    }
+
+    private void createPointer(String path, String contentType, boolean overwrite) {
+        minioRepository.uploadObject("", new ByteArrayInputStream(new byte[0]), 0, -1, path, contentType, overwrite);
+    }
+
+    private void deleteQuietly(String object) {
+        try {
+            minioRepository.deleteObjects(List.of(object));
+        } catch (Exception e) {
+            log.warn("Failed to delete {}", object, e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new MinioException(e);
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // skipped bytes would not be hashed
+            return 0;
+        }
+    }
+}
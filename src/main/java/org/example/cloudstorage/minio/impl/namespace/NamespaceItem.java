@@ -0,0 +1,56 @@
+package org.example.cloudstorage.minio.impl.namespace;
+
+import io.minio.messages.Item;
+import org.example.cloudstorage.model.NamespaceEntry;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+/**
+ * Listed file or directory of the namespace, named by its path rather than its object key.
+ */
+public class NamespaceItem extends Item {
+    private final NamespaceEntry entry;
+
+    public NamespaceItem(NamespaceEntry entry) {
+        this.entry = entry;
+    }
+
+    @Override
+    public String objectName() {
+        return entry.path();
+    }
+
+    /**
+     * @return key of the object with the content of the file
+     */
+    public String objectKey() {
+        return entry.objectKey();
+    }
+
+    @Override
+    public ZonedDateTime lastModified() {
+        return entry.directory() ? null : entry.modifiedAt().atZone(ZoneOffset.UTC);
+    }
+
+    @Override
+    public String etag() {
+        return entry.etag();
+    }
+
+    @Override
+    public long size() {
+        return entry.size();
+    }
+
+    @Override
+    public Map<String, String> userMetadata() {
+        return entry.contentType() == null ? null : Map.of("content-type", entry.contentType());
+    }
+
+    @Override
+    public boolean isDir() {
+        return entry.directory();
+    }
+}
@@ -0,0 +1,314 @@
+package org.example.cloudstorage.minio.impl.namespace;
+
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import io.minio.StatObjectResponse;
+import io.minio.Time;
+import io.minio.messages.Item;
+import io.minio.messages.Part;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
+import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException;
+import org.example.cloudstorage.exception.minio.ResourceNotFoundMinioException;
+import org.example.cloudstorage.minio.ChecksumIndex;
+import org.example.cloudstorage.minio.Namespace;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.model.NamespaceEntry;
+import org.example.cloudstorage.model.ObjectRange;
+import org.example.cloudstorage.util.PathUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * <h3>Paths in a namespace of the database</h3>
+ * The content of every file is stored under a random object key under {@link #OBJECT_PREFIX} which
+ * never changes; which path has which key, and the size, ETag and content type of the file, is kept
+ * in the {@link Namespace}. Renaming a file or a directory, whatever it contains, then changes one entry
+ * instead of copying and deleting every object, and stat calls and listings do not reach MinIO.
+ * <p>
+ * Callers still pass paths as object names. Content is always written to a new key first and the
+ * entry switched to it afterwards, so readers see either the old or the new content; the replaced
+ * object is deleted then. Deduplication and presigned uploads, which let other parties name objects,
+ * are not supported.
+ * <p>
+ * Objects stored before the namespace was enabled are registered by {@link #importStoredObjects()}
+ * with their name as key, so enabling it does not move any content.
+ * <p>
+ * Checksums are recorded by object key, so they are kept when files are renamed.
+ */
+@Slf4j
+public class NamespacedMinioRepository extends MinioRepository {
+
+    public static final String OBJECT_PREFIX = "objects/";
+
+    private final String bucketName;
+    private final Namespace namespace;
+
+    public NamespacedMinioRepository(MinioClient minioClient,
+                                     MinioClient presignClient,
+                                     MinioAsyncClient multipartClient,
+                                     String bucketName,
+                                     Namespace namespace) {
+        this(minioClient, presignClient, multipartClient, bucketName, namespace, null);
+    }
+
+    public NamespacedMinioRepository(MinioClient minioClient,
+                                     MinioClient presignClient,
+                                     MinioAsyncClient multipartClient,
+                                     String bucketName,
+                                     Namespace namespace,
+                                     ChecksumIndex checksumIndex) {
+        super(minioClient, presignClient, multipartClient, bucketName, null, checksumIndex);
+        this.bucketName = bucketName;
+        this.namespace = namespace;
+    }
+
+    @Override
+    public boolean isNamespaceEnabled() {
+        return true;
+    }
+
+    @Override
+    public void rename(String from, String to) {
+        try {
+            namespace.rename(PathUtils.normalizePathMinioCompatible(from), PathUtils.normalizePathMinioCompatible(to));
+        } catch (DataIntegrityViolationException e) {
+            throw new ResourceAlreadyExistsMinioException("Destination already exists: " + to, e);
+        }
+    }
+
+    @Override
+    public String contentObjectName(Item item) {
+        return item instanceof NamespaceItem file ? file.objectKey() : item.objectName();
+    }
+
+    @Override
+    public StatObjectResponse getObject(String path) {
+        NamespaceEntry file = findFile(path);
+        Headers.Builder headers = new Headers.Builder()
+                .add("Content-Length", Long.toString(file.size()))
+                .add("Last-Modified", file.modifiedAt().atZone(Time.UTC).format(Time.HTTP_HEADER_DATE_FORMAT));
+        if (file.etag() != null) headers.add("ETag", "\"" + file.etag() + "\"");
+        if (file.contentType() != null) headers.add("Content-Type", file.contentType());
+        return new StatObjectResponse(headers.build(), bucketName, null, file.path());
+    }
+
+    @Override
+    public List<Item> getListObjects(String path, boolean recursive, boolean includeUserMetadata) {
+        return namespace.list(PathUtils.normalizePathMinioCompatible(path), recursive)
+                .stream()
+                .<Item>map(NamespaceItem::new)
+                .toList();
+    }
+
+    /**
+     * The paths come from the database at once; only the objects are fetched in pages.
+     */
+    @Override
+    public void listObjectPages(String path, int pageSize, Consumer<List<Item>> page) {
+        List<Item> items = getListObjects(path, true);
+        for (int from = 0; from < items.size(); from += pageSize) {
+            page.accept(items.subList(from, Math.min(from + pageSize, items.size())));
+        }
+    }
+
+    @Override
+    public InputStream downloadObject(String path) {
+        return super.downloadObject(findFile(path).objectKey());
+    }
+
+    @Override
+    public InputStream downloadObject(String path, long offset, long length) {
+        return super.downloadObject(findFile(path).objectKey(), offset, length);
+    }
+
+    @Override
+    public String getPresignedDownloadUrl(String path, Duration expiry, String contentDisposition) {
+        return super.getPresignedDownloadUrl(findFile(path).objectKey(), expiry, contentDisposition);
+    }
+
+    @Override
+    public String getPresignedUploadUrl(String path, Duration expiry) {
+        throw new MinioException("Presigned uploads are not supported with the namespace");
+    }
+
+    @Override
+    public String uploadObject(String path,
+                               InputStream stream,
+                               long size,
+                               long partSize,
+                               String fileName,
+                               String contentType,
+                               boolean overwrite) {
+        String uploadPath = PathUtils.normalizePathMinioCompatible(path + fileName);
+        String objectKey = newObjectKey();
+        super.uploadObject(objectKey, stream, size, partSize, "", contentType, true);
+        register(uploadPath, objectKey, overwrite);
+        return uploadPath;
+    }
+
+    @Override
+    public String createMultipartUpload(String path, String contentType) {
+        String objectKey = newObjectKey();
+        String uploadId = super.createMultipartUpload(objectKey, contentType);
+        namespace.registerUpload(uploadId, objectKey);
+        return uploadId;
+    }
+
+    @Override
+    public Part uploadPart(String path, String uploadId, int partNumber, byte[] data, int length) {
+        return super.uploadPart(uploadObjectKey(uploadId), uploadId, partNumber, data, length);
+    }
+
+    @Override
+    public Part copyPart(String from, String to, String uploadId, int partNumber, long offset, long length,
+                         String sourceEtag) {
+        return super.copyPart(findFile(from).objectKey(), uploadObjectKey(uploadId), uploadId, partNumber, offset,
+                length, sourceEtag);
+    }
+
+    @Override
+    public void completeMultipartUpload(String path, String uploadId, Part[] parts, boolean overwrite, long crc32) {
+        String objectKey = uploadObjectKey(uploadId);
+        super.completeMultipartUpload(objectKey, uploadId, parts, true, crc32);
+        namespace.removeUpload(uploadId);
+        register(PathUtils.normalizePathMinioCompatible(path), objectKey, overwrite);
+    }
+
+    /**
+     * Also takes the object key as {@code path}, as listed multipart uploads are named by it.
+     */
+    @Override
+    public void abortMultipartUpload(String path, String uploadId) {
+        String objectKey = namespace.findUpload(uploadId).orElse(path);
+        super.abortMultipartUpload(objectKey, uploadId);
+        namespace.removeUpload(uploadId);
+    }
+
+    @Override
+    public void deleteObjects(List<String> objects) {
+        List<String> objectKeys = namespace.delete(objects.stream()
+                .map(PathUtils::normalizePathMinioCompatible)
+                .toList());
+        if (!objectKeys.isEmpty()) super.deleteObjects(objectKeys);
+    }
+
+    @Override
+    public void createEmptyObject(String path) {
+        path = PathUtils.normalizePathMinioCompatible(path);
+        // directory markers are created again on every upload into their directory
+        Optional<NamespaceEntry> existing = namespace.find(path);
+        if (existing.isPresent() && existing.get().size() == 0) return;
+
+        String objectKey = newObjectKey();
+        super.createEmptyObject(objectKey);
+        register(path, objectKey, true);
+    }
+
+    @Override
+    public void composeObject(String path, List<ObjectRange> sources) {
+        List<ObjectRange> keySources = new ArrayList<>();
+        for (ObjectRange source : sources) {
+            keySources.add(new ObjectRange(findFile(source.object()).objectKey(), source.offset(), source.length()));
+        }
+        String objectKey = newObjectKey();
+        super.composeObject(objectKey, keySources);
+        register(PathUtils.normalizePathMinioCompatible(path), objectKey, true);
+    }
+
+    @Override
+    public void copy(String from, String to, boolean overwrite, String sourceEtag) {
+        String objectKey = newObjectKey();
+        super.copy(findFile(from).objectKey(), objectKey, true, sourceEtag);
+        register(PathUtils.normalizePathMinioCompatible(to), objectKey, overwrite);
+    }
+
+    /**
+     * Registers every object outside {@link #OBJECT_PREFIX} which is not in the namespace yet, with its
+     * name as both path and key; objects of files renamed since keep their name as key and are skipped.
+     * Safe to run again, e.g. after an interrupted run.
+     *
+     * @return number of files registered
+     */
+    public int importStoredObjects() {
+        int imported = 0;
+        for (Item topLevel : super.getListObjects("", false, false)) {
+            if (topLevel.objectName().equals(OBJECT_PREFIX)) continue;
+            List<NamespaceEntry> files = new ArrayList<>();
+            for (Item item : super.getListObjects(topLevel.objectName(), true, true)) {
+                files.add(new NamespaceEntry(
+                        item.objectName(),
+                        false,
+                        item.objectName(),
+                        item.size(),
+                        item.etag() == null ? null : item.etag().replace("\"", ""),
+                        contentType(item.userMetadata()),
+                        item.lastModified() == null ? Instant.now() : item.lastModified().toInstant()));
+            }
+            imported += namespace.putAll(files);
+            log.info("Imported {} objects of {} into the namespace", files.size(), topLevel.objectName());
+        }
+        return imported;
+    }
+
+    /**
+     * Makes the written object the content of the file, deleting it again if that fails
+     * and deleting the object it replaced otherwise.
+     */
+    private void register(String path, String objectKey, boolean overwrite) {
+        Optional<String> replaced;
+        try {
+            StatObjectResponse stored = super.getObject(objectKey);
+            replaced = namespace.put(path, objectKey, stored.size(), stored.etag(), stored.contentType(), overwrite);
+        } catch (RuntimeException e) {
+            deleteObjectQuietly(objectKey, e);
+            if (e instanceof DataIntegrityViolationException)
+                throw new ResourceAlreadyExistsMinioException("File already exists: " + path, e);
+            throw e;
+        }
+        replaced.ifPresent(previous -> super.deleteObjects(List.of(previous)));
+    }
+
+    private void deleteObjectQuietly(String objectKey, Exception cause) {
+        try {
+            super.deleteObjects(List.of(objectKey));
+        } catch (RuntimeException e) {
+            cause.addSuppressed(e);
+            log.error("Failed to delete object {} which is not in the namespace", objectKey, e);
+        }
+    }
+
+    private NamespaceEntry findFile(String path) {
+        return namespace.find(PathUtils.normalizePathMinioCompatible(path))
+                .filter(entry -> !entry.directory())
+                .orElseThrow(() -> new ResourceNotFoundMinioException("Resource not found"));
+    }
+
+    private String uploadObjectKey(String uploadId) {
+        return namespace.findUpload(uploadId)
+                .orElseThrow(() -> new ResourceNotFoundMinioException("Multipart upload not found: " + uploadId));
+    }
+
+    private static String newObjectKey() {
+        return OBJECT_PREFIX + UUID.randomUUID();
+    }
+
+    private static String contentType(Map<String, String> metadata) {
+        if (metadata == null) return null;
+        return metadata.entrySet().stream()
+                .filter(e -> e.getKey().equalsIgnoreCase("content-type"))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.exception.OperationCancelledException;
+import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.exception.minio.PartialDeletionMinioException;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.model.OperationProgress;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * <h3>Deletes everything under a prefix in batches while listing it</h3>
+ * The listing is read page by page, and every page of up to {@code batchSize} objects is deleted by one
+ * DeleteObjects request, at most {@code concurrency} at a time; reading the listing waits while that many
+ * are in flight, so memory does not grow with the number of objects.
+ * <p>
+ * A failed batch does not stop the deletion: the other batches are deleted, then the failures are thrown
+ * together. Deleting the same prefix again deletes the objects left.
+ */
+@Slf4j
+public class BatchedObjectDeleter {
+
+    /**
+     * S3 limit of keys per DeleteObjects request.
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+    /**
+     * Batch failures attached to the thrown exception, the others are only counted.
+     */
+    private static final int MAX_REPORTED_FAILURES = 10;
+
+    private final MinioRepository minioRepository;
+    private final ExecutorService executor;
+    private final int batchSize;
+    private final int concurrency;
+
+    public BatchedObjectDeleter(MinioRepository minioRepository,
+                                ExecutorService executor,
+                                int batchSize,
+                                int concurrency) {
+        if (batchSize <= 0 || batchSize > MAX_BATCH_SIZE)
+            throw new IllegalArgumentException("batchSize must be between 1 and 1000");
+        if (concurrency <= 0) throw new IllegalArgumentException("concurrency must be positive");
+        this.minioRepository = minioRepository;
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Deletes every object whose name starts with {@code prefix}.
+     *
+     * @param progress receives the listed objects as totals, growing while the listing is read, and the
+     *                 deleted ones; cancelling stops the deletion with what is deleted so far
+     * @throws PartialDeletionMinioException if batches failed, once the others are deleted
+     */
+    public void delete(String prefix, OperationProgress progress) {
+        Semaphore permits = new Semaphore(concurrency);
+        Failures failures = new Failures();
+        long[] listed = new long[2];
+        RuntimeException failure = null;
+        try {
+            minioRepository.listObjectPages(prefix, batchSize, batch -> {
+                listed[0] += batch.size();
+                listed[1] += batch.stream().mapToLong(Item::size).sum();
+                progress.started(listed[0], listed[1]);
+                if (progress.isCancelled()) throw new OperationCancelledException("Deletion was cancelled");
+
+                acquire(permits);
+                try {
+                    executor.execute(() -> {
+                        try {
+                            deleteBatch(batch, progress, failures);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    permits.release();
+                    throw e;
+                }
+            });
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        // running batches finish before returning
+        permits.acquireUninterruptibly(concurrency);
+        if (failure != null) {
+            failures.suppressIn(failure);
+            throw failure;
+        }
+        failures.throwIfAny(listed[0]);
+    }
+
+    private void deleteBatch(List<Item> batch, OperationProgress progress, Failures failures) {
+        try {
+            minioRepository.deleteObjects(batch.stream().map(Item::objectName).toList());
+            progress.advanced(batch.size(), batch.stream().mapToLong(Item::size).sum());
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete {} objects from {} on", batch.size(), batch.getFirst().objectName(), e);
+            failures.add(batch.size(), e);
+        }
+    }
+
+    private static void acquire(Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioException("Deletion was interrupted", e);
+        }
+    }
+
+    private static final class Failures {
+        private long objects;
+        private int batches;
+        private RuntimeException first;
+
+        synchronized void add(int batchSize, RuntimeException e) {
+            objects += batchSize;
+            if (++batches == 1) first = e;
+            else if (batches <= MAX_REPORTED_FAILURES) first.addSuppressed(e);
+        }
+
+        synchronized void suppressIn(RuntimeException failure) {
+            if (first != null) failure.addSuppressed(first);
+        }
+
+        synchronized void throwIfAny(long listed) {
+            if (first == null) return;
+            throw new PartialDeletionMinioException("Failed to delete %d of %d objects in %d batches"
+                    .formatted(objects, listed, batches), first);
+        }
+    }
+}
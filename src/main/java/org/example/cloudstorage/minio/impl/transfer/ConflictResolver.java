@@ -0,0 +1,122 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import org.example.cloudstorage.exception.minio.UploadConflictMinioException;
+import org.example.cloudstorage.model.ConflictPolicy;
+import org.example.cloudstorage.util.PathUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <h3>Decides under which name each file of an upload is created</h3>
+ * Names are checked against the objects listed once before the upload, and against the files
+ * of the upload resolved before, so conflicts are found before any content is sent to storage.
+ * Two files of one upload with the same name conflict with each other whatever the policy,
+ * unless the later one may be renamed or skipped.
+ * <p>
+ * An object created meanwhile by another request is not seen; uploads still fail on it since
+ * they only create objects which do not exist, except with {@link ConflictPolicy#OVERWRITE}.
+ */
+public class ConflictResolver {
+
+    private final String path;
+    private final ConflictPolicy policy;
+    private final Set<String> existing;
+    private final Set<String> planned = new HashSet<>();
+    private final Set<String> overwritten = new HashSet<>();
+    private final List<String> conflicts = new ArrayList<>();
+    private final List<String> skipped = new ArrayList<>();
+
+    /**
+     * @param path            directory the files are uploaded to
+     * @param existingObjects objects under the directory
+     */
+    public ConflictResolver(String path, Collection<String> existingObjects, ConflictPolicy policy) {
+        this.path = path;
+        this.policy = policy;
+        this.existing = new HashSet<>(existingObjects);
+    }
+
+    /**
+     * @param fileName name of the file relative to the directory
+     * @return name to upload the file as, or null if it is not uploaded
+     */
+    public String resolve(String fileName) {
+        String object = object(fileName);
+        boolean exists = existing.contains(object);
+        if (!exists && !planned.contains(object)) {
+            planned.add(object);
+            return fileName;
+        }
+
+        switch (policy) {
+            case RENAME -> {
+                String renamed = freeName(fileName);
+                planned.add(object(renamed));
+                return renamed;
+            }
+            case SKIP -> {
+                skipped.add(fileName);
+                return null;
+            }
+            case OVERWRITE -> {
+                if (exists && planned.add(object)) {
+                    overwritten.add(object);
+                    return fileName;
+                }
+                conflicts.add(fileName);
+                return null;
+            }
+            default -> {
+                conflicts.add(fileName);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @throws UploadConflictMinioException if files conflicted and the policy does not resolve it
+     */
+    public void checkConflicts() {
+        if (!conflicts.isEmpty()) throw new UploadConflictMinioException(conflicts);
+    }
+
+    public boolean hasConflicts() {
+        return !conflicts.isEmpty();
+    }
+
+    /**
+     * @return whether the object existed before the upload and is replaced by it
+     */
+    public boolean isOverwritten(String object) {
+        return overwritten.contains(object);
+    }
+
+    /**
+     * @return names of the files not uploaded because of {@link ConflictPolicy#SKIP}
+     */
+    public List<String> getSkipped() {
+        return skipped;
+    }
+
+    private String freeName(String fileName) {
+        int slash = fileName.lastIndexOf('/');
+        int dot = fileName.lastIndexOf('.');
+        // a leading dot starts a hidden name rather than an extension
+        if (dot <= slash + 1) dot = fileName.length();
+        String base = fileName.substring(0, dot);
+        String extension = fileName.substring(dot);
+        for (int n = 1; ; n++) {
+            String candidate = "%s (%d)%s".formatted(base, n, extension);
+            String object = object(candidate);
+            if (!existing.contains(object) && !planned.contains(object)) return candidate;
+        }
+    }
+
+    private String object(String fileName) {
+        return PathUtils.normalizePathMinioCompatible(path + fileName);
+    }
+}
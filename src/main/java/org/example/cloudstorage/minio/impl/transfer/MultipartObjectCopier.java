@@ -0,0 +1,154 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import io.minio.StatObjectResponse;
+import io.minio.messages.Part;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.exception.minio.InvalidFileMinioException;
+import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <h3>Copies a large object inside MinIO in parts</h3>
+ * A single CopyObject request is limited to 5GB and runs on one connection. Here the target is
+ * a multipart upload whose parts are ranges of the source copied by concurrent UploadPartCopy
+ * requests, at most {@code concurrency} at a time; a part failing is copied again, at most
+ * {@code maxAttempts} times in total. If the copy fails the upload is aborted.
+ */
+@Slf4j
+public class MultipartObjectCopier {
+
+    /**
+     * S3 limits.
+     */
+    private static final int MAX_PARTS = 10_000;
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+
+    private final MinioRepository minioRepository;
+    private final ExecutorService executor;
+    private final long partSize;
+    private final int concurrency;
+    private final int maxAttempts;
+
+    public MultipartObjectCopier(MinioRepository minioRepository,
+                                 ExecutorService executor,
+                                 long partSize,
+                                 int concurrency,
+                                 int maxAttempts) {
+        if (partSize < MIN_PART_SIZE || partSize > MAX_PART_SIZE)
+            throw new IllegalArgumentException("partSize must be between 5MB and 5GB");
+        if (concurrency <= 0) throw new IllegalArgumentException("concurrency must be positive");
+        if (maxAttempts <= 0) throw new IllegalArgumentException("maxAttempts must be positive");
+        this.minioRepository = minioRepository;
+        this.executor = executor;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Creates {@code to} with the content and content type of {@code from}, unless it exists.
+     */
+    public void copy(String from, String to) {
+        copy(from, to, false);
+    }
+
+    /**
+     * Creates {@code to} with the content and content type of {@code from}.
+     *
+     * @param overwrite whether an existing {@code to} is replaced, otherwise the copy fails with
+     *                  {@link org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException}
+     */
+    public void copy(String from, String to, boolean overwrite) {
+        copy(from, to, overwrite, null);
+    }
+
+    /**
+     * @param sourceEtag ETag {@code from} must have, or null; every part is copied only from that
+     *                   version, so a changed source fails the copy with
+     *                   {@link ResourceAlreadyExistsMinioException} instead of mixing versions
+     */
+    public void copy(String from, String to, boolean overwrite, String sourceEtag) {
+        StatObjectResponse source = minioRepository.getObject(from);
+        if (sourceEtag != null && !sourceEtag.equals(source.etag()))
+            throw new ResourceAlreadyExistsMinioException("Source changed before it was copied: " + from);
+        long size = source.size();
+        long copyPartSize = partSize(size);
+        String uploadId = minioRepository.createMultipartUpload(to, source.contentType());
+        Deque<Future<Part>> inFlight = new ArrayDeque<>();
+        List<Part> parts = new ArrayList<>();
+        try {
+            int partNumber = 0;
+            for (long offset = 0; offset < size || partNumber == 0; offset += copyPartSize) {
+                if (inFlight.size() >= concurrency) parts.add(await(inFlight.poll()));
+                inFlight.add(submit(from, to, uploadId, ++partNumber, offset, Math.min(copyPartSize, size - offset),
+                        sourceEtag));
+            }
+            while (!inFlight.isEmpty()) {
+                parts.add(await(inFlight.poll()));
+            }
+            minioRepository.completeMultipartUpload(to, uploadId, parts.toArray(Part[]::new), overwrite);
+        } catch (RuntimeException e) {
+            inFlight.forEach(part -> part.cancel(true));
+            abort(to, uploadId, e);
+            throw e;
+        }
+    }
+
+    private Future<Part> submit(String from, String to, String uploadId, int partNumber, long offset, long length,
+                                String sourceEtag) {
+        return executor.submit(() -> {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return minioRepository.copyPart(from, to, uploadId, partNumber, offset, length, sourceEtag);
+                } catch (ResourceAlreadyExistsMinioException e) {
+                    throw e;
+                } catch (MinioException e) {
+                    if (attempt >= maxAttempts) throw e;
+                    log.warn("Part {} of copy of {} failed on attempt {}, copying it again: {}",
+                            partNumber, from, attempt, e.getCause() != null ? e.getCause() : e);
+                }
+            }
+        });
+    }
+
+    private static Part await(Future<Part> part) {
+        try {
+            return part.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioException("Copy was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new MinioException(e.getCause());
+        }
+    }
+
+    private void abort(String to, String uploadId, Exception cause) {
+        try {
+            minioRepository.abortMultipartUpload(to, uploadId);
+        } catch (Exception e) {
+            cause.addSuppressed(e);
+            log.error("Failed to abort multipart upload {} of {}", uploadId, to, e);
+        }
+    }
+
+    /**
+     * Configured part size, raised if the object would need more parts than allowed.
+     */
+    private long partSize(long size) {
+        if (size <= MAX_PARTS * partSize) return partSize;
+        long required = (size + MAX_PARTS - 1) / MAX_PARTS;
+        if (required > MAX_PART_SIZE) throw new InvalidFileMinioException("File is too big to copy: " + size);
+        return required;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import java.io.InputStream;
+
+/**
+ * Uploads an object, same contract as
+ * {@link org.example.cloudstorage.minio.impl.MinioRepository#uploadObject(String, InputStream, long, long, String, String)}.
+ */
+@FunctionalInterface
+public interface ObjectWriter {
+    /**
+     * @param size object size, or -1 if unknown
+     * @return name of the created object
+     */
+    String upload(String path, InputStream stream, long size, String fileName, String contentType);
+}
@@ -0,0 +1,283 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.exception.OperationCancelledException;
+import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.exception.minio.ThrottledMinioException;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.model.StoredObject;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * <h3>Moves or copies many objects with concurrent server-side copies</h3>
+ * Objects are copied inside MinIO by concurrent CopyObject requests; objects of at least
+ * {@code multipartThreshold} bytes are copied in parts by the {@link MultipartObjectCopier} instead,
+ * as CopyObject is limited to 5GB. On a move the sources of finished copies are deleted in batches of
+ * {@code deleteBatchSize} while the other copies go on. So whenever the move stops, every object is at
+ * its source, at its target, or at both if its copy finished but its source was not deleted yet;
+ * moving the rest again completes the move, as targets are overwritten like CopyObject does.
+ * <p>
+ * Concurrency adapts to what MinIO sustains: it is halved whenever MinIO answers 503 SlowDown and
+ * grows by one again after as many successful copies as are allowed at once, up to {@code maxConcurrency}.
+ * A throttled or failed copy is retried after a backoff doubling with every attempt, at most
+ * {@code maxAttempts} times in total. After a copy fails for good, or the move is cancelled, no more
+ * copies are started, the running ones are waited for and their sources deleted, then the failure is thrown.
+ */
+@Slf4j
+public class ParallelObjectCopier {
+
+    private final MinioRepository minioRepository;
+    private final ExecutorService executor;
+    private final int maxConcurrency;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final int deleteBatchSize;
+    private final MultipartObjectCopier multipartCopier;
+    private final long multipartThreshold;
+
+    public ParallelObjectCopier(MinioRepository minioRepository,
+                                ExecutorService executor,
+                                int maxConcurrency,
+                                int maxAttempts,
+                                Duration backoff,
+                                int deleteBatchSize) {
+        this(minioRepository, executor, maxConcurrency, maxAttempts, backoff, deleteBatchSize, null, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param multipartCopier copier of objects of at least {@code multipartThreshold} bytes, or null
+     */
+    public ParallelObjectCopier(MinioRepository minioRepository,
+                                ExecutorService executor,
+                                int maxConcurrency,
+                                int maxAttempts,
+                                Duration backoff,
+                                int deleteBatchSize,
+                                MultipartObjectCopier multipartCopier,
+                                long multipartThreshold) {
+        if (maxConcurrency <= 0) throw new IllegalArgumentException("maxConcurrency must be positive");
+        if (maxAttempts <= 0) throw new IllegalArgumentException("maxAttempts must be positive");
+        if (deleteBatchSize <= 0) throw new IllegalArgumentException("deleteBatchSize must be positive");
+        this.minioRepository = minioRepository;
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.deleteBatchSize = deleteBatchSize;
+        this.multipartCopier = multipartCopier;
+        this.multipartThreshold = multipartThreshold;
+    }
+
+    /**
+     * Copies every source to its target and deletes the sources.
+     *
+     * @param target target object of a source object
+     */
+    public void move(List<String> sources, UnaryOperator<String> target) {
+        move(sources.stream().map(source -> new StoredObject(source, 0, null)).toList(), target, source -> {
+        }, () -> false);
+    }
+
+    /**
+     * @param target    target object of a source object
+     * @param copied    called with every source once its copy succeeded
+     * @param cancelled checked before every copy; once true the move stops with {@link OperationCancelledException}
+     */
+    public void move(List<StoredObject> sources,
+                     UnaryOperator<String> target,
+                     Consumer<StoredObject> copied,
+                     BooleanSupplier cancelled) {
+        transfer(sources, target, copied, cancelled, true);
+    }
+
+    /**
+     * Copies every source to its target. Once a copy fails or the copy is cancelled, the targets
+     * created so far are left, the callback has every one of them.
+     *
+     * @param target    target object of a source object
+     * @param copied    called with every source once its copy succeeded
+     * @param cancelled checked before every copy; once true the copy stops with {@link OperationCancelledException}
+     */
+    public void copy(List<StoredObject> sources,
+                     UnaryOperator<String> target,
+                     Consumer<StoredObject> copied,
+                     BooleanSupplier cancelled) {
+        transfer(sources, target, copied, cancelled, false);
+    }
+
+    private void transfer(List<StoredObject> sources,
+                          UnaryOperator<String> target,
+                          Consumer<StoredObject> copied,
+                          BooleanSupplier cancelled,
+                          boolean move) {
+        String operation = move ? "Move" : "Copy";
+        CompletionService<CopyResult> completion = new ExecutorCompletionService<>(executor);
+        Deque<Copy> pending = new ArrayDeque<>();
+        for (StoredObject source : sources) {
+            pending.add(new Copy(source, target.apply(source.name()), 1));
+        }
+        ConcurrencyLimit limit = new ConcurrencyLimit(maxConcurrency);
+        List<String> finished = new ArrayList<>();
+        RuntimeException failure = null;
+        boolean interrupted = false;
+        int inFlight = 0;
+
+        while ((failure == null && !pending.isEmpty()) || inFlight > 0) {
+            if (failure == null && !pending.isEmpty() && inFlight < limit.get()) {
+                if (cancelled.getAsBoolean()) {
+                    failure = new OperationCancelledException(operation + " was cancelled");
+                    continue;
+                }
+                Copy copy = pending.poll();
+                completion.submit(() -> copy(copy));
+                inFlight++;
+                continue;
+            }
+
+            CopyResult result;
+            try {
+                result = completion.take().get();
+            } catch (InterruptedException e) {
+                // keep waiting, running copies have to be reported before returning
+                interrupted = true;
+                if (failure == null) failure = new MinioException(operation + " was interrupted", e);
+                continue;
+            } catch (ExecutionException e) {
+                // copy() reports failures in its result
+                throw new IllegalStateException(e.getCause());
+            }
+            inFlight--;
+
+            if (result.error() == null) {
+                limit.succeeded();
+                copied.accept(result.copy().source());
+                if (!move) continue;
+                finished.add(result.copy().source().name());
+                if (finished.size() >= deleteBatchSize) failure = deleteSources(finished, failure);
+                continue;
+            }
+            RuntimeException error = result.error();
+            if (error instanceof ThrottledMinioException) limit.throttled();
+            if (failure == null && isRetriable(error) && result.copy().attempt() < maxAttempts) {
+                log.debug("Copy of {} failed on attempt {}, copying it again: {}",
+                        result.copy().source().name(), result.copy().attempt(), error.getMessage());
+                pending.addFirst(result.copy().retry());
+            } else if (failure == null) {
+                failure = error;
+            } else if (failure != error) {
+                failure.addSuppressed(error);
+            }
+        }
+
+        failure = deleteSources(finished, failure);
+        if (interrupted) Thread.currentThread().interrupt();
+        if (failure != null) throw failure;
+    }
+
+    private CopyResult copy(Copy copy) {
+        try {
+            if (copy.attempt() > 1) Thread.sleep(delay(copy.attempt()));
+            String source = copy.source().name();
+            if (isMultipart(copy.source())) multipartCopier.copy(source, copy.target(), true);
+            else minioRepository.copy(source, copy.target());
+            return new CopyResult(copy, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new CopyResult(copy, new MinioException("Copy was interrupted", e));
+        } catch (RuntimeException e) {
+            return new CopyResult(copy, e);
+        }
+    }
+
+    /**
+     * A copy of a deduplicated file only references its content, so it is never too big for CopyObject.
+     */
+    private boolean isMultipart(StoredObject source) {
+        return multipartCopier != null
+                && source.size() >= multipartThreshold
+                && minioRepository.copiesContent(source.name());
+    }
+
+    /**
+     * @return the failure so far, with a failure to delete added
+     */
+    private RuntimeException deleteSources(List<String> finished, RuntimeException failure) {
+        if (finished.isEmpty()) return failure;
+        try {
+            minioRepository.deleteObjects(List.copyOf(finished));
+            finished.clear();
+            return failure;
+        } catch (RuntimeException e) {
+            if (failure == null) return e;
+            failure.addSuppressed(e);
+            return failure;
+        }
+    }
+
+    /**
+     * Backoff doubling with every attempt, with jitter so throttled copies do not come back all at once.
+     */
+    private long delay(int attempt) {
+        long delay = backoff.toMillis() << Math.min(attempt - 2, 16);
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    /**
+     * Errors of the storage itself; e.g. a missing source fails the same way again.
+     */
+    private static boolean isRetriable(RuntimeException e) {
+        return e instanceof ThrottledMinioException || e.getClass() == MinioException.class;
+    }
+
+    private record Copy(StoredObject source, String target, int attempt) {
+        Copy retry() {
+            return new Copy(source, target, attempt + 1);
+        }
+    }
+
+    private record CopyResult(Copy copy, RuntimeException error) {
+    }
+
+    /**
+     * Additive increase, multiplicative decrease. Used by the dispatching thread only.
+     */
+    private static class ConcurrencyLimit {
+        private final int max;
+        private int limit;
+        private int successes;
+
+        ConcurrencyLimit(int max) {
+            this.max = max;
+            this.limit = max;
+        }
+
+        int get() {
+            return limit;
+        }
+
+        void succeeded() {
+            if (limit < max && ++successes >= limit) {
+                limit++;
+                successes = 0;
+            }
+        }
+
+        void throttled() {
+            limit = Math.max(1, limit / 2);
+            successes = 0;
+        }
+    }
+}
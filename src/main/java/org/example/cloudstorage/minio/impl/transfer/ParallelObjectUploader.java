@@ -0,0 +1,204 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import io.minio.messages.Part;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.exception.minio.InvalidFileMinioException;
+import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.util.MemoryBudget;
+import org.example.cloudstorage.util.PathUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * <h3>Uploads a large object over several connections</h3>
+ * The stream is cut into parts which are uploaded by concurrent UploadPart requests of one
+ * S3 multipart upload, at most {@code concurrency} at a time, so a single upload is not limited
+ * by the throughput of one connection to MinIO. Reading the stream continues while parts are
+ * in flight; a part failing is uploaded again, at most {@code maxAttempts} times in total.
+ * If the upload fails it is aborted, so MinIO drops the parts uploaded so far.
+ * <p>
+ * Part buffers are taken from a {@link MemoryBudget} shared by all uploads;
+ * if it is exhausted the object is uploaded over a single connection instead.
+ * A stream shorter than one part is uploaded with a single PUT.
+ */
+@Slf4j
+public class ParallelObjectUploader {
+
+    /**
+     * S3 limits.
+     */
+    private static final int MAX_PARTS = 10_000;
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final long MAX_PART_SIZE = 5L * 1024 * 1024 * 1024;
+
+    private final MinioRepository minioRepository;
+    private final ExecutorService executor;
+    private final MemoryBudget memoryBudget;
+    private final long partSize;
+    private final int concurrency;
+    private final int maxAttempts;
+
+    public ParallelObjectUploader(MinioRepository minioRepository,
+                                  ExecutorService executor,
+                                  MemoryBudget memoryBudget,
+                                  long partSize,
+                                  int concurrency,
+                                  int maxAttempts) {
+        if (partSize < MIN_PART_SIZE || partSize > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("partSize must be between 5MB and 2GB");
+        if (concurrency <= 0) throw new IllegalArgumentException("concurrency must be positive");
+        if (maxAttempts <= 0) throw new IllegalArgumentException("maxAttempts must be positive");
+        this.minioRepository = minioRepository;
+        this.executor = executor;
+        this.memoryBudget = memoryBudget;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Same contract as {@link MinioRepository#uploadObject(String, InputStream, long, long, String, String)}.
+     *
+     * @param size object size, or -1 if unknown
+     * @return name of the created object
+     */
+    public String upload(String path, InputStream stream, long size, String fileName, String contentType) {
+        return upload(path, stream, size, fileName, contentType, false);
+    }
+
+    /**
+     * @param overwrite whether an existing object is replaced
+     */
+    public String upload(String path, InputStream stream, long size, String fileName, String contentType, boolean overwrite) {
+        String uploadPath = PathUtils.normalizePathMinioCompatible(path + fileName);
+        int uploadPartSize = partSize(size);
+        long reserved = (long) concurrency * uploadPartSize;
+        if ((size >= 0 && size <= uploadPartSize) || !memoryBudget.tryReserve(reserved)) {
+            return minioRepository.uploadObject(path, stream, size, uploadPartSize, fileName, contentType, overwrite);
+        }
+        try {
+            byte[] first = new byte[uploadPartSize];
+            int length = read(stream, first);
+            if (length < uploadPartSize) {
+                return minioRepository.uploadObject(
+                        path, new ByteArrayInputStream(first, 0, length), length, -1, fileName, contentType, overwrite);
+            }
+            uploadParts(uploadPath, stream, first, contentType, overwrite);
+            return uploadPath;
+        } finally {
+            memoryBudget.release(reserved);
+        }
+    }
+
+    private void uploadParts(String uploadPath, InputStream stream, byte[] first, String contentType, boolean overwrite) {
+        String uploadId = minioRepository.createMultipartUpload(uploadPath, contentType);
+        Deque<PartUpload> inFlight = new ArrayDeque<>();
+        Deque<byte[]> freeBuffers = new ArrayDeque<>();
+        List<Part> parts = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        crc.update(first);
+        try {
+            inFlight.add(submit(uploadPath, uploadId, 1, first, first.length));
+            int partNumber = 1;
+            boolean ended = false;
+            while (!ended || !inFlight.isEmpty()) {
+                if (!ended && inFlight.size() < concurrency) {
+                    byte[] buffer = freeBuffers.isEmpty() ? new byte[first.length] : freeBuffers.poll();
+                    int length = read(stream, buffer);
+                    if (length > 0) {
+                        crc.update(buffer, 0, length);
+                        if (++partNumber > MAX_PARTS)
+                            throw new InvalidFileMinioException("File is bigger than %d parts of %d bytes"
+                                    .formatted(MAX_PARTS, first.length));
+                        inFlight.add(submit(uploadPath, uploadId, partNumber, buffer, length));
+                    }
+                    ended = length < buffer.length;
+                    continue;
+                }
+                PartUpload done = inFlight.poll();
+                parts.add(await(done));
+                freeBuffers.add(done.buffer);
+            }
+            minioRepository.completeMultipartUpload(uploadPath, uploadId, parts.toArray(Part[]::new), overwrite,
+                    crc.getValue());
+        } catch (RuntimeException e) {
+            inFlight.forEach(part -> part.future.cancel(true));
+            abort(uploadPath, uploadId, e);
+            throw e;
+        }
+    }
+
+    private PartUpload submit(String uploadPath, String uploadId, int partNumber, byte[] buffer, int length) {
+        Future<Part> future = executor.submit(() -> {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return minioRepository.uploadPart(uploadPath, uploadId, partNumber, buffer, length);
+                } catch (MinioException e) {
+                    if (attempt >= maxAttempts) throw e;
+                    log.warn("Part {} of {} failed on attempt {}, uploading it again: {}",
+                            partNumber, uploadPath, attempt, e.getCause() != null ? e.getCause() : e);
+                }
+            }
+        });
+        return new PartUpload(buffer, future);
+    }
+
+    private static Part await(PartUpload part) {
+        try {
+            return part.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MinioException("Upload was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw new MinioException(e.getCause());
+        }
+    }
+
+    private void abort(String uploadPath, String uploadId, Exception cause) {
+        try {
+            minioRepository.abortMultipartUpload(uploadPath, uploadId);
+        } catch (Exception e) {
+            cause.addSuppressed(e);
+            log.error("Failed to abort multipart upload {} of {}", uploadId, uploadPath, e);
+        }
+    }
+
+    /**
+     * Configured part size, raised if a known size would need more parts than allowed.
+     */
+    private int partSize(long size) {
+        if (size <= (long) MAX_PARTS * partSize) return (int) partSize;
+        long required = (size + MAX_PARTS - 1) / MAX_PARTS;
+        if (required > Math.min(MAX_PART_SIZE, Integer.MAX_VALUE - 8))
+            throw new InvalidFileMinioException("File is too big: " + size);
+        return (int) required;
+    }
+
+    /**
+     * Fills the buffer unless the stream ends first.
+     *
+     * @return bytes read
+     */
+    private static int read(InputStream stream, byte[] buffer) {
+        try {
+            return stream.readNBytes(buffer, 0, buffer.length);
+        } catch (IOException e) {
+            throw new InvalidFileMinioException("Failed to read uploaded file", e);
+        }
+    }
+
+    private record PartUpload(byte[] buffer, Future<Part> future) {
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.util.MemoryBudget;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.*;
+
+/**
+ * <h3>Reads a large object over several connections</h3>
+ * The requested range is split into segments which are fetched by concurrent ranged GETs into a ring
+ * of {@code concurrency} segment buffers and written to the output in order, so a single download
+ * is not limited by the throughput of one connection to MinIO.
+ * A segment which fails or is not fetched within {@code stallTimeout} is fetched again,
+ * at most {@code maxAttempts} times in total.
+ * <p>
+ * Segment buffers are taken from a {@link MemoryBudget} shared by all downloads;
+ * if it is exhausted the range is streamed over a single connection instead.
+ */
+@Slf4j
+public class SegmentedObjectReader {
+
+    private final MinioRepository minioRepository;
+    private final ExecutorService executor;
+    private final MemoryBudget memoryBudget;
+    private final int segmentSize;
+    private final int concurrency;
+    private final Duration stallTimeout;
+    private final int maxAttempts;
+
+    public SegmentedObjectReader(MinioRepository minioRepository,
+                                 ExecutorService executor,
+                                 MemoryBudget memoryBudget,
+                                 int segmentSize,
+                                 int concurrency,
+                                 Duration stallTimeout,
+                                 int maxAttempts) {
+        if (segmentSize <= 0) throw new IllegalArgumentException("segmentSize must be positive");
+        if (concurrency <= 0) throw new IllegalArgumentException("concurrency must be positive");
+        if (maxAttempts <= 0) throw new IllegalArgumentException("maxAttempts must be positive");
+        this.minioRepository = minioRepository;
+        this.executor = executor;
+        this.memoryBudget = memoryBudget;
+        this.segmentSize = segmentSize;
+        this.concurrency = concurrency;
+        this.stallTimeout = stallTimeout;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Writes bytes {@code start} to {@code end} (inclusive) of the object.
+     */
+    public void copy(String path, long start, long end, OutputStream out) throws IOException {
+        long length = end - start + 1;
+        long segments = (length + segmentSize - 1) / segmentSize;
+        int window = (int) Math.min(concurrency, segments);
+        long reserved = Math.min((long) window * segmentSize, length);
+        if (window < 2 || !memoryBudget.tryReserve(reserved)) {
+            copyDirectly(path, start, length, out);
+            return;
+        }
+
+        Deque<Segment> inFlight = new ArrayDeque<>();
+        Deque<byte[]> freeBuffers = new ArrayDeque<>();
+        try {
+            long next = 0;
+            while (next < segments && inFlight.size() < window) {
+                inFlight.add(submit(path, start, end, next++, new byte[segmentSize], 1));
+            }
+            while (!inFlight.isEmpty()) {
+                Segment segment = await(inFlight.poll(), path, start, end);
+                out.write(segment.buffer, 0, segment.length);
+                freeBuffers.add(segment.buffer);
+                if (next < segments) {
+                    inFlight.add(submit(path, start, end, next++, freeBuffers.poll(), 1));
+                }
+            }
+        } finally {
+            inFlight.forEach(segment -> segment.future.cancel(true));
+            memoryBudget.release(reserved);
+        }
+    }
+
+    private Segment await(Segment segment, String path, long start, long end) throws IOException {
+        while (true) {
+            try {
+                long remaining = stallTimeout.toNanos() - (System.nanoTime() - segment.startedAt);
+                segment.future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                return segment;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Segmented download was interrupted");
+            } catch (TimeoutException | ExecutionException e) {
+                segment.future.cancel(true);
+                if (segment.attempt >= maxAttempts)
+                    throw new IOException("Segment %d of %s failed %d times".formatted(segment.index, path, segment.attempt),
+                            e instanceof ExecutionException ? e.getCause() : e);
+                log.warn("Segment {} of {} failed on attempt {}, fetching it again: {}",
+                        segment.index, path, segment.attempt, e instanceof TimeoutException ? "stalled" : e.getCause());
+                // the abandoned fetch may still write into the old buffer
+                segment = submit(path, start, end, segment.index, new byte[segmentSize], segment.attempt + 1);
+            }
+        }
+    }
+
+    private Segment submit(String path, long start, long end, long index, byte[] buffer, int attempt) {
+        long offset = start + index * segmentSize;
+        int length = (int) Math.min(segmentSize, end - offset + 1);
+        Future<?> future = executor.submit(() -> {
+            try (InputStream in = minioRepository.downloadObject(path, offset, length)) {
+                if (in.readNBytes(buffer, 0, length) != length)
+                    throw new IOException("Object ended before segment %d of %s".formatted(index, path));
+            }
+            return null;
+        });
+        return new Segment(index, buffer, length, attempt, System.nanoTime(), future);
+    }
+
+    private void copyDirectly(String path, long start, long length, OutputStream out) throws IOException {
+        try (InputStream in = minioRepository.downloadObject(path, start, length)) {
+            in.transferTo(out);
+        }
+    }
+
+    private record Segment(long index, byte[] buffer, int length, int attempt, long startedAt, Future<?> future) {
+    }
+}
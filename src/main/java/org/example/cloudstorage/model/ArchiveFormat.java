@@ -0,0 +1,56 @@
+package org.example.cloudstorage.model;
+
+import org.example.cloudstorage.exception.UnsupportedArchiveFormatException;
+import org.springframework.http.MediaType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Format folders are downloaded and uploaded in.
+ */
+public enum ArchiveFormat {
+    ZIP("zip", "application/zip"),
+    TAR("tar", "application/x-tar"),
+    TAR_GZ("tar.gz", "application/gzip", "application/x-gzip", "application/x-gtar");
+
+    private final String extension;
+    private final List<MediaType> mediaTypes;
+
+    ArchiveFormat(String extension, String... mediaTypes) {
+        this.extension = extension;
+        this.mediaTypes = Arrays.stream(mediaTypes).map(MediaType::valueOf).toList();
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return mediaTypes.getFirst().toString();
+    }
+
+    /**
+     * @param format extension of the format (e.g. {@code tar.gz}); takes precedence over {@code accept}
+     * @param accept media types accepted by the client, most preferred first
+     * @return the requested format, zip if none is requested
+     * @throws UnsupportedArchiveFormatException if {@code format} is not supported
+     */
+    public static ArchiveFormat negotiate(String format, List<MediaType> accept) {
+        if (format != null && !format.isBlank()) {
+            String extension = format.toLowerCase(Locale.ROOT);
+            return Arrays.stream(values())
+                    .filter(value -> value.extension.equals(extension))
+                    .findFirst()
+                    .orElseThrow(() -> new UnsupportedArchiveFormatException("Unsupported archive format: " + format));
+        }
+        for (MediaType mediaType : accept) {
+            if (mediaType.isWildcardType() || mediaType.isWildcardSubtype()) continue;
+            for (ArchiveFormat value : values()) {
+                if (value.mediaTypes.stream().anyMatch(mediaType::equalsTypeAndSubtype)) return value;
+            }
+        }
+        return ZIP;
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.cloudstorage.model;
+
+import org.example.cloudstorage.exception.UnsupportedConflictPolicyException;
+
+import java.util.Locale;
+
+/**
+ * What an upload does with a file whose name is taken already.
+ */
+public enum ConflictPolicy {
+    /**
+     * Nothing is uploaded, every conflicting name is reported.
+     */
+    REJECT,
+    /**
+     * The file is uploaded under a free name, e.g. {@code report (1).pdf}.
+     */
+    RENAME,
+    /**
+     * The existing file is replaced.
+     */
+    OVERWRITE,
+    /**
+     * The file is not uploaded, the existing one is kept.
+     */
+    SKIP;
+
+    /**
+     * @param policy name of the policy in any case
+     * @return the policy, {@link #REJECT} if none is given
+     * @throws UnsupportedConflictPolicyException if there is no such policy
+     */
+    public static ConflictPolicy parse(String policy) {
+        if (policy == null || policy.isBlank()) return REJECT;
+        try {
+            return valueOf(policy.strip().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedConflictPolicyException("Unsupported conflict policy: " + policy);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.cloudstorage.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.ZonedDateTime;
+
+/**
+ * Content of a downloaded resource, written to the response when the response is sent.
+ */
+public interface DownloadableResource {
+
+    String contentType();
+
+    /**
+     * @return size in bytes, or -1 if it is known only once the content is written;
+     * byte ranges are supported only if the size is known
+     */
+    long contentLength();
+
+    /**
+     * @return strong entity tag, quoted, or null if there is none
+     */
+    String eTag();
+
+    /**
+     * @return modification time, or null if unknown
+     */
+    ZonedDateTime lastModified();
+
+    /**
+     * @param contentDisposition {@code Content-Disposition} the content should be served with
+     * @return URL the client should be redirected to for the content, or null to serve it directly
+     */
+    default String redirectUrl(String contentDisposition) {
+        return null;
+    }
+
+    /**
+     * Writes the whole content.
+     */
+    void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * Writes bytes {@code start} to {@code end}, inclusive.
+     *
+     * @throws UnsupportedOperationException if the size is not known
+     */
+    default void writeTo(OutputStream out, long start, long end) throws IOException {
+        throw new UnsupportedOperationException("Byte ranges are not supported");
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.cloudstorage.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @param files       created objects
+ * @param directories directories the files are in, and directories of the archive
+ * @param size        bytes extracted
+ * @param failures    message by entry name of entries which were not extracted
+ */
+public record ExtractedArchive(List<String> files, Set<String> directories, long size, Map<String, String> failures) {
+}
@@ -0,0 +1,7 @@
+package org.example.cloudstorage.model;
+
+public enum JobType {
+    MOVE,
+    COPY,
+    DELETE
+}
@@ -0,0 +1,16 @@
+package org.example.cloudstorage.model;
+
+import java.time.Instant;
+
+/**
+ * @param path      complete object name the file is known by, with a trailing {@code /} for directories
+ * @param objectKey object in MinIO with the content of a file, null for directories
+ */
+public record NamespaceEntry(String path,
+                             boolean directory,
+                             String objectKey,
+                             long size,
+                             String etag,
+                             String contentType,
+                             Instant modifiedAt) {
+}
@@ -0,0 +1,7 @@
+package org.example.cloudstorage.model;
+
+/**
+ * Bytes {@code offset} to {@code offset + length} of an object.
+ */
+public record ObjectRange(String object, long offset, long length) {
+}
@@ -0,0 +1,32 @@
+package org.example.cloudstorage.model;
+
+/**
+ * Receives the progress of a long-running operation, and asks it to stop.
+ * Operations check {@link #isCancelled()} between steps and then throw
+ * {@link org.example.cloudstorage.exception.OperationCancelledException}.
+ */
+public interface OperationProgress {
+
+    OperationProgress NONE = new OperationProgress() {
+    };
+
+    /**
+     * May be called again with bigger totals by operations which find their objects while they run.
+     *
+     * @param objects number of objects the operation processes
+     * @param bytes   their total size
+     */
+    default void started(long objects, long bytes) {
+    }
+
+    /**
+     * @param objects number of objects processed since the last call
+     * @param bytes   their total size
+     */
+    default void advanced(long objects, long bytes) {
+    }
+
+    default boolean isCancelled() {
+        return false;
+    }
+}
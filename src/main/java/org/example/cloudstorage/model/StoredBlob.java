@@ -0,0 +1,8 @@
+package org.example.cloudstorage.model;
+
+/**
+ * @param hash       hex SHA-256 of the content
+ * @param objectName object in MinIO with the content
+ */
+public record StoredBlob(String hash, String objectName, long size) {
+}
@@ -0,0 +1,7 @@
+package org.example.cloudstorage.model;
+
+/**
+ * CRC-32 of the content an object had with {@code etag}.
+ */
+public record StoredChecksum(String objectName, String etag, long crc32) {
+}
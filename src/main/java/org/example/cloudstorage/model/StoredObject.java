@@ -0,0 +1,8 @@
+package org.example.cloudstorage.model;
+
+/**
+ * @param name complete object name
+ * @param etag entity tag of the current content, changes whenever the content is replaced
+ */
+public record StoredObject(String name, long size, String etag) {
+}
@@ -0,0 +1,17 @@
+package org.example.cloudstorage.repo;
+
+import org.example.cloudstorage.entity.BlobReference;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface BlobReferenceRepository extends CrudRepository<BlobReference, String> {
+
+    @Query("select r from BlobReference r join fetch r.blob where r.path in :paths")
+    List<BlobReference> findWithBlobByPathIn(@Param("paths") Collection<String> paths);
+
+    boolean existsByBlobHashAndPathStartingWith(String hash, String pathPrefix);
+}
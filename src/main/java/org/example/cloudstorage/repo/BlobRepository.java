@@ -0,0 +1,50 @@
+package org.example.cloudstorage.repo;
+
+import org.example.cloudstorage.entity.Blob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface BlobRepository extends CrudRepository<Blob, String> {
+
+    /**
+     * Adds a reference to the blob, registering it with {@code objectName} if it is not known.
+     *
+     * @return object name of the blob, {@code objectName} only if it was not known
+     */
+    @Query(value = """
+            INSERT INTO blobs (hash, object_name, size, ref_count)
+            VALUES (:hash, :objectName, :size, 1)
+            ON CONFLICT (hash) DO UPDATE SET ref_count = blobs.ref_count + 1, released_at = NULL
+            RETURNING object_name""", nativeQuery = true)
+    String addReference(@Param("hash") String hash, @Param("objectName") String objectName, @Param("size") long size);
+
+    /**
+     * @return 0 if the blob is not known
+     */
+    @Modifying
+    @Query("update Blob b set b.refCount = b.refCount + 1, b.releasedAt = null where b.hash = :hash")
+    int addReference(@Param("hash") String hash);
+
+    @Modifying
+    @Query("""
+            update Blob b
+            set b.refCount = b.refCount - 1,
+                b.releasedAt = case when b.refCount = 1 then :now else b.releasedAt end
+            where b.hash = :hash""")
+    int removeReference(@Param("hash") String hash, @Param("now") Instant now);
+
+    List<Blob> findByRefCountAndReleasedAtBefore(long refCount, Instant releasedBefore, Limit limit);
+
+    /**
+     * @return 0 if the blob got a reference meanwhile
+     */
+    @Modifying
+    @Query("delete from Blob b where b.hash = :hash and b.refCount = 0")
+    int deleteIfReleased(@Param("hash") String hash);
+}
@@ -0,0 +1,7 @@
+package org.example.cloudstorage.repo;
+
+import org.example.cloudstorage.entity.ChunkManifest;
+import org.springframework.data.repository.CrudRepository;
+
+public interface ChunkManifestRepository extends CrudRepository<ChunkManifest, String> {
+}
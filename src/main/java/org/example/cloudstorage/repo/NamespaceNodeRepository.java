@@ -0,0 +1,136 @@
+package org.example.cloudstorage.repo;
+
+import jakarta.persistence.LockModeType;
+import org.example.cloudstorage.entity.NamespaceNode;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Parent ids are passed as 0 for the top level, and compared through {@code COALESCE(parent_id, 0)}
+ * so the unique index is used.
+ */
+public interface NamespaceNodeRepository extends CrudRepository<NamespaceNode, Long> {
+
+    /**
+     * Walks the path from the top level down in a single query.
+     *
+     * @param path      names of the nodes joined by {@code /}, without a trailing {@code /}
+     * @param depth     number of names in the path
+     * @param directory whether the last node is a directory
+     */
+    @Query(value = """
+            WITH RECURSIVE walk (id, depth) AS (
+                SELECT n.id, 1
+                FROM namespace_nodes n
+                WHERE COALESCE(n.parent_id, 0) = 0
+                  AND n.name = split_part(:path, '/', 1)
+                  AND n.directory = (:depth > 1 OR :directory)
+                UNION ALL
+                SELECT n.id, w.depth + 1
+                FROM walk w
+                         JOIN namespace_nodes n ON COALESCE(n.parent_id, 0) = w.id
+                WHERE w.depth < :depth
+                  AND n.name = split_part(:path, '/', w.depth + 1)
+                  AND n.directory = (w.depth + 1 < :depth OR :directory)
+            )
+            SELECT n.*
+            FROM walk w
+                     JOIN namespace_nodes n ON n.id = w.id
+            WHERE w.depth = :depth""", nativeQuery = true)
+    Optional<NamespaceNode> findByPath(@Param("path") String path,
+                                       @Param("depth") int depth,
+                                       @Param("directory") boolean directory);
+
+    @Query("select n from NamespaceNode n where coalesce(n.parentId, 0) = :parentId and n.name = :name and n.directory = :directory")
+    Optional<NamespaceNode> findChild(@Param("parentId") long parentId,
+                                      @Param("name") String name,
+                                      @Param("directory") boolean directory);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select n from NamespaceNode n where coalesce(n.parentId, 0) = :parentId and n.name = :name and n.directory = false")
+    Optional<NamespaceNode> findFileForUpdate(@Param("parentId") long parentId, @Param("name") String name);
+
+    @Query("select n from NamespaceNode n where coalesce(n.parentId, 0) = :parentId and n.name in :names and n.directory = false")
+    List<NamespaceNode> findFiles(@Param("parentId") long parentId, @Param("names") Collection<String> names);
+
+    /**
+     * @param namePrefix LIKE pattern
+     */
+    @Query("select n from NamespaceNode n where coalesce(n.parentId, 0) = :parentId and n.name like :namePrefix escape '\\'")
+    List<NamespaceNode> findChildren(@Param("parentId") long parentId, @Param("namePrefix") String namePrefix);
+
+    /**
+     * Files in the children matching the pattern, and in all directories below them.
+     *
+     * @param namePrefix LIKE pattern
+     * @return ids and paths relative to the parent, in path order
+     */
+    @Query(value = """
+            WITH RECURSIVE tree (id, path, directory) AS (
+                SELECT n.id, CAST(n.name AS TEXT), n.directory
+                FROM namespace_nodes n
+                WHERE COALESCE(n.parent_id, 0) = :parentId
+                  AND n.name LIKE :namePrefix ESCAPE '\\'
+                UNION ALL
+                SELECT n.id, t.path || '/' || n.name, n.directory
+                FROM tree t
+                         JOIN namespace_nodes n ON COALESCE(n.parent_id, 0) = t.id
+                WHERE t.directory
+            )
+            SELECT t.id, t.path
+            FROM tree t
+            WHERE NOT t.directory
+            ORDER BY t.path COLLATE "C\"""", nativeQuery = true)
+    List<NodePath> findFilesBelow(@Param("parentId") long parentId, @Param("namePrefix") String namePrefix);
+
+    @Query("select count(n) > 0 from NamespaceNode n where coalesce(n.parentId, 0) = :parentId")
+    boolean hasChildren(@Param("parentId") long parentId);
+
+    boolean existsByObjectKey(String objectKey);
+
+    /**
+     * @return id of the file, null if the parent has a file of that name
+     */
+    @Query(value = """
+            INSERT INTO namespace_nodes (parent_id, name, directory, object_key, size, etag, content_type, modified_at)
+            VALUES (NULLIF(:parentId, 0), :name, FALSE, :objectKey, :size, :etag, :contentType, :modifiedAt)
+            ON CONFLICT (COALESCE(parent_id, 0), name, directory) DO NOTHING
+            RETURNING id""", nativeQuery = true)
+    Long insertFile(@Param("parentId") long parentId,
+                    @Param("name") String name,
+                    @Param("objectKey") String objectKey,
+                    @Param("size") long size,
+                    @Param("etag") String etag,
+                    @Param("contentType") String contentType,
+                    @Param("modifiedAt") Instant modifiedAt);
+
+    /**
+     * @return id of the directory, null if the parent has a directory of that name
+     */
+    @Query(value = """
+            INSERT INTO namespace_nodes (parent_id, name, directory, size, modified_at)
+            VALUES (NULLIF(:parentId, 0), :name, TRUE, 0, :modifiedAt)
+            ON CONFLICT (COALESCE(parent_id, 0), name, directory) DO NOTHING
+            RETURNING id""", nativeQuery = true)
+    Long insertDirectory(@Param("parentId") long parentId,
+                         @Param("name") String name,
+                         @Param("modifiedAt") Instant modifiedAt);
+
+    @Modifying
+    @Query("delete from NamespaceNode n where n.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface NodePath {
+        Long getId();
+
+        String getPath();
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.cloudstorage.repo;
+
+import org.example.cloudstorage.entity.NamespaceUpload;
+import org.springframework.data.repository.CrudRepository;
+
+public interface NamespaceUploadRepository extends CrudRepository<NamespaceUpload, String> {
+}
@@ -0,0 +1,16 @@
+package org.example.cloudstorage.repo;
+
+import org.example.cloudstorage.entity.ObjectChecksum;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+public interface ObjectChecksumRepository extends CrudRepository<ObjectChecksum, String> {
+
+    @Modifying
+    @Query("delete from ObjectChecksum c where c.objectName in :objectNames")
+    int deleteByObjectNameIn(@Param("objectNames") Collection<String> objectNames);
+}
@@ -0,0 +1,41 @@
+package org.example.cloudstorage.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.properties.MinioProperties;
+import org.example.cloudstorage.minio.MinioManagementFacade;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Periodically deletes deduplicated content no file references anymore. Content is kept for a grace
+ * period after its last reference is removed, so a file moved or uploaded meanwhile can reference it again.
+ */
+@Slf4j
+@Component
+public class BlobCollector {
+    private final MinioManagementFacade minioRepository;
+    private final boolean enabled;
+    private final Duration gracePeriod;
+
+    public BlobCollector(MinioManagementFacade minioRepository, MinioProperties minioProperties) {
+        this.minioRepository = minioRepository;
+        this.enabled = minioProperties.getUpload().isDeduplication();
+        this.gracePeriod = minioProperties.getUpload().getBlobGracePeriod();
+    }
+
+    @Scheduled(
+            initialDelayString = "#{@minioProperties.upload.blobCollectorInterval.toMillis()}",
+            fixedDelayString = "#{@minioProperties.upload.blobCollectorInterval.toMillis()}")
+    public void collect() {
+        if (!enabled) return;
+        try {
+            int collected = minioRepository.collectReleasedBlobs(Instant.now().minus(gracePeriod));
+            if (collected > 0) log.info("Deleted {} unreferenced blobs", collected);
+        } catch (Exception e) {
+            log.warn("Failed to delete unreferenced blobs, trying again later", e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.cloudstorage.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.cloudstorage.entity.Blob;
+import org.example.cloudstorage.entity.BlobReference;
+import org.example.cloudstorage.minio.BlobIndex;
+import org.example.cloudstorage.model.StoredBlob;
+import org.example.cloudstorage.repo.BlobReferenceRepository;
+import org.example.cloudstorage.repo.BlobRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Reference counts are changed by single UPDATE statements, so concurrent uploads of the same
+ * content do not lose references; a blob is deleted only by a statement which checks it has none.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class BlobIndexImpl implements BlobIndex {
+
+    /**
+     * Paths per IN query.
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    private final BlobRepository blobRepository;
+    private final BlobReferenceRepository blobReferenceRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, StoredBlob> find(Collection<String> paths) {
+        Map<String, StoredBlob> blobs = new HashMap<>();
+        for (List<String> batch : batches(paths)) {
+            for (BlobReference reference : blobReferenceRepository.findWithBlobByPathIn(batch)) {
+                blobs.put(reference.getPath(), toStoredBlob(reference.getBlob()));
+            }
+        }
+        return blobs;
+    }
+
+    @Override
+    public StoredBlob reference(String path, String hash, String objectName, long size) {
+        String blobObjectName = blobRepository.addReference(hash, objectName, size);
+        blobReferenceRepository.save(new BlobReference(path, blobRepository.findById(hash).orElseThrow()));
+        return new StoredBlob(hash, blobObjectName, size);
+    }
+
+    @Override
+    public Optional<StoredBlob> reference(String path, String hash, String ownerPrefix) {
+        if (!blobReferenceRepository.existsByBlobHashAndPathStartingWith(hash, ownerPrefix)) return Optional.empty();
+        if (blobRepository.addReference(hash) == 0) return Optional.empty();
+
+        Blob blob = blobRepository.findById(hash).orElseThrow();
+        blobReferenceRepository.save(new BlobReference(path, blob));
+        return Optional.of(toStoredBlob(blob));
+    }
+
+    @Override
+    public void copyReference(String from, String to) {
+        blobReferenceRepository.findById(from).ifPresent(reference -> {
+            blobRepository.addReference(reference.getBlob().getHash());
+            blobReferenceRepository.save(new BlobReference(to, reference.getBlob()));
+        });
+    }
+
+    @Override
+    public void release(Collection<String> paths) {
+        Instant now = Instant.now();
+        for (List<String> batch : batches(paths)) {
+            List<BlobReference> references = blobReferenceRepository.findWithBlobByPathIn(batch);
+            blobReferenceRepository.deleteAll(references);
+            for (BlobReference reference : references) {
+                blobRepository.removeReference(reference.getBlob().getHash(), now);
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StoredBlob> findReleased(Instant releasedBefore, int limit) {
+        return blobRepository.findByRefCountAndReleasedAtBefore(0, releasedBefore, Limit.of(limit))
+                .stream()
+                .map(BlobIndexImpl::toStoredBlob)
+                .toList();
+    }
+
+    @Override
+    public boolean deleteIfReleased(String hash) {
+        return blobRepository.deleteIfReleased(hash) > 0;
+    }
+
+    private static StoredBlob toStoredBlob(Blob blob) {
+        return new StoredBlob(blob.getHash(), blob.getObjectName(), blob.getSize());
+    }
+
+    private static List<List<String>> batches(Collection<String> paths) {
+        List<String> list = List.copyOf(paths);
+        List<List<String>> batches = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += BATCH_SIZE) {
+            batches.add(list.subList(from, Math.min(list.size(), from + BATCH_SIZE)));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.cloudstorage.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.cloudstorage.entity.ObjectChecksum;
+import org.example.cloudstorage.minio.ChecksumIndex;
+import org.example.cloudstorage.model.StoredChecksum;
+import org.example.cloudstorage.repo.ObjectChecksumRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * ETags are compared without quotes, as listings quote them and write responses do not.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class ChecksumIndexImpl implements ChecksumIndex {
+
+    /**
+     * Object names per IN query.
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    private final ObjectChecksumRepository objectChecksumRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Long> find(Map<String, String> etags) {
+        Map<String, Long> checksums = new HashMap<>();
+        for (List<String> batch : batches(etags.keySet())) {
+            for (ObjectChecksum checksum : objectChecksumRepository.findAllById(batch)) {
+                String etag = etags.get(checksum.getObjectName());
+                if (etag != null && unquoted(etag).equals(checksum.getEtag()))
+                    checksums.put(checksum.getObjectName(), checksum.getCrc32());
+            }
+        }
+        return checksums;
+    }
+
+    @Override
+    public void save(Collection<StoredChecksum> checksums) {
+        objectChecksumRepository.saveAll(checksums.stream()
+                .map(checksum -> new ObjectChecksum(checksum.objectName(), unquoted(checksum.etag()), checksum.crc32()))
+                .toList());
+    }
+
+    @Override
+    public void remove(Collection<String> objectNames) {
+        for (List<String> batch : batches(objectNames)) {
+            objectChecksumRepository.deleteByObjectNameIn(batch);
+        }
+    }
+
+    private static String unquoted(String etag) {
+        return etag.replace("\"", "");
+    }
+
+    private static List<List<String>> batches(Collection<String> objectNames) {
+        List<String> list = List.copyOf(objectNames);
+        List<List<String>> batches = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += BATCH_SIZE) {
+            batches.add(list.subList(from, Math.min(list.size(), from + BATCH_SIZE)));
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.cloudstorage.service;
+
+import org.example.cloudstorage.dto.DeltaParametersDto;
+import org.example.cloudstorage.dto.DeltaSyncDto;
+import org.example.cloudstorage.dto.DeltaSyncRequest;
+import org.example.cloudstorage.dto.ResourceResponseDto;
+import org.example.cloudstorage.entity.User;
+
+import java.io.InputStream;
+
+/**
+ * Delta uploads: the client cuts the new version of a file into content-defined chunks and sends
+ * their hashes, uploads only the chunks the server does not have, and the server assembles the
+ * new version from those and the unchanged chunks of the current one.
+ */
+public interface DeltaSyncService {
+    DeltaParametersDto parameters();
+
+    DeltaSyncDto create(String path, String name, DeltaSyncRequest request, User user);
+
+    DeltaSyncDto get(String id, User user);
+
+    /**
+     * @param hash hex SHA-256 of the chunk, one of {@link DeltaSyncDto#getMissingChunks()}
+     * @throws org.example.cloudstorage.exception.minio.ThrottledMinioException if no upload memory is left for
+     *                                                                          the chunk, it can be sent again later
+     */
+    DeltaSyncDto uploadChunk(String id, String hash, InputStream chunk, User user);
+
+    ResourceResponseDto commit(String id, User user);
+
+    void abort(String id, User user);
+
+    /**
+     * Aborts syncs without activity for longer than the session TTL.
+     */
+    void abortAbandoned();
+}
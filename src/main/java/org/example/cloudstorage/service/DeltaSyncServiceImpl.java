@@ -0,0 +1,355 @@
+package org.example.cloudstorage.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.properties.MinioProperties;
+import org.example.cloudstorage.dto.DeltaParametersDto;
+import org.example.cloudstorage.dto.DeltaSyncDto;
+import org.example.cloudstorage.dto.DeltaSyncRequest;
+import org.example.cloudstorage.dto.ResourceResponseDto;
+import org.example.cloudstorage.entity.ChunkManifest;
+import org.example.cloudstorage.entity.User;
+import org.example.cloudstorage.exception.minio.*;
+import org.example.cloudstorage.mapper.ResourceResponseDtoMapper;
+import org.example.cloudstorage.minio.MinioManagementFacade;
+import org.example.cloudstorage.model.ObjectRange;
+import org.example.cloudstorage.model.ResourceMetadata;
+import org.example.cloudstorage.model.StoredObject;
+import org.example.cloudstorage.repo.ChunkManifestRepository;
+import org.example.cloudstorage.util.FastCdc;
+import org.example.cloudstorage.util.PathUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static org.example.cloudstorage.util.MinioUserPathUtils.constructPath;
+
+/**
+ * The chunks of every file synced so far are kept as a manifest in the database, with the ETag of
+ * the version they describe. A file without a current manifest is chunked once on the server, so
+ * files uploaded otherwise are synced as deltas too. Chunks of the current version are addressed
+ * as byte ranges of it and not stored separately; uploaded chunks are staged as objects under
+ * {@code delta-chunks/<id>/} until the commit composes the new version in MinIO.
+ * <p>
+ * Syncs are kept in Redis like upload sessions:
+ * <ul>
+ * <li>{@code delta-sync:<id>} hash with the sync</li>
+ * <li>{@code delta-sync:<id>:chunks} set of the hashes of staged chunks</li>
+ * <li>{@code delta-syncs} sorted set of sync ids by time of last activity, for the janitor</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class DeltaSyncServiceImpl implements DeltaSyncService {
+
+    private static final String SYNC_KEY = "delta-sync:%s";
+    private static final String STAGED_KEY = "delta-sync:%s:chunks";
+    private static final String SYNCS_KEY = "delta-syncs";
+    private static final String STAGING_PREFIX = "delta-chunks/%s/";
+    private static final Pattern SHA_256 = Pattern.compile("[0-9a-f]{64}");
+    /**
+     * Every source of a MinIO compose but the last has to be at least that big.
+     */
+    private static final long MIN_COMPOSE_SOURCE_SIZE = 5L * 1024 * 1024;
+
+    private final StringRedisTemplate redisTemplate;
+    private final MinioManagementFacade minioRepository;
+    private final ChunkManifestRepository chunkManifestRepository;
+    private final FastCdc fastCdc;
+    private final Duration sessionTtl;
+
+    public DeltaSyncServiceImpl(StringRedisTemplate redisTemplate,
+                                MinioManagementFacade minioRepository,
+                                ChunkManifestRepository chunkManifestRepository,
+                                MinioProperties minioProperties) {
+        MinioProperties.Upload upload = minioProperties.getUpload();
+        if (upload.getDeltaMinChunkSize().toBytes() < MIN_COMPOSE_SOURCE_SIZE)
+            throw new IllegalArgumentException("delta-min-chunk-size must be at least 5MB");
+        this.redisTemplate = redisTemplate;
+        this.minioRepository = minioRepository;
+        this.chunkManifestRepository = chunkManifestRepository;
+        this.fastCdc = new FastCdc(
+                (int) upload.getDeltaMinChunkSize().toBytes(),
+                (int) upload.getDeltaAvgChunkSize().toBytes(),
+                (int) upload.getDeltaMaxChunkSize().toBytes());
+        this.sessionTtl = upload.getSessionTtl();
+    }
+
+    @Override
+    public DeltaParametersDto parameters() {
+        return new DeltaParametersDto(fastCdc.getMinSize(), fastCdc.getAvgSize(), fastCdc.getMaxSize());
+    }
+
+    @Override
+    public DeltaSyncDto create(String path, String name, DeltaSyncRequest request, User user) {
+        if (name == null || name.isBlank())
+            throw new InvalidFileMinioException("File name should not be empty");
+        if (!PathUtils.isPathValid(path + name))
+            throw new InvalidPathMinioException("Provided path is not valid");
+        List<Chunk> chunks = request.getChunks().stream()
+                .map(chunk -> new Chunk(chunk.getHash(), chunk.getLength()))
+                .toList();
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            if (!SHA_256.matcher(chunk.hash()).matches())
+                throw new InvalidFileMinioException("Chunk hash should be a lowercase hex SHA-256: " + chunk.hash());
+            if (chunk.length() > fastCdc.getMaxSize() || (i < chunks.size() - 1 && chunk.length() < fastCdc.getMinSize()))
+                throw new InvalidFileMinioException("Chunk %d has %d bytes, chunks should have %d to %d"
+                        .formatted(i, chunk.length(), fastCdc.getMinSize(), fastCdc.getMaxSize()));
+        }
+
+        String object = constructPath(path + name, user);
+        Base base = base(object);
+        List<String> missing = chunks.stream()
+                .map(Chunk::hash)
+                .filter(hash -> !base.offsets().containsKey(hash))
+                .distinct()
+                .toList();
+        Sync sync = new Sync(UUID.randomUUID().toString(), user.getId(), path, name, object, base.etag(), chunks, missing);
+        redisTemplate.opsForHash().putAll(SYNC_KEY.formatted(sync.id()), sync.toHash());
+        touch(sync.id());
+        return toDto(sync, missing);
+    }
+
+    @Override
+    public DeltaSyncDto get(String id, User user) {
+        Sync sync = load(id, user);
+        return toDto(sync, missing(sync));
+    }
+
+    @Override
+    public DeltaSyncDto uploadChunk(String id, String hash, InputStream chunk, User user) {
+        Sync sync = load(id, user);
+        List<String> missing = missing(sync);
+        if (!missing.contains(hash))
+            throw new InvalidFileMinioException("Chunk is not missing: " + hash);
+
+        int length = sync.chunks().stream()
+                .filter(c -> c.hash().equals(hash))
+                .findFirst()
+                .orElseThrow()
+                .length();
+        try {
+            // buffered from the shared upload memory, 503 once it is exhausted
+            minioRepository.storeObject(stagedObject(id, hash), chunk, length, hash);
+        } catch (ResourceAlreadyExistsMinioException e) {
+            // sent again after a response got lost
+        }
+        redisTemplate.opsForSet().add(STAGED_KEY.formatted(id), hash);
+        touch(id);
+        return toDto(sync, missing.stream().filter(h -> !h.equals(hash)).toList());
+    }
+
+    @Override
+    public ResourceResponseDto commit(String id, User user) {
+        Sync sync = load(id, user);
+        List<String> missing = missing(sync);
+        if (!missing.isEmpty())
+            throw new InvalidFileMinioException("Chunks %s are missing".formatted(missing));
+
+        Base base = base(sync.object());
+        if (!base.etag().equals(sync.baseEtag())) {
+            // the staged chunks are useless against another version
+            cleanUp(id);
+            throw new ResourceAlreadyExistsMinioException("File changed since the sync started: " + sync.object());
+        }
+
+        List<ObjectRange> sources = new ArrayList<>();
+        for (Chunk chunk : sync.chunks()) {
+            Long offset = base.offsets().get(chunk.hash());
+            ObjectRange source = offset != null ?
+                    new ObjectRange(sync.object(), offset, chunk.length()) :
+                    new ObjectRange(stagedObject(id, chunk.hash()), 0, chunk.length());
+            ObjectRange last = sources.isEmpty() ? null : sources.getLast();
+            if (last != null && offset != null && last.object().equals(sync.object())
+                    && last.offset() + last.length() == offset) {
+                // unchanged neighbours are copied as one range
+                sources.set(sources.size() - 1, new ObjectRange(last.object(), last.offset(), last.length() + chunk.length()));
+            } else {
+                sources.add(source);
+            }
+        }
+
+        StoredObject file = minioRepository.composeResource(sync.object(), sources);
+        chunkManifestRepository.save(new ChunkManifest(sync.object(), file.etag(), Chunk.join(sync.chunks())));
+        cleanUp(id);
+        return ResourceResponseDtoMapper.toDto(new ResourceMetadata(file.name(), false, file.size()));
+    }
+
+    @Override
+    public void abort(String id, User user) {
+        load(id, user);
+        cleanUp(id);
+    }
+
+    @Override
+    public void abortAbandoned() {
+        long cutoff = System.currentTimeMillis() - sessionTtl.toMillis();
+        Set<String> expired = redisTemplate.opsForZSet().rangeByScore(SYNCS_KEY, 0, cutoff);
+        for (String id : expired == null ? Set.<String>of() : expired) {
+            cleanUp(id);
+            log.info("Aborted abandoned delta sync {}", id);
+        }
+    }
+
+    /**
+     * Current version of the file with the positions of its chunks, chunking it if it has no current manifest.
+     */
+    private Base base(String object) {
+        Optional<StoredObject> file = minioRepository.findObject(object);
+        if (file.isEmpty()) return new Base("", Map.of());
+        String etag = file.get().etag();
+
+        Optional<ChunkManifest> manifest = chunkManifestRepository.findById(object);
+        if (manifest.isPresent() && manifest.get().getEtag().equals(etag))
+            return new Base(etag, offsets(Chunk.split(manifest.get().getChunks())));
+
+        List<Chunk> chunks = new ArrayList<>();
+        try (InputStream content = minioRepository.openObject(object)) {
+            for (FastCdc.Chunk chunk : fastCdc.chunk(content)) {
+                chunks.add(new Chunk(chunk.hash(), chunk.length()));
+            }
+        } catch (IOException e) {
+            throw new MinioException("Failed to chunk " + object, e);
+        }
+        // the chunks may belong to a version written while reading
+        if (!minioRepository.findObject(object).map(StoredObject::etag).orElse("").equals(etag))
+            return new Base(etag, Map.of());
+        chunkManifestRepository.save(new ChunkManifest(object, etag, Chunk.join(chunks)));
+        return new Base(etag, offsets(chunks));
+    }
+
+    private static Map<String, Long> offsets(List<Chunk> chunks) {
+        Map<String, Long> offsets = new HashMap<>();
+        long offset = 0;
+        for (Chunk chunk : chunks) {
+            offsets.putIfAbsent(chunk.hash(), offset);
+            offset += chunk.length();
+        }
+        return offsets;
+    }
+
+    /**
+     * Chunks neither in the base nor staged yet.
+     */
+    private List<String> missing(Sync sync) {
+        Set<String> staged = redisTemplate.opsForSet().members(STAGED_KEY.formatted(sync.id()));
+        return sync.missing().stream()
+                .filter(hash -> staged == null || !staged.contains(hash))
+                .toList();
+    }
+
+    private Sync load(String id, User user) {
+        Map<Object, Object> hash = redisTemplate.opsForHash().entries(SYNC_KEY.formatted(id));
+        if (hash.isEmpty()) throw new ResourceNotFoundMinioException("Delta sync not found");
+        Sync sync = Sync.fromHash(id, hash);
+        // syncs of other users are not revealed
+        if (!sync.userId().equals(user.getId())) throw new ResourceNotFoundMinioException("Delta sync not found");
+        return sync;
+    }
+
+    private void touch(String id) {
+        redisTemplate.opsForZSet().add(SYNCS_KEY, id, System.currentTimeMillis());
+        redisTemplate.expire(SYNC_KEY.formatted(id), sessionTtl.multipliedBy(2));
+        redisTemplate.expire(STAGED_KEY.formatted(id), sessionTtl.multipliedBy(2));
+    }
+
+    /**
+     * Deletes the staged chunks and the sync.
+     */
+    private void cleanUp(String id) {
+        Set<String> staged = redisTemplate.opsForSet().members(STAGED_KEY.formatted(id));
+        if (staged != null && !staged.isEmpty()) {
+            try {
+                minioRepository.deleteObjects(staged.stream().map(hash -> stagedObject(id, hash)).toList());
+            } catch (MinioException e) {
+                log.warn("Failed to delete staged chunks of delta sync {}", id, e);
+            }
+        }
+        redisTemplate.delete(List.of(SYNC_KEY.formatted(id), STAGED_KEY.formatted(id)));
+        redisTemplate.opsForZSet().remove(SYNCS_KEY, id);
+    }
+
+    private static String stagedObject(String id, String hash) {
+        return STAGING_PREFIX.formatted(id) + hash;
+    }
+
+    private static DeltaSyncDto toDto(Sync sync, List<String> missing) {
+        return DeltaSyncDto.builder()
+                .id(sync.id())
+                .path(sync.path())
+                .name(sync.name())
+                .size(sync.chunks().stream().mapToLong(Chunk::length).sum())
+                .chunkCount(sync.chunks().size())
+                .missingChunks(missing)
+                .build();
+    }
+
+    /**
+     * @param etag    ETag of the current version, empty if the file does not exist
+     * @param offsets position of every chunk of the current version
+     */
+    private record Base(String etag, Map<String, Long> offsets) {
+    }
+
+    private record Chunk(String hash, int length) {
+
+        static String join(List<Chunk> chunks) {
+            StringBuilder joined = new StringBuilder();
+            for (Chunk chunk : chunks) {
+                joined.append(chunk.hash()).append(':').append(chunk.length()).append('\n');
+            }
+            return joined.toString();
+        }
+
+        static List<Chunk> split(String joined) {
+            return joined.lines()
+                    .map(line -> line.split(":"))
+                    .map(parts -> new Chunk(parts[0], Integer.parseInt(parts[1])))
+                    .toList();
+        }
+    }
+
+    /**
+     * @param path     directory as requested by the user
+     * @param object   complete object name
+     * @param baseEtag ETag of the version the sync is against, empty if the file did not exist
+     * @param missing  chunks not in the base version, to be staged
+     */
+    private record Sync(String id,
+                        Long userId,
+                        String path,
+                        String name,
+                        String object,
+                        String baseEtag,
+                        List<Chunk> chunks,
+                        List<String> missing) {
+
+        Map<String, String> toHash() {
+            return Map.of(
+                    "userId", userId.toString(),
+                    "path", path,
+                    "name", name,
+                    "object", object,
+                    "baseEtag", baseEtag,
+                    "chunks", Chunk.join(chunks),
+                    "missing", String.join("\n", missing));
+        }
+
+        static Sync fromHash(String id, Map<Object, Object> hash) {
+            return new Sync(
+                    id,
+                    Long.valueOf(hash.get("userId").toString()),
+                    hash.get("path").toString(),
+                    hash.get("name").toString(),
+                    hash.get("object").toString(),
+                    hash.get("baseEtag").toString(),
+                    Chunk.split(hash.get("chunks").toString()),
+                    hash.get("missing").toString().lines().toList());
+        }
+    }
+}
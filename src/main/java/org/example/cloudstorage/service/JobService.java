@@ -0,0 +1,29 @@
+package org.example.cloudstorage.service;
+
+import org.example.cloudstorage.dto.JobDto;
+import org.example.cloudstorage.entity.User;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Runs long operations in the background: starting one returns the queued job right away,
+ * its status and progress can then be read by any instance until some time after it finished.
+ */
+public interface JobService {
+    JobDto move(String from, String to, User user);
+
+    JobDto copy(String from, String to, User user);
+
+    JobDto delete(String path, User user);
+
+    JobDto get(String id, User user);
+
+    /**
+     * Asks the job to stop; what it did so far is kept.
+     */
+    JobDto cancel(String id, User user);
+
+    /**
+     * Sends the job whenever its progress changes, and completes once it finished.
+     */
+    SseEmitter events(String id, User user);
+}
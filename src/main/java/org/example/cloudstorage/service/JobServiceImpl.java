@@ -0,0 +1,372 @@
+package org.example.cloudstorage.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.properties.JobProperties;
+import org.example.cloudstorage.dto.JobDto;
+import org.example.cloudstorage.entity.User;
+import org.example.cloudstorage.exception.OperationCancelledException;
+import org.example.cloudstorage.exception.minio.ResourceNotFoundMinioException;
+import org.example.cloudstorage.model.JobStatus;
+import org.example.cloudstorage.model.JobType;
+import org.example.cloudstorage.model.OperationProgress;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Jobs run on a bounded pool of {@code concurrency} threads with a queue of {@code queueCapacity};
+ * beyond that new jobs are rejected with 503. Every job is a Redis hash {@code job:<id>} which the
+ * running job writes its progress to at most every progress interval, so any instance can answer
+ * for it; the hash expires the retention after the job was created and again after it finished.
+ * <p>
+ * Cancelling sets {@code cancelRequested} in the hash, which the running job reads when it writes
+ * its progress, so a job on any instance can be cancelled. Event streams are fed by polling the
+ * hashes of the streamed jobs every progress interval on a thread of their own; every event is sent
+ * on a virtual thread, so a slow client holds back only its own stream.
+ * <p>
+ * Jobs still queued when the instance shuts down are marked as failed.
+ */
+@Slf4j
+@Service
+public class JobServiceImpl implements JobService {
+
+    private static final String JOB_KEY = "job:%s";
+    private static final String PROGRESS_EVENT = "progress";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ResourceService resourceService;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService eventScheduler;
+    private final ExecutorService eventSender;
+    private final Duration progressInterval;
+    private final Duration retention;
+    private final Duration eventsTimeout;
+    private final Map<SseEmitter, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    public JobServiceImpl(StringRedisTemplate redisTemplate,
+                          ResourceService resourceService,
+                          JobProperties jobProperties) {
+        this.redisTemplate = redisTemplate;
+        this.resourceService = resourceService;
+        this.progressInterval = jobProperties.getProgressInterval();
+        this.retention = jobProperties.getRetention();
+        this.eventsTimeout = jobProperties.getEventsTimeout();
+        this.executor = new ThreadPoolExecutor(
+                jobProperties.getConcurrency(),
+                jobProperties.getConcurrency(),
+                0, TimeUnit.MILLISECONDS,
+                jobProperties.getQueueCapacity() > 0
+                        ? new ArrayBlockingQueue<>(jobProperties.getQueueCapacity())
+                        : new SynchronousQueue<>(),
+                Thread.ofPlatform().name("job-", 0).factory());
+        this.eventScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("job-events").factory());
+        this.eventSender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("job-event-", 0).factory());
+        eventScheduler.scheduleWithFixedDelay(
+                this::publishProgress, progressInterval.toMillis(), progressInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        eventScheduler.shutdownNow();
+        eventSender.shutdownNow();
+        for (Runnable queued : executor.shutdownNow()) {
+            if (!(queued instanceof Job job)) continue;
+            try {
+                finish(job.id(), JobStatus.FAILED, "Server shut down before the job started");
+            } catch (RuntimeException e) {
+                log.warn("Failed to mark queued job {} as failed", job.id(), e);
+            }
+        }
+    }
+
+    @Override
+    public JobDto move(String from, String to, User user) {
+        String id = create(JobType.MOVE, from, to, user);
+        submit(id, progress -> resourceService.move(from, to, user, progress));
+        return get(id, user);
+    }
+
+    @Override
+    public JobDto copy(String from, String to, User user) {
+        String id = create(JobType.COPY, from, to, user);
+        submit(id, progress -> resourceService.copy(from, to, user, progress));
+        return get(id, user);
+    }
+
+    @Override
+    public JobDto delete(String path, User user) {
+        String id = create(JobType.DELETE, path, null, user);
+        submit(id, progress -> resourceService.delete(path, user, progress));
+        return get(id, user);
+    }
+
+    @Override
+    public JobDto get(String id, User user) {
+        return toDto(id, load(id, user));
+    }
+
+    @Override
+    public JobDto cancel(String id, User user) {
+        Map<Object, Object> job = load(id, user);
+        if (!status(job).isFinished()) {
+            redisTemplate.opsForHash().put(JOB_KEY.formatted(id), "cancelRequested", "true");
+        }
+        return get(id, user);
+    }
+
+    @Override
+    public SseEmitter events(String id, User user) {
+        JobDto job = get(id, user);
+        SseEmitter emitter = new SseEmitter(eventsTimeout.toMillis());
+        Subscription subscription = new Subscription(id);
+        emitter.onCompletion(() -> subscriptions.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscriptions.remove(emitter));
+        if (publish(emitter, subscription, job)) subscriptions.put(emitter, subscription);
+        return emitter;
+    }
+
+    /**
+     * Sends the changed jobs to their event streams; a stream still sending its previous event is skipped.
+     */
+    private void publishProgress() {
+        if (subscriptions.isEmpty()) return;
+        try {
+            Map<String, Optional<JobDto>> jobs = new HashMap<>();
+            subscriptions.forEach((emitter, subscription) -> {
+                Optional<JobDto> job = jobs.computeIfAbsent(subscription.jobId, id -> {
+                    Map<Object, Object> hash = redisTemplate.opsForHash().entries(JOB_KEY.formatted(id));
+                    return hash.isEmpty() ? Optional.empty() : Optional.of(toDto(id, hash));
+                });
+                if (!subscription.sending.compareAndSet(false, true)) return;
+                try {
+                    eventSender.execute(() -> {
+                        try {
+                            send(emitter, subscription, job);
+                        } finally {
+                            subscription.sending.set(false);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // shutting down
+                    subscription.sending.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // an exception would end the schedule
+            log.warn("Failed to publish job progress, trying again later", e);
+        }
+    }
+
+    private void send(SseEmitter emitter, Subscription subscription, Optional<JobDto> job) {
+        if (job.isEmpty()) {
+            // expired meanwhile
+            subscriptions.remove(emitter);
+            emitter.complete();
+        } else if (!publish(emitter, subscription, job.get())) {
+            subscriptions.remove(emitter);
+        }
+    }
+
+    /**
+     * @return whether the stream goes on
+     */
+    private static boolean publish(SseEmitter emitter, Subscription subscription, JobDto job) {
+        try {
+            if (!job.equals(subscription.lastSent)) {
+                emitter.send(SseEmitter.event().name(PROGRESS_EVENT).id(job.getId()).data(job));
+                subscription.lastSent = job;
+            }
+        } catch (IOException | IllegalStateException e) {
+            // the client went away
+            emitter.completeWithError(e);
+            return false;
+        }
+        if (!job.getStatus().isFinished()) return true;
+        emitter.complete();
+        return false;
+    }
+
+    private String create(JobType type, String path, String target, User user) {
+        String id = UUID.randomUUID().toString();
+        Map<String, String> hash = new HashMap<>();
+        hash.put("userId", user.getId().toString());
+        hash.put("type", type.name());
+        hash.put("status", JobStatus.QUEUED.name());
+        hash.put("path", path);
+        if (target != null) hash.put("target", target);
+        hash.put("createdAt", Long.toString(System.currentTimeMillis()));
+        String key = JOB_KEY.formatted(id);
+        redisTemplate.opsForHash().putAll(key, hash);
+        redisTemplate.expire(key, retention);
+        return id;
+    }
+
+    private void submit(String id, Consumer<OperationProgress> operation) {
+        try {
+            executor.execute(new Job(id, () -> run(id, operation)));
+        } catch (RejectedExecutionException e) {
+            redisTemplate.delete(JOB_KEY.formatted(id));
+            throw new TaskRejectedException("Too many jobs are running, try again later", e);
+        }
+    }
+
+    private void run(String id, Consumer<OperationProgress> operation) {
+        RedisProgress progress = new RedisProgress(JOB_KEY.formatted(id));
+        if (progress.isCancelRequested()) {
+            finish(id, JobStatus.CANCELLED, null);
+            return;
+        }
+        redisTemplate.opsForHash().put(JOB_KEY.formatted(id), "status", JobStatus.RUNNING.name());
+        try {
+            operation.accept(progress);
+            progress.write();
+            finish(id, JobStatus.SUCCEEDED, null);
+        } catch (OperationCancelledException e) {
+            progress.write();
+            finish(id, JobStatus.CANCELLED, e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Job {} failed", id, e);
+            progress.write();
+            finish(id, JobStatus.FAILED, e.getMessage());
+        }
+    }
+
+    private void finish(String id, JobStatus status, String error) {
+        String key = JOB_KEY.formatted(id);
+        Map<String, String> hash = new HashMap<>();
+        hash.put("status", status.name());
+        hash.put("finishedAt", Long.toString(System.currentTimeMillis()));
+        if (error != null) hash.put("error", error);
+        redisTemplate.opsForHash().putAll(key, hash);
+        redisTemplate.expire(key, retention);
+    }
+
+    private Map<Object, Object> load(String id, User user) {
+        Map<Object, Object> hash = redisTemplate.opsForHash().entries(JOB_KEY.formatted(id));
+        // jobs of other users are not revealed
+        if (hash.isEmpty() || !hash.get("userId").equals(user.getId().toString()))
+            throw new ResourceNotFoundMinioException("Job not found");
+        return hash;
+    }
+
+    private static JobStatus status(Map<Object, Object> hash) {
+        return JobStatus.valueOf(hash.get("status").toString());
+    }
+
+    private static JobDto toDto(String id, Map<Object, Object> hash) {
+        return JobDto.builder()
+                .id(id)
+                .type(JobType.valueOf(hash.get("type").toString()))
+                .status(status(hash))
+                .path(string(hash, "path"))
+                .target(string(hash, "target"))
+                .objectsDone(number(hash, "objectsDone"))
+                .objectsTotal(number(hash, "objectsTotal"))
+                .bytesDone(number(hash, "bytesDone"))
+                .bytesTotal(number(hash, "bytesTotal"))
+                .cancelRequested(Boolean.parseBoolean(string(hash, "cancelRequested")))
+                .error(string(hash, "error"))
+                .createdAt(instant(hash, "createdAt"))
+                .finishedAt(instant(hash, "finishedAt"))
+                .build();
+    }
+
+    private static String string(Map<Object, Object> hash, String field) {
+        Object value = hash.get(field);
+        return value == null ? null : value.toString();
+    }
+
+    private static long number(Map<Object, Object> hash, String field) {
+        Object value = hash.get(field);
+        return value == null ? 0 : Long.parseLong(value.toString());
+    }
+
+    private static Instant instant(Map<Object, Object> hash, String field) {
+        Object value = hash.get(field);
+        return value == null ? null : Instant.ofEpochMilli(Long.parseLong(value.toString()));
+    }
+
+    /**
+     * Queued job, so the ones left in the queue at shutdown can be told apart.
+     */
+    private record Job(String id, Runnable task) implements Runnable {
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    private static final class Subscription {
+        private final String jobId;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile JobDto lastSent;
+
+        private Subscription(String jobId) {
+            this.jobId = jobId;
+        }
+    }
+
+    /**
+     * Counts progress in memory and writes it to the job hash at most every progress interval,
+     * reading back whether the job was cancelled.
+     */
+    private final class RedisProgress implements OperationProgress {
+        private final String key;
+        private final AtomicLong objectsDone = new AtomicLong();
+        private final AtomicLong bytesDone = new AtomicLong();
+        private volatile long writtenAt = System.nanoTime();
+        private volatile boolean cancelRequested;
+
+        private RedisProgress(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void started(long objects, long bytes) {
+            redisTemplate.opsForHash().putAll(key, Map.of(
+                    "objectsTotal", Long.toString(objects),
+                    "bytesTotal", Long.toString(bytes)));
+        }
+
+        @Override
+        public void advanced(long objects, long bytes) {
+            objectsDone.addAndGet(objects);
+            bytesDone.addAndGet(bytes);
+            if (isWriteDue()) write();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            if (isWriteDue()) write();
+            return cancelRequested;
+        }
+
+        boolean isCancelRequested() {
+            return Boolean.TRUE.toString().equals(redisTemplate.opsForHash().get(key, "cancelRequested"));
+        }
+
+        synchronized void write() {
+            redisTemplate.opsForHash().putAll(key, Map.of(
+                    "objectsDone", Long.toString(objectsDone.get()),
+                    "bytesDone", Long.toString(bytesDone.get())));
+            cancelRequested = isCancelRequested();
+            writtenAt = System.nanoTime();
+        }
+
+        private boolean isWriteDue() {
+            return System.nanoTime() - writtenAt >= progressInterval.toNanos();
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.example.cloudstorage.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.cloudstorage.entity.NamespaceNode;
+import org.example.cloudstorage.entity.NamespaceUpload;
+import org.example.cloudstorage.exception.minio.InvalidPathMinioException;
+import org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException;
+import org.example.cloudstorage.exception.minio.ResourceNotFoundMinioException;
+import org.example.cloudstorage.minio.Namespace;
+import org.example.cloudstorage.model.NamespaceEntry;
+import org.example.cloudstorage.repo.NamespaceNodeRepository;
+import org.example.cloudstorage.repo.NamespaceUploadRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * A path is resolved by one recursive query, whatever its depth. Files and directories are created
+ * by inserts which skip existing names instead of failing, so concurrent uploads into the same
+ * directories do not conflict; a replaced file is locked while its object key is swapped.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class NamespaceImpl implements Namespace {
+
+    /**
+     * Parent id of the top level nodes.
+     */
+    private static final long TOP_LEVEL = 0;
+    /**
+     * Names or ids per IN query.
+     */
+    private static final int BATCH_SIZE = 1000;
+
+    private final NamespaceNodeRepository nodeRepository;
+    private final NamespaceUploadRepository uploadRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<NamespaceEntry> find(String path) {
+        return findNode(path).map(node -> toEntry(path, node));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<NamespaceEntry> list(String prefix, boolean recursive) {
+        String parentPath = prefix.substring(0, prefix.lastIndexOf('/') + 1);
+        String namePattern = escapeLike(prefix.substring(parentPath.length())) + "%";
+        Optional<Long> parentId = parentPath.isEmpty() ? Optional.of(TOP_LEVEL) : findNode(parentPath).map(NamespaceNode::getId);
+        if (parentId.isEmpty()) return List.of();
+
+        if (!recursive) {
+            return nodeRepository.findChildren(parentId.get(), namePattern).stream()
+                    .map(node -> toEntry(parentPath + node.getName() + (node.isDirectory() ? "/" : ""), node))
+                    .sorted(Comparator.comparing(NamespaceEntry::path))
+                    .toList();
+        }
+
+        List<NamespaceNodeRepository.NodePath> paths = nodeRepository.findFilesBelow(parentId.get(), namePattern);
+        Map<Long, NamespaceNode> nodes = new HashMap<>();
+        for (List<Long> batch : batches(paths.stream().map(NamespaceNodeRepository.NodePath::getId).toList())) {
+            nodeRepository.findAllById(batch).forEach(node -> nodes.put(node.getId(), node));
+        }
+        return paths.stream()
+                .filter(path -> nodes.containsKey(path.getId()))
+                .map(path -> toEntry(parentPath + path.getPath(), nodes.get(path.getId())))
+                .toList();
+    }
+
+    @Override
+    public Optional<String> put(String path, String objectKey, long size, String etag, String contentType, boolean overwrite) {
+        String name = name(path);
+        long parentId = createDirectories(parent(path));
+        while (true) {
+            Instant now = Instant.now();
+            if (nodeRepository.insertFile(parentId, name, objectKey, size, etag, contentType, now) != null)
+                return Optional.empty();
+            if (!overwrite)
+                throw new ResourceAlreadyExistsMinioException("File already exists: " + path);
+
+            // deleted meanwhile if not found, inserting is tried again
+            Optional<NamespaceNode> existing = nodeRepository.findFileForUpdate(parentId, name);
+            if (existing.isPresent()) {
+                NamespaceNode node = existing.get();
+                String replaced = node.getObjectKey();
+                node.setObjectKey(objectKey);
+                node.setSize(size);
+                node.setEtag(etag);
+                node.setContentType(contentType);
+                node.setModifiedAt(now);
+                return Optional.of(replaced);
+            }
+        }
+    }
+
+    @Override
+    public int putAll(List<NamespaceEntry> files) {
+        int registered = 0;
+        for (NamespaceEntry file : files) {
+            if (nodeRepository.existsByObjectKey(file.objectKey())) continue;
+            long parentId = createDirectories(parent(file.path()));
+            if (nodeRepository.insertFile(parentId, name(file.path()), file.objectKey(), file.size(),
+                    file.etag(), file.contentType(), file.modifiedAt()) != null) {
+                registered++;
+            }
+        }
+        return registered;
+    }
+
+    @Override
+    public List<String> delete(Collection<String> paths) {
+        Map<String, List<String>> namesByParent = paths.stream()
+                .filter(path -> !path.endsWith("/"))
+                .collect(Collectors.groupingBy(NamespaceImpl::parent, LinkedHashMap::new,
+                        Collectors.mapping(NamespaceImpl::name, Collectors.toList())));
+
+        List<String> objectKeys = new ArrayList<>();
+        namesByParent.forEach((parentPath, names) -> {
+            Optional<Long> parentId = parentPath.isEmpty() ? Optional.of(TOP_LEVEL) : findNode(parentPath).map(NamespaceNode::getId);
+            if (parentId.isEmpty()) return;
+            for (List<String> batch : batches(names)) {
+                List<NamespaceNode> files = nodeRepository.findFiles(parentId.get(), batch);
+                if (files.isEmpty()) continue;
+                nodeRepository.deleteByIdIn(files.stream().map(NamespaceNode::getId).toList());
+                files.forEach(file -> objectKeys.add(file.getObjectKey()));
+            }
+            removeEmptyDirectories(parentId.get());
+        });
+        return objectKeys;
+    }
+
+    @Override
+    public void rename(String from, String to) {
+        boolean directory = from.endsWith("/");
+        if (directory != to.endsWith("/"))
+            throw new InvalidPathMinioException("You cannot turn a file into a directory or back");
+        if (directory && to.startsWith(from))
+            throw new InvalidPathMinioException("You cannot move a directory into itself");
+        NamespaceNode node = findNode(from)
+                .orElseThrow(() -> new ResourceNotFoundMinioException("Resource not found: " + from));
+
+        String target = directory ? to.substring(0, to.length() - 1) : to;
+        long parentId = createDirectories(parent(target));
+        String name = name(target);
+        if (nodeRepository.findChild(parentId, name, directory).isPresent())
+            throw new ResourceAlreadyExistsMinioException("Destination already exists: " + to);
+
+        long previousParentId = node.getParentId() == null ? TOP_LEVEL : node.getParentId();
+        node.setParentId(parentId == TOP_LEVEL ? null : parentId);
+        node.setName(name);
+        nodeRepository.save(node);
+        removeEmptyDirectories(previousParentId);
+    }
+
+    @Override
+    public void registerUpload(String uploadId, String objectKey) {
+        uploadRepository.save(new NamespaceUpload(uploadId, objectKey));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<String> findUpload(String uploadId) {
+        return uploadRepository.findById(uploadId).map(NamespaceUpload::getObjectKey);
+    }
+
+    @Override
+    public void removeUpload(String uploadId) {
+        uploadRepository.deleteById(uploadId);
+    }
+
+    /**
+     * @param path file, or directory with a trailing {@code /}
+     */
+    private Optional<NamespaceNode> findNode(String path) {
+        boolean directory = path.endsWith("/");
+        String names = directory ? path.substring(0, path.length() - 1) : path;
+        if (names.isEmpty()) return Optional.empty();
+        return nodeRepository.findByPath(names, names.split("/", -1).length, directory);
+    }
+
+    /**
+     * @param path directory with a trailing {@code /}, or empty for the top level
+     * @return id of the directory
+     */
+    private long createDirectories(String path) {
+        if (path.isEmpty()) return TOP_LEVEL;
+        Optional<NamespaceNode> existing = findNode(path);
+        if (existing.isPresent()) return existing.get().getId();
+
+        long parentId = TOP_LEVEL;
+        for (String name : path.substring(0, path.length() - 1).split("/")) {
+            Long created = nodeRepository.insertDirectory(parentId, name, Instant.now());
+            parentId = created != null ? created : nodeRepository.findChild(parentId, name, true)
+                    .orElseThrow(() -> new ResourceNotFoundMinioException("Directory was deleted meanwhile: " + path))
+                    .getId();
+        }
+        return parentId;
+    }
+
+    /**
+     * Removes the directory and its ancestors, as long as they are left without children.
+     */
+    private void removeEmptyDirectories(long directoryId) {
+        while (directoryId != TOP_LEVEL && !nodeRepository.hasChildren(directoryId)) {
+            Optional<NamespaceNode> directory = nodeRepository.findById(directoryId);
+            if (directory.isEmpty()) return;
+            nodeRepository.delete(directory.get());
+            directoryId = directory.get().getParentId() == null ? TOP_LEVEL : directory.get().getParentId();
+        }
+    }
+
+    private static NamespaceEntry toEntry(String path, NamespaceNode node) {
+        return new NamespaceEntry(
+                path,
+                node.isDirectory(),
+                node.getObjectKey(),
+                node.getSize(),
+                node.getEtag(),
+                node.getContentType(),
+                node.getModifiedAt());
+    }
+
+    /**
+     * @return directory with a trailing {@code /}, or empty at the top level
+     */
+    private static String parent(String path) {
+        return path.substring(0, path.lastIndexOf('/') + 1);
+    }
+
+    private static String name(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        if (name.isEmpty()) throw new InvalidPathMinioException("Path should be a file: " + path);
+        return name;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static <T> List<List<T>> batches(List<T> items) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += BATCH_SIZE) {
+            batches.add(items.subList(from, Math.min(items.size(), from + BATCH_SIZE)));
+        }
+        return batches;
+    }
+}
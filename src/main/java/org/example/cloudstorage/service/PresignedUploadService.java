@@ -0,0 +1,26 @@
+package org.example.cloudstorage.service;
+
+import org.example.cloudstorage.dto.PresignedUploadDto;
+import org.example.cloudstorage.dto.ResourceResponseDto;
+import org.example.cloudstorage.entity.User;
+
+import java.util.List;
+
+/**
+ * Uploads which bypass the application: the client gets a presigned URL per file, uploads the file
+ * to MinIO itself and then commits the uploads by their ids.
+ */
+public interface PresignedUploadService {
+    /**
+     * @param names file names in {@code path}
+     * @param sizes sizes of the files, in the order of {@code names}
+     */
+    List<PresignedUploadDto> create(String path, List<String> names, List<Long> sizes, User user);
+
+    List<ResourceResponseDto> commit(List<String> ids, User user);
+
+    /**
+     * Deletes uploaded files which can no longer be committed.
+     */
+    void deleteAbandoned();
+}
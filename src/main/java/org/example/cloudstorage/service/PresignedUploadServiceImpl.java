@@ -0,0 +1,138 @@
+package org.example.cloudstorage.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.properties.MinioProperties;
+import org.example.cloudstorage.dto.PresignedUploadDto;
+import org.example.cloudstorage.dto.ResourceResponseDto;
+import org.example.cloudstorage.entity.User;
+import org.example.cloudstorage.exception.minio.InvalidFileMinioException;
+import org.example.cloudstorage.exception.minio.InvalidPathMinioException;
+import org.example.cloudstorage.exception.minio.ResourceNotFoundMinioException;
+import org.example.cloudstorage.mapper.ResourceResponseDtoMapper;
+import org.example.cloudstorage.minio.MinioManagementFacade;
+import org.example.cloudstorage.util.PathUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.example.cloudstorage.util.MinioUserPathUtils.constructPath;
+
+/**
+ * Every issued URL is remembered in Redis as {@code presigned-upload:<id>} with the object
+ * and its declared size, until it is committed or twice the URL TTL passed.
+ * <p>
+ * URLs point to a staging object {@code presigned-uploads/<id>} rather than to the file: a URL stays
+ * valid after the commit, and could otherwise replace the committed file, or before it another file
+ * at the same path. The commit checks the size of the staged object and copies it to the file only if
+ * that does not exist; staged objects never committed are deleted by the janitor.
+ */
+@Slf4j
+@Service
+public class PresignedUploadServiceImpl implements PresignedUploadService {
+
+    private static final String UPLOAD_KEY = "presigned-upload:%s";
+    private static final String STAGING_PREFIX = "presigned-uploads/";
+
+    private final StringRedisTemplate redisTemplate;
+    private final MinioManagementFacade minioRepository;
+    private final boolean enabled;
+    private final Duration urlTtl;
+
+    public PresignedUploadServiceImpl(StringRedisTemplate redisTemplate,
+                                      MinioManagementFacade minioRepository,
+                                      MinioProperties minioProperties) {
+        this.redisTemplate = redisTemplate;
+        this.minioRepository = minioRepository;
+        this.enabled = minioProperties.getUpload().isPresignedEnabled();
+        this.urlTtl = minioProperties.getUpload().getPresignedUrlTtl();
+    }
+
+    @Override
+    public List<PresignedUploadDto> create(String path, List<String> names, List<Long> sizes, User user) {
+        checkEnabled();
+        if (names.size() != sizes.size())
+            throw new InvalidFileMinioException("Every file should have a size");
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i) == null || names.get(i).isBlank())
+                throw new InvalidFileMinioException("File name should not be empty");
+            if (!PathUtils.isPathValid(path + names.get(i)))
+                throw new InvalidPathMinioException("Provided path is not valid");
+            if (sizes.get(i) < 0)
+                throw new InvalidFileMinioException("File size should not be negative");
+        }
+
+        List<PresignedUploadDto> uploads = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+            String object = constructPath(path + names.get(i), user);
+            Instant expiresAt = Instant.now().plus(urlTtl);
+            String id = UUID.randomUUID().toString();
+            String url = minioRepository.presignUpload(object, stagedObject(id), urlTtl);
+            String key = UPLOAD_KEY.formatted(id);
+            redisTemplate.opsForHash().putAll(key, Map.of(
+                    "userId", user.getId().toString(),
+                    "object", object,
+                    "size", sizes.get(i).toString()));
+            redisTemplate.expire(key, urlTtl.multipliedBy(2));
+            uploads.add(PresignedUploadDto.builder()
+                    .id(id)
+                    .path(path)
+                    .name(names.get(i))
+                    .size(sizes.get(i))
+                    .method("PUT")
+                    .url(url)
+                    .expiresAt(expiresAt)
+                    .build());
+        }
+        return uploads;
+    }
+
+    @Override
+    public List<ResourceResponseDto> commit(List<String> ids, User user) {
+        checkEnabled();
+        List<Map<Object, Object>> uploads = new ArrayList<>();
+        for (String id : ids) {
+            Map<Object, Object> upload = redisTemplate.opsForHash().entries(UPLOAD_KEY.formatted(id));
+            // uploads of other users are not revealed
+            if (upload.isEmpty() || !upload.get("userId").equals(user.getId().toString()))
+                throw new ResourceNotFoundMinioException("Upload not found: " + id);
+            uploads.add(upload);
+        }
+
+        List<ResourceResponseDto> files = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Map<Object, Object> upload = uploads.get(i);
+            files.add(ResourceResponseDtoMapper.toDto(minioRepository.commitUploadedObject(
+                    stagedObject(ids.get(i)),
+                    upload.get("object").toString(),
+                    Long.parseLong(upload.get("size").toString()))));
+            redisTemplate.delete(UPLOAD_KEY.formatted(ids.get(i)));
+        }
+        return files;
+    }
+
+    /**
+     * Staged objects last written before twice the URL TTL belong to uploads which expired from Redis.
+     */
+    @Override
+    public void deleteAbandoned() {
+        if (!enabled) return;
+        int deleted = minioRepository.deleteStagedObjects(
+                STAGING_PREFIX, ZonedDateTime.now().minus(urlTtl.multipliedBy(2)));
+        if (deleted > 0) log.info("Deleted {} presigned uploads which were not committed", deleted);
+    }
+
+    private static String stagedObject(String id) {
+        return STAGING_PREFIX + id;
+    }
+
+    private void checkEnabled() {
+        if (!enabled) throw new ResourceNotFoundMinioException("Presigned uploads are disabled");
+    }
+}
@@ -1,10 +1,15 @@
 package org.example.cloudstorage.service;
 
+import org.example.cloudstorage.dto.ArchiveUploadDto;
 import org.example.cloudstorage.dto.ResourceResponseDto;
 import org.example.cloudstorage.entity.User;
-import org.springframework.core.io.InputStreamResource;
+import org.example.cloudstorage.model.ArchiveFormat;
+import org.example.cloudstorage.model.ConflictPolicy;
+import org.example.cloudstorage.model.DownloadableResource;
+import org.example.cloudstorage.model.OperationProgress;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.List;
 
 public interface ResourceService {
@@ -12,11 +17,41 @@ public interface ResourceService {
 
     void delete(String path, User user);
 
-    InputStreamResource download(String path, User user);
+    void delete(String path, User user, OperationProgress progress);
+
+    /**
+     * @param resumable whether a zip must support range requests
+     */
+    DownloadableResource download(String path, ArchiveFormat format, boolean resumable, User user);
+
+    DownloadableResource download(List<String> paths, ArchiveFormat format, boolean resumable, User user);
 
     ResourceResponseDto move(String from, String to, User user);
 
+    ResourceResponseDto move(String from, String to, User user, OperationProgress progress);
+
+    ResourceResponseDto copy(String from, String to, User user);
+
+    ResourceResponseDto copy(String from, String to, User user, OperationProgress progress);
+
     List<ResourceResponseDto> search(String query, User user);
 
-    List<ResourceResponseDto> upload(String path, List<MultipartFile> file, User user);
+    /**
+     * @param conflictPolicy what is done with files whose name is taken in the directory
+     */
+    List<ResourceResponseDto> upload(String path, List<MultipartFile> file, ConflictPolicy conflictPolicy, User user);
+
+    List<ResourceResponseDto> upload(String path, InputStream body, String boundary, ConflictPolicy conflictPolicy, User user);
+
+    /**
+     * Extracts the archive into the directory.
+     *
+     * @param atomic whether an entry which cannot be created fails the whole archive, or is reported
+     */
+    ArchiveUploadDto uploadArchive(String path, InputStream body, ArchiveFormat format, boolean atomic, User user);
+
+    /**
+     * @param sha256 hex SHA-256 of content the user stored already
+     */
+    ResourceResponseDto uploadStored(String path, String name, String sha256, String contentType, User user);
 }
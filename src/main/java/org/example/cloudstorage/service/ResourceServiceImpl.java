@@ -1,15 +1,25 @@
 package org.example.cloudstorage.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.cloudstorage.dto.ArchiveUploadDto;
 import org.example.cloudstorage.dto.ResourceResponseDto;
 import org.example.cloudstorage.entity.User;
+import org.example.cloudstorage.exception.minio.InvalidFileMinioException;
+import org.example.cloudstorage.exception.minio.InvalidPathMinioException;
+import org.example.cloudstorage.model.ArchiveFormat;
+import org.example.cloudstorage.model.ConflictPolicy;
+import org.example.cloudstorage.model.DownloadableResource;
+import org.example.cloudstorage.model.ExtractedArchive;
+import org.example.cloudstorage.model.OperationProgress;
 import org.example.cloudstorage.mapper.ResourceResponseDtoMapper;
 import org.example.cloudstorage.minio.MinioManagementFacade;
-import org.springframework.core.io.InputStreamResource;
+import org.example.cloudstorage.util.PathUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Locale;
 
 import static org.example.cloudstorage.util.MinioUserPathUtils.constructPath;
 
@@ -25,19 +35,53 @@ public class ResourceServiceImpl implements ResourceService {
 
     @Override
     public void delete(String path, User user) {
-        minioRepository.deleteResource(constructPath(path, user));
+        delete(path, user, OperationProgress.NONE);
     }
 
     @Override
-    public InputStreamResource download(String path, User user) {
-        return minioRepository.downloadResource(constructPath(path, user));
+    public void delete(String path, User user, OperationProgress progress) {
+        minioRepository.deleteResource(constructPath(path, user), progress);
+    }
+
+    @Override
+    public DownloadableResource download(String path, ArchiveFormat format, boolean resumable, User user) {
+        return minioRepository.downloadResource(constructPath(path, user), format, resumable);
+    }
+
+    @Override
+    public DownloadableResource download(List<String> paths, ArchiveFormat format, boolean resumable, User user) {
+        return minioRepository.downloadResources(
+                constructPath("", user),
+                paths.stream().map(path -> constructPath(path, user)).toList(),
+                format,
+                resumable);
     }
 
     @Override
     public ResourceResponseDto move(String from, String to, User user) {
+        return move(from, to, user, OperationProgress.NONE);
+    }
+
+    @Override
+    public ResourceResponseDto move(String from, String to, User user, OperationProgress progress) {
         return ResourceResponseDtoMapper.toDto(minioRepository.moveResource(
                 constructPath(from, user),
-                constructPath(to, user)
+                constructPath(to, user),
+                progress
+        ));
+    }
+
+    @Override
+    public ResourceResponseDto copy(String from, String to, User user) {
+        return copy(from, to, user, OperationProgress.NONE);
+    }
+
+    @Override
+    public ResourceResponseDto copy(String from, String to, User user, OperationProgress progress) {
+        return ResourceResponseDtoMapper.toDto(minioRepository.copyResource(
+                constructPath(from, user),
+                constructPath(to, user),
+                progress
         ));
     }
 
@@ -50,12 +94,52 @@ public class ResourceServiceImpl implements ResourceService {
     }
 
     @Override
-    public List<ResourceResponseDto> upload(String path, List<MultipartFile> files, User user) {
+    public List<ResourceResponseDto> upload(String path, List<MultipartFile> files, ConflictPolicy conflictPolicy, User user) {
+        String completePath = constructPath(path, user);
+        minioRepository.uploadResource(completePath, files, conflictPolicy);
+        return minioRepository.listFiles(completePath, true)
+                .stream()
+                .map(ResourceResponseDtoMapper::toDto)
+                .toList();
+    }
+
+    @Override
+    public List<ResourceResponseDto> upload(String path,
+                                            InputStream body,
+                                            String boundary,
+                                            ConflictPolicy conflictPolicy,
+                                            User user) {
         String completePath = constructPath(path, user);
-        minioRepository.uploadResource(completePath, files);
+        minioRepository.uploadResource(completePath, body, boundary, conflictPolicy);
         return minioRepository.listFiles(completePath, true)
                 .stream()
                 .map(ResourceResponseDtoMapper::toDto)
                 .toList();
     }
-}
\ No newline at end of file
+
+    @Override
+    public ArchiveUploadDto uploadArchive(String path, InputStream body, ArchiveFormat format, boolean atomic, User user) {
+        ExtractedArchive archive = minioRepository.uploadArchive(constructPath(path, user), body, format, atomic);
+        return ArchiveUploadDto.builder()
+                .path(path)
+                .files(archive.files().size())
+                .directories(archive.directories().size())
+                .size(archive.size())
+                .failedEntries(archive.failures())
+                .build();
+    }
+
+    @Override
+    public ResourceResponseDto uploadStored(String path, String name, String sha256, String contentType, User user) {
+        if (name == null || name.isBlank())
+            throw new InvalidFileMinioException("File name should not be empty");
+        if (!PathUtils.isPathValid(path + name))
+            throw new InvalidPathMinioException("Provided path is not valid");
+
+        return ResourceResponseDtoMapper.toDto(minioRepository.linkStoredContent(
+                constructPath(path + name, user),
+                sha256.toLowerCase(Locale.ROOT),
+                contentType,
+                constructPath("", user)));
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.cloudstorage.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically aborts abandoned resumable uploads, delta syncs and presigned uploads, so their parts,
+ * staged chunks and staged files do not occupy MinIO forever.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UploadSessionJanitor {
+    private final UploadSessionService uploadSessionService;
+    private final DeltaSyncService deltaSyncService;
+    private final PresignedUploadService presignedUploadService;
+
+    @Scheduled(
+            initialDelayString = "#{@minioProperties.upload.sessionJanitorInterval.toMillis()}",
+            fixedDelayString = "#{@minioProperties.upload.sessionJanitorInterval.toMillis()}")
+    public void abortAbandoned() {
+        try {
+            uploadSessionService.abortAbandoned();
+        } catch (Exception e) {
+            log.warn("Failed to abort abandoned uploads, trying again later", e);
+        }
+        try {
+            deltaSyncService.abortAbandoned();
+        } catch (Exception e) {
+            log.warn("Failed to abort abandoned delta syncs, trying again later", e);
+        }
+        try {
+            presignedUploadService.deleteAbandoned();
+        } catch (Exception e) {
+            log.warn("Failed to delete abandoned presigned uploads, trying again later", e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.cloudstorage.service;
+
+import org.example.cloudstorage.dto.ResourceResponseDto;
+import org.example.cloudstorage.dto.UploadSessionDto;
+import org.example.cloudstorage.entity.User;
+
+import java.io.InputStream;
+
+/**
+ * Resumable uploads: a file is sent as chunks of {@link UploadSessionDto#getChunkSize()} bytes,
+ * in any order and possibly in parallel, each of them may be sent again after a failure.
+ * The file is created once all chunks arrived and the upload is committed.
+ */
+public interface UploadSessionService {
+    UploadSessionDto create(String path, String name, long size, String contentType, User user);
+
+    UploadSessionDto get(String id, User user);
+
+    /**
+     * @param offset position of the chunk in the file, a multiple of the chunk size
+     */
+    UploadSessionDto uploadChunk(String id, long offset, InputStream chunk, User user);
+
+    ResourceResponseDto commit(String id, User user);
+
+    void abort(String id, User user);
+
+    /**
+     * Aborts sessions without activity for longer than the session TTL, and multipart uploads
+     * in MinIO which are that old and do not belong to a session.
+     */
+    void abortAbandoned();
+}
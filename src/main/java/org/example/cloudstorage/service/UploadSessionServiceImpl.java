@@ -0,0 +1,248 @@
+package org.example.cloudstorage.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.cloudstorage.config.properties.MinioProperties;
+import org.example.cloudstorage.dto.ResourceResponseDto;
+import org.example.cloudstorage.dto.UploadSessionDto;
+import org.example.cloudstorage.entity.User;
+import org.example.cloudstorage.exception.minio.*;
+import org.example.cloudstorage.mapper.ResourceResponseDtoMapper;
+import org.example.cloudstorage.minio.MinioManagementFacade;
+import org.example.cloudstorage.model.ResourceMetadata;
+import org.example.cloudstorage.util.PathUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.*;
+
+import static org.example.cloudstorage.util.MinioUserPathUtils.constructPath;
+
+/**
+ * Sessions are S3 multipart uploads: every chunk is uploaded to MinIO as the part of its offset
+ * right away and only the part ETags are kept, in Redis:
+ * <ul>
+ * <li>{@code upload-session:<id>} hash with the session</li>
+ * <li>{@code upload-session:<id>:parts} hash of part number to ETag</li>
+ * <li>{@code upload-sessions} sorted set of session ids by time of last activity, for the janitor</li>
+ * </ul>
+ * The hashes also expire by themselves after twice the session TTL, in case the janitor does not run.
+ */
+@Slf4j
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+
+    private static final String SESSION_KEY = "upload-session:%s";
+    private static final String PARTS_KEY = "upload-session:%s:parts";
+    private static final String SESSIONS_KEY = "upload-sessions";
+    /**
+     * S3 limits.
+     */
+    private static final int MAX_CHUNKS = 10_000;
+    private static final long MAX_CHUNK_SIZE = 512L * 1024 * 1024;
+
+    private final StringRedisTemplate redisTemplate;
+    private final MinioManagementFacade minioRepository;
+    private final long chunkSize;
+    private final Duration sessionTtl;
+
+    public UploadSessionServiceImpl(StringRedisTemplate redisTemplate,
+                                    MinioManagementFacade minioRepository,
+                                    MinioProperties minioProperties) {
+        this.redisTemplate = redisTemplate;
+        this.minioRepository = minioRepository;
+        this.chunkSize = minioProperties.getUpload().getPartSize().toBytes();
+        this.sessionTtl = minioProperties.getUpload().getSessionTtl();
+    }
+
+    @Override
+    public UploadSessionDto create(String path, String name, long size, String contentType, User user) {
+        if (name == null || name.isBlank())
+            throw new InvalidFileMinioException("File name should not be empty");
+        if (!PathUtils.isPathValid(path + name))
+            throw new InvalidPathMinioException("Provided path is not valid");
+        if (size <= 0)
+            throw new InvalidFileMinioException("File size should be positive");
+        long fileChunkSize = Math.max(chunkSize, (size + MAX_CHUNKS - 1) / MAX_CHUNKS);
+        if (fileChunkSize > MAX_CHUNK_SIZE)
+            throw new InvalidFileMinioException("File is too big: " + size);
+
+        String object = constructPath(path + name, user);
+        String uploadId = minioRepository.createMultipartUpload(object, contentType);
+        Session session = new Session(
+                UUID.randomUUID().toString(), user.getId(), path, name, object, uploadId, size, fileChunkSize);
+        redisTemplate.opsForHash().putAll(SESSION_KEY.formatted(session.id()), session.toHash());
+        touch(session.id());
+        return toDto(session, Map.of());
+    }
+
+    @Override
+    public UploadSessionDto get(String id, User user) {
+        Session session = load(id, user);
+        return toDto(session, parts(id));
+    }
+
+    @Override
+    public UploadSessionDto uploadChunk(String id, long offset, InputStream chunk, User user) {
+        Session session = load(id, user);
+        if (offset < 0 || offset >= session.size() || offset % session.chunkSize() != 0)
+            throw new InvalidFileMinioException("Offset should be a multiple of %d below %d"
+                    .formatted(session.chunkSize(), session.size()));
+
+        int length = (int) Math.min(session.chunkSize(), session.size() - offset);
+        int partNumber = (int) (offset / session.chunkSize()) + 1;
+        // buffered within the memory of parallel uploads, 503 while it is exhausted
+        String etag = minioRepository.uploadPart(session.object(), session.uploadId(), partNumber, chunk, length);
+        redisTemplate.opsForHash().put(PARTS_KEY.formatted(id), Integer.toString(partNumber), etag);
+        touch(id);
+        return toDto(session, parts(id));
+    }
+
+    @Override
+    public ResourceResponseDto commit(String id, User user) {
+        Session session = load(id, user);
+        Map<Integer, String> parts = parts(id);
+        List<String> etags = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        for (int partNumber = 1; partNumber <= session.chunkCount(); partNumber++) {
+            String etag = parts.get(partNumber);
+            if (etag == null) missing.add((partNumber - 1) * session.chunkSize());
+            etags.add(etag);
+        }
+        if (!missing.isEmpty())
+            throw new InvalidFileMinioException("Chunks at offsets %s are missing".formatted(missing));
+
+        ResourceMetadata file;
+        try {
+            file = minioRepository.completeMultipartUpload(session.object(), session.uploadId(), etags);
+        } catch (ResourceAlreadyExistsMinioException e) {
+            // the file was created meanwhile, the session cannot succeed anymore
+            abortQuietly(session);
+            delete(id);
+            throw e;
+        }
+        delete(id);
+        return ResourceResponseDtoMapper.toDto(file);
+    }
+
+    @Override
+    public void abort(String id, User user) {
+        Session session = load(id, user);
+        minioRepository.abortMultipartUpload(session.object(), session.uploadId());
+        delete(id);
+    }
+
+    @Override
+    public void abortAbandoned() {
+        long cutoff = System.currentTimeMillis() - sessionTtl.toMillis();
+        Set<String> expired = redisTemplate.opsForZSet().rangeByScore(SESSIONS_KEY, 0, cutoff);
+        for (String id : expired == null ? Set.<String>of() : expired) {
+            Map<Object, Object> hash = redisTemplate.opsForHash().entries(SESSION_KEY.formatted(id));
+            if (!hash.isEmpty()) abortQuietly(Session.fromHash(id, hash));
+            delete(id);
+            log.info("Aborted abandoned upload session {}", id);
+        }
+
+        Set<String> active = redisTemplate.opsForZSet().range(SESSIONS_KEY, 0, -1);
+        Set<String> keptUploadIds = new HashSet<>();
+        for (String id : active == null ? Set.<String>of() : active) {
+            Object uploadId = redisTemplate.opsForHash().get(SESSION_KEY.formatted(id), "uploadId");
+            if (uploadId != null) keptUploadIds.add(uploadId.toString());
+        }
+        int aborted = minioRepository.abortMultipartUploads(ZonedDateTime.now().minus(sessionTtl), keptUploadIds);
+        if (aborted > 0) log.info("Aborted {} abandoned multipart uploads", aborted);
+    }
+
+    private Session load(String id, User user) {
+        Map<Object, Object> hash = redisTemplate.opsForHash().entries(SESSION_KEY.formatted(id));
+        if (hash.isEmpty()) throw new ResourceNotFoundMinioException("Upload session not found");
+        Session session = Session.fromHash(id, hash);
+        // sessions of other users are not revealed
+        if (!session.userId().equals(user.getId())) throw new ResourceNotFoundMinioException("Upload session not found");
+        return session;
+    }
+
+    private Map<Integer, String> parts(String id) {
+        Map<Integer, String> parts = new TreeMap<>();
+        redisTemplate.opsForHash().entries(PARTS_KEY.formatted(id))
+                .forEach((partNumber, etag) -> parts.put(Integer.parseInt(partNumber.toString()), etag.toString()));
+        return parts;
+    }
+
+    private void touch(String id) {
+        redisTemplate.opsForZSet().add(SESSIONS_KEY, id, System.currentTimeMillis());
+        redisTemplate.expire(SESSION_KEY.formatted(id), sessionTtl.multipliedBy(2));
+        redisTemplate.expire(PARTS_KEY.formatted(id), sessionTtl.multipliedBy(2));
+    }
+
+    private void delete(String id) {
+        redisTemplate.delete(List.of(SESSION_KEY.formatted(id), PARTS_KEY.formatted(id)));
+        redisTemplate.opsForZSet().remove(SESSIONS_KEY, id);
+    }
+
+    private void abortQuietly(Session session) {
+        try {
+            minioRepository.abortMultipartUpload(session.object(), session.uploadId());
+        } catch (MinioException e) {
+            // already aborted or completed, e.g. by another instance
+            log.warn("Failed to abort multipart upload of session {}", session.id(), e);
+        }
+    }
+
+    private static UploadSessionDto toDto(Session session, Map<Integer, String> parts) {
+        return UploadSessionDto.builder()
+                .id(session.id())
+                .path(session.path())
+                .name(session.name())
+                .size(session.size())
+                .chunkSize(session.chunkSize())
+                .chunkCount(session.chunkCount())
+                .receivedOffsets(parts.keySet().stream()
+                        .map(partNumber -> (partNumber - 1) * session.chunkSize())
+                        .toList())
+                .build();
+    }
+
+    /**
+     * @param path   directory as requested by the user
+     * @param object complete object name
+     */
+    private record Session(String id,
+                           Long userId,
+                           String path,
+                           String name,
+                           String object,
+                           String uploadId,
+                           long size,
+                           long chunkSize) {
+
+        int chunkCount() {
+            return (int) ((size + chunkSize - 1) / chunkSize);
+        }
+
+        Map<String, String> toHash() {
+            return Map.of(
+                    "userId", userId.toString(),
+                    "path", path,
+                    "name", name,
+                    "object", object,
+                    "uploadId", uploadId,
+                    "size", Long.toString(size),
+                    "chunkSize", Long.toString(chunkSize));
+        }
+
+        static Session fromHash(String id, Map<Object, Object> hash) {
+            return new Session(
+                    id,
+                    Long.valueOf(hash.get("userId").toString()),
+                    hash.get("path").toString(),
+                    hash.get("name").toString(),
+                    hash.get("object").toString(),
+                    hash.get("uploadId").toString(),
+                    Long.parseLong(hash.get("size").toString()),
+                    Long.parseLong(hash.get("chunkSize").toString()));
+        }
+    }
+}
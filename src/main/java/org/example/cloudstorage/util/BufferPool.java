@@ -0,0 +1,37 @@
+package org.example.cloudstorage.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * <h3>Pool of equally sized byte arrays</h3>
+ * Keeps at most {@code capacity} idle buffers; if the pool is empty a new buffer is allocated,
+ * so {@link #acquire()} never blocks. Buffers returned over the capacity are left to the GC.
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> buffers;
+
+    public BufferPool(int bufferSize, int capacity) {
+        if (bufferSize <= 0) throw new IllegalArgumentException("bufferSize must be positive");
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public byte[] acquire() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length == bufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.cloudstorage.util;
+
+import org.example.cloudstorage.model.DownloadableResource;
+import org.springframework.http.*;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DownloadResponseUtils {
+
+    /**
+     * Builds the response for a download, honouring conditional and {@code Range} requests (RFC 7232, RFC 7233).
+     * A single range is answered with its bytes, several ranges with a {@code multipart/byteranges} body.
+     * Unsatisfiable ranges are dropped, if none is left the response is 416. Malformed ranges, or ranges
+     * adding up to more than the whole content, are ignored and the whole content is sent.
+     * Resources served elsewhere get a 307 redirect instead.
+     *
+     * @return response, or null if the resource is not modified (the 304 status is already set)
+     */
+    public static ResponseEntity<StreamingResponseBody> toResponse(DownloadableResource resource,
+                                                                   ContentDisposition contentDisposition,
+                                                                   HttpHeaders requestHeaders,
+                                                                   WebRequest request) {
+        String redirectUrl = resource.redirectUrl(contentDisposition.toString());
+        if (redirectUrl != null) {
+            return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                    .location(URI.create(redirectUrl))
+                    .cacheControl(CacheControl.noStore())
+                    .build();
+        }
+
+        long lastModified = resource.lastModified() == null ? -1 : resource.lastModified().toInstant().toEpochMilli();
+        if (request.checkNotModified(resource.eTag(), lastModified)) return null;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(resource.contentType()));
+        headers.setContentDisposition(contentDisposition);
+        if (resource.eTag() != null) headers.setETag(resource.eTag());
+        if (resource.lastModified() != null) headers.setLastModified(resource.lastModified());
+
+        long length = resource.contentLength();
+        if (length < 0) {
+            return ResponseEntity.ok().headers(headers).body(resource::writeTo);
+        }
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        List<HttpRange> requested = requestedRanges(resource, requestHeaders);
+        List<ByteRange> ranges = satisfiableRanges(requested, length);
+        if (requested.isEmpty() || ranges.stream().mapToLong(ByteRange::length).sum() > length) {
+            headers.setContentLength(length);
+            return ResponseEntity.ok().headers(headers).body(resource::writeTo);
+        }
+        if (ranges.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                    .build();
+        }
+
+        if (ranges.size() == 1) {
+            ByteRange range = ranges.getFirst();
+            headers.set(HttpHeaders.CONTENT_RANGE, range.contentRange(length));
+            headers.setContentLength(range.length());
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .headers(headers)
+                    .body(out -> resource.writeTo(out, range.start(), range.end()));
+        }
+
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = ranges.stream()
+                .map(range -> ("\r\n--" + boundary + "\r\n"
+                        + HttpHeaders.CONTENT_TYPE + ": " + resource.contentType() + "\r\n"
+                        + HttpHeaders.CONTENT_RANGE + ": " + range.contentRange(length) + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII))
+                .toList();
+        byte[] closingBoundary = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        long contentLength = closingBoundary.length;
+        for (int i = 0; i < ranges.size(); i++) {
+            contentLength += partHeaders.get(i).length + ranges.get(i).length();
+        }
+
+        headers.set(HttpHeaders.CONTENT_TYPE, "multipart/byteranges; boundary=" + boundary);
+        headers.setContentLength(contentLength);
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(out -> {
+                    for (int i = 0; i < ranges.size(); i++) {
+                        out.write(partHeaders.get(i));
+                        resource.writeTo(out, ranges.get(i).start(), ranges.get(i).end());
+                    }
+                    out.write(closingBoundary);
+                });
+    }
+
+    private static List<ByteRange> satisfiableRanges(List<HttpRange> ranges, long length) {
+        List<ByteRange> satisfiable = new ArrayList<>();
+        for (HttpRange range : ranges) {
+            try {
+                long start = range.getRangeStart(length);
+                long end = range.getRangeEnd(length);
+                if (start <= end) satisfiable.add(new ByteRange(start, end));
+            } catch (IllegalArgumentException e) {
+                // unsatisfiable, e.g. starts after the end of the content
+            }
+        }
+        return satisfiable;
+    }
+
+    /**
+     * @return requested ranges, or empty if there are none, they are malformed,
+     * or {@code If-Range} does not match the resource
+     */
+    private static List<HttpRange> requestedRanges(DownloadableResource resource, HttpHeaders requestHeaders) {
+        if (!ifRangeMatches(resource, requestHeaders.getFirst(HttpHeaders.IF_RANGE))) return List.of();
+        try {
+            return requestHeaders.getRange();
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    private record ByteRange(long start, long end) {
+        long length() {
+            return end - start + 1;
+        }
+
+        String contentRange(long completeLength) {
+            return "bytes %d-%d/%d".formatted(start, end, completeLength);
+        }
+    }
+
+    private static boolean ifRangeMatches(DownloadableResource resource, String ifRange) {
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(resource.eTag());
+        }
+        if (resource.lastModified() == null) return false;
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return date.toInstant().equals(resource.lastModified().toInstant().truncatedTo(ChronoUnit.SECONDS));
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+}
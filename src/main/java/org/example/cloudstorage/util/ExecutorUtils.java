@@ -0,0 +1,30 @@
+package org.example.cloudstorage.util;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ExecutorUtils {
+
+    /**
+     * Shuts the executors down one after another, letting each finish its running tasks, so executors
+     * used by the tasks of earlier ones must come later. Tasks still running once {@code timeout} is
+     * over, for all executors together, are interrupted.
+     */
+    public static void shutdown(List<? extends ExecutorService> executors, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean interrupted = false;
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+            try {
+                if (interrupted || !executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+                    executor.shutdownNow();
+            } catch (InterruptedException e) {
+                interrupted = true;
+                executor.shutdownNow();
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.cloudstorage.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * <h3>FastCDC content-defined chunking</h3>
+ * Cuts content into chunks at positions chosen by the bytes before them, so inserting or removing
+ * bytes changes only the chunks around the edit and the following chunks stay the same.
+ * <p>
+ * A gear hash {@code hash = (hash << 1) + GEAR[byte]} is rolled from {@code minSize} bytes into a
+ * chunk on; the chunk ends after the first byte where the masked hash is 0, with a stricter mask
+ * (one more bit) before {@code avgSize} and a looser one (one bit less) after it, and at
+ * {@code maxSize} at the latest. The masks take the top bits of the hash.
+ * {@code GEAR[i]} is the first 8 bytes, big-endian, of the SHA-256 of the single byte {@code i},
+ * so clients can chunk their files identically.
+ *
+ * <h6>Usage</h6>
+ * <pre>{@code
+ * List<FastCdc.Chunk> chunks = new FastCdc(minSize, avgSize, maxSize).chunk(stream);
+ * }</pre>
+ */
+public class FastCdc {
+
+    private static final long[] GEAR = gear();
+
+    private final int minSize;
+    private final int avgSize;
+    private final int maxSize;
+    private final long strictMask;
+    private final long looseMask;
+
+    /**
+     * @param avgSize power of two
+     */
+    public FastCdc(int minSize, int avgSize, int maxSize) {
+        if (Integer.bitCount(avgSize) != 1) throw new IllegalArgumentException("avgSize must be a power of two");
+        if (minSize <= 0 || minSize >= avgSize || avgSize >= maxSize)
+            throw new IllegalArgumentException("Sizes must satisfy 0 < minSize < avgSize < maxSize");
+        this.minSize = minSize;
+        this.avgSize = avgSize;
+        this.maxSize = maxSize;
+        int bits = Integer.numberOfTrailingZeros(avgSize);
+        this.strictMask = -1L << (64 - (bits + 1));
+        this.looseMask = -1L << (64 - (bits - 1));
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getAvgSize() {
+        return avgSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Reads the stream to its end.
+     *
+     * @return chunks in order, none for empty content
+     */
+    public List<Chunk> chunk(InputStream stream) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[maxSize];
+        List<Chunk> chunks = new ArrayList<>();
+        int buffered = 0;
+        long offset = 0;
+        boolean eof = false;
+        while (true) {
+            if (!eof) {
+                int read = stream.readNBytes(buffer, buffered, buffer.length - buffered);
+                buffered += read;
+                eof = buffered < buffer.length;
+            }
+            if (buffered == 0) return chunks;
+
+            int length = cut(buffer, buffered);
+            digest.update(buffer, 0, length);
+            chunks.add(new Chunk(HexFormat.of().formatHex(digest.digest()), offset, length));
+            offset += length;
+            buffered -= length;
+            System.arraycopy(buffer, length, buffer, 0, buffered);
+        }
+    }
+
+    /**
+     * @param length bytes available from the start of the buffer
+     * @return length of the chunk at the start of the buffer
+     */
+    int cut(byte[] buffer, int length) {
+        if (length <= minSize) return length;
+        int end = Math.min(length, maxSize);
+        int normal = Math.min(end, avgSize);
+        long hash = 0;
+        int i = minSize;
+        for (; i < normal; i++) {
+            hash = (hash << 1) + GEAR[buffer[i] & 0xFF];
+            if ((hash & strictMask) == 0) return i + 1;
+        }
+        for (; i < end; i++) {
+            hash = (hash << 1) + GEAR[buffer[i] & 0xFF];
+            if ((hash & looseMask) == 0) return i + 1;
+        }
+        return end;
+    }
+
+    private static long[] gear() {
+        MessageDigest digest = sha256();
+        long[] gear = new long[256];
+        for (int i = 0; i < gear.length; i++) {
+            gear[i] = ByteBuffer.wrap(digest.digest(new byte[]{(byte) i})).getLong();
+        }
+        return gear;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param hash   hex SHA-256 of the chunk
+     * @param offset position of the chunk in the content
+     */
+    public record Chunk(String hash, long offset, int length) {
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.cloudstorage.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <h3>Non-blocking byte budget shared between concurrent consumers</h3>
+ * Callers reserve bytes before allocating buffers and release them once the buffers are dropped.
+ * A reservation which would exceed the limit is refused instead of waiting,
+ * so callers can fall back to an unbuffered path.
+ */
+public class MemoryBudget {
+
+    private final long limit;
+    private final AtomicLong used = new AtomicLong();
+
+    public MemoryBudget(long limit) {
+        if (limit < 0) throw new IllegalArgumentException("limit must not be negative");
+        this.limit = limit;
+    }
+
+    public boolean tryReserve(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("bytes must not be negative");
+        long current;
+        do {
+            current = used.get();
+            if (current + bytes > limit) return false;
+        } while (!used.compareAndSet(current, current + bytes));
+        return true;
+    }
+
+    public void release(long bytes) {
+        used.addAndGet(-bytes);
+    }
+
+    public long getUsed() {
+        return used.get();
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.cloudstorage.util;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <h3>Incremental multipart/form-data parser</h3>
+ * Parts are read one after another straight from the request body, each as a stream which ends
+ * at the next boundary, so a part of any size passes through a single fixed-size buffer and
+ * nothing is written to disk. A part must be read (or skipped by {@link #nextPart()})
+ * before the next one is available.
+ *
+ * <h6>Usage</h6>
+ * <pre>{@code
+ * MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary, 64 * 1024);
+ * MultipartStreamReader.Part part;
+ * while ((part = reader.nextPart()) != null) {
+ *     // part.content() ends at the next boundary
+ * }
+ * }</pre>
+ */
+public class MultipartStreamReader {
+
+    private static final int MAX_HEADER_SIZE = 16 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean eof;
+    private PartInputStream current;
+    private boolean finished;
+
+    /**
+     * @param boundary   boundary parameter of the {@code Content-Type}
+     * @param bufferSize read buffer; bigger than the boundary
+     */
+    public MultipartStreamReader(InputStream in, String boundary, int bufferSize) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.US_ASCII);
+        if (bufferSize < delimiter.length * 2) throw new IllegalArgumentException("Buffer is too small for the boundary");
+        this.buffer = new byte[bufferSize];
+        // the first boundary has no preceding line break
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        this.limit = 2;
+        // the preamble is read like a part and ignored
+        this.current = new PartInputStream();
+    }
+
+    /**
+     * Skips what is left of the current part.
+     *
+     * @return next part, or null after the last one
+     * @throws IOException if the body is not valid multipart
+     */
+    public Part nextPart() throws IOException {
+        if (finished) return null;
+        current.skipRest();
+
+        if (!fill(2)) throw new IOException("Unexpected end of multipart body");
+        if (buffer[position] == '-' && buffer[position + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        HttpHeaders headers = readHeaders();
+        current = new PartInputStream();
+        return new Part(headers, current);
+    }
+
+    private HttpHeaders readHeaders() throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        skipLine();
+        int headerSize = 0;
+        while (true) {
+            String line = readLine();
+            headerSize += line.length();
+            if (headerSize > MAX_HEADER_SIZE) throw new IOException("Multipart headers are too long");
+            if (line.isEmpty()) return headers;
+            int colon = line.indexOf(':');
+            if (colon > 0) headers.add(line.substring(0, colon).trim(), line.substring(colon + 1).trim());
+        }
+    }
+
+    /**
+     * Skips the rest of the boundary line (transport padding).
+     */
+    private void skipLine() throws IOException {
+        readLine();
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            if (!fill(1)) throw new IOException("Unexpected end of multipart headers");
+            byte b = buffer[position++];
+            if (b == '\n') break;
+            if (line.size() > MAX_HEADER_SIZE) throw new IOException("Multipart header line is too long");
+            line.write(b);
+        }
+        byte[] bytes = line.toByteArray();
+        int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+        // browsers send file names as raw UTF-8
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads until at least {@code count} bytes are buffered or the body ends.
+     *
+     * @return whether {@code count} bytes are buffered
+     */
+    private boolean fill(int count) throws IOException {
+        if (limit - position >= count) return true;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        while (limit < count && !eof) {
+            int read = in.read(buffer, limit, buffer.length - limit);
+            if (read < 0) eof = true;
+            else limit += read;
+        }
+        return limit - position >= count;
+    }
+
+    private int indexOfDelimiter() {
+        outer:
+        for (int i = position; i <= limit - delimiter.length; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * One part of the body.
+     */
+    public static class Part {
+        private final HttpHeaders headers;
+        private final InputStream content;
+        private final ContentDisposition contentDisposition;
+
+        Part(HttpHeaders headers, InputStream content) {
+            this.headers = headers;
+            this.content = content;
+            String disposition = headers.getFirst(HttpHeaders.CONTENT_DISPOSITION);
+            this.contentDisposition = disposition == null ? ContentDisposition.empty() : ContentDisposition.parse(disposition);
+        }
+
+        /**
+         * @return form field name
+         */
+        public String name() {
+            return contentDisposition.getName();
+        }
+
+        /**
+         * @return submitted file name, or null if the part is not a file
+         */
+        public String fileName() {
+            return contentDisposition.getFilename();
+        }
+
+        public String contentType() {
+            return headers.getFirst(HttpHeaders.CONTENT_TYPE);
+        }
+
+        /**
+         * @return content up to the next boundary; closing it does not close the body
+         */
+        public InputStream content() {
+            return content;
+        }
+    }
+
+    private class PartInputStream extends InputStream {
+        private boolean ended;
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (ended) return -1;
+            if (len == 0) return 0;
+            fill(delimiter.length);
+            int delimiterAt = indexOfDelimiter();
+            int available;
+            if (delimiterAt >= 0) {
+                available = delimiterAt - position;
+                if (available == 0) {
+                    position += delimiter.length;
+                    ended = true;
+                    return -1;
+                }
+            } else {
+                // the tail may be the start of a delimiter split across reads
+                available = limit - position - (delimiter.length - 1);
+                if (available <= 0) {
+                    if (eof) throw new IOException("Unexpected end of multipart body");
+                    fill(limit - position + 1);
+                    return read(b, off, len);
+                }
+            }
+            int n = Math.min(len, available);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        void skipRest() throws IOException {
+            byte[] skipped = new byte[4096];
+            while (read(skipped, 0, skipped.length) >= 0) {
+                // discard
+            }
+        }
+
+        @Override
+        public void close() {
+            // the rest is skipped by nextPart()
+        }
+    }
+}
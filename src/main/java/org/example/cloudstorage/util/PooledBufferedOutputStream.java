@@ -0,0 +1,72 @@
+package org.example.cloudstorage.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * <h3>Buffered output stream backed by a {@link BufferPool}</h3>
+ * Closing the stream flushes it and returns the buffer to the pool,
+ * but leaves the underlying stream open (it is owned by the caller, e.g. the servlet container).
+ */
+public class PooledBufferedOutputStream extends FilterOutputStream {
+
+    private final BufferPool bufferPool;
+    private byte[] buffer;
+    private int count;
+
+    public PooledBufferedOutputStream(OutputStream out, BufferPool bufferPool) {
+        super(out);
+        this.bufferPool = bufferPool;
+        this.buffer = bufferPool.acquire();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == buffer.length) flushBuffer();
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (len >= buffer.length) {
+            flushBuffer();
+            out.write(b, off, len);
+            return;
+        }
+        if (len > buffer.length - count) flushBuffer();
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) return;
+        try {
+            flush();
+        } finally {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (buffer == null) throw new IOException("Stream closed");
+    }
+}
@@ -0,0 +1,21 @@
+CREATE TABLE blobs
+(
+    hash        VARCHAR(64)              NOT NULL,
+    object_name VARCHAR(1024)            NOT NULL,
+    size        BIGINT                   NOT NULL,
+    ref_count   BIGINT                   NOT NULL,
+    released_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT pk_blobs PRIMARY KEY (hash)
+);
+
+CREATE INDEX blobs_released_index ON blobs (released_at) WHERE ref_count = 0;
+
+CREATE TABLE blob_references
+(
+    path VARCHAR(1024) NOT NULL,
+    hash VARCHAR(64)   NOT NULL,
+    CONSTRAINT pk_blob_references PRIMARY KEY (path),
+    CONSTRAINT fk_blob_references_blob FOREIGN KEY (hash) REFERENCES blobs (hash)
+);
+
+CREATE INDEX blob_references_hash_index ON blob_references (hash, path varchar_pattern_ops);
@@ -0,0 +1,7 @@
+CREATE TABLE chunk_manifests
+(
+    path   VARCHAR(1024) NOT NULL,
+    etag   VARCHAR(255)  NOT NULL,
+    chunks TEXT          NOT NULL,
+    CONSTRAINT pk_chunk_manifests PRIMARY KEY (path)
+);
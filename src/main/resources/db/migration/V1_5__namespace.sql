@@ -0,0 +1,28 @@
+CREATE TABLE namespace_nodes
+(
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    parent_id    BIGINT,
+    name         VARCHAR(1024)                           NOT NULL,
+    directory    BOOLEAN                                 NOT NULL,
+    object_key   VARCHAR(1024),
+    size         BIGINT                                  NOT NULL,
+    etag         VARCHAR(255),
+    content_type VARCHAR(255),
+    modified_at  TIMESTAMP WITH TIME ZONE                NOT NULL,
+    CONSTRAINT pk_namespace_nodes PRIMARY KEY (id),
+    CONSTRAINT fk_namespace_nodes_parent FOREIGN KEY (parent_id) REFERENCES namespace_nodes (id)
+);
+
+-- top level nodes have parent 0; a file and a directory may share a name, like an object and a prefix
+CREATE UNIQUE INDEX namespace_nodes_name_index ON namespace_nodes (COALESCE(parent_id, 0), name, directory);
+CREATE INDEX namespace_nodes_name_prefix_index ON namespace_nodes (COALESCE(parent_id, 0), name varchar_pattern_ops);
+CREATE INDEX namespace_nodes_parent_index ON namespace_nodes (parent_id);
+CREATE INDEX namespace_nodes_object_key_index ON namespace_nodes (object_key);
+
+CREATE TABLE namespace_uploads
+(
+    upload_id  VARCHAR(1024)            NOT NULL,
+    object_key VARCHAR(1024)            NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT pk_namespace_uploads PRIMARY KEY (upload_id)
+);
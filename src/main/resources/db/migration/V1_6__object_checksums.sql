@@ -0,0 +1,7 @@
+CREATE TABLE object_checksums
+(
+    object_name VARCHAR(1024) NOT NULL,
+    etag        VARCHAR(255)  NOT NULL,
+    crc32       BIGINT        NOT NULL,
+    CONSTRAINT pk_object_checksums PRIMARY KEY (object_name)
+);
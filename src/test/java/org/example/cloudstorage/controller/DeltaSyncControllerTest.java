@@ -0,0 +1,124 @@
+package org.example.cloudstorage.controller;
+
+import org.example.cloudstorage.config.security.AuthConfig;
+import org.example.cloudstorage.config.security.SecurityConfig;
+import org.example.cloudstorage.dto.DeltaSyncDto;
+import org.example.cloudstorage.dto.DeltaSyncRequest;
+import org.example.cloudstorage.exception.minio.ThrottledMinioException;
+import org.example.cloudstorage.mapper.UserMapper;
+import org.example.cloudstorage.service.DeltaSyncService;
+import org.example.cloudstorage.service.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ActiveProfiles("test")
+@WebMvcTest(controllers = DeltaSyncController.class)
+@Import({SecurityConfig.class, AuthConfig.class})
+class DeltaSyncControllerTest {
+
+    private static final String HASH = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+    private static final DeltaSyncDto SYNC = DeltaSyncDto.builder()
+            .id("abc")
+            .path("vm/")
+            .name("disk.img")
+            .size(12_000_000)
+            .chunkCount(2)
+            .missingChunks(List.of(HASH))
+            .build();
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockitoBean
+    DeltaSyncService deltaSyncService;
+
+    @MockitoBean
+    UserService userService;
+
+    @MockitoBean
+    UserMapper userMapper;
+
+    @Test
+    @WithMockUser
+    @DisplayName("Creating a sync -> 201 with the missing chunks")
+    void create_validRequest_returnsMissingChunks() throws Exception {
+        when(deltaSyncService.create(eq("vm/"), eq("disk.img"), any(), any())).thenReturn(SYNC);
+
+        mvc.perform(post("/sync")
+                        .param("path", "vm/")
+                        .param("name", "disk.img")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"chunks": [{"hash": "%s", "length": 8000000}, {"hash": "%s", "length": 4000000}]}
+                                """.formatted("a".repeat(64), HASH)))
+                .andExpectAll(
+                        status().isCreated(),
+                        jsonPath("$.id").value("abc"),
+                        jsonPath("$.missingChunks[0]").value(HASH)
+                );
+
+        ArgumentCaptor<DeltaSyncRequest> request = ArgumentCaptor.forClass(DeltaSyncRequest.class);
+        verify(deltaSyncService).create(eq("vm/"), eq("disk.img"), request.capture(), any());
+        assertEquals(2, request.getValue().getChunks().size());
+        assertEquals(4_000_000, request.getValue().getChunks().get(1).getLength());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Creating a sync without chunks -> 400")
+    void create_noChunks_returnsBadRequest() throws Exception {
+        mvc.perform(post("/sync")
+                        .param("path", "vm/")
+                        .param("name", "disk.img")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"chunks\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Chunk body is passed on with its hash -> remaining missing chunks")
+    void uploadChunk_validChunk_returnsSync() throws Exception {
+        when(deltaSyncService.uploadChunk(eq("abc"), eq(HASH), any(InputStream.class), any())).thenReturn(SYNC);
+
+        mvc.perform(put("/sync/abc/chunks/" + HASH)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[8]))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.chunkCount").value(2)
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Chunk while upload memory is exhausted -> 503")
+    void uploadChunk_memoryExhausted_returnsServiceUnavailable() throws Exception {
+        when(deltaSyncService.uploadChunk(eq("abc"), eq(HASH), any(InputStream.class), any()))
+                .thenThrow(new ThrottledMinioException("No memory left for delta-chunks/abc/" + HASH));
+
+        mvc.perform(put("/sync/abc/chunks/" + HASH)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[8]))
+                .andExpect(status().isServiceUnavailable());
+    }
+}
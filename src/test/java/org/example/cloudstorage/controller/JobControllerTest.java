@@ -0,0 +1,150 @@
+package org.example.cloudstorage.controller;
+
+import org.example.cloudstorage.config.security.AuthConfig;
+import org.example.cloudstorage.config.security.SecurityConfig;
+import org.example.cloudstorage.dto.JobDto;
+import org.example.cloudstorage.exception.minio.ResourceNotFoundMinioException;
+import org.example.cloudstorage.mapper.UserMapper;
+import org.example.cloudstorage.model.JobStatus;
+import org.example.cloudstorage.model.JobType;
+import org.example.cloudstorage.service.JobService;
+import org.example.cloudstorage.service.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ActiveProfiles("test")
+@WebMvcTest(controllers = JobController.class)
+@Import({SecurityConfig.class, AuthConfig.class})
+class JobControllerTest {
+
+    private static final JobDto JOB = JobDto.builder()
+            .id("job-1")
+            .type(JobType.MOVE)
+            .status(JobStatus.QUEUED)
+            .path("docs/")
+            .target("archive/docs/")
+            .createdAt(Instant.parse("2026-01-02T03:04:05Z"))
+            .build();
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockitoBean
+    JobService jobService;
+
+    @MockitoBean
+    UserService userService;
+
+    @MockitoBean
+    UserMapper userMapper;
+
+    @Test
+    @WithMockUser
+    @DisplayName("Starting a move -> 202 with the job and its location")
+    void move_validRequest_returnsAcceptedJob() throws Exception {
+        when(jobService.move(eq("docs/"), eq("archive/docs/"), any())).thenReturn(JOB);
+
+        mvc.perform(post("/jobs/move")
+                        .param("from", "docs/")
+                        .param("to", "archive/docs/"))
+                .andExpectAll(
+                        status().isAccepted(),
+                        header().string("Location", "http://localhost/jobs/job-1"),
+                        jsonPath("$.id").value("job-1"),
+                        jsonPath("$.status").value("QUEUED")
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Starting a copy -> 202 with the job")
+    void copy_validRequest_returnsAcceptedJob() throws Exception {
+        when(jobService.copy(eq("docs/"), eq("archive/docs/"), any())).thenReturn(JOB);
+
+        mvc.perform(post("/jobs/copy")
+                        .param("from", "docs/")
+                        .param("to", "archive/docs/"))
+                .andExpectAll(
+                        status().isAccepted(),
+                        header().string("Location", "http://localhost/jobs/job-1")
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Starting a deletion with an invalid path -> 400")
+    void delete_invalidPath_returnsBadRequest() throws Exception {
+        mvc.perform(post("/jobs/delete")
+                        .param("path", "bad|path/"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Starting a job while the queue is full -> 503")
+    void delete_queueFull_returnsServiceUnavailable() throws Exception {
+        when(jobService.delete(eq("docs/"), any())).thenThrow(new TaskRejectedException("Too many jobs are running"));
+
+        mvc.perform(post("/jobs/delete")
+                        .param("path", "docs/"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Polling an unknown job -> 404")
+    void get_unknownJob_returnsNotFound() throws Exception {
+        when(jobService.get(eq("missing"), any())).thenThrow(new ResourceNotFoundMinioException("Job not found"));
+
+        mvc.perform(get("/jobs/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Cancelling a job -> 202 with the cancellation requested")
+    void cancel_runningJob_returnsAccepted() throws Exception {
+        when(jobService.cancel(eq("job-1"), any())).thenReturn(JobDto.builder()
+                .id("job-1")
+                .type(JobType.MOVE)
+                .status(JobStatus.RUNNING)
+                .cancelRequested(true)
+                .build());
+
+        mvc.perform(delete("/jobs/job-1"))
+                .andExpectAll(
+                        status().isAccepted(),
+                        jsonPath("$.cancelRequested").value(true)
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Progress events are streamed as server-sent events")
+    void events_returnsEventStream() throws Exception {
+        when(jobService.events(eq("job-1"), any())).thenReturn(new SseEmitter());
+
+        mvc.perform(get("/jobs/job-1/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpectAll(
+                        status().isOk(),
+                        request().asyncStarted()
+                );
+    }
+}
@@ -0,0 +1,461 @@
+package org.example.cloudstorage.controller;
+
+import org.example.cloudstorage.config.security.AuthConfig;
+import org.example.cloudstorage.config.security.SecurityConfig;
+import org.example.cloudstorage.dto.ArchiveUploadDto;
+import org.example.cloudstorage.dto.ResourceResponseDto;
+import org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException;
+import org.example.cloudstorage.exception.minio.ResourceNotFoundMinioException;
+import org.example.cloudstorage.exception.minio.UploadConflictMinioException;
+import org.example.cloudstorage.mapper.UserMapper;
+import org.example.cloudstorage.model.ArchiveFormat;
+import org.example.cloudstorage.model.ConflictPolicy;
+import org.example.cloudstorage.model.DownloadableResource;
+import org.example.cloudstorage.service.ResourceService;
+import org.example.cloudstorage.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ActiveProfiles("test")
+@WebMvcTest(controllers = ResourceController.class)
+@Import({SecurityConfig.class, AuthConfig.class})
+// printing reads response headers while the async body may still be writing them
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+class ResourceControllerTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+    private static final String ETAG = "\"abc\"";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockitoBean
+    ResourceService resourceService;
+
+    @MockitoBean
+    UserService userService;
+
+    @MockitoBean
+    UserMapper userMapper;
+
+    @TestConfiguration
+    static class SyncStreamingConfig {
+
+        // streaming bodies otherwise write headers on another thread while the security filters still add theirs
+        @Bean(name = "applicationTaskExecutor")
+        AsyncTaskExecutor applicationTaskExecutor() {
+            return new TaskExecutorAdapter(Runnable::run);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        when(resourceService.download(eq("file.txt"), any(), anyBoolean(), any())).thenReturn(new TextResource());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Whole file -> content type, length and validators")
+    void download_wholeFile_returnsHeaders() throws Exception {
+        dispatch(get("/resource/download").param("path", "file.txt")).andExpectAll(
+                status().isOk(),
+                header().string(HttpHeaders.CONTENT_TYPE, startsWith("text/plain")),
+                header().longValue(HttpHeaders.CONTENT_LENGTH, CONTENT.length()),
+                header().string(HttpHeaders.ACCEPT_RANGES, "bytes"),
+                header().string(HttpHeaders.ETAG, ETAG),
+                header().exists(HttpHeaders.LAST_MODIFIED),
+                content().string(CONTENT)
+        );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Single range -> 206 with the range")
+    void download_singleRange_returnsPartialContent() throws Exception {
+        dispatch(get("/resource/download").param("path", "file.txt").header(HttpHeaders.RANGE, "bytes=-5")).andExpectAll(
+                status().isPartialContent(),
+                header().string(HttpHeaders.CONTENT_RANGE, "bytes 15-19/20"),
+                header().longValue(HttpHeaders.CONTENT_LENGTH, 5),
+                content().string("fghij")
+        );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Several ranges -> 206 multipart/byteranges")
+    void download_multipleRanges_returnsMultipart() throws Exception {
+        MvcResult result = dispatch(get("/resource/download").param("path", "file.txt")
+                .header(HttpHeaders.RANGE, "bytes=0-1,10-12")).andExpectAll(
+                status().isPartialContent(),
+                header().string(HttpHeaders.CONTENT_TYPE, startsWith("multipart/byteranges; boundary="))
+        ).andReturn();
+
+        String body = result.getResponse().getContentAsString();
+        assertThat(body, containsString("Content-Range: bytes 0-1/20\r\n\r\n01\r\n"));
+        assertThat(body, containsString("Content-Range: bytes 10-12/20\r\n\r\nabc\r\n"));
+        assertEquals(body.getBytes(StandardCharsets.US_ASCII).length,
+                Long.parseLong(result.getResponse().getHeader(HttpHeaders.CONTENT_LENGTH)));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Unsatisfiable range -> 416")
+    void download_unsatisfiableRange_returns416() throws Exception {
+        mvc.perform(get("/resource/download").param("path", "file.txt").header(HttpHeaders.RANGE, "bytes=100-200"))
+                .andExpectAll(
+                        status().isRequestedRangeNotSatisfiable(),
+                        header().string(HttpHeaders.CONTENT_RANGE, "bytes */20")
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Matching If-None-Match -> 304 without body")
+    void download_matchingETag_returnsNotModified() throws Exception {
+        mvc.perform(get("/resource/download").param("path", "file.txt").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+                .andExpectAll(
+                        status().isNotModified(),
+                        content().string("")
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Stale If-Range -> whole content")
+    void download_staleIfRange_returnsWholeContent() throws Exception {
+        dispatch(get("/resource/download").param("path", "file.txt")
+                .header(HttpHeaders.RANGE, "bytes=0-1")
+                .header(HttpHeaders.IF_RANGE, "\"old\"")).andExpectAll(
+                status().isOk(),
+                content().string(CONTENT)
+        );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Resource served elsewhere -> 307 to its URL")
+    void download_redirectedResource_returnsTemporaryRedirect() throws Exception {
+        when(resourceService.download(eq("video.mp4"), any(), anyBoolean(), any())).thenReturn(new TextResource() {
+            @Override
+            public String redirectUrl(String contentDisposition) {
+                return "http://minio/user-files/video.mp4?X-Amz-Signature=abc";
+            }
+        });
+
+        mvc.perform(get("/resource/download").param("path", "video.mp4"))
+                .andExpectAll(
+                        status().isTemporaryRedirect(),
+                        header().string(HttpHeaders.LOCATION, "http://minio/user-files/video.mp4?X-Amz-Signature=abc"),
+                        header().string(HttpHeaders.CACHE_CONTROL, "no-store")
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Batch download -> one attachment for all paths")
+    void downloadBatch_severalPaths_returnsZipAttachment() throws Exception {
+        when(resourceService.download(eq(List.of("docs/", "file.txt")), eq(ArchiveFormat.ZIP), eq(false), any())).thenReturn(new TextResource());
+
+        dispatch(post("/resource/download/batch").param("path", "docs/", "file.txt")).andExpectAll(
+                status().isOk(),
+                header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("download.zip")),
+                content().string(CONTENT)
+        );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Batch download with an invalid path -> 400")
+    void downloadBatch_invalidPath_returnsBadRequest() throws Exception {
+        mvc.perform(get("/resource/download/batch").param("path", "file.txt", "bad|path"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Folder with format parameter -> archive of that format named after the folder")
+    void download_folderWithFormat_returnsArchiveOfFormat() throws Exception {
+        when(resourceService.download(eq("photos/"), eq(ArchiveFormat.TAR_GZ), eq(false), any())).thenReturn(new TextResource());
+
+        dispatch(get("/resource/download").param("path", "photos/").param("format", "tar.gz")).andExpectAll(
+                status().isOk(),
+                header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("photos.tar.gz"))
+        );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Folder with tar in Accept -> tar archive")
+    void download_folderAcceptingTar_returnsTar() throws Exception {
+        when(resourceService.download(eq("photos/"), eq(ArchiveFormat.TAR), eq(false), any())).thenReturn(new TextResource());
+
+        dispatch(get("/resource/download").param("path", "photos/").header(HttpHeaders.ACCEPT, "application/x-tar, */*;q=0.1"))
+                .andExpectAll(
+                        status().isOk(),
+                        header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("photos.tar"))
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Folder requested with a range -> same zip as the whole download")
+    void download_folderWithRange_keepsRepresentation() throws Exception {
+        when(resourceService.download(eq("photos/"), eq(ArchiveFormat.ZIP), eq(false), any())).thenReturn(new TextResource());
+
+        dispatch(get("/resource/download").param("path", "photos/").header(HttpHeaders.RANGE, "bytes=10-"))
+                .andExpect(status().isPartialContent());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Streamed archive with a range -> whole content, no ranges advertised")
+    void download_streamedArchiveWithRange_returnsWholeContent() throws Exception {
+        when(resourceService.download(eq("photos/"), eq(ArchiveFormat.ZIP), eq(false), any())).thenReturn(new TextResource() {
+            @Override
+            public long contentLength() {
+                return -1;
+            }
+
+            @Override
+            public String eTag() {
+                return null;
+            }
+        });
+
+        dispatch(get("/resource/download").param("path", "photos/").header(HttpHeaders.RANGE, "bytes=10-"))
+                .andExpectAll(
+                        status().isOk(),
+                        header().doesNotExist(HttpHeaders.ACCEPT_RANGES),
+                        header().doesNotExist(HttpHeaders.ETAG),
+                        content().string(CONTENT)
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Folder with resumable parameter -> resumable zip")
+    void download_folderWithResumableParameter_requestsResumableZip() throws Exception {
+        when(resourceService.download(eq("photos/"), eq(ArchiveFormat.ZIP), eq(true), any())).thenReturn(new TextResource());
+
+        dispatch(get("/resource/download").param("path", "photos/").param("resumable", "true"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Unsupported format -> 400")
+    void download_unsupportedFormat_returnsBadRequest() throws Exception {
+        mvc.perform(get("/resource/download").param("path", "photos/").param("format", "rar"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Streamed upload -> 201, path read from the query string")
+    void uploadStream_validRequest_returnsCreated() throws Exception {
+        when(resourceService.upload(eq("docs/"), any(InputStream.class), eq("xyz"), eq(ConflictPolicy.REJECT), any()))
+                .thenReturn(List.of());
+
+        mvc.perform(post("/resource/stream").queryParam("path", "docs/")
+                        .contentType("multipart/form-data; boundary=xyz")
+                        .content("--xyz--"))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Streamed upload without path -> 400")
+    void uploadStream_missingPath_returnsBadRequest() throws Exception {
+        mvc.perform(post("/resource/stream")
+                        .contentType("multipart/form-data; boundary=xyz")
+                        .content("--xyz--"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Streamed upload without boundary -> 400")
+    void uploadStream_missingBoundary_returnsBadRequest() throws Exception {
+        mvc.perform(post("/resource/stream").queryParam("path", "docs/")
+                        .contentType("multipart/form-data")
+                        .content("--xyz--"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Upload of stored content -> 201")
+    void uploadStored_storedContent_returnsCreated() throws Exception {
+        when(resourceService.uploadStored(eq("docs/"), eq("a.txt"), eq("ab12"), isNull(), any()))
+                .thenReturn(ResourceResponseDto.builder().path("docs/").name("a.txt").size(5L).build());
+
+        mvc.perform(post("/resource/dedup").param("path", "docs/").param("name", "a.txt").param("sha256", "ab12"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.size").value(5));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Upload of content which is not stored -> 404")
+    void uploadStored_unknownContent_returnsNotFound() throws Exception {
+        when(resourceService.uploadStored(eq("docs/"), eq("a.txt"), eq("ab12"), isNull(), any()))
+                .thenThrow(new ResourceNotFoundMinioException("Content is not stored: ab12"));
+
+        mvc.perform(post("/resource/dedup").param("path", "docs/").param("name", "a.txt").param("sha256", "ab12"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Archive upload with format taken from Content-Type -> 201")
+    void uploadArchive_tarGzContentType_returnsCreated() throws Exception {
+        when(resourceService.uploadArchive(eq("docs/"), any(), eq(ArchiveFormat.TAR_GZ), eq(false), any()))
+                .thenReturn(ArchiveUploadDto.builder()
+                        .path("docs/").files(2).directories(1).size(10).failedEntries(Map.of("a.txt", "exists"))
+                        .build());
+
+        mvc.perform(post("/resource/archive").param("path", "docs/").param("atomic", "false")
+                        .contentType("application/gzip").content(new byte[]{1, 2, 3}))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.files").value(2))
+                .andExpect(jsonPath("$.failedEntries['a.txt']").value("exists"));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Upload of existing files -> 409 with every conflicting name")
+    void upload_existingFiles_returnsConflicts() throws Exception {
+        when(resourceService.upload(eq("docs/"), any(), eq(ConflictPolicy.REJECT), any()))
+                .thenThrow(new UploadConflictMinioException(List.of("a.txt", "b.txt")));
+
+        mvc.perform(multipart("/resource").file(new MockMultipartFile("object", "a.txt", "text/plain", new byte[]{1}))
+                        .param("path", "docs/"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.conflicts", contains("a.txt", "b.txt")));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Upload with an unknown conflict policy -> 400")
+    void upload_unknownConflictPolicy_returnsBadRequest() throws Exception {
+        mvc.perform(multipart("/resource").file(new MockMultipartFile("object", "a.txt", "text/plain", new byte[]{1}))
+                        .param("path", "docs/")
+                        .param("conflict", "merge"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Streamed upload reads the conflict policy from the query string")
+    void uploadStream_conflictPolicy_isPassed() throws Exception {
+        when(resourceService.upload(eq("docs/"), any(InputStream.class), eq("xyz"), eq(ConflictPolicy.RENAME), any()))
+                .thenReturn(List.of());
+
+        mvc.perform(post("/resource/stream").queryParam("path", "docs/").queryParam("conflict", "rename")
+                        .contentType("multipart/form-data; boundary=xyz")
+                        .content("--xyz--"))
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Copy -> 201 with the copy")
+    void copy_validRequest_returnsCreated() throws Exception {
+        when(resourceService.copy(eq("docs/a.txt"), eq("backup/a.txt"), any()))
+                .thenReturn(ResourceResponseDto.builder().path("backup/").name("a.txt").size(5L).build());
+
+        mvc.perform(post("/resource/copy").param("from", "docs/a.txt").param("to", "backup/a.txt"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.path").value("backup/"));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Copy onto an existing resource -> 409")
+    void copy_existingTarget_returnsConflict() throws Exception {
+        when(resourceService.copy(eq("docs/"), eq("backup/"), any()))
+                .thenThrow(new ResourceAlreadyExistsMinioException("Destination directory already exists"));
+
+        mvc.perform(post("/resource/copy").param("from", "docs/").param("to", "backup/"))
+                .andExpect(status().isConflict());
+    }
+
+    private ResultActions dispatch(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult result = mvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        return mvc.perform(asyncDispatch(result));
+    }
+
+    private static class TextResource implements DownloadableResource {
+        @Override
+        public String contentType() {
+            return "text/plain";
+        }
+
+        @Override
+        public long contentLength() {
+            return CONTENT.length();
+        }
+
+        @Override
+        public String eTag() {
+            return ETAG;
+        }
+
+        @Override
+        public ZonedDateTime lastModified() {
+            return ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void writeTo(OutputStream out, long start, long end) throws IOException {
+            out.write(CONTENT.substring((int) start, (int) end + 1).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.example.cloudstorage.controller;
+
+import org.example.cloudstorage.config.security.AuthConfig;
+import org.example.cloudstorage.config.security.SecurityConfig;
+import org.example.cloudstorage.dto.PresignedUploadDto;
+import org.example.cloudstorage.dto.ResourceResponseDto;
+import org.example.cloudstorage.dto.UploadSessionDto;
+import org.example.cloudstorage.exception.minio.InvalidFileMinioException;
+import org.example.cloudstorage.exception.minio.ResourceNotFoundMinioException;
+import org.example.cloudstorage.exception.minio.ThrottledMinioException;
+import org.example.cloudstorage.mapper.UserMapper;
+import org.example.cloudstorage.service.PresignedUploadService;
+import org.example.cloudstorage.service.UploadSessionService;
+import org.example.cloudstorage.service.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ActiveProfiles("test")
+@WebMvcTest(controllers = UploadSessionController.class)
+@Import({SecurityConfig.class, AuthConfig.class})
+class UploadSessionControllerTest {
+
+    private static final UploadSessionDto SESSION = UploadSessionDto.builder()
+            .id("abc")
+            .path("docs/")
+            .name("video.mp4")
+            .size(40)
+            .chunkSize(16)
+            .chunkCount(3)
+            .receivedOffsets(List.of(0L, 32L))
+            .build();
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockitoBean
+    UploadSessionService uploadSessionService;
+
+    @MockitoBean
+    PresignedUploadService presignedUploadService;
+
+    @MockitoBean
+    UserService userService;
+
+    @MockitoBean
+    UserMapper userMapper;
+
+    @Test
+    @WithMockUser
+    @DisplayName("Creating a session -> 201 with the chunk layout")
+    void create_validRequest_returnsSession() throws Exception {
+        when(uploadSessionService.create(eq("docs/"), eq("video.mp4"), eq(40L), eq("video/mp4"), any())).thenReturn(SESSION);
+
+        mvc.perform(post("/upload")
+                        .param("path", "docs/")
+                        .param("name", "video.mp4")
+                        .param("size", "40")
+                        .param("contentType", "video/mp4"))
+                .andExpectAll(
+                        status().isCreated(),
+                        jsonPath("$.id").value("abc"),
+                        jsonPath("$.chunkSize").value(16),
+                        jsonPath("$.chunkCount").value(3)
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Creating a session without size -> 400")
+    void create_missingSize_returnsBadRequest() throws Exception {
+        mvc.perform(post("/upload").param("path", "docs/").param("name", "video.mp4"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Chunk body is passed on with its offset -> received offsets")
+    void uploadChunk_validChunk_returnsReceivedOffsets() throws Exception {
+        when(uploadSessionService.uploadChunk(eq("abc"), eq(32L), any(InputStream.class), any())).thenReturn(SESSION);
+
+        mvc.perform(put("/upload/abc")
+                        .param("offset", "32")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[8]))
+                .andExpectAll(
+                        status().isOk(),
+                        jsonPath("$.receivedOffsets[0]").value(0),
+                        jsonPath("$.receivedOffsets[1]").value(32)
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Chunk while upload memory is exhausted -> 503")
+    void uploadChunk_memoryExhausted_returnsServiceUnavailable() throws Exception {
+        when(uploadSessionService.uploadChunk(eq("abc"), eq(0L), any(InputStream.class), any()))
+                .thenThrow(new ThrottledMinioException("No memory left for part 1 of docs/video.mp4"));
+
+        mvc.perform(put("/upload/abc")
+                        .param("offset", "0")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content(new byte[8]))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Unknown session -> 404")
+    void get_unknownSession_returnsNotFound() throws Exception {
+        when(uploadSessionService.get(eq("missing"), any()))
+                .thenThrow(new ResourceNotFoundMinioException("Upload session not found"));
+
+        mvc.perform(get("/upload/missing")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Commit with missing chunks -> 400, complete commit -> 201")
+    void commit_returnsCreatedOrBadRequest() throws Exception {
+        when(uploadSessionService.commit(eq("abc"), any()))
+                .thenThrow(new InvalidFileMinioException("Chunks at offsets [16] are missing"))
+                .thenReturn(ResourceResponseDto.builder().path("docs/").name("video.mp4").size(40L).build());
+
+        mvc.perform(post("/upload/abc/commit")).andExpect(status().isBadRequest());
+        mvc.perform(post("/upload/abc/commit")).andExpectAll(
+                status().isCreated(),
+                jsonPath("$.name").value("video.mp4")
+        );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Presigned upload -> 201 with one URL per file")
+    void createPresigned_returnsUrls() throws Exception {
+        when(presignedUploadService.create(eq("docs/"), eq(List.of("a.txt", "b.txt")), eq(List.of(3L, 5L)), any())).thenReturn(List.of(
+                PresignedUploadDto.builder().id("1").name("a.txt").size(3).method("PUT").url("http://minio/a").build(),
+                PresignedUploadDto.builder().id("2").name("b.txt").size(5).method("PUT").url("http://minio/b").build()));
+
+        mvc.perform(post("/upload/presigned")
+                        .param("path", "docs/")
+                        .param("name", "a.txt", "b.txt")
+                        .param("size", "3", "5"))
+                .andExpectAll(
+                        status().isCreated(),
+                        jsonPath("$[0].url").value("http://minio/a"),
+                        jsonPath("$[1].method").value("PUT")
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Presigned commit -> 201 with the files, not routed as a session commit")
+    void commitPresigned_returnsFiles() throws Exception {
+        when(presignedUploadService.commit(eq(List.of("1", "2")), any())).thenReturn(List.of(
+                ResourceResponseDto.builder().path("docs/").name("a.txt").size(3L).build(),
+                ResourceResponseDto.builder().path("docs/").name("b.txt").size(5L).build()));
+
+        mvc.perform(post("/upload/presigned/commit").param("id", "1", "2"))
+                .andExpectAll(
+                        status().isCreated(),
+                        jsonPath("$[1].name").value("b.txt")
+                );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("Aborting a session -> 204")
+    void abort_returnsNoContent() throws Exception {
+        mvc.perform(delete("/upload/abc")).andExpect(status().isNoContent());
+    }
+}
@@ -5,8 +5,12 @@ import io.minio.messages.Item;
 import org.example.cloudstorage.config.MinioTestContainer;
 import org.example.cloudstorage.exception.minio.InvalidFileMinioException;
 import org.example.cloudstorage.exception.minio.InvalidPathMinioException;
+import org.example.cloudstorage.exception.minio.MinioException;
 import org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException;
 import org.example.cloudstorage.exception.minio.ResourceNotFoundMinioException;
+import org.example.cloudstorage.exception.minio.UploadConflictMinioException;
+import org.example.cloudstorage.model.ConflictPolicy;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -19,6 +23,8 @@ import org.springframework.web.multipart.MultipartFile;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
@@ -63,7 +69,7 @@ class MinioManipulationServiceImplTest {
                         name.getBytes(StandardCharsets.UTF_8)
                 )).toList();
 
-        minioManipulationService.uploadResources("", multipartFiles);
+        minioManipulationService.uploadResources("", multipartFiles, ConflictPolicy.REJECT);
 
         List<String> expectedObjects = List.of(
                 "folder1/$",
@@ -95,7 +101,7 @@ class MinioManipulationServiceImplTest {
                 );
 
         assertThrows(InvalidFileMinioException.class, () ->
-                minioManipulationService.uploadResources("", List.of(file)));
+                minioManipulationService.uploadResources("", List.of(file), ConflictPolicy.REJECT));
     }
 
 
@@ -127,11 +133,87 @@ class MinioManipulationServiceImplTest {
 
         multipartFiles.add(file);
         assertThrows(InvalidFileMinioException.class, () ->
-                minioManipulationService.uploadResources("", multipartFiles));
+                minioManipulationService.uploadResources("", multipartFiles, ConflictPolicy.REJECT));
 
         assertEquals(0, minioRepository.getListObjects("", true).size());
     }
 
+    @Test
+    @DisplayName("If one of many concurrently uploaded files fails then the others are rolled back")
+    void uploadResources_manyFilesOneFailsDuringUpload_uploadedOnesRolledBack() {
+        List<MultipartFile> multipartFiles = new java.util.ArrayList<>(java.util.stream.IntStream.range(0, 49)
+                .mapToObj(i -> (MultipartFile) new MockMultipartFile(
+                        "file",
+                        "folder/file" + i + ".txt",
+                        "text/plain",
+                        ("content" + i).getBytes(StandardCharsets.UTF_8)
+                )).toList());
+        // passes the pre-flight listing and fails only while it is uploaded, after the files before it
+        multipartFiles.add(new MockMultipartFile("file", "folder/file49.txt", "text/plain", new byte[100]) {
+            @Override
+            public InputStream getInputStream() {
+                return new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        throw new IOException("Connection reset");
+                    }
+                };
+            }
+        });
+
+        assertThrows(MinioException.class, () ->
+                minioManipulationService.uploadResources("", multipartFiles, ConflictPolicy.REJECT));
+
+        assertEquals(List.of(), objectNames());
+    }
+
+    @Test
+    @DisplayName("Conflicting files are reported before anything is uploaded")
+    void uploadResources_reject_uploadsNothing() {
+        minioRepository.createEmptyObject("folder/a.txt");
+
+        UploadConflictMinioException e = assertThrows(UploadConflictMinioException.class, () ->
+                minioManipulationService.uploadResources("", List.of(
+                        file("folder/b.txt", "b"),
+                        file("folder/a.txt", "a")), ConflictPolicy.REJECT));
+
+        assertEquals(List.of("folder/a.txt"), e.getConflicts());
+        assertEquals(List.of("folder/a.txt"), objectNames());
+    }
+
+    @Test
+    @DisplayName("Conflicting files are uploaded under a free name with RENAME")
+    void uploadResources_rename_uploadsUnderFreeName() {
+        minioRepository.createEmptyObject("folder/a.txt");
+
+        minioManipulationService.uploadResources("", List.of(file("folder/a.txt", "a")), ConflictPolicy.RENAME);
+
+        assertEquals(List.of("folder/$", "folder/a+(1).txt", "folder/a.txt"), objectNames());
+    }
+
+    @Test
+    @DisplayName("Conflicting files replace the existing ones with OVERWRITE")
+    void uploadResources_overwrite_replacesFile() {
+        minioRepository.createEmptyObject("folder/a.txt");
+
+        minioManipulationService.uploadResources("", List.of(file("folder/a.txt", "new")), ConflictPolicy.OVERWRITE);
+
+        assertEquals(3, minioRepository.getObject("folder/a.txt").size());
+    }
+
+    @Test
+    @DisplayName("Conflicting files are left out with SKIP")
+    void uploadResources_skip_keepsExistingFile() {
+        minioRepository.createEmptyObject("folder/a.txt");
+
+        minioManipulationService.uploadResources("", List.of(
+                file("folder/a.txt", "new"),
+                file("folder/b.txt", "b")), ConflictPolicy.SKIP);
+
+        assertEquals(0, minioRepository.getObject("folder/a.txt").size());
+        assertEquals(List.of("folder/$", "folder/a.txt", "folder/b.txt"), objectNames());
+    }
+
     // deleteResource
 
     @Test
@@ -278,6 +360,7 @@ class MinioManipulationServiceImplTest {
         return Stream.of(
                 Arguments.of("file.txt", "file.txt"),
                 Arguments.of("folder/", "folder/"),
+                Arguments.of("folder/", "folder/sub/"),
                 Arguments.of("folder/", "file.txt"),
                 Arguments.of("file.txt", "folder/")
         );
@@ -336,6 +419,11 @@ class MinioManipulationServiceImplTest {
         clearBucket();
     }
 
+    @AfterEach
+    void tearDown() {
+        minioManipulationService.shutdown();
+    }
+
     public static <T> boolean areListsEqualIgnoringOrder(List<T> list1, List<T> list2) {
         if (list1.size() != list2.size()) {
             return false;
@@ -351,4 +439,12 @@ class MinioManipulationServiceImplTest {
         var objects = minioRepository.getListObjects("/", true);
         minioRepository.deleteObjects(objects.stream().map(Item::objectName).toList());
     }
-}
\ No newline at end of file
+
+    private static MultipartFile file(String name, String content) {
+        return new MockMultipartFile("object", name, "text/plain", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<String> objectNames() {
+        return minioRepository.getListObjects("", true).stream().map(Item::objectName).sorted().toList();
+    }
+}
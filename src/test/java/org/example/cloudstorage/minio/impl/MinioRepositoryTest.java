@@ -19,6 +19,11 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -123,6 +128,29 @@ class MinioRepositoryTest {
         assertArrayEquals(content, downloadedStream.readAllBytes());
     }
 
+    @Test
+    @DisplayName("getPresignedDownloadUrl returns URL serving the object with the given Content-Disposition")
+    void getPresignedDownloadUrl_ReturnsWorkingUrl() throws Exception {
+        String objectName = "folder/report.pdf";
+        byte[] content = "Presigned content".getBytes();
+        minioClient.putObject(
+                PutObjectArgs.builder()
+                        .bucket(BUCKET_NAME)
+                        .object(objectName)
+                        .stream(new ByteArrayInputStream(content), content.length, -1)
+                        .build()
+        );
+        String contentDisposition = "attachment; filename=\"report.pdf\"";
+
+        String url = minioRepository.getPresignedDownloadUrl(objectName, Duration.ofMinutes(1), contentDisposition);
+        HttpResponse<byte[]> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(url)).build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertArrayEquals(content, response.body());
+        assertEquals(contentDisposition, response.headers().firstValue("Content-Disposition").orElseThrow());
+    }
+
     @Test
     @DisplayName("downloadObject throws ResourceNotFoundMinioException for non-existent object")
     void downloadObject_ThrowsException_WhenObjectNotExists() {
@@ -0,0 +1,151 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.cloudstorage.util.BufferPool;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Second download is copied from the cache without building")
+    void write_secondDownload_isCopiedFromCache() throws Exception {
+        ArchiveCache cache = cache(1000);
+        AtomicInteger builds = new AtomicInteger();
+        ArchiveCache.Build build = out -> {
+            builds.incrementAndGet();
+            out.write(bytes("archive"));
+        };
+
+        assertEquals("archive", write(cache, "key", build));
+        assertEquals(7, cache.length("key"));
+        assertEquals("archive", write(cache, "key", build));
+
+        assertEquals(1, builds.get());
+        ByteArrayOutputStream range = new ByteArrayOutputStream();
+        assertTrue(cache.copy("key", 2, 4, range));
+        assertEquals("chi", range.toString(StandardCharsets.UTF_8));
+        assertEquals(2, meterRegistry.get("archive.cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    @DisplayName("Concurrent downloads of one key share a single build")
+    void write_concurrentDownloads_shareOneBuild() throws Exception {
+        ArchiveCache cache = cache(1000);
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ArchiveCache.Build build = out -> {
+            builds.incrementAndGet();
+            out.write(bytes("slow "));
+            await(release);
+            out.write(bytes("archive"));
+        };
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> first = executor.submit(() -> write(cache, "key", build));
+            Future<String> second = executor.submit(() -> write(cache, "key", build));
+            Thread.sleep(200);
+            release.countDown();
+
+            assertEquals("slow archive", first.get());
+            assertEquals("slow archive", second.get());
+        }
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    @DisplayName("A waiting download builds the archive itself if the shared build fails")
+    void write_sharedBuildFails_waiterBuildsAgain() throws Exception {
+        ArchiveCache cache = cache(1000);
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ArchiveCache.Build build = out -> {
+            if (builds.incrementAndGet() == 1) {
+                await(release);
+                throw new IOException("Broken pipe");
+            }
+            out.write(bytes("archive"));
+        };
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> failing = executor.submit(() -> write(cache, "key", build));
+            Thread.sleep(100);
+            Future<String> waiting = executor.submit(() -> write(cache, "key", build));
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThrows(Exception.class, failing::get);
+            assertEquals("archive", waiting.get());
+        }
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    @DisplayName("Least recently used archives are evicted over the size budget")
+    void write_overBudget_evictsLeastRecentlyUsed() throws Exception {
+        ArchiveCache cache = cache(20);
+        write(cache, "a", out -> out.write(new byte[8]));
+        write(cache, "b", out -> out.write(new byte[8]));
+        cache.copy("a", 0, 7, OutputStream.nullOutputStream());
+        write(cache, "c", out -> out.write(new byte[8]));
+
+        assertEquals(8, cache.length("a"));
+        assertEquals(-1, cache.length("b"));
+        assertEquals(8, cache.length("c"));
+        assertFalse(Files.exists(directory.resolve("b.archive")));
+    }
+
+    @Test
+    @DisplayName("Archives left by a previous run are deleted")
+    void constructor_deletesLeftovers() throws Exception {
+        Files.write(directory.resolve("old.archive"), new byte[10]);
+        Files.write(directory.resolve("notes.txt"), new byte[10]);
+
+        cache(1000);
+
+        assertFalse(Files.exists(directory.resolve("old.archive")));
+        assertTrue(Files.exists(directory.resolve("notes.txt")));
+    }
+
+    private ArchiveCache cache(long maxSize) {
+        return new ArchiveCache(directory, maxSize, maxSize, new BufferPool(4, 4), meterRegistry);
+    }
+
+    private static String write(ArchiveCache cache, String key, ArchiveCache.Build build) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.write(key, build, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import org.example.cloudstorage.exception.minio.InvalidFileMinioException;
+import org.example.cloudstorage.exception.minio.InvalidPathMinioException;
+import org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException;
+import org.example.cloudstorage.model.ArchiveFormat;
+import org.example.cloudstorage.model.ExtractedArchive;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArchiveExtractorTest {
+
+    private final Map<String, String> objects = new ConcurrentHashMap<>();
+    private final List<String> createdObjects = new ArrayList<>();
+
+    @Test
+    @DisplayName("Creates every file and reports the directories of the archive once")
+    void extract_zip_createsFilesAndDirectories() throws IOException {
+        byte[] zip = zip(Map.of("a.txt", "a", "dir/b.txt", "b", "dir/sub/big.bin", "x".repeat(100)));
+
+        ExtractedArchive archive = extractor(100, 200).extract(
+                "user-1-files/docs/", new ByteArrayInputStream(zip), ArchiveFormat.ZIP, false, createdObjects);
+
+        assertEquals("a", objects.get("user-1-files/docs/a.txt"));
+        assertEquals("b", objects.get("user-1-files/docs/dir/b.txt"));
+        assertEquals("x".repeat(100), objects.get("user-1-files/docs/dir/sub/big.bin"));
+        assertEquals(3, archive.files().size());
+        assertEquals(102, archive.size());
+        assertEquals(Set.of("user-1-files/", "user-1-files/docs/", "user-1-files/docs/dir/", "user-1-files/docs/dir/sub/"),
+                archive.directories());
+    }
+
+    @Test
+    @DisplayName("An entry leaving the folder fails the archive")
+    void extract_pathTraversal_throws() throws IOException {
+        byte[] zip = zip(Map.of("../../user-2-files/evil.txt", "evil"));
+
+        assertThrows(InvalidFileMinioException.class, () -> extractor(100, 200).extract(
+                "user-1-files/", new ByteArrayInputStream(zip), ArchiveFormat.ZIP, true, createdObjects));
+        assertTrue(objects.isEmpty());
+    }
+
+    @Test
+    @DisplayName("An archive expanding too much fails and reports what was created for rollback")
+    void extract_zipBomb_throws() throws IOException {
+        byte[] zip = zip(Map.of("a.txt", "a", "zeros.bin", "\0".repeat(4 * 1024 * 1024)));
+
+        InvalidFileMinioException e = assertThrows(InvalidFileMinioException.class, () -> extractor(1024, 200).extract(
+                "user-1-files/", new ByteArrayInputStream(zip), ArchiveFormat.ZIP, false, createdObjects));
+
+        assertTrue(e.getMessage().contains("expands"));
+        assertEquals(List.of("user-1-files/a.txt"), createdObjects);
+    }
+
+    @Test
+    @DisplayName("Existing files are reported when entries may fail")
+    void extract_existingFile_isReported() throws IOException {
+        objects.put("user-1-files/a.txt", "old");
+        byte[] zip = zip(Map.of("a.txt", "a", "b.txt", "b"));
+
+        ExtractedArchive archive = extractor(100, 200).extract(
+                "user-1-files/", new ByteArrayInputStream(zip), ArchiveFormat.ZIP, true, createdObjects);
+
+        assertEquals(List.of("user-1-files/b.txt"), archive.files());
+        assertEquals(Set.of("a.txt"), archive.failures().keySet());
+        assertEquals("old", objects.get("user-1-files/a.txt"));
+    }
+
+    @Test
+    @DisplayName("A directory with an invalid name is reported and not created")
+    void extract_invalidDirectoryName_isReported() throws IOException {
+        byte[] zip = zip(Map.of("a.txt", "a", "bad|dir/", ""));
+
+        ExtractedArchive archive = extractor(100, 200).extract(
+                "user-1-files/", new ByteArrayInputStream(zip), ArchiveFormat.ZIP, true, createdObjects);
+
+        assertEquals(List.of("user-1-files/a.txt"), archive.files());
+        assertEquals(Set.of("bad|dir/"), archive.failures().keySet());
+        assertEquals(Set.of("user-1-files/"), archive.directories());
+    }
+
+    @Test
+    @DisplayName("A directory with an invalid name fails an atomic extraction")
+    void extract_invalidDirectoryNameAtomic_throws() throws IOException {
+        byte[] zip = zip(Map.of("a.txt", "a", "bad|dir/", ""));
+
+        assertThrows(InvalidPathMinioException.class, () -> extractor(100, 200).extract(
+                "user-1-files/", new ByteArrayInputStream(zip), ArchiveFormat.ZIP, false, createdObjects));
+        assertEquals(List.of("user-1-files/a.txt"), createdObjects);
+    }
+
+    private ArchiveExtractor extractor(int bufferedEntrySize, int maxRatio) {
+        return new ArchiveExtractor(
+                (path, stream, size, fileName, contentType) -> {
+                    String object = path + fileName;
+                    String content;
+                    try {
+                        content = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (objects.putIfAbsent(object, content) != null)
+                        throw new ResourceAlreadyExistsMinioException("File already exists: " + fileName);
+                    return object;
+                },
+                Executors.newVirtualThreadPerTaskExecutor(),
+                4,
+                bufferedEntrySize,
+                new ArchiveExtractor.Limits(1000, 1024L * 1024 * 1024, maxRatio));
+    }
+
+    private static byte[] zip(Map<String, String> entries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String name : entries.keySet().stream().sorted().toList()) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(entries.get(name).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+}
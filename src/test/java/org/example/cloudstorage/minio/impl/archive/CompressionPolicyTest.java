@@ -0,0 +1,65 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import org.example.cloudstorage.config.properties.MinioProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressionPolicyTest {
+
+    private final CompressionPolicy compressionPolicy = new CompressionPolicy(new MinioProperties.Compression());
+
+    @Test
+    @DisplayName("Stores tiny entries regardless of their type")
+    void decide_tinyEntry_isStored() {
+        assertEquals(Optional.of(CompressionDecision.stored(CompressionPolicy.POLICY_SIZE)),
+                compressionPolicy.decide("notes.txt", "text/plain", 10));
+    }
+
+    @Test
+    @DisplayName("Stores already compressed formats by extension, case-insensitively")
+    void decide_compressedExtension_isStored() {
+        assertEquals(Optional.of(CompressionDecision.stored(CompressionPolicy.POLICY_EXTENSION)),
+                compressionPolicy.decide("photos/IMG_001.JPG", null, 1_000_000));
+    }
+
+    @Test
+    @DisplayName("Stores already compressed content types, wildcards and parameters included")
+    void decide_compressedContentType_isStored() {
+        assertEquals(Optional.of(CompressionDecision.stored(CompressionPolicy.POLICY_CONTENT_TYPE)),
+                compressionPolicy.decide("clip", "video/x-custom; codec=h264", 1_000_000));
+    }
+
+    @Test
+    @DisplayName("Configured extension level takes precedence, level 0 stores")
+    void decide_extensionLevel_overridesDefaults() {
+        MinioProperties.Compression properties = new MinioProperties.Compression();
+        properties.setExtensionLevels(Map.of("log", 1, "JPG", 9, "csv", 0));
+        CompressionPolicy policy = new CompressionPolicy(properties);
+
+        assertEquals(1, policy.decide("app.log", null, 1_000_000).orElseThrow().level());
+        assertEquals(9, policy.decide("a.jpg", "image/jpeg", 1_000_000).orElseThrow().level());
+        assertTrue(policy.decide("data.csv", null, 1_000_000).orElseThrow().stored());
+    }
+
+    @Test
+    @DisplayName("Unknown entries are decided by the entropy of a sample")
+    void decide_unknownEntry_isDecidedByEntropy() {
+        assertTrue(compressionPolicy.decide("data.bin", "application/octet-stream", 1_000_000).isEmpty());
+
+        byte[] random = new byte[compressionPolicy.getSampleSize()];
+        new Random(1).nextBytes(random);
+        assertEquals(CompressionDecision.stored(CompressionPolicy.POLICY_ENTROPY),
+                compressionPolicy.decide(random, random.length));
+
+        byte[] text = "some repetitive text ".repeat(200).getBytes(StandardCharsets.UTF_8);
+        assertEquals(CompressionDecision.deflated(CompressionPolicy.POLICY_ENTROPY, 6),
+                compressionPolicy.decide(text, text.length));
+    }
+}
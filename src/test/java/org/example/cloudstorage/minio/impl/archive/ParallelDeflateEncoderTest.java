@@ -0,0 +1,68 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelDeflateEncoderTest {
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private final ParallelDeflateEncoder encoder = new ParallelDeflateEncoder(POOL, BLOCK_SIZE, 0);
+
+    @AfterAll
+    static void tearDown() {
+        POOL.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, BLOCK_SIZE - 1, BLOCK_SIZE, BLOCK_SIZE + 1, 10 * BLOCK_SIZE + 123})
+    void encode_producesSingleValidDeflateStream(int size) throws Exception {
+        byte[] data = compressibleData(size);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        EncodedEntry checksum = encoder.encode(new ByteArrayInputStream(data), compressed, Deflater.DEFAULT_COMPRESSION);
+
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        assertEquals(crc.getValue(), checksum.crc());
+        assertEquals(size, checksum.size());
+        assertArrayEquals(data, inflate(compressed.toByteArray(), size));
+    }
+
+    private static byte[] compressibleData(int size) {
+        Random random = new Random(size);
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+        return data;
+    }
+
+    private static byte[] inflate(byte[] compressed, int size) throws Exception {
+        Inflater inflater = new Inflater(true);
+        inflater.setInput(compressed);
+        byte[] result = new byte[size + 1];
+        int offset = 0;
+        while (!inflater.finished()) {
+            int n = inflater.inflate(result, offset, result.length - offset);
+            offset += n;
+            if (n == 0 && !inflater.finished() && inflater.needsInput()) fail("Deflate stream is not terminated");
+        }
+        assertEquals(compressed.length, inflater.getTotalIn());
+        inflater.end();
+        return Arrays.copyOf(result, offset);
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.minio.messages.Item;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.util.MemoryBudget;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PrefetchedObjectsTest {
+
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Returns objects in listing order even if later objects arrive first")
+    void next_returnsObjectsInListingOrder() throws Exception {
+        CountDownLatch lastFetched = new CountDownLatch(1);
+        when(minioRepository.downloadObject("a")).thenAnswer(invocation -> {
+            assertTrue(lastFetched.await(5, TimeUnit.SECONDS));
+            return stream("a");
+        });
+        when(minioRepository.downloadObject("b")).thenReturn(stream("b"));
+        when(minioRepository.downloadObject("c")).thenAnswer(invocation -> {
+            lastFetched.countDown();
+            return stream("c");
+        });
+
+        MemoryBudget budget = new MemoryBudget(1024);
+        try (PrefetchedObjects objects = prefetcher(budget, 3).open(List.of(item("a", 1), item("b", 1), item("c", 1)))) {
+            assertEquals("a", read(objects.next()));
+            assertEquals("b", read(objects.next()));
+            assertEquals("c", read(objects.next()));
+            assertThrows(NoSuchElementException.class, objects::next);
+        }
+        assertEquals(0, budget.getUsed());
+    }
+
+    @Test
+    @DisplayName("Streams objects directly when they exceed the memory budget")
+    void next_budgetExhausted_streamsDirectly() throws Exception {
+        when(minioRepository.downloadObject("big")).thenReturn(stream("big"));
+        when(minioRepository.downloadObject("small")).thenReturn(stream("small"));
+
+        MemoryBudget budget = new MemoryBudget(10);
+        try (PrefetchedObjects objects = prefetcher(budget, 2).open(List.of(item("big", 100), item("small", 5)))) {
+            assertEquals("big", read(objects.next()));
+            assertEquals("small", read(objects.next()));
+        }
+        assertEquals(0, budget.getUsed());
+    }
+
+    @Test
+    @DisplayName("Releases reserved memory of objects which were never consumed")
+    void close_releasesReservedMemory() throws Exception {
+        when(minioRepository.downloadObject(anyString())).thenAnswer(invocation -> stream(invocation.getArgument(0)));
+
+        MemoryBudget budget = new MemoryBudget(1024);
+        PrefetchedObjects objects = prefetcher(budget, 4).open(List.of(item("a", 1), item("b", 1), item("c", 1)));
+        assertEquals("a", read(objects.next()));
+        objects.close();
+
+        assertEquals(0, budget.getUsed());
+    }
+
+    private ObjectPrefetcher prefetcher(MemoryBudget budget, int depth) {
+        return new ObjectPrefetcher(minioRepository, executor, budget, depth, 50);
+    }
+
+    private static Item item(String objectName, long size) {
+        Item item = mock(Item.class);
+        when(item.objectName()).thenReturn(objectName);
+        when(item.size()).thenReturn(size);
+        return item;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(InputStream in) throws Exception {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
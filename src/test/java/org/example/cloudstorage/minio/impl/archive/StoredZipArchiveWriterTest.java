@@ -0,0 +1,193 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.minio.messages.Item;
+import org.example.cloudstorage.minio.ChecksumIndex;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.model.StoredChecksum;
+import org.example.cloudstorage.util.BufferPool;
+import org.example.cloudstorage.util.MemoryBudget;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StoredZipArchiveWriterTest {
+
+    private static final ZonedDateTime LAST_MODIFIED = ZonedDateTime.of(2024, 5, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final ChecksumIndex checksumIndex = mock(ChecksumIndex.class);
+    private final BufferPool bufferPool = new BufferPool(1024, 4);
+    private final StoredZipArchiveWriter writer = new StoredZipArchiveWriter(
+            minioRepository,
+            new ObjectPrefetcher(minioRepository, Executors.newVirtualThreadPerTaskExecutor(), new MemoryBudget(0), 0, 0),
+            new ObjectChecksums(minioRepository, Executors.newVirtualThreadPerTaskExecutor(), bufferPool, 2, 100),
+            bufferPool);
+    private final Map<String, byte[]> objects = new LinkedHashMap<>();
+
+    @Test
+    @DisplayName("Whole archive has the precomputed length and is readable by ZipFile")
+    void write_wholeArchive_matchesLayout(@TempDir Path dir) throws Exception {
+        List<Item> items = folder();
+        ZipLayout layout = writer.layout(entries(items));
+
+        byte[] zip = write(layout, 0, layout.length() - 1);
+
+        assertEquals(layout.length(), zip.length);
+        Path file = dir.resolve("archive.zip");
+        Files.write(file, zip);
+        try (ZipFile zipFile = new ZipFile(file.toFile())) {
+            assertEquals(List.of("dir/", "dir/a.txt", "b.bin", "empty.txt"),
+                    zipFile.stream().map(ZipEntry::getName).toList());
+            assertArrayEquals(objects.get("base/dir/a.txt"), zipFile.getInputStream(zipFile.getEntry("dir/a.txt")).readAllBytes());
+            assertArrayEquals(objects.get("base/b.bin"), zipFile.getInputStream(zipFile.getEntry("b.bin")).readAllBytes());
+            assertEquals(ZipEntry.STORED, zipFile.getEntry("b.bin").getMethod());
+        }
+    }
+
+    @Test
+    @DisplayName("Every range equals the same bytes of the whole archive")
+    void write_range_equalsSliceOfWholeArchive() throws Exception {
+        List<Item> items = folder();
+        ZipLayout layout = writer.layout(entries(items));
+        byte[] whole = write(layout, 0, layout.length() - 1);
+
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            long start = random.nextLong(layout.length());
+            long end = start + random.nextLong(layout.length() - start);
+            assertArrayEquals(Arrays.copyOfRange(whole, (int) start, (int) end + 1), write(layout, start, end),
+                    "range %d-%d".formatted(start, end));
+        }
+    }
+
+    @Test
+    @DisplayName("Range inside one entry reads only that part of the object")
+    void write_rangeInsideEntry_readsOnlyOverlappingObject() throws Exception {
+        List<Item> items = folder();
+        ZipLayout layout = writer.layout(entries(items));
+        long bStart = layout.dataOffsets()[2];
+
+        byte[] part = write(layout, bStart + 10, bStart + 19);
+
+        assertArrayEquals(Arrays.copyOfRange(objects.get("base/b.bin"), 10, 20), part);
+        verify(minioRepository).downloadObject("base/b.bin", 10, 10);
+        verify(minioRepository, never()).downloadObject(anyString());
+    }
+
+    @Test
+    @DisplayName("Range of the central directory takes recorded checksums instead of reading the objects")
+    void write_centralDirectoryWithRecordedChecksums_readsNoObject() throws Exception {
+        List<Item> items = folder();
+        ZipLayout layout = writer.layout(entries(items));
+        Map<String, Long> recorded = Map.of("base/dir/a.txt", crc32("base/dir/a.txt"), "base/b.bin", crc32("base/b.bin"));
+        when(minioRepository.getChecksumIndex()).thenReturn(checksumIndex);
+        when(checksumIndex.find(anyMap())).thenReturn(recorded);
+
+        byte[] tail = write(layout, layout.centralDirectoryOffset(), layout.length() - 1);
+
+        verify(checksumIndex).find(Map.of("base/dir/a.txt", items.get(2).etag(), "base/b.bin", items.get(3).etag()));
+        verify(minioRepository, never()).downloadObject(anyString());
+        byte[] whole = write(layout, 0, layout.length() - 1);
+        assertArrayEquals(Arrays.copyOfRange(whole, (int) layout.centralDirectoryOffset(), whole.length), tail);
+    }
+
+    @Test
+    @DisplayName("Checksums known nowhere are computed and recorded")
+    void write_centralDirectoryWithUnknownChecksums_computesAndRecordsThem() throws Exception {
+        List<Item> items = folder();
+        ZipLayout layout = writer.layout(entries(items));
+        when(minioRepository.getChecksumIndex()).thenReturn(checksumIndex);
+        when(checksumIndex.find(anyMap())).thenReturn(Map.of());
+
+        write(layout, layout.centralDirectoryOffset(), layout.length() - 1);
+
+        verify(minioRepository).downloadObject("base/dir/a.txt");
+        verify(minioRepository).downloadObject("base/b.bin");
+        verify(checksumIndex).save(List.of(new StoredChecksum("base/b.bin", items.get(3).etag(), crc32("base/b.bin"))));
+    }
+
+    @Test
+    @DisplayName("Listing changes change the fingerprint")
+    void layout_changedListing_changesFingerprint() throws Exception {
+        String before = writer.layout(entries(folder())).fingerprint();
+        objects.put("base/b.bin", "changed".getBytes(StandardCharsets.UTF_8));
+
+        assertNotEquals(before, writer.layout(entries(folder())).fingerprint());
+    }
+
+    @Test
+    @DisplayName("Archive bytes do not depend on the time zone of the server")
+    void write_otherDefaultTimeZone_sameBytes() throws Exception {
+        ZipLayout layout = writer.layout(entries(folder()));
+        TimeZone defaultZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+            byte[] tokyo = write(layout, 0, layout.length() - 1);
+            TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+            byte[] newYork = write(layout, 0, layout.length() - 1);
+
+            assertArrayEquals(tokyo, newYork);
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    private List<Item> folder() {
+        byte[] random = new byte[5000];
+        new Random(1).nextBytes(random);
+        objects.putIfAbsent("base/$", new byte[0]);
+        objects.putIfAbsent("base/dir/$", new byte[0]);
+        objects.putIfAbsent("base/dir/a.txt", "text content ".repeat(100).getBytes(StandardCharsets.UTF_8));
+        objects.putIfAbsent("base/b.bin", random);
+        objects.putIfAbsent("base/empty.txt", new byte[0]);
+
+        doAnswer(i -> ((Item) i.getArgument(0)).objectName()).when(minioRepository).contentObjectName(any());
+        List<Item> items = new ArrayList<>();
+        objects.forEach((name, content) -> {
+            Item item = mock(Item.class);
+            when(item.objectName()).thenReturn(name);
+            when(item.size()).thenReturn((long) content.length);
+            when(item.etag()).thenReturn(Integer.toHexString(Arrays.hashCode(content)));
+            when(item.lastModified()).thenReturn(LAST_MODIFIED);
+            when(minioRepository.downloadObject(name)).thenAnswer(i -> new ByteArrayInputStream(content));
+            when(minioRepository.downloadObject(eq(name), anyLong(), anyLong())).thenAnswer(i -> new ByteArrayInputStream(
+                    content, (int) (long) i.getArgument(1), (int) (long) i.getArgument(2)));
+            items.add(item);
+        });
+        return items;
+    }
+
+    private long crc32(String name) {
+        CRC32 crc = new CRC32();
+        crc.update(objects.get(name));
+        return crc.getValue();
+    }
+
+    private List<ArchiveEntry> entries(List<Item> items) {
+        return new ArchiveEntries("$").folder("base/", items, "");
+    }
+
+    private byte[] write(ZipLayout layout, long start, long end) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(layout, start, end, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TarArchiveReaderTest {
+
+    @Test
+    @DisplayName("Reads files and directories, long names from pax headers included")
+    void next_writtenTar_readsEntries() throws IOException {
+        String longName = "dir/" + "a".repeat(150) + ".txt";
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        TarStreamWriter writer = new TarStreamWriter(tar);
+        writer.writeDirectory("dir/", ZonedDateTime.now());
+        writeFile(writer, "dir/file.txt", "content");
+        writeFile(writer, longName, "long");
+        writer.finish();
+
+        Map<String, String> entries = read(tar.toByteArray());
+
+        assertEquals(List.of("dir/", "dir/file.txt", longName), List.copyOf(entries.keySet()));
+        assertEquals("content", entries.get("dir/file.txt"));
+        assertEquals("long", entries.get(longName));
+    }
+
+    @Test
+    @DisplayName("Entries left unread are skipped")
+    void next_unreadContent_isSkipped() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        TarStreamWriter writer = new TarStreamWriter(tar);
+        writeFile(writer, "first.txt", "x".repeat(1000));
+        writeFile(writer, "second.txt", "second");
+        writer.finish();
+
+        TarArchiveReader reader = new TarArchiveReader(new ByteArrayInputStream(tar.toByteArray()));
+        assertEquals("first.txt", reader.next().name());
+        ArchiveReader.Entry second = reader.next();
+        assertEquals("second.txt", second.name());
+        assertEquals("second", new String(second.content().readAllBytes(), StandardCharsets.UTF_8));
+        assertNull(reader.next());
+    }
+
+    @Test
+    @DisplayName("A stream which is not a tar is refused")
+    void next_notTar_throws() {
+        byte[] garbage = "not a tar archive".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> new TarArchiveReader(new ByteArrayInputStream(garbage)).next());
+    }
+
+    private static void writeFile(TarStreamWriter writer, String name, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        try (OutputStream out = writer.beginFile(name, ZonedDateTime.now(), bytes.length)) {
+            out.write(bytes);
+        }
+        writer.endEntry();
+    }
+
+    private static Map<String, String> read(byte[] tar) throws IOException {
+        TarArchiveReader reader = new TarArchiveReader(new ByteArrayInputStream(tar));
+        Map<String, String> entries = new LinkedHashMap<>();
+        ArchiveReader.Entry entry;
+        while ((entry = reader.next()) != null) {
+            entries.put(entry.name(), new String(entry.content().readAllBytes(), StandardCharsets.UTF_8));
+        }
+        return entries;
+    }
+}
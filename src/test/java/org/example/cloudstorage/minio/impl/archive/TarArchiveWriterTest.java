@@ -0,0 +1,150 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.minio.messages.Item;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.util.BufferPool;
+import org.example.cloudstorage.util.MemoryBudget;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TarArchiveWriterTest {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final ObjectPrefetcher objectPrefetcher =
+            new ObjectPrefetcher(minioRepository, Executors.newVirtualThreadPerTaskExecutor(), new MemoryBudget(0), 0, 0);
+    private final TarArchiveWriter tarArchiveWriter = new TarArchiveWriter(
+            objectPrefetcher,
+            new ParallelDeflateEncoder(POOL, 64 * 1024, 0),
+            6,
+            new BufferPool(1024, 4));
+
+    @AfterAll
+    static void tearDown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    @DisplayName("Writes files and folders relative to the base path")
+    void write_writesEntriesRelativeToBasePath() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tarArchiveWriter.write(folder(), out, false);
+
+        Map<String, String> entries = readTar(out.toByteArray());
+        assertEquals(List.of("dir/", "dir/file2.txt", "file.txt"), List.copyOf(entries.keySet()));
+        assertEquals("content2", entries.get("dir/file2.txt"));
+        assertEquals("content", entries.get("file.txt"));
+        assertEquals(0, out.size() % 512);
+    }
+
+    @Test
+    @DisplayName("Names too long or not ASCII are written to pax headers")
+    void write_longOrUnicodeName_usesPaxHeader() throws Exception {
+        String longName = "a".repeat(150) + ".txt";
+        String unicodeName = "отчёт.txt";
+        when(minioRepository.downloadObject("base/" + longName)).thenReturn(stream("long"));
+        when(minioRepository.downloadObject("base/" + unicodeName)).thenReturn(stream("unicode"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tarArchiveWriter.write(new ArchiveEntries("$").folder("base/", List.of(
+                item("base/" + longName, 4),
+                item("base/" + unicodeName, 7)
+        ), ""), out, false);
+
+        Map<String, String> entries = readTar(out.toByteArray());
+        assertEquals("long", entries.get(longName));
+        assertEquals("unicode", entries.get(unicodeName));
+    }
+
+    @Test
+    @DisplayName("Gzipped archive is the gzipped tar, with and without parallel compression")
+    void write_gzip_decompressesToTar() throws Exception {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        tarArchiveWriter.write(folder(), tar, false);
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        tarArchiveWriter.write(folder(), parallel, true);
+        ByteArrayOutputStream serial = new ByteArrayOutputStream();
+        new TarArchiveWriter(objectPrefetcher, null, 6, new BufferPool(1024, 4)).write(folder(), serial, true);
+
+        assertArrayEquals(tar.toByteArray(), gunzip(parallel.toByteArray()));
+        assertArrayEquals(tar.toByteArray(), gunzip(serial.toByteArray()));
+    }
+
+    private List<ArchiveEntry> folder() {
+        when(minioRepository.downloadObject("base/file.txt")).thenReturn(stream("content"));
+        when(minioRepository.downloadObject("base/dir/file2.txt")).thenReturn(stream("content2"));
+        return new ArchiveEntries("$").folder("base/", List.of(
+                item("base/$", 0),
+                item("base/dir/$", 0),
+                item("base/dir/file2.txt", 8),
+                item("base/file.txt", 7)
+        ), "");
+    }
+
+    private static Item item(String objectName, long size) {
+        Item item = mock(Item.class);
+        when(item.objectName()).thenReturn(objectName);
+        when(item.size()).thenReturn(size);
+        return item;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Minimal reader of the entries written by {@link TarStreamWriter}.
+     */
+    private static Map<String, String> readTar(byte[] tar) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        String paxPath = null;
+        int position = 0;
+        while (tar[position] != 0) {
+            byte[] header = Arrays.copyOfRange(tar, position, position + 512);
+            long checksum = 0;
+            for (int i = 0; i < 512; i++) {
+                checksum += i >= 148 && i < 156 ? ' ' : header[i] & 0xFF;
+            }
+            assertEquals(checksum, Long.parseLong(field(header, 148, 7), 8));
+
+            String name = field(header, 0, 100);
+            int size = Integer.parseInt(field(header, 124, 11), 8);
+            String data = new String(tar, position + 512, size, StandardCharsets.UTF_8);
+            position += 512 + (size + 511) / 512 * 512;
+            if (header[156] == 'x') {
+                paxPath = data.substring(data.indexOf("path=") + 5, data.indexOf('\n'));
+                continue;
+            }
+            entries.put(paxPath != null ? paxPath : name, data);
+            paxPath = null;
+        }
+        return entries;
+    }
+
+    private static String field(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) end++;
+        return new String(header, offset, end - offset, StandardCharsets.US_ASCII);
+    }
+}
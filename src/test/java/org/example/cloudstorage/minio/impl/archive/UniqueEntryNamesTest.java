@@ -0,0 +1,37 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UniqueEntryNamesTest {
+
+    private final UniqueEntryNames names = new UniqueEntryNames();
+
+    @Test
+    @DisplayName("Taken file names get a counter before the extension")
+    void reserve_takenFileName_addsCounter() {
+        assertEquals("report.pdf", names.reserve("report.pdf"));
+        assertEquals("report (1).pdf", names.reserve("report.pdf"));
+        assertEquals("REPORT (2).pdf", names.reserve("REPORT.pdf"));
+    }
+
+    @Test
+    @DisplayName("Taken folder names get a counter before the slash")
+    void reserve_takenFolderName_addsCounter() {
+        assertEquals("photos/", names.reserve("photos/"));
+        assertEquals("photos (1)/", names.reserve("photos/"));
+        assertEquals("photos", names.reserve("photos"));
+    }
+
+    @Test
+    @DisplayName("Names without an extension and dot files get the counter at the end")
+    void reserve_noExtension_addsCounterAtEnd() {
+        names.reserve("Makefile");
+        names.reserve(".env");
+
+        assertEquals("Makefile (1)", names.reserve("Makefile"));
+        assertEquals(".env (1)", names.reserve(".env"));
+    }
+}
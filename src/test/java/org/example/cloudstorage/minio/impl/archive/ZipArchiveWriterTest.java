@@ -0,0 +1,185 @@
+package org.example.cloudstorage.minio.impl.archive;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.messages.Item;
+import org.example.cloudstorage.config.properties.MinioProperties;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.util.BufferPool;
+import org.example.cloudstorage.util.MemoryBudget;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ZipArchiveWriterTest {
+
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ZipArchiveWriter zipArchiveWriter = new ZipArchiveWriter(
+            new ObjectPrefetcher(minioRepository, Executors.newVirtualThreadPerTaskExecutor(), new MemoryBudget(0), 0, 0),
+            new ParallelDeflateEncoder(new ForkJoinPool(4), 64 * 1024, 100_000),
+            new CompressionPolicy(new MinioProperties.Compression()),
+            new CompressionMetrics(meterRegistry),
+            new BufferPool(1024, 4));
+
+    @Test
+    @DisplayName("Writes files and folders relative to the base path, skipping the base folder marker")
+    void write_writesEntriesRelativeToBasePath() throws Exception {
+        when(minioRepository.downloadObject("base/file.txt")).thenReturn(stream("content"));
+        when(minioRepository.downloadObject("base/dir/file2.txt")).thenReturn(stream("content2"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(List.of(
+                item("base/$"),
+                item("base/dir/$"),
+                item("base/dir/file2.txt"),
+                item("base/file.txt")
+        ), out);
+
+        Map<String, String> entries = readZip(out.toByteArray());
+        assertEquals(List.of("dir/", "dir/file2.txt", "file.txt"), List.copyOf(entries.keySet()));
+        assertEquals("content2", entries.get("dir/file2.txt"));
+        assertEquals("content", entries.get("file.txt"));
+        verify(minioRepository, never()).downloadObject("base/dir/$");
+    }
+
+    @Test
+    @DisplayName("Large entries compressed in parallel are readable as one entry")
+    void write_largeEntry_isCompressedInParallel() throws Exception {
+        String large = "line of a log file\n".repeat(50_000);
+        when(minioRepository.downloadObject("base/app.log")).thenReturn(stream(large));
+        when(minioRepository.downloadObject("base/small.txt")).thenReturn(stream("small"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(List.of(
+                item("base/app.log", large.length()),
+                item("base/small.txt", 5)
+        ), out);
+
+        Map<String, String> entries = readZip(out.toByteArray());
+        assertEquals(large, entries.get("app.log"));
+        assertEquals("small", entries.get("small.txt"));
+        assertTrue(out.size() < large.length() / 10);
+    }
+
+    @Test
+    @DisplayName("Stores already compressed and random entries, deflates text")
+    void write_choosesCompressionPerEntry() throws Exception {
+        String text = "plain text\n".repeat(1000);
+        byte[] random = new byte[16 * 1024];
+        new Random(7).nextBytes(random);
+        when(minioRepository.downloadObject("base/photo.jpg")).thenReturn(new ByteArrayInputStream(random));
+        when(minioRepository.downloadObject("base/blob.bin")).thenReturn(new ByteArrayInputStream(random));
+        when(minioRepository.downloadObject("base/notes.txt")).thenReturn(stream(text));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(List.of(
+                item("base/photo.jpg", random.length),
+                item("base/blob.bin", random.length),
+                item("base/notes.txt", text.length())
+        ), out);
+
+        Map<String, Integer> methods = new LinkedHashMap<>();
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                methods.put(entry.getName(), entry.getMethod());
+                zipIn.readAllBytes();
+            }
+        }
+        assertEquals(Map.of("photo.jpg", ZipEntry.STORED, "blob.bin", ZipEntry.STORED, "notes.txt", ZipEntry.DEFLATED), methods);
+        assertEquals(1, meterRegistry.get("archive.compression.entries").tag("policy", "extension").counter().count());
+        assertEquals(1, meterRegistry.get("archive.compression.entries").tag("policy", "entropy").tag("method", "stored").counter().count());
+        assertEquals(text.length(), meterRegistry.get("archive.compression.bytes.in").tag("method", "deflated").counter().count());
+        assertTrue(meterRegistry.get("archive.compression.bytes.saved").tag("method", "deflated").counter().count() > 0);
+    }
+
+    @Test
+    @DisplayName("Closes every object stream after its entry is written")
+    void write_closesObjectStreams() throws Exception {
+        TrackingInputStream objectStream = new TrackingInputStream("content".getBytes(StandardCharsets.UTF_8));
+        when(minioRepository.downloadObject("base/file.txt")).thenReturn(objectStream);
+
+        write(List.of(item("base/file.txt")), new ByteArrayOutputStream());
+
+        assertTrue(objectStream.closed);
+    }
+
+    @Test
+    @DisplayName("Stops requesting objects once the client output fails")
+    void write_outputFails_stopsReadingObjects() {
+        byte[] incompressible = new byte[64 * 1024];
+        new Random(42).nextBytes(incompressible);
+        TrackingInputStream objectStream = new TrackingInputStream(incompressible);
+        when(minioRepository.downloadObject("base/file1.txt")).thenReturn(objectStream);
+
+        OutputStream brokenOut = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThrows(IOException.class, () -> write(List.of(
+                item("base/file1.txt"),
+                item("base/file2.txt")
+        ), brokenOut));
+        assertTrue(objectStream.closed);
+        verify(minioRepository, never()).downloadObject("base/file2.txt");
+    }
+
+    private void write(List<Item> items, OutputStream out) throws IOException {
+        zipArchiveWriter.write(new ArchiveEntries("$").folder("base/", items, ""), out);
+    }
+
+    private static Item item(String objectName) {
+        return item(objectName, 0);
+    }
+
+    private static Item item(String objectName, long size) {
+        Item item = mock(Item.class);
+        when(item.objectName()).thenReturn(objectName);
+        when(item.size()).thenReturn(size);
+        return item;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> readZip(byte[] zip) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = zipIn.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zipIn.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private static class TrackingInputStream extends ByteArrayInputStream {
+        private boolean closed;
+
+        TrackingInputStream(byte[] content) {
+            super(content);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.example.cloudstorage.minio.impl.dedup;
+
+import org.example.cloudstorage.exception.minio.InvalidFileMinioException;
+import org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException;
+import org.example.cloudstorage.minio.BlobIndex;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.model.StoredBlob;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DeduplicatingUploaderTest {
+
+    private static final byte[] CONTENT = "hello".getBytes(StandardCharsets.UTF_8);
+    private static final String HASH = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final BlobIndex blobIndex = mock(BlobIndex.class);
+    private final AtomicReference<String> writtenBlob = new AtomicReference<>();
+    private final DeduplicatingUploader uploader = new DeduplicatingUploader(minioRepository, blobIndex,
+            (path, stream, size, fileName, contentType) -> {
+                try {
+                    stream.readAllBytes();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+                writtenBlob.set(path + fileName);
+                return path + fileName;
+            });
+
+    @Test
+    @DisplayName("New content is kept as a blob and the file references it")
+    void upload_newContent_referencesBlob() {
+        when(blobIndex.reference(eq("docs/a.txt"), eq(HASH), anyString(), eq(5L)))
+                .thenAnswer(i -> new StoredBlob(HASH, i.getArgument(2), 5));
+
+        assertEquals("docs/a.txt", uploader.upload("docs/", new ByteArrayInputStream(CONTENT), 5, "a.txt", "text/plain"));
+
+        assertTrue(writtenBlob.get().startsWith(DeduplicatingUploader.BLOB_PREFIX));
+        verify(minioRepository).uploadObject(eq(""), any(InputStream.class), eq(0L), eq(-1L), eq("docs/a.txt"), eq("text/plain"), eq(false));
+        verify(minioRepository, never()).deleteObjects(any());
+    }
+
+    @Test
+    @DisplayName("The blob of content stored already is deleted again")
+    void upload_storedContent_deletesNewBlob() {
+        when(blobIndex.reference(eq("docs/a.txt"), eq(HASH), anyString(), eq(5L)))
+                .thenReturn(new StoredBlob(HASH, "blobs/existing", 5));
+
+        uploader.upload("docs/", new ByteArrayInputStream(CONTENT), -1, "a.txt", "text/plain");
+
+        verify(minioRepository).deleteObjects(List.of(writtenBlob.get()));
+    }
+
+    @Test
+    @DisplayName("The blob is deleted if the file exists already")
+    void upload_fileExists_deletesBlob() {
+        when(minioRepository.uploadObject(eq(""), any(InputStream.class), eq(0L), eq(-1L), eq("docs/a.txt"), any(), eq(false)))
+                .thenThrow(new ResourceAlreadyExistsMinioException("File already exists: docs/a.txt"));
+
+        assertThrows(ResourceAlreadyExistsMinioException.class, () ->
+                uploader.upload("docs/", new ByteArrayInputStream(CONTENT), 5, "a.txt", "text/plain"));
+
+        verify(minioRepository).deleteObjects(List.of(writtenBlob.get()));
+        verifyNoInteractions(blobIndex);
+    }
+
+    @Test
+    @DisplayName("An overwritten file releases its previous content")
+    void upload_overwrite_releasesPreviousContent() {
+        when(blobIndex.reference(eq("docs/a.txt"), eq(HASH), anyString(), eq(5L)))
+                .thenAnswer(i -> new StoredBlob(HASH, i.getArgument(2), 5));
+
+        uploader.upload("docs/", new ByteArrayInputStream(CONTENT), 5, "a.txt", "text/plain", true);
+
+        verify(minioRepository).uploadObject(eq(""), any(InputStream.class), eq(0L), eq(-1L), eq("docs/a.txt"), eq("text/plain"), eq(true));
+        var inOrder = inOrder(blobIndex);
+        inOrder.verify(blobIndex).release(List.of("docs/a.txt"));
+        inOrder.verify(blobIndex).reference(eq("docs/a.txt"), eq(HASH), anyString(), eq(5L));
+    }
+
+    @Test
+    @DisplayName("Linking unknown content removes the created file again")
+    void link_unknownContent_deletesPointer() {
+        when(blobIndex.reference("docs/a.txt", HASH, "user-1-files/")).thenReturn(Optional.empty());
+
+        assertTrue(uploader.link("docs/a.txt", HASH, null, "user-1-files/").isEmpty());
+
+        verify(minioRepository).deleteObjects(List.of("docs/a.txt"));
+    }
+
+    @Test
+    @DisplayName("A malformed hash is rejected")
+    void link_malformedHash_throws() {
+        assertThrows(InvalidFileMinioException.class, () -> uploader.link("docs/a.txt", "abc", null, "user-1-files/"));
+        verifyNoInteractions(minioRepository, blobIndex);
+    }
+}
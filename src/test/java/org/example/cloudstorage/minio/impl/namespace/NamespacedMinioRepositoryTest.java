@@ -0,0 +1,123 @@
+package org.example.cloudstorage.minio.impl.namespace;
+
+import io.minio.MinioClient;
+import io.minio.ObjectWriteResponse;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectsArgs;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import okhttp3.Headers;
+import org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException;
+import org.example.cloudstorage.minio.Namespace;
+import org.example.cloudstorage.model.NamespaceEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class NamespacedMinioRepositoryTest {
+
+    private final MinioClient minioClient = mock(MinioClient.class);
+    private final Namespace namespace = mock(Namespace.class);
+    private final NamespacedMinioRepository repository =
+            new NamespacedMinioRepository(minioClient, minioClient, null, "bucket", namespace);
+    private final List<String> deletedObjects = new ArrayList<>();
+
+    NamespacedMinioRepositoryTest() throws Exception {
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenReturn(new StatObjectResponse(
+                Headers.of("Content-Length", "5", "ETag", "\"etag-1\"", "Content-Type", "text/plain",
+                        "Last-Modified", "Fri, 02 Jan 2026 03:04:05 GMT"),
+                "bucket", null, "object"));
+        when(minioClient.putObject(any(PutObjectArgs.class))).thenReturn(
+                new ObjectWriteResponse(Headers.of(), "bucket", null, "object", "\"etag-1\"", null));
+        when(minioClient.removeObjects(any(RemoveObjectsArgs.class))).thenAnswer(i -> {
+            RemoveObjectsArgs args = i.getArgument(0);
+            for (DeleteObject object : args.objects()) {
+                deletedObjects.add(object.toString());
+            }
+            return List.of();
+        });
+    }
+
+    @Test
+    @DisplayName("Uploaded content is stored under a new key which the path then refers to")
+    void uploadObject_storesUnderNewKeyAndRegistersPath() throws Exception {
+        when(namespace.put(eq("docs/a.txt"), anyString(), eq(5L), eq("etag-1"), eq("text/plain"), eq(true)))
+                .thenReturn(Optional.of("objects/old"));
+
+        assertEquals("docs/a.txt", repository.uploadObject(
+                "docs/", new ByteArrayInputStream("hello".getBytes()), 5, -1, "a.txt", "text/plain", true));
+
+        ArgumentCaptor<PutObjectArgs> put = ArgumentCaptor.forClass(PutObjectArgs.class);
+        verify(minioClient).putObject(put.capture());
+        assertTrue(put.getValue().object().startsWith(NamespacedMinioRepository.OBJECT_PREFIX));
+        verify(namespace).put("docs/a.txt", put.getValue().object(), 5, "etag-1", "text/plain", true);
+        assertEquals(1, deletedObjects.size());
+    }
+
+    @Test
+    @DisplayName("Content uploaded to a taken path is deleted again")
+    void uploadObject_pathTaken_deletesContent() throws Exception {
+        when(namespace.put(eq("docs/a.txt"), anyString(), anyLong(), any(), any(), eq(false)))
+                .thenThrow(new ResourceAlreadyExistsMinioException("File already exists: docs/a.txt"));
+
+        assertThrows(ResourceAlreadyExistsMinioException.class, () -> repository.uploadObject(
+                "docs/", new ByteArrayInputStream("hello".getBytes()), 5, -1, "a.txt", "text/plain", false));
+
+        verify(minioClient).putObject(any());
+        verify(minioClient).removeObjects(any());
+    }
+
+    @Test
+    @DisplayName("Listed items are named by their path")
+    void getListObjects_namesItemsByPath() {
+        Instant modified = Instant.parse("2026-01-02T03:04:05Z");
+        when(namespace.list("docs/", false)).thenReturn(List.of(
+                new NamespaceEntry("docs/a.txt", false, "objects/1", 5, "etag-1", "text/plain", modified),
+                new NamespaceEntry("docs/sub/", true, null, 0, null, null, modified)));
+
+        List<Item> items = repository.getListObjects("docs/", false);
+
+        assertEquals("docs/a.txt", items.get(0).objectName());
+        assertEquals(5, items.get(0).size());
+        assertFalse(items.get(0).isDir());
+        assertEquals(modified, items.get(0).lastModified().toInstant());
+        assertEquals("docs/sub/", items.get(1).objectName());
+        assertTrue(items.get(1).isDir());
+    }
+
+    @Test
+    @DisplayName("Stat of a file is answered from the namespace")
+    void getObject_answersFromNamespace() throws Exception {
+        when(namespace.find("docs/a.txt")).thenReturn(Optional.of(new NamespaceEntry(
+                "docs/a.txt", false, "objects/1", 5, "etag-1", "text/plain", Instant.parse("2026-01-02T03:04:05Z"))));
+
+        StatObjectResponse stat = repository.getObject("docs/a.txt");
+
+        assertEquals(5, stat.size());
+        assertEquals("etag-1", stat.etag());
+        assertEquals("text/plain", stat.contentType());
+        assertEquals("docs/a.txt", stat.object());
+        verify(minioClient, never()).statObject(any());
+    }
+
+    @Test
+    @DisplayName("Renaming only changes the namespace")
+    void rename_changesNamespaceOnly() throws Exception {
+        repository.rename("docs/", "archive/docs/");
+
+        verify(namespace).rename("docs/", "archive/docs/");
+        verify(minioClient, never()).copyObject(any());
+    }
+}
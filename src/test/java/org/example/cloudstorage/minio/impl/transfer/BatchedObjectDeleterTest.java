@@ -0,0 +1,118 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import io.minio.messages.Item;
+import org.example.cloudstorage.exception.OperationCancelledException;
+import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.exception.minio.PartialDeletionMinioException;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.model.OperationProgress;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BatchedObjectDeleterTest {
+
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final List<Item> items = IntStream.range(0, 10).mapToObj(i -> item("docs/file" + i, 10)).toList();
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+
+    BatchedObjectDeleterTest() {
+        doAnswer(i -> {
+            int pageSize = i.getArgument(1);
+            Consumer<List<Item>> page = i.getArgument(2);
+            for (int from = 0; from < items.size(); from += pageSize) {
+                page.accept(items.subList(from, Math.min(from + pageSize, items.size())));
+            }
+            return null;
+        }).when(minioRepository).listObjectPages(eq("docs/"), anyInt(), any());
+        doAnswer(i -> {
+            List<String> batch = i.getArgument(0);
+            assertTrue(batch.size() <= 3);
+            deleted.addAll(batch);
+            return null;
+        }).when(minioRepository).deleteObjects(anyList());
+    }
+
+    @Test
+    @DisplayName("Deletes every listed object in batches and reports the progress")
+    void delete_deletesInBatches() {
+        AtomicLong objectsTotal = new AtomicLong();
+        AtomicLong objectsDone = new AtomicLong();
+
+        deleter().delete("docs/", new OperationProgress() {
+            @Override
+            public void started(long objects, long bytes) {
+                objectsTotal.set(objects);
+            }
+
+            @Override
+            public void advanced(long objects, long bytes) {
+                objectsDone.addAndGet(objects);
+            }
+        });
+
+        assertEquals(items.stream().map(Item::objectName).collect(Collectors.toSet()), deleted);
+        verify(minioRepository, times(4)).deleteObjects(anyList());
+        assertEquals(10, objectsTotal.get());
+        assertEquals(10, objectsDone.get());
+    }
+
+    @Test
+    @DisplayName("A failed batch does not stop the others and is reported at the end")
+    void delete_failingBatch_deletesOthersAndThrows() {
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(i -> {
+            List<String> batch = i.getArgument(0);
+            if (batch.contains("docs/file3")) throw new MinioException("Connection reset");
+            calls.incrementAndGet();
+            deleted.addAll(batch);
+            return null;
+        }).when(minioRepository).deleteObjects(anyList());
+
+        PartialDeletionMinioException e = assertThrows(PartialDeletionMinioException.class,
+                () -> deleter().delete("docs/", OperationProgress.NONE));
+
+        assertEquals(3, calls.get());
+        assertEquals(7, deleted.size());
+        assertTrue(e.getMessage().contains("3 of 10"));
+    }
+
+    @Test
+    @DisplayName("Cancelling stops deleting further batches")
+    void delete_cancelled_stopsListing() {
+        AtomicInteger checks = new AtomicInteger();
+
+        assertThrows(OperationCancelledException.class, () -> deleter().delete("docs/", new OperationProgress() {
+            @Override
+            public boolean isCancelled() {
+                return checks.incrementAndGet() > 1;
+            }
+        }));
+
+        assertEquals(Set.of("docs/file0", "docs/file1", "docs/file2"), deleted);
+    }
+
+    private BatchedObjectDeleter deleter() {
+        return new BatchedObjectDeleter(minioRepository, Executors.newVirtualThreadPerTaskExecutor(), 3, 2);
+    }
+
+    private static Item item(String objectName, long size) {
+        Item item = mock(Item.class);
+        when(item.objectName()).thenReturn(objectName);
+        when(item.size()).thenReturn(size);
+        return item;
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import org.example.cloudstorage.exception.minio.UploadConflictMinioException;
+import org.example.cloudstorage.model.ConflictPolicy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflictResolverTest {
+
+    private static final List<String> EXISTING = List.of(
+            "user-1-files/docs/$",
+            "user-1-files/docs/report.pdf",
+            "user-1-files/docs/report+(1).pdf",
+            "user-1-files/docs/notes/a.txt");
+
+    @Test
+    @DisplayName("All conflicting names are reported together")
+    void resolve_reject_reportsAllConflicts() {
+        ConflictResolver resolver = resolver(ConflictPolicy.REJECT);
+
+        assertNull(resolver.resolve("report.pdf"));
+        assertEquals("new.txt", resolver.resolve("new.txt"));
+        assertNull(resolver.resolve("notes/a.txt"));
+
+        UploadConflictMinioException e = assertThrows(UploadConflictMinioException.class, resolver::checkConflicts);
+        assertEquals(List.of("report.pdf", "notes/a.txt"), e.getConflicts());
+    }
+
+    @Test
+    @DisplayName("Conflicting files get the first free numbered name")
+    void resolve_rename_returnsFreeName() {
+        ConflictResolver resolver = resolver(ConflictPolicy.RENAME);
+
+        assertEquals("report (2).pdf", resolver.resolve("report.pdf"));
+        assertEquals("report (3).pdf", resolver.resolve("report.pdf"));
+        assertEquals("notes/a (1).txt", resolver.resolve("notes/a.txt"));
+        assertEquals("new.txt", resolver.resolve("new.txt"));
+        assertDoesNotThrow(resolver::checkConflicts);
+    }
+
+    @Test
+    @DisplayName("A name without extension or a hidden name gets the number at its end")
+    void resolve_renameWithoutExtension_appendsNumber() {
+        ConflictResolver resolver = new ConflictResolver("docs/", List.of("docs/.env", "docs/v1.0/README"),
+                ConflictPolicy.RENAME);
+
+        assertEquals(".env (1)", resolver.resolve(".env"));
+        assertEquals("v1.0/README (1)", resolver.resolve("v1.0/README"));
+    }
+
+    @Test
+    @DisplayName("Existing files are replaced, a name repeated within the upload still conflicts")
+    void resolve_overwrite_marksOverwritten() {
+        ConflictResolver resolver = resolver(ConflictPolicy.OVERWRITE);
+
+        assertEquals("report.pdf", resolver.resolve("report.pdf"));
+        assertTrue(resolver.isOverwritten("user-1-files/docs/report.pdf"));
+        assertEquals("new.txt", resolver.resolve("new.txt"));
+        assertFalse(resolver.isOverwritten("user-1-files/docs/new.txt"));
+        assertNull(resolver.resolve("new.txt"));
+
+        assertThrows(UploadConflictMinioException.class, resolver::checkConflicts);
+    }
+
+    @Test
+    @DisplayName("Conflicting files are skipped")
+    void resolve_skip_returnsNull() {
+        ConflictResolver resolver = resolver(ConflictPolicy.SKIP);
+
+        assertNull(resolver.resolve("report.pdf"));
+        assertEquals("new.txt", resolver.resolve("new.txt"));
+        assertNull(resolver.resolve("new.txt"));
+
+        assertEquals(List.of("report.pdf", "new.txt"), resolver.getSkipped());
+        assertDoesNotThrow(resolver::checkConflicts);
+    }
+
+    private static ConflictResolver resolver(ConflictPolicy policy) {
+        return new ConflictResolver("user-1-files/docs/", EXISTING, policy);
+    }
+}
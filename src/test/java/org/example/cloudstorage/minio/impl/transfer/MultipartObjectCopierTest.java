@@ -0,0 +1,132 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import io.minio.StatObjectResponse;
+import io.minio.messages.Part;
+import okhttp3.Headers;
+import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MultipartObjectCopierTest {
+
+    private static final long PART_SIZE = 5L * 1024 * 1024;
+    private static final long SIZE = 2 * PART_SIZE + 1234;
+
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final Map<Integer, long[]> copiedRanges = new ConcurrentHashMap<>();
+
+    MultipartObjectCopierTest() {
+        when(minioRepository.getObject("docs/big.img")).thenReturn(new StatObjectResponse(Headers.of(
+                "Content-Length", Long.toString(SIZE),
+                "Content-Type", "image/png",
+                "ETag", "\"abc\"",
+                "Last-Modified", "Fri, 02 Jan 2026 03:04:05 GMT"), "bucket", null, "docs/big.img"));
+        when(minioRepository.createMultipartUpload("backup/big.img", "image/png")).thenReturn("upload-1");
+        when(minioRepository.copyPart(eq("docs/big.img"), eq("backup/big.img"), eq("upload-1"), anyInt(), anyLong(), anyLong(), any()))
+                .thenAnswer(i -> {
+                    int partNumber = i.getArgument(3);
+                    copiedRanges.put(partNumber, new long[]{i.getArgument(4), i.getArgument(5)});
+                    return new Part(partNumber, "etag-" + partNumber);
+                });
+    }
+
+    @Test
+    @DisplayName("Copies every range of the source and completes the upload with the parts in order")
+    void copy_copiesRangesAndCompletes() {
+        copier(3).copy("docs/big.img", "backup/big.img");
+
+        assertEquals(3, copiedRanges.size());
+        assertArrayEquals(new long[]{0, PART_SIZE}, copiedRanges.get(1));
+        assertArrayEquals(new long[]{PART_SIZE, PART_SIZE}, copiedRanges.get(2));
+        assertArrayEquals(new long[]{2 * PART_SIZE, 1234}, copiedRanges.get(3));
+        ArgumentCaptor<Part[]> parts = ArgumentCaptor.forClass(Part[].class);
+        verify(minioRepository).completeMultipartUpload(eq("backup/big.img"), eq("upload-1"), parts.capture(), eq(false));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 1, parts.getValue()[i].partNumber());
+        }
+    }
+
+    @Test
+    @DisplayName("Overwriting copy completes the upload over an existing target")
+    void copy_overwrite_completesOverExistingTarget() {
+        copier(3).copy("docs/big.img", "backup/big.img", true);
+
+        verify(minioRepository).completeMultipartUpload(eq("backup/big.img"), eq("upload-1"), any(), eq(true));
+    }
+
+    @Test
+    @DisplayName("Copies a failed part again")
+    void copy_failingPart_isRetried() {
+        AtomicInteger failures = new AtomicInteger();
+        when(minioRepository.copyPart(eq("docs/big.img"), eq("backup/big.img"), eq("upload-1"), eq(2), anyLong(), anyLong(), any()))
+                .thenAnswer(i -> {
+                    if (failures.getAndIncrement() == 0) throw new MinioException("Connection reset");
+                    return new Part(2, "etag-2");
+                });
+
+        copier(3).copy("docs/big.img", "backup/big.img");
+
+        verify(minioRepository, times(2)).copyPart(any(), any(), any(), eq(2), anyLong(), anyLong(), any());
+        verify(minioRepository).completeMultipartUpload(eq("backup/big.img"), eq("upload-1"), any(), eq(false));
+    }
+
+    @Test
+    @DisplayName("Aborts the upload once a part fails on every attempt")
+    void copy_partFailsEveryAttempt_aborts() {
+        when(minioRepository.copyPart(eq("docs/big.img"), eq("backup/big.img"), eq("upload-1"), eq(2), anyLong(), anyLong(), any()))
+                .thenThrow(new MinioException("Connection reset"));
+
+        assertThrows(MinioException.class, () -> copier(2).copy("docs/big.img", "backup/big.img"));
+
+        verify(minioRepository).abortMultipartUpload("backup/big.img", "upload-1");
+        verify(minioRepository, never()).completeMultipartUpload(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    @DisplayName("Pinned copy copies every part only from the expected version of the source")
+    void copy_sourceEtag_isPassedToEveryPart() {
+        copier(3).copy("docs/big.img", "backup/big.img", false, "abc");
+
+        verify(minioRepository, times(3)).copyPart(any(), any(), any(), anyInt(), anyLong(), anyLong(), eq("abc"));
+        verify(minioRepository).completeMultipartUpload(eq("backup/big.img"), eq("upload-1"), any(), eq(false));
+    }
+
+    @Test
+    @DisplayName("Pinned copy of a source with another ETag fails before the upload is created")
+    void copy_sourceEtagChanged_failsWithoutUpload() {
+        assertThrows(ResourceAlreadyExistsMinioException.class,
+                () -> copier(3).copy("docs/big.img", "backup/big.img", false, "old"));
+
+        verify(minioRepository, never()).createMultipartUpload(any(), any());
+    }
+
+    @Test
+    @DisplayName("Aborts without copying the part again once the source changed during the copy")
+    void copy_sourceChangedDuringCopy_abortsWithoutRetry() {
+        when(minioRepository.copyPart(eq("docs/big.img"), eq("backup/big.img"), eq("upload-1"), eq(2), anyLong(), anyLong(), any()))
+                .thenThrow(new ResourceAlreadyExistsMinioException("Source changed while it was copied: docs/big.img"));
+
+        assertThrows(ResourceAlreadyExistsMinioException.class,
+                () -> copier(3).copy("docs/big.img", "backup/big.img", false, "abc"));
+
+        verify(minioRepository, times(1)).copyPart(any(), any(), any(), eq(2), anyLong(), anyLong(), any());
+        verify(minioRepository).abortMultipartUpload("backup/big.img", "upload-1");
+        verify(minioRepository, never()).completeMultipartUpload(any(), any(), any(), anyBoolean());
+    }
+
+    private MultipartObjectCopier copier(int maxAttempts) {
+        return new MultipartObjectCopier(minioRepository, Executors.newVirtualThreadPerTaskExecutor(), PART_SIZE, 2, maxAttempts);
+    }
+}
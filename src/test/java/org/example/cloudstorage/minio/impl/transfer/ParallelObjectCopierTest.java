@@ -0,0 +1,173 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import io.minio.StatObjectResponse;
+import io.minio.messages.Part;
+import okhttp3.Headers;
+import org.example.cloudstorage.exception.OperationCancelledException;
+import org.example.cloudstorage.exception.minio.InvalidPathMinioException;
+import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.exception.minio.ResourceAlreadyExistsMinioException;
+import org.example.cloudstorage.exception.minio.ThrottledMinioException;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.model.StoredObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ParallelObjectCopierTest {
+
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final Set<String> deleted = ConcurrentHashMap.newKeySet();
+    private final List<String> sources = IntStream.range(0, 10).mapToObj(i -> "from/file" + i).toList();
+
+    ParallelObjectCopierTest() {
+        doAnswer(i -> {
+            List<String> batch = i.getArgument(0);
+            assertTrue(batch.size() <= 3);
+            deleted.addAll(batch);
+            return null;
+        }).when(minioRepository).deleteObjects(anyList());
+    }
+
+    @Test
+    @DisplayName("Copies every object and deletes the sources in batches")
+    void move_copiesAndDeletesInBatches() {
+        copier(3).move(sources, source -> source.replace("from/", "to/"));
+
+        for (String source : sources) {
+            verify(minioRepository).copy(source, source.replace("from/", "to/"));
+        }
+        assertEquals(Set.copyOf(sources), deleted);
+        verify(minioRepository, atLeast(4)).deleteObjects(anyList());
+    }
+
+    @Test
+    @DisplayName("A throttled copy is copied again")
+    void move_throttled_retries() {
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(i -> {
+            if (calls.getAndIncrement() < 2) throw new ThrottledMinioException("SlowDown");
+            return null;
+        }).when(minioRepository).copy(eq("from/file4"), any());
+
+        copier(3).move(sources, source -> source.replace("from/", "to/"));
+
+        verify(minioRepository, times(3)).copy("from/file4", "to/file4");
+        assertEquals(Set.copyOf(sources), deleted);
+    }
+
+    @Test
+    @DisplayName("A copy failing on every attempt fails the move, sources of finished copies are deleted")
+    void move_copyFailsEveryAttempt_throwsAfterDeletingFinished() {
+        doThrow(new MinioException("Connection reset")).when(minioRepository).copy(eq("from/file4"), any());
+
+        assertThrows(MinioException.class, () -> copier(3).move(sources, source -> source.replace("from/", "to/")));
+
+        verify(minioRepository, times(3)).copy("from/file4", "to/file4");
+        assertFalse(deleted.contains("from/file4"));
+        for (String source : deleted) {
+            verify(minioRepository).copy(source, source.replace("from/", "to/"));
+        }
+    }
+
+    @Test
+    @DisplayName("Cancelling stops starting copies, sources of finished copies are deleted")
+    void move_cancelled_stopsAfterRunningCopies() {
+        Set<String> copied = ConcurrentHashMap.newKeySet();
+
+        assertThrows(OperationCancelledException.class, () -> copier(3).move(
+                storedObjects(0), source -> source.replace("from/", "to/"),
+                object -> copied.add(object.name()), () -> copied.size() >= 4));
+
+        verify(minioRepository, atMost(9)).copy(any(), any());
+        assertEquals(copied, deleted);
+        assertTrue(copied.size() >= 4);
+    }
+
+    @Test
+    @DisplayName("A copy failing because of the request is not retried")
+    void move_invalidCopy_failsWithoutRetry() {
+        doThrow(new InvalidPathMinioException("Source does not exist")).when(minioRepository).copy(eq("from/file0"), any());
+
+        assertThrows(InvalidPathMinioException.class, () ->
+                copier(3).move(sources, source -> source.replace("from/", "to/")));
+
+        verify(minioRepository, times(1)).copy("from/file0", "to/file0");
+    }
+
+    @Test
+    @DisplayName("A copy keeps the sources")
+    void copy_copiesWithoutDeleting() {
+        Set<String> copied = ConcurrentHashMap.newKeySet();
+
+        copier(3).copy(storedObjects(0), source -> source.replace("from/", "to/"),
+                object -> copied.add(object.name()), () -> false);
+
+        assertEquals(Set.copyOf(sources), copied);
+        verify(minioRepository, never()).deleteObjects(anyList());
+    }
+
+    @Test
+    @DisplayName("Objects from the multipart threshold on are copied in parts")
+    void copy_bigObjects_areCopiedInParts() {
+        MultipartObjectCopier multipartCopier = mock(MultipartObjectCopier.class);
+        when(minioRepository.copiesContent(any())).thenReturn(true);
+        List<StoredObject> objects = List.of(new StoredObject("from/small", 10, "a"), new StoredObject("from/big", 100, "b"));
+
+        new ParallelObjectCopier(minioRepository, Executors.newVirtualThreadPerTaskExecutor(), 4, 3,
+                Duration.ofMillis(1), 3, multipartCopier, 100)
+                .copy(objects, source -> source.replace("from/", "to/"), object -> {
+                }, () -> false);
+
+        verify(minioRepository).copy("from/small", "to/small");
+        verify(multipartCopier).copy("from/big", "to/big", true);
+        verify(minioRepository, never()).copy(eq("from/big"), any());
+    }
+
+    @Test
+    @DisplayName("A resumed move overwrites a big object copied before the move stopped")
+    void move_bigObjectCopiedAlready_isOverwritten() {
+        when(minioRepository.copiesContent(any())).thenReturn(true);
+        when(minioRepository.getObject("from/big")).thenReturn(new StatObjectResponse(Headers.of(
+                "Content-Length", "100",
+                "Content-Type", "image/png",
+                "ETag", "\"abc\"",
+                "Last-Modified", "Fri, 02 Jan 2026 03:04:05 GMT"), "bucket", null, "from/big"));
+        when(minioRepository.createMultipartUpload("to/big", "image/png")).thenReturn("upload-1");
+        when(minioRepository.copyPart("from/big", "to/big", "upload-1", 1, 0, 100, null)).thenReturn(new Part(1, "etag-1"));
+        // the target is left from the stopped move
+        doThrow(new ResourceAlreadyExistsMinioException("to/big"))
+                .when(minioRepository).completeMultipartUpload(eq("to/big"), eq("upload-1"), any(), eq(false));
+        MultipartObjectCopier multipartCopier = new MultipartObjectCopier(
+                minioRepository, Executors.newVirtualThreadPerTaskExecutor(), 5L * 1024 * 1024, 2, 1);
+        List<StoredObject> objects = List.of(new StoredObject("from/small", 10, "a"), new StoredObject("from/big", 100, "b"));
+
+        new ParallelObjectCopier(minioRepository, Executors.newVirtualThreadPerTaskExecutor(), 4, 3,
+                Duration.ofMillis(1), 3, multipartCopier, 100)
+                .move(objects, source -> source.replace("from/", "to/"), object -> {
+                }, () -> false);
+
+        verify(minioRepository).completeMultipartUpload(eq("to/big"), eq("upload-1"), any(), eq(true));
+        assertEquals(Set.of("from/small", "from/big"), deleted);
+    }
+
+    private List<StoredObject> storedObjects(long size) {
+        return sources.stream().map(source -> new StoredObject(source, size, null)).toList();
+    }
+
+    private ParallelObjectCopier copier(int deleteBatchSize) {
+        return new ParallelObjectCopier(
+                minioRepository, Executors.newVirtualThreadPerTaskExecutor(), 4, 3, Duration.ofMillis(1), deleteBatchSize);
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import io.minio.messages.Part;
+import org.example.cloudstorage.exception.minio.MinioException;
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.util.MemoryBudget;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ParallelObjectUploaderTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final MemoryBudget memoryBudget = new MemoryBudget(4L * PART_SIZE);
+    private final byte[] content = new byte[2 * PART_SIZE + 1234];
+    private final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<>();
+
+    ParallelObjectUploaderTest() {
+        new Random(13).nextBytes(content);
+        when(minioRepository.createMultipartUpload("docs/big.img", "image/png")).thenReturn("upload-1");
+        when(minioRepository.uploadPart(eq("docs/big.img"), eq("upload-1"), anyInt(), any(), anyInt()))
+                .thenAnswer(i -> {
+                    int partNumber = i.getArgument(2);
+                    byte[] data = i.getArgument(3);
+                    uploadedParts.put(partNumber, Arrays.copyOf(data, (int) i.getArgument(4)));
+                    return new Part(partNumber, "etag-" + partNumber);
+                });
+    }
+
+    @Test
+    @DisplayName("Uploads every part and completes the upload with the parts in order and the checksum of the content")
+    void upload_unknownSize_uploadsPartsAndCompletes() {
+        String name = uploader(3).upload("docs/", new ByteArrayInputStream(content), -1, "big.img", "image/png");
+
+        assertEquals("docs/big.img", name);
+        assertArrayEquals(content, joinedParts());
+        ArgumentCaptor<Part[]> parts = ArgumentCaptor.forClass(Part[].class);
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        verify(minioRepository).completeMultipartUpload(
+                eq("docs/big.img"), eq("upload-1"), parts.capture(), eq(false), eq(crc.getValue()));
+        assertEquals(3, parts.getValue().length);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 1, parts.getValue()[i].partNumber());
+        }
+        assertEquals(0, memoryBudget.getUsed());
+    }
+
+    @Test
+    @DisplayName("Uploads a failed part again")
+    void upload_failingPart_isRetried() {
+        AtomicInteger failures = new AtomicInteger();
+        when(minioRepository.uploadPart(eq("docs/big.img"), eq("upload-1"), eq(2), any(), anyInt()))
+                .thenAnswer(i -> {
+                    if (failures.getAndIncrement() == 0) throw new MinioException("Connection reset");
+                    uploadedParts.put(2, Arrays.copyOf((byte[]) i.getArgument(3), (int) i.getArgument(4)));
+                    return new Part(2, "etag-2");
+                });
+
+        uploader(3).upload("docs/", new ByteArrayInputStream(content), content.length, "big.img", "image/png");
+
+        assertArrayEquals(content, joinedParts());
+        verify(minioRepository).completeMultipartUpload(eq("docs/big.img"), eq("upload-1"), any(), eq(false), anyLong());
+    }
+
+    @Test
+    @DisplayName("Aborts the upload once a part fails on every attempt")
+    void upload_partFailsEveryAttempt_aborts() {
+        when(minioRepository.uploadPart(eq("docs/big.img"), eq("upload-1"), eq(2), any(), anyInt()))
+                .thenThrow(new MinioException("Connection reset"));
+
+        assertThrows(MinioException.class, () ->
+                uploader(2).upload("docs/", new ByteArrayInputStream(content), -1, "big.img", "image/png"));
+
+        verify(minioRepository, times(2)).uploadPart(eq("docs/big.img"), eq("upload-1"), eq(2), any(), anyInt());
+        verify(minioRepository).abortMultipartUpload("docs/big.img", "upload-1");
+        verify(minioRepository, never()).completeMultipartUpload(any(), any(), any(), anyBoolean(), anyLong());
+        assertEquals(0, memoryBudget.getUsed());
+    }
+
+    @Test
+    @DisplayName("A stream shorter than one part is uploaded with a single PUT")
+    void upload_smallStream_usesSinglePut() {
+        byte[] small = Arrays.copyOf(content, 1000);
+        when(minioRepository.uploadObject(eq("docs/"), any(InputStream.class), eq(1000L), eq(-1L), eq("small.txt"), eq("text/plain"), eq(false)))
+                .thenReturn("docs/small.txt");
+
+        assertEquals("docs/small.txt",
+                uploader(3).upload("docs/", new ByteArrayInputStream(small), -1, "small.txt", "text/plain"));
+
+        verify(minioRepository, never()).createMultipartUpload(any(), any());
+    }
+
+    @Test
+    @DisplayName("Uploads over a single connection when part memory is exhausted")
+    void upload_memoryExhausted_fallsBackToSingleConnection() {
+        memoryBudget.tryReserve(3L * PART_SIZE);
+        InputStream stream = new ByteArrayInputStream(content);
+
+        uploader(3).upload("docs/", stream, -1, "big.img", "image/png");
+
+        verify(minioRepository).uploadObject("docs/", stream, -1, PART_SIZE, "big.img", "image/png", false);
+        verify(minioRepository, never()).createMultipartUpload(any(), any());
+    }
+
+    private ParallelObjectUploader uploader(int maxAttempts) {
+        return new ParallelObjectUploader(
+                minioRepository, Executors.newVirtualThreadPerTaskExecutor(), memoryBudget, PART_SIZE, 3, maxAttempts);
+    }
+
+    private byte[] joinedParts() {
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (int i = 1; i <= uploadedParts.size(); i++) {
+            joined.writeBytes(uploadedParts.get(i));
+        }
+        return joined.toByteArray();
+    }
+}
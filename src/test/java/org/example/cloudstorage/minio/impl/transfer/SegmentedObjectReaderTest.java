@@ -0,0 +1,106 @@
+package org.example.cloudstorage.minio.impl.transfer;
+
+import org.example.cloudstorage.minio.impl.MinioRepository;
+import org.example.cloudstorage.util.MemoryBudget;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SegmentedObjectReaderTest {
+
+    private static final int SEGMENT_SIZE = 1000;
+
+    private final MinioRepository minioRepository = mock(MinioRepository.class);
+    private final MemoryBudget memoryBudget = new MemoryBudget(1_000_000);
+    private final byte[] content = new byte[10_500];
+
+    SegmentedObjectReaderTest() {
+        new Random(5).nextBytes(content);
+        when(minioRepository.downloadObject(eq("big.img"), anyLong(), anyLong()))
+                .thenAnswer(i -> slice(i.getArgument(1), i.getArgument(2)));
+    }
+
+    @Test
+    @DisplayName("Writes every segment of the range in order")
+    void copy_writesSegmentsInOrder() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reader(Duration.ofSeconds(10), 1).copy("big.img", 0, content.length - 1, out);
+
+        assertArrayEquals(content, out.toByteArray());
+        verify(minioRepository, times(11)).downloadObject(eq("big.img"), anyLong(), anyLong());
+        assertEquals(0, memoryBudget.getUsed());
+    }
+
+    @Test
+    @DisplayName("Writes a range which does not start at a segment boundary")
+    void copy_range_writesOnlyTheRange() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reader(Duration.ofSeconds(10), 1).copy("big.img", 1234, 5678, out);
+
+        assertArrayEquals(Arrays.copyOfRange(content, 1234, 5679), out.toByteArray());
+    }
+
+    @Test
+    @DisplayName("Fetches a stalled segment again")
+    void copy_stalledSegment_isRetried() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        when(minioRepository.downloadObject("big.img", 3000, SEGMENT_SIZE)).thenAnswer(i -> {
+            if (calls.incrementAndGet() == 1) Thread.sleep(60_000);
+            return slice(3000L, (long) SEGMENT_SIZE);
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reader(Duration.ofMillis(200), 2).copy("big.img", 0, content.length - 1, out);
+
+        assertArrayEquals(content, out.toByteArray());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Fails once a segment has failed on every attempt")
+    void copy_segmentFailsEveryTime_throws() {
+        when(minioRepository.downloadObject("big.img", 2000, SEGMENT_SIZE)).thenAnswer(i -> {
+            throw new IOException("Connection reset");
+        });
+
+        assertThrows(IOException.class, () ->
+                reader(Duration.ofSeconds(10), 3).copy("big.img", 0, content.length - 1, new ByteArrayOutputStream()));
+        verify(minioRepository, times(3)).downloadObject("big.img", 2000, SEGMENT_SIZE);
+        assertEquals(0, memoryBudget.getUsed());
+    }
+
+    @Test
+    @DisplayName("Streams over one connection when the memory budget is exhausted")
+    void copy_budgetExhausted_streamsDirectly() throws Exception {
+        memoryBudget.tryReserve(memoryBudget.getLimit());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        reader(Duration.ofSeconds(10), 1).copy("big.img", 0, content.length - 1, out);
+
+        assertArrayEquals(content, out.toByteArray());
+        verify(minioRepository).downloadObject("big.img", 0, content.length);
+    }
+
+    private SegmentedObjectReader reader(Duration stallTimeout, int maxAttempts) {
+        return new SegmentedObjectReader(minioRepository, Executors.newVirtualThreadPerTaskExecutor(),
+                memoryBudget, SEGMENT_SIZE, 4, stallTimeout, maxAttempts);
+    }
+
+    private InputStream slice(Long offset, Long length) {
+        return new ByteArrayInputStream(content, offset.intValue(), length.intValue());
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.cloudstorage.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExecutorUtilsTest {
+
+    @Test
+    @DisplayName("Running tasks finish, also when they submit work to a later executor")
+    void shutdown_runningTasks_finish() throws Exception {
+        ExecutorService outer = Executors.newVirtualThreadPerTaskExecutor();
+        ExecutorService inner = Executors.newVirtualThreadPerTaskExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        outer.submit(() -> {
+            started.countDown();
+            Thread.sleep(100);
+            finished.set(inner.submit(() -> true).get());
+            return null;
+        });
+        started.await();
+
+        ExecutorUtils.shutdown(List.of(outer, inner), Duration.ofSeconds(10));
+
+        assertTrue(finished.get());
+        assertTrue(outer.isTerminated());
+        assertTrue(inner.isTerminated());
+    }
+
+    @Test
+    @DisplayName("Tasks still running after the timeout are interrupted")
+    void shutdown_timeout_interruptsTasks() throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        executor.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(Duration.ofMinutes(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        started.await();
+
+        ExecutorUtils.shutdown(List.of(executor), Duration.ofMillis(50));
+
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+}
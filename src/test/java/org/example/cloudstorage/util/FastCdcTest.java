@@ -0,0 +1,74 @@
+package org.example.cloudstorage.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FastCdcTest {
+
+    private final FastCdc fastCdc = new FastCdc(512, 2048, 8192);
+
+    @Test
+    @DisplayName("Chunks cover the content and respect the size limits")
+    void chunk_randomContent_coversContentWithinLimits() throws IOException {
+        byte[] content = random(300_000, 1);
+
+        List<FastCdc.Chunk> chunks = fastCdc.chunk(new ByteArrayInputStream(content));
+
+        long offset = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            FastCdc.Chunk chunk = chunks.get(i);
+            assertEquals(offset, chunk.offset());
+            assertTrue(chunk.length() <= 8192);
+            if (i < chunks.size() - 1) assertTrue(chunk.length() >= 512);
+            offset += chunk.length();
+        }
+        assertEquals(content.length, offset);
+    }
+
+    @Test
+    @DisplayName("Inserting bytes changes only the chunks around the insertion")
+    void chunk_insertion_keepsOtherChunks() throws IOException {
+        byte[] content = random(300_000, 2);
+        byte[] edited = new byte[content.length + 100];
+        System.arraycopy(content, 0, edited, 0, 150_000);
+        System.arraycopy(random(100, 3), 0, edited, 150_000, 100);
+        System.arraycopy(content, 150_000, edited, 150_100, content.length - 150_000);
+
+        Set<String> original = hashes(fastCdc.chunk(new ByteArrayInputStream(content)));
+        List<FastCdc.Chunk> editedChunks = fastCdc.chunk(new ByteArrayInputStream(edited));
+        long changed = editedChunks.stream().filter(chunk -> !original.contains(chunk.hash())).count();
+
+        assertTrue(changed <= 3, "changed chunks: " + changed);
+    }
+
+    @Test
+    @DisplayName("Empty content has no chunks")
+    void chunk_empty_returnsNoChunks() throws IOException {
+        assertTrue(fastCdc.chunk(new ByteArrayInputStream(new byte[0])).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Average size has to be a power of two")
+    void constructor_avgNotPowerOfTwo_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new FastCdc(512, 3000, 8192));
+    }
+
+    private static Set<String> hashes(List<FastCdc.Chunk> chunks) {
+        return chunks.stream().map(FastCdc.Chunk::hash).collect(Collectors.toSet());
+    }
+
+    private static byte[] random(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
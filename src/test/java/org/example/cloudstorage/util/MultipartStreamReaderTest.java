@@ -0,0 +1,115 @@
+package org.example.cloudstorage.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartStreamReaderTest {
+
+    private static final String BOUNDARY = "----boundary42";
+
+    @Test
+    @DisplayName("Reads fields and files with their headers, skipping the preamble")
+    void nextPart_readsAllParts() throws IOException {
+        String body = "preamble\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"note\"\r\n"
+                + "\r\n"
+                + "hello\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"object\"; filename=\"a.txt\"\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "\r\n"
+                + "line 1\r\nline 2\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+        MultipartStreamReader reader = reader(body, 64);
+
+        MultipartStreamReader.Part note = reader.nextPart();
+        assertEquals("note", note.name());
+        assertNull(note.fileName());
+        assertEquals("hello", read(note.content()));
+
+        MultipartStreamReader.Part file = reader.nextPart();
+        assertEquals("object", file.name());
+        assertEquals("a.txt", file.fileName());
+        assertEquals("text/plain", file.contentType());
+        assertEquals("line 1\r\nline 2", read(file.content()));
+
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    @DisplayName("Content resembling the boundary across buffer refills stays intact")
+    void nextPart_boundaryPrefixInContent_isKept() throws IOException {
+        String content = ("x\r\n--" + BOUNDARY.substring(0, 6) + "y").repeat(50);
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"object\"; filename=\"b.bin\"\r\n"
+                + "\r\n"
+                + content + "\r\n"
+                + "--" + BOUNDARY + "--";
+        MultipartStreamReader reader = new MultipartStreamReader(
+                new OneByteAtATime(body.getBytes(StandardCharsets.UTF_8)), BOUNDARY, 40);
+
+        assertEquals(content, read(reader.nextPart().content()));
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    @DisplayName("An unread part is skipped by the next call")
+    void nextPart_unreadPart_isSkipped() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"first\"\r\n\r\n"
+                + "ignored\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"second\"\r\n\r\n"
+                + "read\r\n"
+                + "--" + BOUNDARY + "--";
+        MultipartStreamReader reader = reader(body, 64);
+
+        reader.nextPart();
+        MultipartStreamReader.Part second = reader.nextPart();
+        assertEquals("second", second.name());
+        assertEquals("read", read(second.content()));
+    }
+
+    @Test
+    @DisplayName("A body cut off inside a part is rejected")
+    void nextPart_truncatedBody_throws() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"object\"; filename=\"c.txt\"\r\n\r\n"
+                + "no closing boundary";
+        MultipartStreamReader reader = reader(body, 64);
+
+        MultipartStreamReader.Part part = reader.nextPart();
+        assertThrows(IOException.class, () -> read(part.content()));
+    }
+
+    private static MultipartStreamReader reader(String body, int bufferSize) {
+        return new MultipartStreamReader(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), BOUNDARY, bufferSize);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns one byte per read, like a slow connection.
+     */
+    private static class OneByteAtATime extends ByteArrayInputStream {
+        OneByteAtATime(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+}